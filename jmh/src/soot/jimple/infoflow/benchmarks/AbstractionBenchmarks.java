@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.RefType;
+import soot.SootClass;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionState;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.FieldChain;
+import soot.jimple.infoflow.source.SourceInfo;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Measures the hashing of abstractions, which happens whenever the solver
+ * looks up an abstraction in its jump functions, and the lookup of freshly
+ * derived abstractions in a hash set of existing ones
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AbstractionBenchmarks {
+
+	private static final int FIELD_COUNT = 3;
+	private static final int LOCAL_COUNT = 64;
+
+	@Param({ "false", "true" })
+	public boolean canonicalization;
+
+	private Abstraction sourceAbs;
+	private AccessPath[] accessPaths;
+	private Stmt[] stmts;
+	private Set<Abstraction> existing;
+	private int next = 0;
+
+	@Setup
+	public void createAbstractions() {
+		soot.G.reset();
+		FieldChain.reset();
+		AbstractionState.setCanonicalizationEnabled(canonicalization);
+
+		SootField[] fields = new SootField[FIELD_COUNT];
+		Type[] fieldTypes = new Type[FIELD_COUNT];
+		for (int i = 0; i < FIELD_COUNT; i++) {
+			SootClass declaringClass = new SootClass("Node" + i);
+			fieldTypes[i] = RefType.v("Node" + (i + 1));
+			fields[i] = new SootField("next" + i, fieldTypes[i]);
+			declaringClass.addField(fields[i]);
+		}
+
+		// Taints on different locals with different numbers of fields, as
+		// they are created when a taint travels through a method
+		accessPaths = new AccessPath[LOCAL_COUNT];
+		stmts = new Stmt[LOCAL_COUNT];
+		for (int i = 0; i < LOCAL_COUNT; i++) {
+			JimpleLocal local = new JimpleLocal("l" + i, RefType.v("Node0"));
+			AccessPath ap = new AccessPath(local, true);
+			for (int j = 0; j < i % (FIELD_COUNT + 1); j++)
+				ap = ap.appendFields(new SootField[] { fields[j] },
+						new Type[] { fieldTypes[j] }, true);
+			accessPaths[i] = ap;
+			stmts[i] = Jimple.v().newNopStmt();
+		}
+
+		JimpleLocal sourceLocal = new JimpleLocal("source", RefType.v("Node0"));
+		sourceAbs = new Abstraction(sourceLocal, new SourceInfo(true),
+				new AccessPath(sourceLocal, true), Jimple.v().newNopStmt(), false, false);
+
+		existing = new HashSet<Abstraction>();
+		for (int i = 0; i < LOCAL_COUNT; i++)
+			existing.add(sourceAbs.deriveNewAbstraction(accessPaths[i], stmts[i]));
+	}
+
+	@TearDown
+	public void resetCanonicalization() {
+		AbstractionState.setCanonicalizationEnabled(false);
+	}
+
+	@Benchmark
+	public int deriveAndHash() {
+		int idx = next++ & (LOCAL_COUNT - 1);
+		return sourceAbs.deriveNewAbstraction(accessPaths[idx], stmts[idx]).hashCode();
+	}
+
+	@Benchmark
+	public boolean deriveAndLookup() {
+		int idx = next++ & (LOCAL_COUNT - 1);
+		return existing.contains(sourceAbs.deriveNewAbstraction(accessPaths[idx], stmts[idx]));
+	}
+
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import soot.RefType;
+import soot.SootClass;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.FieldChain;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Measures the derivation of access paths by appending and dropping fields,
+ * and the comparison and hashing of access paths that have been derived
+ * separately
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessPathBenchmarks {
+
+	@Param({ "1", "3", "5" })
+	public int fieldCount;
+
+	private JimpleLocal base;
+	private SootField[][] singleFields;
+	private Type[][] singleFieldTypes;
+
+	private AccessPath path;
+	private AccessPath equalPath;
+
+	/**
+	 * Creates a chain of fields with pairwise different types, so that the
+	 * access paths are not shortened as recursive data structures
+	 */
+	@Setup
+	public void createFields() {
+		soot.G.reset();
+		FieldChain.reset();
+		singleFields = new SootField[fieldCount][];
+		singleFieldTypes = new Type[fieldCount][];
+		for (int i = 0; i < fieldCount; i++) {
+			SootClass declaringClass = new SootClass("Node" + i);
+			Type fieldType = RefType.v("Node" + (i + 1));
+			SootField field = new SootField("next" + i, fieldType);
+			declaringClass.addField(field);
+			singleFields[i] = new SootField[] { field };
+			singleFieldTypes[i] = new Type[] { fieldType };
+		}
+		base = new JimpleLocal("base", RefType.v("Node0"));
+
+		path = appendAll();
+		equalPath = appendAll();
+	}
+
+	private AccessPath appendAll() {
+		AccessPath ap = new AccessPath(base, true);
+		for (int i = 0; i < fieldCount; i++)
+			ap = ap.appendFields(singleFields[i], singleFieldTypes[i], true);
+		return ap;
+	}
+
+	@Benchmark
+	public AccessPath appendFields() {
+		return appendAll();
+	}
+
+	@Benchmark
+	public void dropFields(Blackhole bh) {
+		AccessPath front = path;
+		AccessPath back = path;
+		for (int i = 0; i < fieldCount; i++) {
+			front = front.dropFirstField();
+			back = back.dropLastField();
+			bh.consume(front);
+			bh.consume(back);
+		}
+	}
+
+	@Benchmark
+	public boolean equalsDerived() {
+		return path.equals(equalPath);
+	}
+
+	@Benchmark
+	public int hashCodeDerived() {
+		return appendAll().hashCode();
+	}
+
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.RefType;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.infoflow.IInfoflow.JumpFunctionsBackend;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.solver.fastSolver.CompactJumpFunctions;
+import soot.jimple.infoflow.solver.fastSolver.JumpFunctions;
+import soot.jimple.infoflow.source.SourceInfo;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Measures the insertion of path edges into the jump functions while several
+ * threads work on the same table, as the worker threads of the solver do.
+ * The threads draw their edges from a shared pool, so that they both add new
+ * edges and find edges that another thread has added before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JumpFunctionsBenchmarks {
+
+	private static final int TARGET_COUNT = 256;
+	private static final int CONTEXT_COUNT = 8;
+	private static final int FACT_COUNT = 512;
+
+	@Param({ "HashMap", "Compact" })
+	public JumpFunctionsBackend backend;
+
+	private Unit[] targets;
+	private Abstraction[] contexts;
+	private Abstraction[] facts;
+	private JumpFunctions<Unit, Abstraction> jumpFn;
+
+	private final AtomicInteger threadSeeds = new AtomicInteger();
+
+	/**
+	 * Per-thread generator for the edges to insert
+	 */
+	@State(Scope.Thread)
+	public static class EdgeGenerator {
+
+		private int state;
+
+		@Setup
+		public void seed(JumpFunctionsBenchmarks benchmark) {
+			state = 0x9E3779B9 * (benchmark.threadSeeds.incrementAndGet());
+		}
+
+		int next() {
+			// xorshift, cheap enough not to dominate the measurement
+			state ^= state << 13;
+			state ^= state >>> 17;
+			state ^= state << 5;
+			return state & 0x7fffffff;
+		}
+
+	}
+
+	@Setup
+	public void createEdges() {
+		soot.G.reset();
+		targets = new Unit[TARGET_COUNT];
+		for (int i = 0; i < TARGET_COUNT; i++)
+			targets[i] = Jimple.v().newNopStmt();
+
+		JimpleLocal sourceLocal = new JimpleLocal("source", RefType.v("java.lang.String"));
+		Abstraction sourceAbs = new Abstraction(sourceLocal, new SourceInfo(true),
+				new AccessPath(sourceLocal, true), Jimple.v().newNopStmt(), false, false);
+		contexts = new Abstraction[CONTEXT_COUNT];
+		for (int i = 0; i < CONTEXT_COUNT; i++)
+			contexts[i] = sourceAbs.deriveNewAbstraction(new AccessPath(new JimpleLocal("c" + i,
+					RefType.v("java.lang.String")), true), null);
+		facts = new Abstraction[FACT_COUNT];
+		for (int i = 0; i < FACT_COUNT; i++)
+			facts[i] = sourceAbs.deriveNewAbstraction(new AccessPath(new JimpleLocal("f" + i,
+					RefType.v("java.lang.String")), true), null);
+	}
+
+	/**
+	 * Starts every iteration with an empty table, so that all iterations see
+	 * the same mix of new and existing edges
+	 */
+	@Setup(Level.Iteration)
+	public void createTable() {
+		jumpFn = backend == JumpFunctionsBackend.Compact
+				? new CompactJumpFunctions<Unit, Abstraction>()
+				: new JumpFunctions<Unit, Abstraction>();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Abstraction addFunction(EdgeGenerator generator) {
+		int rnd = generator.next();
+		return jumpFn.addFunction(contexts[rnd % CONTEXT_COUNT],
+				targets[(rnd >>> 3) % TARGET_COUNT],
+				facts[(rnd >>> 11) % FACT_COUNT]);
+	}
+
+}
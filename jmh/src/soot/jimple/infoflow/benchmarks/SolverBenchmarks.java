@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.results.InfoflowResults;
+
+/**
+ * Measures the complete data flow analysis, i.e. building the callgraph and
+ * running the solvers, on some of the targets from the junit tests. Every
+ * invocation starts from a fresh Soot instance, so this benchmark must be
+ * run from the project directory after the test classes have been built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SolverBenchmarks {
+
+	@Param({ "<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+			"<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void tripleAliasTest()>" })
+	public String entryPoint;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private String appPath;
+	private String libPath;
+	private List<String> sources;
+	private List<String> sinks;
+
+	@Setup
+	public void createPaths() throws IOException {
+		final String sep = System.getProperty("path.separator");
+		File testSrc1 = new File("bin");
+		File testSrc2 = new File("build" + File.separator + "classes");
+		File testSrc3 = new File("build" + File.separator + "testclasses");
+		if (!testSrc3.exists())
+			throw new RuntimeException("Test classes not found, run the benchmarks "
+					+ "from the project directory after building the tests");
+
+		appPath = testSrc1.getCanonicalPath()
+				+ sep + testSrc2.getCanonicalPath()
+				+ sep + testSrc3.getCanonicalPath();
+		libPath = System.getProperty("java.home") + File.separator + "lib" + File.separator + "rt.jar";
+
+		// Same sources and sinks as in the junit tests
+		sources = new ArrayList<String>();
+		sources.add("<soot.jimple.infoflow.test.android.AccountManager: java.lang.String getPassword()>");
+		sources.add("<soot.jimple.infoflow.test.android.AccountManager: java.lang.String[] getUserData(java.lang.String)>");
+		sources.add("<soot.jimple.infoflow.test.android.TelephonyManager: java.lang.String getDeviceId()>");
+		sources.add("<soot.jimple.infoflow.test.android.TelephonyManager: int getIMEI()>");
+		sources.add("<soot.jimple.infoflow.test.android.TelephonyManager: int getIMSI()>");
+		sources.add("<soot.jimple.infoflow.test.android.Bundle: java.lang.Object get(java.lang.String)>");
+		sources.add("<soot.jimple.infoflow.test.android.LocationManager: double getLongitude()>");
+
+		sinks = new ArrayList<String>();
+		sinks.add("<soot.jimple.infoflow.test.android.ConnectionManager: void publish(java.lang.String)>");
+		sinks.add("<soot.jimple.infoflow.test.android.ConnectionManager: void publish(int)>");
+		sinks.add("<soot.jimple.infoflow.test.android.ConnectionManager: void publish(boolean)>");
+		sinks.add("<soot.jimple.infoflow.test.android.ConnectionManager: void publish(java.lang.Double)>");
+	}
+
+	@Setup(Level.Invocation)
+	public void resetSoot() {
+		soot.G.reset();
+	}
+
+	@Benchmark
+	public int computeInfoflow() {
+		Infoflow infoflow = new Infoflow();
+		infoflow.setSootConfig(new ConfigForTest());
+		infoflow.setMaxThreadNum(threads);
+		infoflow.computeInfoflow(appPath, libPath, Collections.singletonList(entryPoint),
+				sources, sinks);
+		if (!infoflow.isResultAvailable())
+			throw new RuntimeException("Data flow analysis did not produce a result");
+		InfoflowResults results = infoflow.getResults();
+		return results.size();
+	}
+
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import soot.Transform;
 import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
+import soot.jimple.infoflow.sharding.IShardWorkerConfigurator;
 import soot.jimple.infoflow.source.DefaultSourceSinkManager;
 import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
 
@@ -28,12 +29,36 @@ public abstract class AbstractInfoflow implements IInfoflow {
 	
 	protected boolean inspectSources = false;
 	protected boolean inspectSinks = false;
+	protected boolean enableMethodBatching = false;
+	protected boolean enableMergePointChecking = false;
+	protected String summaryCacheFile = null;
+	protected String incrementalStateFile = null;
+	protected long dataFlowTimeout = -1;
+	protected double memoryThreshold = -1;
+	protected int maxPathsPerPair = -1;
+	protected int maxPathLength = -1;
+	protected long pathBuildingSinkTimeout = -1;
+	protected boolean enableSparsePropagation = false;
+	protected boolean enableAbstractionCanonicalization = false;
+	protected boolean enableResultsOnlyMode = false;
+	protected boolean enableSinkFirstAnalysis = false;
+	protected boolean enableLazyPathReconstruction = false;
 	
 	protected final BiDirICFGFactory icfgFactory;
 	protected int maxThreadNum = -1;
 
 	protected CallgraphAlgorithm callgraphAlgorithm = /*CallgraphAlgorithm.OnDemand;*/ CallgraphAlgorithm.AutomaticSelection;
 	protected AliasingAlgorithm aliasingAlgorithm = AliasingAlgorithm.FlowSensitive;
+	protected SchedulingStrategy schedulingStrategy = SchedulingStrategy.ThreadPool;
+	protected SolverPoolMode solverPoolMode = SolverPoolMode.Shared;
+	protected int forwardSolverWeight = 3;
+	protected int aliasSolverWeight = 1;
+	protected JumpFunctionsBackend jumpFunctionsBackend = JumpFunctionsBackend.HashMap;
+	
+	protected int shardCount = 1;
+	protected ShardTransport shardTransport = ShardTransport.File;
+	protected List<String> shardWorkerJvmArgs = Collections.emptyList();
+	protected Class<? extends IShardWorkerConfigurator> shardWorkerConfigurator = null;
 	
 	protected Collection<Transform> preProcessors = Collections.emptyList();
     
@@ -143,9 +168,122 @@ public abstract class AbstractInfoflow implements IInfoflow {
 		this.maxThreadNum = threadNum;
 	}
 
+	@Override
+	public void setSchedulingStrategy(SchedulingStrategy strategy) {
+		this.schedulingStrategy = strategy;
+	}
+
+	@Override
+	public void setSolverPoolMode(SolverPoolMode poolMode) {
+		this.solverPoolMode = poolMode;
+	}
+
+	@Override
+	public void setSolverWeights(int forwardWeight, int aliasWeight) {
+		if (forwardWeight < 1 || aliasWeight < 1)
+			throw new IllegalArgumentException("Solver weights must be positive");
+		this.forwardSolverWeight = forwardWeight;
+		this.aliasSolverWeight = aliasWeight;
+	}
+
+	@Override
+	public void setEnableMethodBatching(boolean enableMethodBatching) {
+		this.enableMethodBatching = enableMethodBatching;
+	}
+
+	@Override
+	public void setJumpFunctionsBackend(JumpFunctionsBackend backend) {
+		this.jumpFunctionsBackend = backend;
+	}
+
+	@Override
+	public void setEnableMergePointChecking(boolean enableMergePointChecking) {
+		this.enableMergePointChecking = enableMergePointChecking;
+	}
+
+	@Override
+	public void setSummaryCacheFile(String fileName) {
+		this.summaryCacheFile = fileName;
+	}
+
+	@Override
+	public void setIncrementalStateFile(String fileName) {
+		this.incrementalStateFile = fileName;
+	}
+
+	@Override
+	public void setDataFlowTimeout(long timeout) {
+		this.dataFlowTimeout = timeout;
+	}
+
+	@Override
+	public void setMemoryThreshold(double memoryThreshold) {
+		this.memoryThreshold = memoryThreshold;
+	}
+
+	@Override
+	public void setMaxPathsPerPair(int maxPathsPerPair) {
+		this.maxPathsPerPair = maxPathsPerPair;
+	}
+
+	@Override
+	public void setMaxPathLength(int maxPathLength) {
+		this.maxPathLength = maxPathLength;
+	}
+
+	@Override
+	public void setPathBuildingSinkTimeout(long timeout) {
+		this.pathBuildingSinkTimeout = timeout;
+	}
+
+	@Override
+	public void setEnableSparsePropagation(boolean enableSparsePropagation) {
+		this.enableSparsePropagation = enableSparsePropagation;
+	}
+
+	@Override
+	public void setEnableAbstractionCanonicalization(boolean enableAbstractionCanonicalization) {
+		this.enableAbstractionCanonicalization = enableAbstractionCanonicalization;
+	}
+
+	@Override
+	public void setEnableResultsOnlyMode(boolean enableResultsOnlyMode) {
+		this.enableResultsOnlyMode = enableResultsOnlyMode;
+	}
+
+	@Override
+	public void setEnableSinkFirstAnalysis(boolean enableSinkFirstAnalysis) {
+		this.enableSinkFirstAnalysis = enableSinkFirstAnalysis;
+	}
+
+	@Override
+	public void setEnableLazyPathReconstruction(boolean enableLazyPathReconstruction) {
+		this.enableLazyPathReconstruction = enableLazyPathReconstruction;
+	}
+
 	@Override
 	public void setIgnoreFlowsInSystemPackages(boolean ignoreFlowsInSystemPackages) {
 		this.ignoreFlowsInSystemPackages = ignoreFlowsInSystemPackages;
 	}
 	
+	@Override
+	public void setShardCount(int shardCount) {
+		this.shardCount = shardCount;
+	}
+	
+	@Override
+	public void setShardTransport(ShardTransport transport) {
+		this.shardTransport = transport;
+	}
+	
+	@Override
+	public void setShardWorkerJvmArgs(List<String> jvmArgs) {
+		this.shardWorkerJvmArgs = jvmArgs;
+	}
+	
+	@Override
+	public void setShardWorkerConfigurator(Class<? extends IShardWorkerConfigurator> configurator) {
+		this.shardWorkerConfigurator = configurator;
+	}
+	
 }
@@ -17,6 +17,7 @@ import soot.Transform;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
 import soot.jimple.infoflow.ipc.IIPCManager;
 import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.sharding.IShardWorkerConfigurator;
 import soot.jimple.infoflow.source.ISourceSinkManager;
 import soot.jimple.infoflow.taintWrappers.ITaintPropagationWrapper;
 /**
@@ -51,6 +52,86 @@ public interface IInfoflow {
 		 */
 		PtsBased
 	}
+	
+	/**
+	 * Enumeration containing the strategies for scheduling the tasks of the
+	 * data flow solvers and path builders on the worker threads
+	 */
+	public enum SchedulingStrategy {
+		/**
+		 * All worker threads share a single FIFO work queue
+		 */
+		ThreadPool,
+		/**
+		 * Every worker thread has its own deque. New tasks are put on the
+		 * local deque of the thread that created them, idle threads steal
+		 * work from the others.
+		 */
+		WorkStealing,
+		/**
+		 * All worker threads share a single work queue that is ordered by
+		 * the callgraph distance between the method in which an edge lies and
+		 * the closest method containing a sink. Edges close to sinks are
+		 * processed first, so that the first flow is found early.
+		 */
+		SinkDirected
+	}
+	
+	/**
+	 * Enumeration containing the ways in which the forward solver and the
+	 * alias solver can share the worker threads
+	 */
+	public enum SolverPoolMode {
+		/**
+		 * Both solvers submit their tasks to the same executor
+		 */
+		Shared,
+		/**
+		 * Every solver has a thread pool of its own. The threads are split
+		 * between the solvers according to their weights.
+		 */
+		Separate,
+		/**
+		 * Every solver has a work queue of its own. The worker threads of a
+		 * common pool take tasks from these queues according to the weights
+		 * of the solvers, so that a burst of alias queries cannot starve the
+		 * forward analysis.
+		 */
+		Weighted
+	}
+	
+	/**
+	 * Enumeration containing the data structures in which the data flow
+	 * solvers can store their jump functions
+	 */
+	public enum JumpFunctionsBackend {
+		/**
+		 * Every jump function is a path edge object in a concurrent hash map
+		 */
+		HashMap,
+		/**
+		 * Nodes and abstractions are mapped to integer ids and the jump
+		 * functions are stored as triples of these ids in primitive arrays
+		 */
+		Compact
+	}
+	
+	/**
+	 * Enumeration containing the ways in which the coordinator of a sharded
+	 * analysis exchanges jobs and results with its worker processes
+	 */
+	public enum ShardTransport {
+		/**
+		 * Jobs and results are written to temporary files. The results of a
+		 * worker are read once the worker process has terminated.
+		 */
+		File,
+		/**
+		 * Jobs and results are sent over local socket connections. The
+		 * results are merged while the workers are still running.
+		 */
+		Socket
+	}
 
 	/**
 	 * Sets the taint wrapper for deciding on taint propagation through black-box
@@ -233,6 +314,206 @@ public interface IInfoflow {
 	 */
 	public void setMaxThreadNum(int threadNum);
 	
+	/**
+	 * Sets the strategy for scheduling the tasks of the data flow solvers on
+	 * the worker threads
+	 * @param strategy The scheduling strategy to use
+	 */
+	public void setSchedulingStrategy(SchedulingStrategy strategy);
+	
+	/**
+	 * Sets how the forward solver and the alias solver share the worker
+	 * threads
+	 * @param poolMode The way in which the solvers share the worker threads
+	 */
+	public void setSolverPoolMode(SolverPoolMode poolMode);
+	
+	/**
+	 * Sets the shares of the worker threads for the forward solver and the
+	 * alias solver. With separate pools, the threads are split according to
+	 * these weights. With weighted sharing, the worker threads take tasks
+	 * from the solvers in this ratio as long as both have waiting tasks.
+	 * The weights have no effect if the solvers share a single executor.
+	 * @param forwardWeight The weight of the forward solver
+	 * @param aliasWeight The weight of the alias solver
+	 */
+	public void setSolverWeights(int forwardWeight, int aliasWeight);
+	
+	/**
+	 * Sets whether the data flow solvers shall group pending edges by the
+	 * method containing their target statement and process each group as one
+	 * batch
+	 * @param enableMethodBatching True if edges shall be processed in batches
+	 * per method, otherwise false
+	 */
+	public void setEnableMethodBatching(boolean enableMethodBatching);
+	
+	/**
+	 * Sets the data structure in which the data flow solvers shall store their
+	 * jump functions
+	 * @param backend The data structure for storing the jump functions
+	 */
+	public void setJumpFunctionsBackend(JumpFunctionsBackend backend);
+	
+	/**
+	 * Sets whether the data flow solvers shall only record jump functions at
+	 * merge points, i.e., at start points, statements with more than one
+	 * predecessor, and return sites of calls. This saves memory without
+	 * changing the results, but statements that are not merge points may be
+	 * processed more than once.
+	 * @param enableMergePointChecking True if jump functions shall only be
+	 * recorded at merge points, false if all jump functions shall be recorded
+	 */
+	public void setEnableMergePointChecking(boolean enableMergePointChecking);
+	
+	/**
+	 * Sets the file in which the end summaries of library methods are cached
+	 * across analysis runs. Summaries from this file are applied instead of
+	 * analyzing the respective methods again, and new summaries are written
+	 * back to it after the analysis. A summary is dropped when the method or
+	 * one of its transitive callees changes. Methods that start an alias
+	 * analysis, directly or in a callee, are never cached, because their
+	 * summaries cannot express the aliases found in the callers.
+	 * @param fileName The name of the summary cache file, or null to disable
+	 * the cache
+	 */
+	public void setSummaryCacheFile(String fileName);
+	
+	/**
+	 * Sets the file in which the end summaries of all methods, including
+	 * application methods, are kept for incremental re-analysis. In the next
+	 * run, the summaries of methods that changed, whose call edges changed,
+	 * or which transitively call such methods are dropped. Only end summaries
+	 * are kept. Jump functions and results are not, so the next run still
+	 * propagates through all methods without a summary and computes all
+	 * results anew. Methods that transitively call sources or sinks, or that
+	 * start an alias analysis, are never summarized and are thus always
+	 * analyzed again. This option supersedes the summary cache file.
+	 * @param fileName The name of the state file, or null to disable
+	 * incremental re-analysis
+	 */
+	public void setIncrementalStateFile(String fileName);
+	
+	/**
+	 * Sets the maximum time the data flow solvers may run. If this time is
+	 * exceeded, the solvers are stopped, and the flows found so far are
+	 * reported. The results are then marked as incomplete.
+	 * @param timeout The maximum time in seconds, or -1 for no limit
+	 */
+	public void setDataFlowTimeout(long timeout);
+	
+	/**
+	 * Sets the maximum fraction of the heap that may be in use while the data
+	 * flow solvers are running. If this threshold is exceeded, the solvers
+	 * are stopped, and the flows found so far are reported. The results are
+	 * then marked as incomplete.
+	 * @param memoryThreshold The maximum heap usage as a fraction of the
+	 * maximum heap size between 0 and 1, or -1 for no limit
+	 */
+	public void setMemoryThreshold(double memoryThreshold);
+	
+	/**
+	 * Sets the maximum number of paths that the path builder reports for a
+	 * single pair of source and sink. Once a pair exceeds this limit, no
+	 * further paths are reported for this pair, and the sink is recorded as
+	 * truncated in the results. Other sources of the same sink are still
+	 * reported. This only applies to path
+	 * builders that enumerate alternative paths, and only if the results
+	 * are not path-agnostic.
+	 * @param maxPathsPerPair The maximum number of paths per source and
+	 * sink, or -1 for no limit
+	 */
+	public void setMaxPathsPerPair(int maxPathsPerPair);
+	
+	/**
+	 * Sets the maximum length of the propagation paths that the path builder
+	 * reconstructs. Longer paths are discarded, and their sinks are recorded
+	 * as truncated in the results.
+	 * @param maxPathLength The maximum number of abstractions on a path, or
+	 * -1 for no limit
+	 */
+	public void setMaxPathLength(int maxPathLength);
+	
+	/**
+	 * Sets the maximum time that the path builder may spend on the paths
+	 * to a single sink. Once this time is exceeded, the paths to the sink
+	 * are not explored any further, and the sink is recorded as truncated
+	 * in the results.
+	 * @param timeout The maximum time per sink in seconds, or -1 for no limit
+	 */
+	public void setPathBuildingSinkTimeout(long timeout);
+	
+	/**
+	 * Sets whether the forward data flow solver shall propagate taints
+	 * sparsely. A taint then directly jumps to the next statement that reads
+	 * or writes its base local or its first field, or that is a call, exit
+	 * statement or merge point, instead of visiting every statement in
+	 * between. The results are the same, but far fewer edges are propagated.
+	 * Sparse propagation is not supported with interactive aliasing
+	 * strategies and is ignored in this case.
+	 * @param enableSparsePropagation True if taints shall be propagated
+	 * sparsely, otherwise false
+	 */
+	public void setEnableSparsePropagation(boolean enableSparsePropagation);
+	
+	/**
+	 * Sets whether abstractions shall share canonical copies of their
+	 * semantic state, i.e., of everything except for the predecessor and the
+	 * current statement. Equal states are then stored only once, and
+	 * abstractions can be compared by identity once their states have been
+	 * interned. This reduces the memory consumption if many abstractions
+	 * differ only in their predecessors.
+	 * @param enableAbstractionCanonicalization True if abstraction states
+	 * shall be canonicalized, otherwise false
+	 */
+	public void setEnableAbstractionCanonicalization(boolean enableAbstractionCanonicalization);
+	
+	/**
+	 * Sets whether the data flow analysis shall only compute source-to-sink
+	 * connections. In this mode, abstractions keep their source context
+	 * instead of a link to their predecessor, so the propagation graph does
+	 * not remain reachable until the end of the analysis. The configured path
+	 * builder is bypassed, and no propagation paths are available. Since
+	 * abstractions from different sources are no longer merged, more edges
+	 * may have to be propagated.
+	 * @param enableResultsOnlyMode True if only source-to-sink connections
+	 * shall be computed, otherwise false
+	 */
+	public void setEnableResultsOnlyMode(boolean enableResultsOnlyMode);
+	
+	/**
+	 * Sets whether the data flow analysis shall start at the sinks. In this
+	 * mode, a backward pass from the values passed to the sinks first finds
+	 * the sources that may reach a sink at all. The forward analysis then
+	 * only starts at these sources. This pays off for programs with many
+	 * sources but only few sinks. The results are the same as without this
+	 * option. This mode is not supported together with implicit flows.
+	 * @param enableSinkFirstAnalysis True if the sources that cannot reach a
+	 * sink shall be pruned in a backward pass before the forward analysis,
+	 * otherwise false
+	 */
+	public void setEnableSinkFirstAnalysis(boolean enableSinkFirstAnalysis);
+	
+	/**
+	 * Sets whether the propagation paths shall only be reconstructed on
+	 * demand. In this mode, the data flow analysis only computes the
+	 * source-to-sink connections and keeps the propagation graph alive. The
+	 * path of a single result can then be obtained using
+	 * {@link InfoflowResults#getPathHandle} and
+	 * {@link InfoflowResults#reconstructPath}. The configured
+	 * path builder is bypassed. Up front, the predecessor chains of the
+	 * abstractions at the sinks are only followed back to the sources with
+	 * the same call-site matching as the context-sensitive path builder,
+	 * without building any paths. A requested path is reconstructed with the
+	 * context-sensitive path builder, starting only from the abstractions of
+	 * the requested result. This mode does not save memory, because the
+	 * propagation graph is kept. This mode is not supported
+	 * together with results-only mode or sharding.
+	 * @param enableLazyPathReconstruction True if the propagation paths shall
+	 * only be reconstructed on demand, otherwise false
+	 */
+	public void setEnableLazyPathReconstruction(boolean enableLazyPathReconstruction);
+	
 	public void setIPCManager(IIPCManager ipcManager);
 	
 	/**
@@ -243,4 +524,42 @@ public interface IInfoflow {
 	 */
 	public void setIgnoreFlowsInSystemPackages(boolean ignoreFlowsInSystemPackages);
 	
+	/**
+	 * Sets the number of worker processes among which the seeds of the data
+	 * flow analysis shall be distributed. Every worker builds the Soot scene
+	 * on its own, solves its partition of the seeds and reconstructs the
+	 * paths of its results, which are then merged. Sharding is only
+	 * supported if the sources and sinks are given as method signatures and
+	 * the entry points as a single method or a list of methods. Otherwise,
+	 * the analysis runs in a single process.
+	 * @param shardCount The number of worker processes. Values smaller than
+	 * two disable sharding.
+	 */
+	public void setShardCount(int shardCount);
+	
+	/**
+	 * Sets how the jobs and results of a sharded analysis are exchanged with
+	 * the worker processes
+	 * @param transport The transport to use
+	 */
+	public void setShardTransport(ShardTransport transport);
+	
+	/**
+	 * Sets the additional arguments for the virtual machines of the worker
+	 * processes of a sharded analysis, e.g., the maximum heap size
+	 * @param jvmArgs The additional arguments for the virtual machines of
+	 * the worker processes
+	 */
+	public void setShardWorkerJvmArgs(List<String> jvmArgs);
+	
+	/**
+	 * Sets the class that configures the data flow analysis inside the
+	 * worker processes of a sharded analysis. It is required if a taint
+	 * wrapper, preprocessors or taint propagation handlers are used, since
+	 * these objects cannot be transferred to the workers.
+	 * @param configurator The class that configures the workers. It must
+	 * have a public constructor without arguments.
+	 */
+	public void setShardWorkerConfigurator(Class<? extends IShardWorkerConfigurator> configurator);
+	
 }
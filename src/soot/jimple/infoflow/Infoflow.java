@@ -9,9 +9,8 @@
  ******************************************************************************/
 package soot.jimple.infoflow;
 
-import heros.solver.CountingThreadPoolExecutor;
-
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -19,10 +18,11 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,26 +45,54 @@ import soot.jimple.infoflow.aliasing.FlowSensitiveAliasStrategy;
 import soot.jimple.infoflow.aliasing.IAliasingStrategy;
 import soot.jimple.infoflow.aliasing.PtsBasedAliasStrategy;
 import soot.jimple.infoflow.config.IInfoflowConfig;
+import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AbstractionState;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.FieldChain;
+import soot.jimple.infoflow.data.pathBuilders.ContextInsensitiveSourceFinder;
 import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
 import soot.jimple.infoflow.data.pathBuilders.IAbstractionPathBuilder;
 import soot.jimple.infoflow.data.pathBuilders.IPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.OnDemandPathBuilder;
+import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
 import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
+import soot.jimple.infoflow.handlers.SolverProgressHandler;
 import soot.jimple.infoflow.handlers.TaintPropagationHandler;
 import soot.jimple.infoflow.ipc.DefaultIPCManager;
 import soot.jimple.infoflow.ipc.IIPCManager;
 import soot.jimple.infoflow.problems.BackwardsInfoflowProblem;
+import soot.jimple.infoflow.problems.BackwardsSourceFinderProblem;
+import soot.jimple.infoflow.problems.DefUseSparseFilter;
 import soot.jimple.infoflow.problems.InfoflowProblem;
 import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.InfoflowResults.AbortReason;
 import soot.jimple.infoflow.results.ResultSinkInfo;
 import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.sharding.FileShardTransport;
+import soot.jimple.infoflow.sharding.IShardTransport;
+import soot.jimple.infoflow.sharding.ShardCoordinator;
+import soot.jimple.infoflow.sharding.ShardJob;
+import soot.jimple.infoflow.sharding.ShardSceneMapper;
+import soot.jimple.infoflow.sharding.SocketShardTransport;
+import soot.jimple.infoflow.sharding.StmtKey;
 import soot.jimple.infoflow.solver.BackwardsInfoflowCFG;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
 import soot.jimple.infoflow.solver.InfoflowCFG;
+import soot.jimple.infoflow.solver.SinkDistanceCalculator;
+import soot.jimple.infoflow.solver.SolverBudgetWatcher;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
+import soot.jimple.infoflow.solver.executors.SolverExecutorGroup;
+import soot.jimple.infoflow.solver.fastSolver.CompactJumpFunctions;
 import soot.jimple.infoflow.solver.fastSolver.InfoflowSolver;
+import soot.jimple.infoflow.solver.fastSolver.JumpFunctions;
+import soot.jimple.infoflow.solver.fastSolver.SolverStatistics;
+import soot.jimple.infoflow.source.DefaultSourceSinkManager;
 import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.summaries.IncrementalSummaryStore;
+import soot.jimple.infoflow.summaries.MethodSummaryStore;
+import soot.jimple.infoflow.taintWrappers.AbstractTaintWrapper;
 import soot.jimple.infoflow.util.InterproceduralConstantValuePropagator;
 import soot.jimple.infoflow.util.SootMethodRepresentationParser;
 import soot.jimple.infoflow.util.SystemClassHandler;
@@ -83,12 +111,15 @@ public class Infoflow extends AbstractInfoflow {
 	
     private final Logger logger = LoggerFactory.getLogger(getClass());
     
+	private static final long BUDGET_CHECK_INTERVAL = 1000;
+	
 	private static int accessPathLength = 5;
 	private static boolean useRecursiveAccessPaths = true;
 	private static boolean pathAgnosticResults = true;
 	private static boolean oneResultPerAccessPath = false;
 	
 	private InfoflowResults results = null;
+	private MethodSummaryStore summaryStore = null;
 	private final IPathBuilderFactory pathBuilderFactory;
 
 	private final String androidPath;
@@ -102,6 +133,14 @@ public class Infoflow extends AbstractInfoflow {
     
     private Set<ResultsAvailableHandler> onResultsAvailable = new HashSet<ResultsAvailableHandler>();
     private Set<TaintPropagationHandler> taintPropagationHandlers = new HashSet<TaintPropagationHandler>();
+    private Set<SolverProgressHandler> solverProgressHandlers = new HashSet<SolverProgressHandler>();
+    private long progressInterval = 10000;
+    
+    private String appPath = null;
+    private String libPath = null;
+    private IEntryPointCreator entryPointCreator = null;
+    private String entryPoint = null;
+    private Set<StmtKey> seedPartition = null;
 
 	/**
 	 * Creates a new instance of the InfoFlow class for analyzing plain Java code without any references to APKs or the Android SDK.
@@ -289,6 +328,7 @@ public class Infoflow extends AbstractInfoflow {
 			return;
 		}
 		
+		recordInvocation(appPath, libPath, entryPointCreator, null);
 		Set<String> requiredClasses = SootMethodRepresentationParser.v().parseClassNames
 				(entryPointCreator.getRequiredClasses(), false).keySet();
 		initializeSoot(appPath, libPath, requiredClasses);
@@ -412,6 +452,7 @@ public class Infoflow extends AbstractInfoflow {
 			return;
 		}
 
+		recordInvocation(appPath, libPath, null, entryPoint);
 		initializeSoot(appPath, libPath,
 				SootMethodRepresentationParser.v().parseClassNames
 					(Collections.singletonList(entryPoint), false).keySet(), entryPoint);
@@ -440,6 +481,18 @@ public class Infoflow extends AbstractInfoflow {
         runAnalysis(sourcesSinks, seeds);
 	}
 
+	/**
+	 * Remembers the input of the current analysis, so that it can be passed
+	 * on to the worker processes of a sharded analysis
+	 */
+	private void recordInvocation(String appPath, String libPath,
+			IEntryPointCreator entryPointCreator, String entryPoint) {
+		this.appPath = appPath;
+		this.libPath = libPath;
+		this.entryPointCreator = entryPointCreator;
+		this.entryPoint = entryPoint;
+	}
+
 	private void runAnalysis(final ISourceSinkManager sourcesSinks, final Set<String> additionalSeeds) {
 		ipcManager.updateJimpleForICC();
 		
@@ -469,7 +522,12 @@ public class Infoflow extends AbstractInfoflow {
         iCfg = icfgFactory.buildBiDirICFG(callgraphAlgorithm);
 		        
         int numThreads = Runtime.getRuntime().availableProcessors();
-		CountingThreadPoolExecutor executor = createExecutor(numThreads);
+		SolverExecutorGroup executors = createExecutors(numThreads);
+		
+		// Must be done before the first abstraction is created
+		AbstractionState.setCanonicalizationEnabled(enableAbstractionCanonicalization);
+		FieldChain.reset();
+		Abstraction.setResultsOnly(enableResultsOnlyMode);
 		
 		BackwardsInfoflowProblem backProblem;
 		InfoflowSolver backSolver;
@@ -480,9 +538,12 @@ public class Infoflow extends AbstractInfoflow {
 				// need to set this before creating the zero abstraction
 				backProblem.setFlowSensitiveAliasing(flowSensitiveAliasing);
 				
-				backSolver = new InfoflowSolver(backProblem, executor);
-				backSolver.setJumpPredecessors(!pathBuilderFactory.supportsPathReconstruction());
-//				backSolver.setEnableMergePointChecking(true);
+				backSolver = new InfoflowSolver(backProblem,
+						executors.getMember(SolverExecutorFactory.ALIAS_SOLVER));
+				backSolver.setJumpPredecessors(!keepPredecessors());
+				backSolver.setEnableMethodBatching(enableMethodBatching);
+				backSolver.setJumpFunctions(createJumpFunctions());
+				backSolver.setEnableMergePointChecking(enableMergePointChecking);
 				
 				aliasingStrategy = new FlowSensitiveAliasStrategy(iCfg, backSolver);
 				break;
@@ -503,10 +564,23 @@ public class Infoflow extends AbstractInfoflow {
 			forwardProblem.setZeroValue(backProblem.createZeroValue());
 		
 		// Set the options
-		InfoflowSolver forwardSolver = new InfoflowSolver(forwardProblem, executor);
+		InfoflowSolver forwardSolver = new InfoflowSolver(forwardProblem,
+				executors.getMember(SolverExecutorFactory.FORWARD_SOLVER));
 		aliasingStrategy.setForwardSolver(forwardSolver);
-		forwardSolver.setJumpPredecessors(!pathBuilderFactory.supportsPathReconstruction());
-//		forwardSolver.setEnableMergePointChecking(true);
+		forwardSolver.setJumpPredecessors(!keepPredecessors());
+		forwardSolver.setEnableMethodBatching(enableMethodBatching);
+		forwardSolver.setJumpFunctions(createJumpFunctions());
+		summaryStore = createSummaryStore();
+		if (summaryStore != null)
+			forwardSolver.setSummaryStore(summaryStore);
+		forwardSolver.setEnableMergePointChecking(enableMergePointChecking);
+		if (enableSparsePropagation) {
+			if (aliasingStrategy.isInteractive())
+				logger.warn("Sparse propagation is not supported with interactive aliasing, disabling it");
+			else
+				forwardSolver.setSparseFlowFilter(new DefUseSparseFilter(iCfg,
+						enableImplicitFlows, enableExceptions));
+		}
 		
 		forwardProblem.setInspectSources(inspectSources);
 		forwardProblem.setInspectSinks(inspectSinks);
@@ -541,10 +615,17 @@ public class Infoflow extends AbstractInfoflow {
 		// We have to look through the complete program to find sources
 		// which are then taken as seeds.
 		int sinkCount = 0;
+		Set<SootMethod> sinkMethods = new HashSet<SootMethod>();
+		List<Unit> sinkStmts = new ArrayList<Unit>();
         logger.info("Looking for sources and sinks...");
         
-        for (SootMethod sm : getMethodsForSeeds(iCfg))
-			sinkCount += scanMethodForSourcesSinks(sourcesSinks, forwardProblem, sm);
+        Collection<SootMethod> seedMethods = getMethodsForSeeds(iCfg);
+        for (SootMethod sm : seedMethods) {
+			int methodSinkCount = scanMethodForSourcesSinks(sourcesSinks, forwardProblem, sm, sinkStmts);
+			if (methodSinkCount > 0)
+				sinkMethods.add(sm);
+			sinkCount += methodSinkCount;
+        }
         
 		// We optionally also allow additional seeds to be specified
 		if (additionalSeeds != null)
@@ -558,22 +639,99 @@ public class Infoflow extends AbstractInfoflow {
 						Collections.singleton(forwardProblem.zeroValue()));
 			}
 		
+		// Only start the forward analysis at sources that may reach a sink
+		if (enableSinkFirstAnalysis && sinkCount > 0 && forwardProblem.hasInitialSeeds()) {
+			pruneUnreachableSources(sourcesSinks, forwardProblem, sinkStmts, seedMethods);
+			if (!forwardProblem.hasInitialSeeds()) {
+				logger.info("No source can reach a sink, skipping the forward analysis");
+				executors.shutdown();
+				results = new InfoflowResults();
+				reportResults();
+				return;
+			}
+		}
+		
 		if (!forwardProblem.hasInitialSeeds() || sinkCount == 0){
 			logger.error("No sources or sinks found, aborting analysis");
+			executors.shutdown();
 			return;
 		}
 
 		logger.info("Source lookup done, found {} sources and {} sinks.", forwardProblem.getInitialSeeds().size(),
 				sinkCount);
 		
-		forwardSolver.solve();
+		// A worker process of a sharded analysis only solves its own
+		// partition of the seeds. The coordinator distributes the seeds
+		// and leaves the solving to the workers.
+		if (seedPartition != null)
+			restrictSeeds(forwardProblem, new ShardSceneMapper(iCfg));
+		else if (shardCount > 1) {
+			ShardJob job = createShardJob(sourcesSinks);
+			if (job != null) {
+				executors.shutdown();
+				runShards(job, forwardProblem.getInitialSeeds().keySet());
+				return;
+			}
+		}
+		
+		// Process the edges closest to a sink first
+		if (schedulingStrategy == SchedulingStrategy.SinkDirected) {
+			long beforeDistances = System.nanoTime();
+			Map<SootMethod, Integer> sinkDistances = new SinkDistanceCalculator(iCfg)
+					.computeDistances(sinkMethods);
+			forwardSolver.setMethodPriorities(sinkDistances);
+			if (backSolver != null)
+				backSolver.setMethodPriorities(sinkDistances);
+			logger.info("Computing sink distances for {} methods took {} seconds",
+					sinkDistances.size(), (System.nanoTime() - beforeDistances) / 1E9);
+		}
+		
+		// Flow function times are only needed if someone is listening
+		boolean reportProgress = !solverProgressHandlers.isEmpty();
+		forwardSolver.setMeasureFlowFunctionTimes(reportProgress);
+		if (backSolver != null)
+			backSolver.setMeasureFlowFunctionTimes(reportProgress);
+		
+		// Watch the time and memory budgets
+		SolverBudgetWatcher budgetWatcher = null;
+		if (dataFlowTimeout >= 0 || memoryThreshold >= 0) {
+			budgetWatcher = new SolverBudgetWatcher(dataFlowTimeout, memoryThreshold);
+			budgetWatcher.addSolver(forwardSolver);
+			if (backSolver != null)
+				budgetWatcher.addSolver(backSolver);
+			
+			// The heap may already be full after building the callgraph
+			budgetWatcher.run();
+		}
+		
+		long beforeSolver = System.nanoTime();
+		Timer solverTimer = null;
+		if (reportProgress || budgetWatcher != null) {
+			solverTimer = new Timer("FlowDroid solver monitor", true);
+			if (reportProgress)
+				startProgressReporting(solverTimer, forwardSolver, backSolver);
+			if (budgetWatcher != null && budgetWatcher.getAbortReason() == null)
+				solverTimer.schedule(budgetWatcher, BUDGET_CHECK_INTERVAL, BUDGET_CHECK_INTERVAL);
+		}
+		try {
+			forwardSolver.solve();
+		}
+		finally {
+			if (solverTimer != null)
+				solverTimer.cancel();
+		}
+		long solverNanos = System.nanoTime() - beforeSolver;
+		if (reportProgress)
+			notifyProgressHandlers(forwardSolver, backSolver);
+		AbortReason abortReason = budgetWatcher == null ? null
+				: budgetWatcher.getAbortReason();
 		
 		// Not really nice, but sometimes Heros returns before all
 		// executor tasks are actually done. This way, we give it a
 		// chance to terminate gracefully before moving on.
 		int terminateTries = 0;
 		while (terminateTries < 10) {
-			if (executor.getActiveCount() != 0 || !executor.isTerminated()) {
+			if (executors.getActiveCount() != 0 || !executors.isTerminated()) {
 				terminateTries++;
 				try {
 					Thread.sleep(500);
@@ -585,8 +743,10 @@ public class Infoflow extends AbstractInfoflow {
 			else
 				break;
 		}
-		if (executor.getActiveCount() != 0 || !executor.isTerminated())
+		if (executors.getActiveCount() != 0 || !executors.isTerminated())
 			logger.error("Executor did not terminate gracefully");
+		for (SolverExecutorGroup.Member member : executors.getMembers())
+			logger.info("Solver executor {}", member);
 
 		// Print taint wrapper statistics
 		if (taintWrapper != null) {
@@ -596,11 +756,15 @@ public class Infoflow extends AbstractInfoflow {
 		
 		Set<AbstractionAtSink> res = forwardProblem.getResults();
 		
-		// We need to prune access paths that are entailed by another one
+		// We need to prune access paths that are entailed by another one. In
+		// results-only mode, the abstractions at a sink carry their sources,
+		// so we must not prune abstractions that come from different sources.
 		for (Iterator<AbstractionAtSink> absAtSinkIt = res.iterator(); absAtSinkIt.hasNext(); ) {
 			AbstractionAtSink curAbs = absAtSinkIt.next();
 			for (AbstractionAtSink checkAbs : res)
-				if (checkAbs != curAbs && checkAbs.getSinkStmt() == curAbs.getSinkStmt())
+				if (checkAbs != curAbs && checkAbs.getSinkStmt() == curAbs.getSinkStmt()
+						&& (!enableResultsOnlyMode || checkAbs.getAbstraction().getSourceContext()
+								.equals(curAbs.getAbstraction().getSourceContext())))
 					if (checkAbs.getAbstraction().getAccessPath().entails(
 							curAbs.getAbstraction().getAccessPath())) {
 						absAtSinkIt.remove();
@@ -609,9 +773,41 @@ public class Infoflow extends AbstractInfoflow {
 		}
 
 		logger.info("IFDS problem with {} forward and {} backward edges solved, "
-				+ "processing {} results...", forwardSolver.propagationCount,
-				backSolver == null ? 0 : backSolver.propagationCount,
+				+ "processing {} results...", forwardSolver.getPropagationCount(),
+				backSolver == null ? 0 : backSolver.getPropagationCount(),
 				res == null ? 0 : res.size());
+		long edgeCount = forwardSolver.getPropagationCount()
+				+ (backSolver == null ? 0 : backSolver.getPropagationCount());
+		logger.info("Data flow solver took {} seconds ({} edges per second, method batching {})",
+				solverNanos / 1E9, solverNanos == 0 ? 0 : (long) (edgeCount / (solverNanos / 1E9)),
+				enableMethodBatching ? "enabled" : "disabled");
+		if (enableSparsePropagation)
+			logger.info("Sparse propagation skipped {} statements",
+					forwardSolver.getSparseSkippedCount());
+		if (enableMergePointChecking) {
+			logJumpFunctionSavings("forward", forwardSolver);
+			if (backSolver != null)
+				logJumpFunctionSavings("backward", backSolver);
+		}
+		if (enableAbstractionCanonicalization)
+			logger.info("Abstractions shared {} canonical states",
+					AbstractionState.getCanonicalStateCount());
+		
+		if (summaryStore != null)
+			logger.info("Reused {} method summaries, {} methods were invalidated",
+					summaryStore.getHitCount(), summaryStore.getInvalidatedCount());
+		
+		// If we stopped early, the summaries are incomplete and must not be
+		// persisted
+		if (summaryStore != null && !stopAfterFirstFlow && abortReason == null) {
+			forwardSolver.storeSummaries();
+			try {
+				summaryStore.save();
+			}
+			catch (IOException ex) {
+				logger.error("Could not write summary cache file", ex);
+			}
+		}
 		
 		// Force a cleanup. Everything we need is reachable through the
 		// results set, the other abstractions can be killed now.
@@ -624,9 +820,28 @@ public class Infoflow extends AbstractInfoflow {
 		forwardSolver = null;
 		forwardProblem = null;
 		AccessPath.clearBaseRegister();
+		AbstractionState.setCanonicalizationEnabled(false);
+		FieldChain.reset();
+		Abstraction.setResultsOnly(false);
 		Runtime.getRuntime().gc();
 		
 		computeTaintPaths(res);
+		if (abortReason != null)
+			results.setAbortReason(abortReason);
+		reportResults();
+	}
+	
+	/**
+	 * Logs the results of the data flow analysis and passes them on to the
+	 * registered handlers
+	 */
+	private void reportResults() {
+		if (results.isIncomplete())
+			logger.warn("Data flow analysis was aborted ({}), the results are incomplete",
+					results.getAbortReason());
+		if (results.isPathsTruncated())
+			logger.warn("Path limits were reached for {} sinks, not all paths have been explored",
+					results.getTruncatedSinks().size());
 		
 		if (results.getResults().isEmpty())
 			logger.warn("No results found.");
@@ -737,15 +952,294 @@ public class Infoflow extends AbstractInfoflow {
 	}
 
 	/**
-	 * Creates a new executor object for spawning worker threads
-	 * @param numThreads The number of threads to use
-	 * @return The generated executor
+	 * Creates the job description from which the jobs of the worker processes
+	 * of a sharded analysis are derived
+	 * @param sourcesSinks The manager for identifying sources and sinks
+	 * @return The job description, or null if the current configuration
+	 * cannot be transferred to worker processes
+	 */
+	private ShardJob createShardJob(ISourceSinkManager sourcesSinks) {
+		if (sourcesSinks.getClass() != DefaultSourceSinkManager.class) {
+			logger.warn("Sharding requires sources and sinks given as method signatures, "
+					+ "running the analysis in a single process");
+			return null;
+		}
+		if (entryPoint == null && (entryPointCreator == null
+				|| entryPointCreator.getClass() != DefaultEntryPointCreator.class)) {
+			logger.warn("Sharding requires entry points given as method signatures, "
+					+ "running the analysis in a single process");
+			return null;
+		}
+		if (enableLazyPathReconstruction) {
+			logger.warn("Sharding does not support lazy path reconstruction, "
+					+ "running the analysis in a single process");
+			return null;
+		}
+		if (pathBuilderFactory.getClass() != DefaultPathBuilderFactory.class
+				|| !(icfgFactory instanceof DefaultBiDiICFGFactory)) {
+			logger.warn("Sharding does not support custom path builders or ICFGs, "
+					+ "running the analysis in a single process");
+			return null;
+		}
+		if (shardWorkerConfigurator == null && (taintWrapper != null || !preProcessors.isEmpty()
+				|| !taintPropagationHandlers.isEmpty())) {
+			logger.warn("Sharding requires a worker configurator for taint wrappers, preprocessors "
+					+ "and taint propagation handlers, running the analysis in a single process");
+			return null;
+		}
+		
+		ShardJob job = new ShardJob();
+		job.setInput(appPath, libPath);
+		if (entryPoint != null)
+			job.setEntryPoint(entryPoint);
+		else {
+			DefaultEntryPointCreator epc = (DefaultEntryPointCreator) entryPointCreator;
+			job.setEntryPoints(epc.getMethodsToCall());
+			if (epc.getSubstituteCallParams())
+				job.setOption(ShardJob.OPT_SUBSTITUTE_CLASSES,
+						new ArrayList<String>(epc.getSubstituteClasses()));
+		}
+		DefaultSourceSinkManager dssm = (DefaultSourceSinkManager) sourcesSinks;
+		job.setSourcesSinks(dssm.getSources(), dssm.getSinks(), dssm.getParameterTaintMethods(),
+				dssm.getReturnTaintMethods());
+		if (sootConfig != null)
+			job.setSootConfigClass(sootConfig.getClass().getName());
+		if (shardWorkerConfigurator != null)
+			job.setWorkerConfiguratorClass(shardWorkerConfigurator.getName());
+		
+		// The workers share the machine, so every one of them only gets its
+		// part of the threads
+		int numThreads = maxThreadNum == -1 ? Runtime.getRuntime().availableProcessors()
+				: maxThreadNum;
+		job.setOption(ShardJob.OPT_MAX_THREADS, Math.max(1, numThreads / shardCount));
+		
+		job.setOption(ShardJob.OPT_ANDROID_PATH, androidPath);
+		job.setOption(ShardJob.OPT_FORCE_ANDROID_JAR, forceAndroidJar);
+		job.setOption(ShardJob.OPT_STOP_AFTER_FIRST_FLOW, stopAfterFirstFlow);
+		job.setOption(ShardJob.OPT_IMPLICIT_FLOWS, enableImplicitFlows);
+		job.setOption(ShardJob.OPT_STATIC_FIELDS, enableStaticFields);
+		job.setOption(ShardJob.OPT_EXCEPTIONS, enableExceptions);
+		job.setOption(ShardJob.OPT_FLOW_SENSITIVE_ALIASING, flowSensitiveAliasing);
+		job.setOption(ShardJob.OPT_IGNORE_SYSTEM_PACKAGES, ignoreFlowsInSystemPackages);
+		job.setOption(ShardJob.OPT_INSPECT_SOURCES, inspectSources);
+		job.setOption(ShardJob.OPT_INSPECT_SINKS, inspectSinks);
+		job.setOption(ShardJob.OPT_METHOD_BATCHING, enableMethodBatching);
+		job.setOption(ShardJob.OPT_MERGE_POINT_CHECKING, enableMergePointChecking);
+		job.setOption(ShardJob.OPT_SPARSE_PROPAGATION, enableSparsePropagation);
+		job.setOption(ShardJob.OPT_CANONICALIZATION, enableAbstractionCanonicalization);
+		job.setOption(ShardJob.OPT_RESULTS_ONLY, enableResultsOnlyMode);
+		job.setOption(ShardJob.OPT_SINK_FIRST, enableSinkFirstAnalysis);
+		job.setOption(ShardJob.OPT_CODE_ELIMINATION, enableCodeElimination);
+		job.setOption(ShardJob.OPT_DATA_FLOW_TIMEOUT, dataFlowTimeout);
+		job.setOption(ShardJob.OPT_MEMORY_THRESHOLD, memoryThreshold);
+		job.setOption(ShardJob.OPT_MAX_PATHS_PER_PAIR, maxPathsPerPair);
+		job.setOption(ShardJob.OPT_MAX_PATH_LENGTH, maxPathLength);
+		job.setOption(ShardJob.OPT_PATH_SINK_TIMEOUT, pathBuildingSinkTimeout);
+		job.setOption(ShardJob.OPT_CALLGRAPH_ALGORITHM, callgraphAlgorithm);
+		job.setOption(ShardJob.OPT_ALIASING_ALGORITHM, aliasingAlgorithm);
+		job.setOption(ShardJob.OPT_SCHEDULING_STRATEGY, schedulingStrategy);
+		job.setOption(ShardJob.OPT_SOLVER_POOL_MODE, solverPoolMode);
+		job.setOption(ShardJob.OPT_FORWARD_SOLVER_WEIGHT, forwardSolverWeight);
+		job.setOption(ShardJob.OPT_ALIAS_SOLVER_WEIGHT, aliasSolverWeight);
+		job.setOption(ShardJob.OPT_JUMP_FUNCTIONS_BACKEND, jumpFunctionsBackend);
+		job.setOption(ShardJob.OPT_ACCESS_PATH_LENGTH, accessPathLength);
+		job.setOption(ShardJob.OPT_RECURSIVE_ACCESS_PATHS, useRecursiveAccessPaths);
+		job.setOption(ShardJob.OPT_PATH_AGNOSTIC_RESULTS, pathAgnosticResults);
+		job.setOption(ShardJob.OPT_ONE_RESULT_PER_ACCESS_PATH, oneResultPerAccessPath);
+		
+		DefaultPathBuilderFactory dpbf = (DefaultPathBuilderFactory) pathBuilderFactory;
+		job.setOption(ShardJob.OPT_PATH_BUILDER, dpbf.getPathBuilder());
+		job.setOption(ShardJob.OPT_RECONSTRUCT_PATHS, dpbf.getReconstructPaths());
+		job.setOption(ShardJob.OPT_PATH_BUILDER_SCHEDULING, dpbf.getSchedulingStrategy());
+		return job;
+	}
+	
+	/**
+	 * Distributes the given seeds among the worker processes of a sharded
+	 * analysis and merges their results
+	 * @param job The job description from which to derive the jobs of the
+	 * worker processes
+	 * @param seeds The statements at which the data flow analysis starts
+	 */
+	private void runShards(ShardJob job, Set<Unit> seeds) {
+		// The workers cannot use our abstractions, so we reset the global
+		// state right away
+		AccessPath.clearBaseRegister();
+		AbstractionState.setCanonicalizationEnabled(false);
+		FieldChain.reset();
+		Abstraction.setResultsOnly(false);
+		
+		ShardSceneMapper mapper = new ShardSceneMapper(iCfg);
+		List<StmtKey> seedKeys = new ArrayList<StmtKey>(seeds.size());
+		for (Unit u : seeds)
+			seedKeys.add(mapper.getKey(u));
+		List<List<StmtKey>> partitions = ShardCoordinator.partition(seedKeys, shardCount);
+		
+		long beforeShards = System.nanoTime();
+		IShardTransport transport = shardTransport == ShardTransport.Socket
+				? new SocketShardTransport() : new FileShardTransport();
+		results = new ShardCoordinator(transport, shardWorkerJvmArgs).run(job, partitions, mapper);
+		logger.info("{} shards took {} seconds", partitions.size(),
+				(System.nanoTime() - beforeShards) / 1E9);
+		reportResults();
+	}
+	
+	/**
+	 * Removes all seeds that do not belong to the partition of this worker
+	 * process
+	 * @param forwardProblem The data flow problem whose seeds to restrict
+	 * @param mapper The mapper for computing the keys of the seeds
+	 */
+	private void restrictSeeds(InfoflowProblem forwardProblem, ShardSceneMapper mapper) {
+		for (Iterator<Unit> seedIt = forwardProblem.getInitialSeeds().keySet().iterator();
+				seedIt.hasNext(); )
+			if (!seedPartition.contains(mapper.getKey(seedIt.next())))
+				seedIt.remove();
+		if (forwardProblem.getInitialSeeds().size() != seedPartition.size())
+			logger.warn("Found {} of the {} seeds of this shard",
+					forwardProblem.getInitialSeeds().size(), seedPartition.size());
+	}
+	
+	/**
+	 * Creates the executors for spawning the worker threads of the forward
+	 * solver and the alias solver
+	 * @param numThreads The total number of threads to use
+	 * @return The generated group of executors
+	 */
+	private SolverExecutorGroup createExecutors(int numThreads) {
+		return SolverExecutorFactory.createExecutorGroup(schedulingStrategy, solverPoolMode,
+				maxThreadNum == -1 ? numThreads : Math.min(maxThreadNum, numThreads),
+				forwardSolverWeight, aliasSolverWeight,
+				aliasingAlgorithm == AliasingAlgorithm.FlowSensitive);
+	}
+	
+	/**
+	 * Schedules a task on the given timer that periodically reports the
+	 * statistics of the given solvers to all registered progress handlers
+	 * @param timer The timer on which to schedule the task
+	 * @param forwardSolver The forward data flow solver
+	 * @param backSolver The backward solver for alias analysis, or null if
+	 * there is no such solver
+	 */
+	private void startProgressReporting(Timer timer, final InfoflowSolver forwardSolver,
+			final InfoflowSolver backSolver) {
+		timer.scheduleAtFixedRate(new TimerTask() {
+			
+			@Override
+			public void run() {
+				notifyProgressHandlers(forwardSolver, backSolver);
+			}
+			
+		}, progressInterval, progressInterval);
+	}
+	
+	private void notifyProgressHandlers(InfoflowSolver forwardSolver,
+			InfoflowSolver backSolver) {
+		SolverStatistics forwardStats = forwardSolver.getStatistics();
+		SolverStatistics backwardStats = backSolver == null ? null
+				: backSolver.getStatistics();
+		for (SolverProgressHandler handler : solverProgressHandlers) {
+			try {
+				handler.onSolverProgress(forwardStats, backwardStats);
+			}
+			catch (RuntimeException ex) {
+				// Never let a broken handler kill the timer
+				logger.error("Solver progress handler failed", ex);
+			}
+		}
+	}
+	
+	/**
+	 * Creates the store from which the solver takes the end summaries of
+	 * methods that were already analyzed in a previous run
+	 * @return The summary store to use, or null if no summaries shall be
+	 * persisted
 	 */
-	private CountingThreadPoolExecutor createExecutor(int numThreads) {
-		return new CountingThreadPoolExecutor
-				(maxThreadNum == -1 ? numThreads : Math.min(maxThreadNum, numThreads),
-				Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
-				new LinkedBlockingQueue<Runnable>());
+	private MethodSummaryStore createSummaryStore() {
+		if (incrementalStateFile != null)
+			return new IncrementalSummaryStore(new File(incrementalStateFile),
+					getSummaryConfiguration(), iCfg);
+		if (summaryCacheFile != null)
+			return new MethodSummaryStore(new File(summaryCacheFile),
+					getSummaryConfiguration(), iCfg);
+		return null;
+	}
+	
+	/**
+	 * Gets a string describing all options that influence the end summaries
+	 * computed by the data flow solver. Cached summaries are only reused if
+	 * this string has not changed.
+	 * @return A string describing the current analysis configuration
+	 */
+	private String getSummaryConfiguration() {
+		return "apLength=" + getAccessPathLength()
+				+ ";recursiveAPs=" + getUseRecursiveAccessPaths()
+				+ ";aliasing=" + aliasingAlgorithm
+				+ ";flowSensitiveAliasing=" + flowSensitiveAliasing
+				+ ";staticFields=" + enableStaticFields
+				+ ";exceptions=" + enableExceptions
+				+ ";implicitFlows=" + enableImplicitFlows
+				+ ";taintWrapper=" + getTaintWrapperRules();
+	}
+	
+	/**
+	 * Gets a string that identifies the rules of the current taint wrapper.
+	 * For taint wrappers that do not derive from {@link AbstractTaintWrapper},
+	 * only the class name is known, so a change of their rules is not
+	 * detected.
+	 * @return A string that identifies the rules of the current taint
+	 * wrapper
+	 */
+	private String getTaintWrapperRules() {
+		if (taintWrapper == null)
+			return "none";
+		if (taintWrapper instanceof AbstractTaintWrapper)
+			return ((AbstractTaintWrapper) taintWrapper).getRulesIdentifier();
+		return taintWrapper.getClass().getName();
+	}
+	
+	/**
+	 * Logs how many edges the given solver did not record in its jump
+	 * function table due to merge point checking, and how much memory this
+	 * saved
+	 * @param name The name of the solver to use in the log message
+	 * @param solver The solver for which to log the savings
+	 */
+	private void logJumpFunctionSavings(String name, InfoflowSolver solver) {
+		JumpFunctions<Unit, Abstraction> jumpFn = solver.getJumpFunctions();
+		long recorded = jumpFn.size();
+		long skipped = solver.getSkippedJumpFunctionCount();
+		// Edges at statements that are not merge points may be propagated
+		// more than once, so this is an upper bound
+		logger.info("Merge point checking did not record {} {} edges ({} recorded), saving up to {} MB",
+				skipped, name, recorded,
+				skipped * jumpFn.getApproximateEntrySize() / (1024 * 1024));
+	}
+	
+	/**
+	 * Creates a new table for the jump functions of a data flow solver
+	 * @return The new jump function table
+	 */
+	private JumpFunctions<Unit, Abstraction> createJumpFunctions() {
+		switch (jumpFunctionsBackend) {
+			case HashMap:
+				return new JumpFunctions<Unit, Abstraction>();
+			case Compact:
+				return new CompactJumpFunctions<Unit, Abstraction>();
+			default:
+				throw new RuntimeException("Unsupported jump functions backend");
+		}
+	}
+	
+	/**
+	 * Gets whether the solvers must record every predecessor of an
+	 * abstraction because the exact propagation paths will be needed
+	 * @return True if the complete predecessor chains must be kept, otherwise
+	 * false
+	 */
+	private boolean keepPredecessors() {
+		return pathBuilderFactory.supportsPathReconstruction()
+				|| (enableLazyPathReconstruction && !enableResultsOnlyMode);
 	}
 	
 	/**
@@ -753,8 +1247,23 @@ public class Infoflow extends AbstractInfoflow {
 	 * @param res The data flow tracker results
 	 */
 	private void computeTaintPaths(final Set<AbstractionAtSink> res) {
-		IAbstractionPathBuilder builder = this.pathBuilderFactory.createPathBuilder
-				(maxThreadNum, iCfg);
+		if (enableLazyPathReconstruction && enableResultsOnlyMode)
+			logger.warn("Lazy path reconstruction is not supported in results-only mode, "
+					+ "no paths will be available");
+		
+		// In results-only mode, there is no propagation graph. The sources
+		// are directly attached to the abstractions at the sinks. If the paths
+		// are reconstructed on demand, the results keep the propagation graph.
+		IAbstractionPathBuilder builder;
+		if (enableResultsOnlyMode)
+			builder = new ContextInsensitiveSourceFinder(iCfg, maxThreadNum);
+		else if (enableLazyPathReconstruction)
+			builder = new OnDemandPathBuilder(iCfg, maxThreadNum);
+		else
+			builder = this.pathBuilderFactory.createPathBuilder(maxThreadNum, iCfg);
+		builder.setMaxPathsPerPair(maxPathsPerPair);
+		builder.setMaxPathLength(maxPathLength);
+		builder.setSinkTimeout(pathBuildingSinkTimeout);
    		builder.computeTaintPaths(res);
     	this.results = builder.getResults();
     	builder.shutdown();
@@ -795,20 +1304,83 @@ public class Infoflow extends AbstractInfoflow {
 		}
 	}
 
+	/**
+	 * Runs the backward pass of the sink-first analysis and removes all
+	 * source seeds from the forward problem whose values cannot reach any
+	 * sink
+	 * @param sourcesSinks The SourceSinkManager to be used for identifying
+	 * sources and sinks
+	 * @param forwardProblem The InfoflowProblem whose seeds to prune
+	 * @param sinks The sink statements from which to start the backward pass
+	 * @param methods The methods that have been scanned for sources and sinks
+	 */
+	private void pruneUnreachableSources(ISourceSinkManager sourcesSinks,
+			InfoflowProblem forwardProblem, Collection<Unit> sinks,
+			Collection<SootMethod> methods) {
+		if (enableImplicitFlows) {
+			logger.warn("Sink-first analysis is not supported with implicit flows, "
+					+ "starting at all sources");
+			return;
+		}
+		
+		long beforeBackwardPass = System.nanoTime();
+		BackwardsSourceFinderProblem finderProblem = new BackwardsSourceFinderProblem(
+				new BackwardsInfoflowCFG(iCfg), sourcesSinks, methods);
+		finderProblem.setZeroValue(forwardProblem.zeroValue());
+		finderProblem.setTaintWrapper(taintWrapper);
+		finderProblem.setEnableStaticFieldTracking(enableStaticFields);
+		finderProblem.setEnableExceptionTracking(enableExceptions);
+		finderProblem.setInspectSources(inspectSources);
+		finderProblem.setInspectSinks(inspectSinks);
+		
+		// The executors of the main analysis are shut down when their solver
+		// terminates, so the backward pass needs its own one
+		int numThreads = Runtime.getRuntime().availableProcessors();
+		InfoflowSolver finderSolver = new InfoflowSolver(finderProblem,
+				SolverExecutorFactory.createExecutor(schedulingStrategy,
+						maxThreadNum == -1 ? numThreads : Math.min(maxThreadNum, numThreads)));
+		finderSolver.setEnableMethodBatching(enableMethodBatching);
+		for (Unit sink : sinks)
+			finderProblem.addSinkSeeds((Stmt) sink);
+		finderSolver.solve();
+		
+		Set<Unit> reachedSources = finderProblem.getReachedSources();
+		int sourceCount = 0;
+		int keptCount = 0;
+		for (Iterator<Unit> seedIt = forwardProblem.getInitialSeeds().keySet().iterator();
+				seedIt.hasNext(); ) {
+			Unit seed = seedIt.next();
+			if (sourcesSinks.getSourceInfo((Stmt) seed, iCfg) == null)
+				continue;
+			sourceCount++;
+			if (reachedSources.contains(seed))
+				keptCount++;
+			else {
+				seedIt.remove();
+				logger.debug("Source cannot reach a sink: {}", seed);
+			}
+		}
+		logger.info("Sink-first analysis kept {} of {} sources, took {} seconds",
+				keptCount, sourceCount, (System.nanoTime() - beforeBackwardPass) / 1E9);
+	}
+	
 	/**
 	 * Scans the given method for sources and sinks contained in it. Sinks are
-	 * just counted, sources are added to the InfoflowProblem as seeds.
+	 * collected, sources are added to the InfoflowProblem as seeds.
 	 * @param sourcesSinks The SourceSinkManager to be used for identifying
 	 * sources and sinks
 	 * @param forwardProblem The InfoflowProblem in which to register the
 	 * sources as seeds
 	 * @param m The method to scan for sources and sinks
+	 * @param sinkStmts The collection to which to add the sinks found in
+	 * this method
 	 * @return The number of sinks found in this method
 	 */
 	private int scanMethodForSourcesSinks(
 			final ISourceSinkManager sourcesSinks,
 			InfoflowProblem forwardProblem,
-			SootMethod m) {
+			SootMethod m,
+			Collection<Unit> sinkStmts) {
 		int sinkCount = 0;
 		if (m.hasActiveBody()) {
 			// Check whether this is a system class we need to ignore
@@ -828,6 +1400,7 @@ public class Infoflow extends AbstractInfoflow {
 				}
 				if (sourcesSinks.isSink(s, iCfg)) {
 		            logger.debug("Sink found: {}", u);
+					sinkStmts.add(u);
 					sinkCount++;
 				}
 			}
@@ -841,6 +1414,16 @@ public class Infoflow extends AbstractInfoflow {
 		return results;
 	}
 
+	/**
+	 * Gets the store from which the last run took the end summaries of
+	 * methods analyzed in previous runs
+	 * @return The summary store of the last run, or null if neither a
+	 * summary cache file nor an incremental state file has been configured
+	 */
+	public MethodSummaryStore getSummaryStore() {
+		return summaryStore;
+	}
+
 	@Override
 	public boolean isResultAvailable() {
 		if (results == null) {
@@ -941,6 +1524,33 @@ public class Infoflow extends AbstractInfoflow {
 		this.taintPropagationHandlers.add(handler);
 	}
 	
+	/**
+	 * Adds a handler that is periodically called with the statistics of the
+	 * data flow solvers while they are running. Registering a handler enables
+	 * the measurement of the time spent in flow functions.
+	 * @param handler The handler to add
+	 */
+	public void addSolverProgressHandler(SolverProgressHandler handler) {
+		this.solverProgressHandlers.add(handler);
+	}
+	
+	/**
+	 * Removes a handler that is periodically called with the statistics of
+	 * the data flow solvers
+	 * @param handler The handler to remove
+	 */
+	public void removeSolverProgressHandler(SolverProgressHandler handler) {
+		this.solverProgressHandlers.remove(handler);
+	}
+	
+	/**
+	 * Sets the interval at which the solver progress handlers are called
+	 * @param progressInterval The interval in milliseconds
+	 */
+	public void setProgressInterval(long progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+	
 	/**
 	 * Removes a handler that is called when information flow results are available
 	 * @param handler The handler to remove
@@ -964,4 +1574,13 @@ public class Infoflow extends AbstractInfoflow {
 		this.enableCodeElimination = enableCodeElimination;
 	}
 	
+	/**
+	 * Restricts the data flow analysis to the given seeds. This is used by
+	 * the worker processes of a sharded analysis.
+	 * @param seeds The keys of the seeds to solve, or null to solve all seeds
+	 */
+	public void setSeedPartition(Collection<StmtKey> seeds) {
+		this.seedPartition = seeds == null ? null : new HashSet<StmtKey>(seeds);
+	}
+	
 }
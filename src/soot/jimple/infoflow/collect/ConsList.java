@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.collect;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable singly-linked list. Adding an element at the front creates a new
+ * list that shares all other elements with the old one, so lists that are
+ * derived from each other need only constant additional memory per element.
+ * The empty list is represented by null.
+ *
+ * Every list node caches its hash code and an identity index over its
+ * elements, both computed incrementally from the tail. Short lists use a
+ * 64-bit filter and fall back to scanning their elements. Longer lists, for
+ * which such a filter would be saturated, share a
+ * {@link PersistentIdentitySet} with their tails instead.
+ */
+public final class ConsList<E> implements Iterable<E> {
+
+	private final E head;
+	private final ConsList<E> tail;
+	private final int size;
+	private final int hashCode;
+	private final long identityFilter;
+	private final PersistentIdentitySet identitySet;
+
+	/**
+	 * The maximum size up to which lookups scan the list instead of using a
+	 * persistent identity set
+	 */
+	private static final int MAX_SCAN_SIZE = 64;
+
+	/**
+	 * Creates a new list by putting an element in front of an existing list
+	 * @param head The first element of the new list
+	 * @param tail The remaining elements of the new list, or null if the new
+	 * list shall only contain the given element
+	 */
+	public ConsList(E head, ConsList<E> tail) {
+		this.head = head;
+		this.tail = tail;
+		this.size = tail == null ? 1 : tail.size + 1;
+		this.hashCode = 31 * (tail == null ? 1 : tail.hashCode)
+				+ (head == null ? 0 : head.hashCode());
+		this.identityFilter = (tail == null ? 0 : tail.identityFilter)
+				| filterBit(head);
+
+		if (size <= MAX_SCAN_SIZE)
+			this.identitySet = null;
+		else if (tail.identitySet != null)
+			this.identitySet = tail.identitySet.plus(head);
+		else {
+			PersistentIdentitySet set = PersistentIdentitySet.EMPTY;
+			for (ConsList<E> cur = this; cur != null; cur = cur.tail)
+				set = set.plus(cur.head);
+			this.identitySet = set;
+		}
+	}
+
+	private static long filterBit(Object o) {
+		int h = System.identityHashCode(o);
+		return 1L << ((h ^ (h >>> 16)) & 63);
+	}
+
+	public E getHead() {
+		return this.head;
+	}
+
+	public ConsList<E> getTail() {
+		return this.tail;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Checks whether this list contains the given object. Objects are
+	 * compared by identity, not using equals(). On short lists, most misses
+	 * are decided by the identity filter without looking at the elements.
+	 * Long lists look the object up in their identity set, so this takes
+	 * time logarithmic in the size of the list.
+	 * @param o The object to look for
+	 * @return True if the given object is an element of this list, otherwise
+	 * false
+	 */
+	public boolean containsIdentical(Object o) {
+		if (identitySet != null)
+			return identitySet.contains(o);
+		if ((identityFilter & filterBit(o)) == 0)
+			return false;
+		for (ConsList<E> cur = this; cur != null; cur = cur.tail)
+			if (cur.head == o)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Copies the elements of this list into a new mutable list
+	 * @return A new list containing the elements of this list in the same
+	 * order
+	 */
+	public List<E> toList() {
+		List<E> list = new ArrayList<E>(size);
+		for (E e : this)
+			list.add(e);
+		return list;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			private ConsList<E> cur = ConsList.this;
+
+			@Override
+			public boolean hasNext() {
+				return cur != null;
+			}
+
+			@Override
+			public E next() {
+				if (cur == null)
+					throw new NoSuchElementException();
+				E e = cur.head;
+				cur = cur.tail;
+				return e;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("Lists are immutable");
+			}
+
+		};
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other)
+			return true;
+		if (other == null || getClass() != other.getClass())
+			return false;
+		ConsList<?> cur2 = (ConsList<?>) other;
+		if (this.size != cur2.size || this.hashCode != cur2.hashCode)
+			return false;
+
+		// Stop as soon as both lists share the remaining elements
+		ConsList<E> cur1 = this;
+		while (cur1 != null && cur1 != cur2) {
+			if (cur1.head == null ? cur2.head != null : !cur1.head.equals(cur2.head))
+				return false;
+			cur1 = cur1.tail;
+			cur2 = cur2.tail;
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return toList().toString();
+	}
+
+}
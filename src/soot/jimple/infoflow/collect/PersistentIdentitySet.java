@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.collect;
+
+/**
+ * Immutable set that compares its elements by identity. Adding an element
+ * creates a new set that shares all unchanged parts with the old one. The
+ * elements are kept in a hash trie over their identity hash codes with 32
+ * children per node, so adding an element and looking it up take time
+ * logarithmic in the size of the set.
+ */
+public final class PersistentIdentitySet {
+
+	private static final int BITS_PER_LEVEL = 5;
+	private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+	/**
+	 * The empty set
+	 */
+	public static final PersistentIdentitySet EMPTY =
+			new PersistentIdentitySet(new Node(0, new Object[0]), 0);
+
+	private final Node root;
+	private final int size;
+
+	/**
+	 * Inner node of the trie. The bitmap tells which of the 32 possible
+	 * children exist, the entries array only contains the existing ones. An
+	 * entry is either an element, a {@link Node} or a {@link Collision}.
+	 */
+	private static final class Node {
+
+		private final int bitmap;
+		private final Object[] entries;
+
+		Node(int bitmap, Object[] entries) {
+			this.bitmap = bitmap;
+			this.entries = entries;
+		}
+
+		Node add(Object o, int hash, int shift) {
+			int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+			int idx = Integer.bitCount(bitmap & (bit - 1));
+			if ((bitmap & bit) == 0) {
+				Object[] newEntries = new Object[entries.length + 1];
+				System.arraycopy(entries, 0, newEntries, 0, idx);
+				newEntries[idx] = o;
+				System.arraycopy(entries, idx, newEntries, idx + 1, entries.length - idx);
+				return new Node(bitmap | bit, newEntries);
+			}
+
+			Object e = entries[idx];
+			Object newEntry;
+			if (e == o)
+				return this;
+			else if (e instanceof Node)
+				newEntry = ((Node) e).add(o, hash, shift + BITS_PER_LEVEL);
+			else if (e instanceof Collision)
+				newEntry = ((Collision) e).add(o);
+			else
+				newEntry = createSubtree(e, System.identityHashCode(e), o, hash,
+						shift + BITS_PER_LEVEL);
+			if (newEntry == e)
+				return this;
+
+			Object[] newEntries = entries.clone();
+			newEntries[idx] = newEntry;
+			return new Node(bitmap, newEntries);
+		}
+
+		/**
+		 * Creates the subtree for two different elements that fall into the
+		 * same slot
+		 */
+		private static Object createSubtree(Object a, int hashA, Object b, int hashB,
+				int shift) {
+			if (shift >= Integer.SIZE)
+				return new Collision(new Object[] { a, b });
+
+			int idxA = (hashA >>> shift) & LEVEL_MASK;
+			int idxB = (hashB >>> shift) & LEVEL_MASK;
+			if (idxA == idxB)
+				return new Node(1 << idxA, new Object[] { createSubtree(a, hashA, b, hashB,
+						shift + BITS_PER_LEVEL) });
+			return new Node((1 << idxA) | (1 << idxB), idxA < idxB
+					? new Object[] { a, b } : new Object[] { b, a });
+		}
+
+	}
+
+	/**
+	 * Elements whose identity hash codes are equal in all bits
+	 */
+	private static final class Collision {
+
+		private final Object[] elements;
+
+		Collision(Object[] elements) {
+			this.elements = elements;
+		}
+
+		boolean contains(Object o) {
+			for (Object e : elements)
+				if (e == o)
+					return true;
+			return false;
+		}
+
+		Collision add(Object o) {
+			if (contains(o))
+				return this;
+			Object[] newElements = new Object[elements.length + 1];
+			System.arraycopy(elements, 0, newElements, 0, elements.length);
+			newElements[elements.length] = o;
+			return new Collision(newElements);
+		}
+
+	}
+
+	private PersistentIdentitySet(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Creates a new set that contains the elements of this set and the given
+	 * object. This set is not changed.
+	 * @param o The object to add
+	 * @return The new set, or this set if it already contains the given
+	 * object
+	 */
+	public PersistentIdentitySet plus(Object o) {
+		Node newRoot = root.add(o, System.identityHashCode(o), 0);
+		return newRoot == root ? this : new PersistentIdentitySet(newRoot, size + 1);
+	}
+
+	/**
+	 * Checks whether this set contains the given object. Objects are compared
+	 * by identity, not using equals().
+	 * @param o The object to look for
+	 * @return True if the given object is an element of this set, otherwise
+	 * false
+	 */
+	public boolean contains(Object o) {
+		int hash = System.identityHashCode(o);
+		Node node = root;
+		for (int shift = 0; ; shift += BITS_PER_LEVEL) {
+			int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+			if ((node.bitmap & bit) == 0)
+				return false;
+			Object e = node.entries[Integer.bitCount(node.bitmap & (bit - 1))];
+			if (e == o)
+				return true;
+			else if (e instanceof Node)
+				node = (Node) e;
+			else if (e instanceof Collision)
+				return ((Collision) e).contains(o);
+			else
+				return false;
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+}
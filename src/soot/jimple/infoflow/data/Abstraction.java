@@ -11,11 +11,11 @@
 package soot.jimple.infoflow.data;
 
 
-import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import soot.NullType;
 import soot.SootMethod;
@@ -29,8 +29,6 @@ import soot.jimple.infoflow.source.SourceInfo;
 import soot.jimple.infoflow.util.ConcurrentHashSet;
 import soot.jimple.internal.JimpleLocal;
 
-import com.google.common.collect.Sets;
-
 /**
  * The abstraction class contains all information that is necessary to track the taint.
  * 
@@ -42,44 +40,46 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	private static boolean flowSensitiveAliasing = true;
 	
 	/**
-	 * the access path contains the currently tainted variable or field
+	 * In results-only mode, abstractions do not record their predecessors,
+	 * neighbors, or statements. Derived abstractions keep their source
+	 * context instead, so that the source can be read directly from an
+	 * abstraction at a sink.
 	 */
-	private final AccessPath accessPath;
+	private static boolean resultsOnly = false;
 	
-	private Abstraction predecessor = null;
-	private Set<Abstraction> neighbors = null;
-	private Stmt currentStmt = null;
-	private Stmt correspondingCallSite = null;
+	private static final AtomicReferenceFieldUpdater<Abstraction, Extension> extensionUpdater =
+			AtomicReferenceFieldUpdater.newUpdater(Abstraction.class, Extension.class, "extension");
 	
-	private SourceContext sourceContext = null;
-
-	// only used in path generation
-	private Set<SourceContextAndPath> pathCache = null;
-	
-	/**
-	 * Unit/Stmt which activates the taint when the abstraction passes it
-	 */
-	private Unit activationUnit = null;
-	/**
-	 * taint is thrown by an exception (is set to false when it reaches the catch-Stmt)
-	 */
-	private boolean exceptionThrown = false;
-	private int hashCode = 0;
-
 	/**
-	 * The postdominators we need to pass in order to leave the current conditional
-	 * branch. Do not use the synchronized Stack class here to avoid deadlocks.
+	 * Data that only few abstractions need, or that is only needed during
+	 * path building. It is attached lazily, so that the other abstractions
+	 * do not pay for it.
 	 */
-	private List<UnitContainer> postdominators = null;
-	private boolean isImplicit = false;
+	private static final class Extension {
+		
+		private static final AtomicReferenceFieldUpdater<Extension, NeighborSet> neighborsUpdater =
+				AtomicReferenceFieldUpdater.newUpdater(Extension.class, NeighborSet.class, "neighbors");
+		
+		private volatile NeighborSet neighbors = null;
+		
+		// only used in path generation
+		private Set<SourceContextAndPath> pathCache = null;
+		private BitSet pathFlags = null;
+		
+	}
 	
 	/**
-	 * Only valid for inactive abstractions. Specifies whether an access paths
-	 * has been cut during alias analysis.
+	 * The semantic part of this abstraction, i.e., the access path, the source
+	 * context, the activation unit, and so on. Abstractions are equal if and
+	 * only if their states are equal. If canonicalization is enabled, this
+	 * field is replaced with the canonical state on the first comparison.
 	 */
-	private boolean dependsOnCutAP = false;
+	private AbstractionState state;
 	
-	private BitSet pathFlags = null;
+	private Abstraction predecessor = null;
+	private Stmt currentStmt = null;
+	private Stmt correspondingCallSite = null;
+	private volatile Extension extension = null;
 	
 	public Abstraction(Value taint,
 			SourceInfo sourceInfo,
@@ -108,13 +108,8 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 			SourceContext sourceContext,
 			boolean exceptionThrown,
 			boolean isImplicit){
-		this.sourceContext = sourceContext;
-		this.accessPath = new AccessPath(taint, taintSubFields);
-		this.activationUnit = null;
-		this.exceptionThrown = exceptionThrown;
-		
-		this.neighbors = null;
-		this.isImplicit = isImplicit;
+		this.state = AbstractionState.create(new AccessPath(taint, taintSubFields),
+				sourceContext, null, exceptionThrown, null, false, isImplicit);
 		this.currentStmt = sourceContext == null ? null : sourceContext.getStmt();
 	}
 
@@ -126,29 +121,78 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 */
 	protected Abstraction(AccessPath p, Abstraction original){
 		if (original == null) {
-			sourceContext = null;
-			exceptionThrown = false;
-			activationUnit = null;
+			state = AbstractionState.create(p, null, null, false, null, false, false);
 			flowSensitiveAliasing = true;
-			isImplicit = false;
 		}
 		else {
-			sourceContext = original.sourceContext;
-			exceptionThrown = original.exceptionThrown;
-			activationUnit = original.activationUnit;
-			assert activationUnit == null || flowSensitiveAliasing;
-			
-			postdominators = original.postdominators == null ? null
-					: new ArrayList<UnitContainer>(original.postdominators);
-			
-			dependsOnCutAP = original.dependsOnCutAP;
-			isImplicit = original.isImplicit;
+			AbstractionState originalState = original.state;
+			assert originalState.getActivationUnit() == null || flowSensitiveAliasing;
+			state = AbstractionState.create(p, originalState.getSourceContext(),
+					originalState.getActivationUnit(), originalState.getExceptionThrown(),
+					originalState.getPostdominators(), originalState.dependsOnCutAP(),
+					originalState.isImplicit());
 		}
-		accessPath = p;
-		neighbors = null;
 		currentStmt = null;
 	}
 	
+	/**
+	 * Creates a new abstraction with the given state
+	 * @param state The semantic state of the new abstraction
+	 * @param predecessor The abstraction from which the new one is derived
+	 * @param currentStmt The statement at which the new abstraction is created
+	 */
+	private Abstraction(AbstractionState state, Abstraction predecessor, Stmt currentStmt) {
+		this.state = state;
+		if (!resultsOnly) {
+			this.predecessor = predecessor;
+			this.currentStmt = currentStmt;
+		}
+	}
+	
+	/**
+	 * Sets whether abstractions shall only carry their source contexts, but
+	 * no predecessors, neighbors, or statements. This must be configured
+	 * before the first abstraction is created.
+	 * @param resultsOnly True if abstractions shall not record the
+	 * propagation graph, otherwise false
+	 */
+	public static void setResultsOnly(boolean resultsOnly) {
+		Abstraction.resultsOnly = resultsOnly;
+	}
+	
+	/**
+	 * Gets whether abstractions only carry their source contexts, but no
+	 * predecessors, neighbors, or statements
+	 * @return True if abstractions do not record the propagation graph,
+	 * otherwise false
+	 */
+	public static boolean isResultsOnly() {
+		return resultsOnly;
+	}
+	
+	/**
+	 * Checks whether an abstraction derived with the given access path at the
+	 * given statement would be indistinguishable from this one
+	 * @param p The access path of the derived abstraction
+	 * @param currentStmt The statement at which the abstraction is derived
+	 * @return True if the derived abstraction would look exactly like this
+	 * one, otherwise false
+	 */
+	private boolean isSameDerivation(AccessPath p, Stmt currentStmt) {
+		return state.getAccessPath().equals(p)
+				&& (resultsOnly || this.currentStmt == currentStmt);
+	}
+	
+	/**
+	 * Gets our state for a derived abstraction that is linked to this one as
+	 * its predecessor. The source context is only kept in results-only mode,
+	 * otherwise it can be reached through the predecessor.
+	 * @return The state for the derived abstraction
+	 */
+	private AbstractionState getStateForSuccessor() {
+		return resultsOnly ? state : state.withSourceContext(null);
+	}
+	
 	public final Abstraction deriveInactiveAbstraction(Unit activationUnit){
 		if (!flowSensitiveAliasing) {
 			assert this.isAbstractionActive();
@@ -159,48 +203,32 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		if (!this.isAbstractionActive())
 			return this;
 
-		Abstraction a = deriveNewAbstractionMutable(accessPath, null);
-		a.postdominators = null;
-		a.activationUnit = activationUnit;
-		a.dependsOnCutAP |= a.getAccessPath().isCutOffApproximation();
+		Abstraction a = deriveNewAbstractionMutable(state.getAccessPath(), null);
+		a.state = a.state.withPostdominators(null).withActivationUnit(activationUnit,
+				a.state.dependsOnCutAP() || a.state.getAccessPath().isCutOffApproximation());
 		return a;
 	}
 
 	public Abstraction deriveNewAbstraction(AccessPath p, Stmt currentStmt){
-		return deriveNewAbstraction(p, currentStmt, isImplicit);
+		return deriveNewAbstraction(p, currentStmt, state.isImplicit());
 	}
 	
 	public Abstraction deriveNewAbstraction(AccessPath p, Stmt currentStmt,
 			boolean isImplicit){
 		// If the new abstraction looks exactly like the current one, there is
 		// no need to create a new object
-		if (this.accessPath.equals(p) && this.currentStmt == currentStmt
-				&& this.isImplicit == isImplicit)
+		if (isSameDerivation(p, currentStmt) && state.isImplicit() == isImplicit)
 			return this;
 		
 		Abstraction abs = deriveNewAbstractionMutable(p, currentStmt);
-		abs.isImplicit = isImplicit;
+		abs.state = abs.state.withImplicit(isImplicit);
 		return abs;
 	}
 	
 	private Abstraction deriveNewAbstractionMutable(AccessPath p, Stmt currentStmt){
-		if (this.accessPath.equals(p) && this.currentStmt == currentStmt) {
-			Abstraction abs = clone();
-			abs.currentStmt = currentStmt;
-			return abs;
-		}
-		
-		Abstraction abs = new Abstraction(p, this);
-		abs.predecessor = this;
-		abs.currentStmt = currentStmt;
-		
-		if (!abs.getAccessPath().isEmpty())
-			abs.postdominators = null;
-		if (!abs.isAbstractionActive())
-			abs.dependsOnCutAP = abs.dependsOnCutAP || p.isCutOffApproximation();
-		
-		abs.sourceContext = null;
-		return abs;
+		if (isSameDerivation(p, currentStmt))
+			return new Abstraction(state, this, currentStmt);
+		return new Abstraction(state.deriveAccessPath(p, resultsOnly), this, currentStmt);
 	}
 	
 	public final Abstraction deriveNewAbstraction(Value taint, boolean cutFirstField, Type baseType){
@@ -211,8 +239,8 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 			Type baseType){
 		assert !this.getAccessPath().isEmpty();
 		
-		AccessPath newAP = accessPath.copyWithNewValue(taint, baseType, cutFirstField);
-		if (this.getAccessPath().equals(newAP) && this.currentStmt == currentStmt)
+		AccessPath newAP = state.getAccessPath().copyWithNewValue(taint, baseType, cutFirstField);
+		if (isSameDerivation(newAP, currentStmt))
 			return this;
 		return deriveNewAbstractionMutable(newAP, currentStmt);
 	}
@@ -224,13 +252,9 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * @return The newly derived abstraction
 	 */
 	public final Abstraction deriveNewAbstractionOnThrow(Stmt throwStmt){
-		assert !this.exceptionThrown;
-		Abstraction abs = clone();
-		
-		abs.currentStmt = throwStmt;
-		abs.sourceContext = null;
-		abs.exceptionThrown = true;
-		return abs;
+		assert !state.getExceptionThrown();
+		return new Abstraction(getStateForSuccessor().withExceptionThrown(true),
+				this, throwStmt);
 	}
 	
 	/**
@@ -240,9 +264,9 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * @return The newly derived abstraction
 	 */
 	public final Abstraction deriveNewAbstractionOnCatch(Value taint){
-		assert this.exceptionThrown;
+		assert state.getExceptionThrown();
 		Abstraction abs = deriveNewAbstractionMutable(new AccessPath(taint, true), null);
-		abs.exceptionThrown = false;
+		abs.state = abs.state.withExceptionThrown(false);
 		return abs;
 	}
 		
@@ -253,63 +277,79 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * @return The path from the source to the current statement
 	 */
 	public Set<SourceContextAndPath> getPaths() {
-		return pathCache == null ? null : Collections.unmodifiableSet(pathCache);
+		Extension ext = this.extension;
+		if (ext == null || ext.pathCache == null)
+			return null;
+		return Collections.unmodifiableSet(ext.pathCache);
 	}
 	
 	public Set<SourceContextAndPath> getOrMakePathCache() {
-		// We're optimistic about having a path cache. If we definitely have one,
-		// we return it. Otherwise, we need to lock and create one.
-		if (this.pathCache == null)
-			synchronized (this) {
-				if (this.pathCache == null)
-					this.pathCache = new ConcurrentHashSet<SourceContextAndPath>();
-			}
-		return Collections.unmodifiableSet(pathCache);
+		return Collections.unmodifiableSet(getOrMakePathCacheInternal());
 	}
 	
 	public boolean addPathElement(SourceContextAndPath scap) {
-		if (this.pathCache == null) {
+		return getOrMakePathCacheInternal().add(scap);
+	}
+	
+	private Set<SourceContextAndPath> getOrMakePathCacheInternal() {
+		// We're optimistic about having a path cache. If we definitely have one,
+		// we return it. Otherwise, we need to lock and create one.
+		Extension ext = getOrMakeExtension();
+		if (ext.pathCache == null)
 			synchronized (this) {
-				if (this.pathCache == null) {
-					this.pathCache = new ConcurrentHashSet<SourceContextAndPath>();
-				}
+				if (ext.pathCache == null)
+					ext.pathCache = new ConcurrentHashSet<SourceContextAndPath>();
 			}
-		}
-		return this.pathCache.add(scap);
+		return ext.pathCache;
 	}
 	
 	public void clearPathCache() {
-		this.pathCache = null;
+		Extension ext = this.extension;
+		if (ext != null)
+			ext.pathCache = null;
+	}
+	
+	/**
+	 * Gets the extension object of this abstraction. If there is none yet,
+	 * a new one is attached.
+	 * @return The extension object of this abstraction
+	 */
+	private Extension getOrMakeExtension() {
+		Extension ext = this.extension;
+		if (ext == null) {
+			ext = new Extension();
+			if (!extensionUpdater.compareAndSet(this, null, ext))
+				ext = this.extension;
+		}
+		return ext;
 	}
 	
 	public boolean isAbstractionActive() {
-		return activationUnit == null;
+		return state.getActivationUnit() == null;
 	}
 	
 	public boolean isImplicit() {
-		return isImplicit;
+		return state.isImplicit();
 	}
 	
 	@Override
 	public String toString(){
-		return (isAbstractionActive()?"":"_")+accessPath.toString() + " | "+(activationUnit==null?"":activationUnit.toString()) + ">>";
+		Unit activationUnit = state.getActivationUnit();
+		return (isAbstractionActive()?"":"_")+state.getAccessPath().toString() + " | "+(activationUnit==null?"":activationUnit.toString()) + ">>";
 	}
 	
 	public AccessPath getAccessPath(){
-		return accessPath;
+		return state.getAccessPath();
 	}
 	
 	public Unit getActivationUnit(){
-		return this.activationUnit;
+		return state.getActivationUnit();
 	}
 	
 	public Abstraction getActiveCopy(){
 		assert !this.isAbstractionActive();
-		
-		Abstraction a = clone();
-		a.sourceContext = null;
-		a.activationUnit = null;
-		return a;
+		return new Abstraction(getStateForSuccessor().withActivationUnit(null,
+				state.dependsOnCutAP()), this, null);
 	}
 	
 	/**
@@ -318,22 +358,20 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * false
 	 */
 	public boolean getExceptionThrown() {
-		return this.exceptionThrown;
+		return state.getExceptionThrown();
 	}
 	
 	public final Abstraction deriveConditionalAbstractionEnter(UnitContainer postdom,
 			Stmt conditionalUnit) {
 		assert this.isAbstractionActive();
 		
+		List<UnitContainer> postdominators = state.getPostdominators();
 		if (postdominators != null && postdominators.contains(postdom))
 			return this;
 		
 		Abstraction abs = deriveNewAbstractionMutable
 				(AccessPath.getEmptyAccessPath(), conditionalUnit);
-		if (abs.postdominators == null)
-			abs.postdominators = Collections.singletonList(postdom);
-		else
-			abs.postdominators.add(0, postdom);
+		abs.state = abs.state.pushPostdominator(postdom);
 		return abs;
 	}
 	
@@ -346,25 +384,24 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		
 		// Postdominators are only kept intraprocedurally in order to not
 		// mess up the summary functions with caller-side information
-		abs.postdominators = null;
+		abs.state = abs.state.withPostdominators(null);
 
 		return abs;
 	}
 	
 	public final Abstraction dropTopPostdominator() {
+		List<UnitContainer> postdominators = state.getPostdominators();
 		if (postdominators == null || postdominators.isEmpty())
 			return this;
-		
-		Abstraction abs = clone();
-		abs.sourceContext = null;
-		abs.postdominators.remove(0);
-		return abs;
+		return new Abstraction(getStateForSuccessor().popPostdominator(),
+				this, null);
 	}
 	
 	public UnitContainer getTopPostdominator() {
+		List<UnitContainer> postdominators = state.getPostdominators();
 		if (postdominators == null || postdominators.isEmpty())
 			return null;
-		return this.postdominators.get(0);
+		return postdominators.get(0);
 	}
 	
 	public boolean isTopPostdominator(Unit u) {
@@ -383,15 +420,33 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	
 	@Override
 	public Abstraction clone() {
-		Abstraction abs = new Abstraction(accessPath, this);
-		abs.predecessor = this;
-		abs.neighbors = null;
-		abs.currentStmt = null;
+		// States are immutable, so the clone can share ours
+		Abstraction abs = new Abstraction(state, this, null);
 		
 		assert abs.equals(this);
 		return abs;
 	}
 	
+	/**
+	 * Gets the semantic state of this abstraction. If canonicalization is
+	 * enabled, the canonical state is returned and remembered, so that later
+	 * comparisons can be done by identity.
+	 * @return The state of this abstraction
+	 */
+	private AbstractionState getCanonicalState() {
+		AbstractionState s = this.state;
+		if (!s.isCanonical()) {
+			// Concurrent threads may race here, but they will all obtain the
+			// same canonical state
+			AbstractionState canonicalState = s.canonicalize();
+			if (canonicalState != s) {
+				s = canonicalState;
+				this.state = s;
+			}
+		}
+		return s;
+	}
+	
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -400,74 +455,17 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 			return false;
 		Abstraction other = (Abstraction) obj;
 		
-		// If we have already computed hash codes, we can use them for
-		// comparison
-		if (this.hashCode != 0
-				&& other.hashCode != 0
-				&& this.hashCode != other.hashCode)
-			return false;
-		
-		if (accessPath == null) {
-			if (other.accessPath != null)
-				return false;
-		} else if (!accessPath.equals(other.accessPath))
-			return false;
-		
-		return localEquals(other);
-	}
-	
-	/**
-	 * Checks whether this object locally equals the given object, i.e. the both
-	 * are equal modulo the access path
-	 * @param other The object to compare this object with
-	 * @return True if this object is locally equal to the given one, otherwise
-	 * false
-	 */
-	private boolean localEquals(Abstraction other) {
 		// deliberately ignore prevAbs
-		if (sourceContext == null) {
-			if (other.sourceContext != null)
-				return false;
-		} else if (!sourceContext.equals(other.sourceContext))
-			return false;
-		if (activationUnit == null) {
-			if (other.activationUnit != null)
-				return false;
-		} else if (!activationUnit.equals(other.activationUnit))
-			return false;
-		if (this.exceptionThrown != other.exceptionThrown)
-			return false;
-		if (postdominators == null) {
-			if (other.postdominators != null)
-				return false;
-		} else if (!postdominators.equals(other.postdominators))
-			return false;
-		if(this.dependsOnCutAP != other.dependsOnCutAP)
-			return false;
-		if(this.isImplicit != other.isImplicit)
-			return false;
-		return true;
+		AbstractionState thisState = this.getCanonicalState();
+		AbstractionState otherState = other.getCanonicalState();
+		if (thisState == otherState)
+			return true;
+		return thisState.equals(otherState);
 	}
 	
 	@Override
 	public int hashCode() {
-		if (this.hashCode != 0)
-			return hashCode;
-
-		final int prime = 31;
-		int result = 1;
-	
-		// deliberately ignore prevAbs
-		result = prime * result + ((sourceContext == null) ? 0 : sourceContext.hashCode());
-		result = prime * result + ((accessPath == null) ? 0 : accessPath.hashCode());
-		result = prime * result + ((activationUnit == null) ? 0 : activationUnit.hashCode());
-		result = prime * result + (exceptionThrown ? 1231 : 1237);
-		result = prime * result + ((postdominators == null) ? 0 : postdominators.hashCode());
-		result = prime * result + (dependsOnCutAP ? 1231 : 1237);
-		result = prime * result + (isImplicit ? 1231 : 1237);
-		this.hashCode = result;
-		
-		return this.hashCode;
+		return this.getCanonicalState().hashCode();
 	}
 	
 	/**
@@ -478,12 +476,13 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * by the given object
 	 */
 	public boolean entails(Abstraction other) {
+		AccessPath accessPath = state.getAccessPath();
 		if (accessPath == null) {
-			if (other.accessPath != null)
+			if (other.getAccessPath() != null)
 				return false;
-		} else if (!accessPath.entails(other.accessPath))
+		} else if (!accessPath.entails(other.getAccessPath()))
 			return false;
-		return localEquals(other);
+		return state.localEquals(other.state);
 	}
 
 	/**
@@ -491,11 +490,11 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * @return The statement and value of the source
 	 */
 	public SourceContext getSourceContext() {
-		return sourceContext;
+		return state.getSourceContext();
 	}
 	
 	public boolean dependsOnCutAP() {
-		return dependsOnCutAP;
+		return state.dependsOnCutAP();
 	}
 	
 	@Override
@@ -503,8 +502,15 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 		return this.predecessor;
 	}
 	
-	public Set<Abstraction> getNeighbors() {
-		return this.neighbors;
+	/**
+	 * Gets the abstractions that are equal to this one, but were reached
+	 * through different predecessors or statements. The returned set may
+	 * be iterated while further neighbors are added.
+	 * @return The neighbors of this abstraction, or null if there are none
+	 */
+	public NeighborSet getNeighbors() {
+		Extension ext = this.extension;
+		return ext == null ? null : ext.neighbors;
 	}
 	
 	public Stmt getCurrentStmt() {
@@ -515,8 +521,10 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	public void addNeighbor(Abstraction originalAbstraction) {
 		assert originalAbstraction.equals(this);
 		
-		// We should not register ourselves as a neighbor
-		if (originalAbstraction == this)
+		// We should not register ourselves as a neighbor. In results-only
+		// mode, an equal abstraction has the same source, so there is
+		// nothing to record.
+		if (originalAbstraction == this || resultsOnly)
 			return;
 		
 		// We should not add identical nodes as neighbors
@@ -524,23 +532,20 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 				&& this.currentStmt == originalAbstraction.currentStmt)
 			return;
 		
-		synchronized (this) {
-			if (neighbors == null)
-				neighbors = Sets.newIdentityHashSet();
-			else {
-				// Check if we already have an identical neighbor
-				for (Abstraction nb : neighbors)
-					if (originalAbstraction.predecessor == nb.predecessor
-							&& originalAbstraction.currentStmt == nb.currentStmt) {
-						return;
-					}
-			}
-			this.neighbors.add(originalAbstraction);
+		// The neighbor set takes care of identical neighbors
+		Extension ext = getOrMakeExtension();
+		NeighborSet nbs = ext.neighbors;
+		if (nbs == null) {
+			nbs = new NeighborSet();
+			if (!Extension.neighborsUpdater.compareAndSet(ext, null, nbs))
+				nbs = ext.neighbors;
 		}
+		nbs.add(originalAbstraction);
 	}
 	
 	public void setCorrespondingCallSite(Stmt callSite) {
-		this.correspondingCallSite = callSite;
+		if (!resultsOnly)
+			this.correspondingCallSite = callSite;
 	}
 	
 	public Stmt getCorrespondingCallSite() {
@@ -558,7 +563,8 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 
 	@Override
 	public void setPredecessor(Abstraction predecessor) {
-		this.predecessor = predecessor;
+		if (!resultsOnly)
+			this.predecessor = predecessor;
 	}
 
 	@Override
@@ -573,27 +579,24 @@ public class Abstraction implements Cloneable, FastSolverLinkedNode<Abstraction,
 	 * registered before, otherwise false
 	 */
 	public boolean registerPathFlag(int id) {
-		if (pathFlags != null && pathFlags.get(id))
+		Extension ext = getOrMakeExtension();
+		if (ext.pathFlags != null && ext.pathFlags.get(id))
 			return false;
 		
 		synchronized (this) {
-			if (pathFlags == null)
-				pathFlags = new BitSet();
-			pathFlags.set(id);
+			if (ext.pathFlags == null)
+				ext.pathFlags = new BitSet();
+			ext.pathFlags.set(id);
 		}
 		return true;
 	}
 	
 	public Abstraction injectSourceContext(SourceContext sourceContext) {
-		if (this.sourceContext != null && this.sourceContext.equals(sourceContext))
+		SourceContext curContext = state.getSourceContext();
+		if (curContext != null && curContext.equals(sourceContext))
 			return this;
-		
-		Abstraction abs = clone();
-		abs.predecessor = null;
-		abs.neighbors = null;
-		abs.sourceContext = sourceContext;
-		abs.currentStmt = this.currentStmt;
-		return abs;
+		return new Abstraction(state.withSourceContext(sourceContext), null,
+				this.currentStmt);
 	}
 	
 }
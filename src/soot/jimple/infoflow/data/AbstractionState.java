@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import soot.Unit;
+import soot.jimple.infoflow.solver.IInfoflowCFG.UnitContainer;
+
+/**
+ * The semantic part of an {@link Abstraction}, i.e., everything that decides
+ * whether two abstractions are equal. The predecessor and the current
+ * statement are not part of the state, so many abstractions can share the
+ * same state object. States are immutable.
+ *
+ * If canonicalization is enabled, every state is interned into a global pool
+ * the first time it is compared or hashed. Two canonical states from the same
+ * pool are then equal if and only if they are identical.
+ *
+ * The boolean properties are packed into a single flags field, and the
+ * postdominator stack, which is only needed for implicit flows, is kept in
+ * a subclass, so that the common states stay small. States are therefore
+ * created through {@link #create}.
+ */
+public class AbstractionState {
+
+	private static volatile ConcurrentMap<AbstractionState, AbstractionState> pool = null;
+
+	private static final byte FLAG_EXCEPTION_THROWN = 1;
+	private static final byte FLAG_DEPENDS_ON_CUT_AP = 2;
+	private static final byte FLAG_IMPLICIT = 4;
+
+	/**
+	 * A state that is inside a conditional branch and thus carries a stack
+	 * of postdominators
+	 */
+	private static final class PostdominatorState extends AbstractionState {
+
+		private final List<UnitContainer> postdominators;
+
+		private PostdominatorState(AccessPath accessPath, SourceContext sourceContext,
+				Unit activationUnit, List<UnitContainer> postdominators, byte flags,
+				ConcurrentMap<AbstractionState, AbstractionState> canonicalPool) {
+			super(accessPath, sourceContext, activationUnit, postdominators, flags,
+					canonicalPool);
+			this.postdominators = postdominators;
+		}
+
+		@Override
+		public List<UnitContainer> getPostdominators() {
+			return this.postdominators;
+		}
+
+	}
+
+	private final AccessPath accessPath;
+	private final SourceContext sourceContext;
+	private final Unit activationUnit;
+	private final byte flags;
+	private final int hashCode;
+	// The pool in which this state is the representative, or null if it
+	// has not been interned
+	private final ConcurrentMap<AbstractionState, AbstractionState> canonicalPool;
+
+	/**
+	 * Creates a new state
+	 * @param accessPath The access path that is tainted
+	 * @param sourceContext The source from which the taint originates, or
+	 * null if it is not known at this point
+	 * @param activationUnit The statement which activates the taint, or null
+	 * if the taint is active
+	 * @param exceptionThrown True if the tainted value has been thrown as an
+	 * exception
+	 * @param postdominators The postdominators that must be passed to leave
+	 * the current conditional branch, top of stack first. The list must not
+	 * be modified afterwards.
+	 * @param dependsOnCutAP True if the access path has been cut during alias
+	 * analysis
+	 * @param isImplicit True if the taint stems from an implicit flow
+	 * @return The new state
+	 */
+	public static AbstractionState create(AccessPath accessPath, SourceContext sourceContext,
+			Unit activationUnit, boolean exceptionThrown,
+			List<UnitContainer> postdominators, boolean dependsOnCutAP,
+			boolean isImplicit) {
+		byte flags = 0;
+		if (exceptionThrown)
+			flags |= FLAG_EXCEPTION_THROWN;
+		if (dependsOnCutAP)
+			flags |= FLAG_DEPENDS_ON_CUT_AP;
+		if (isImplicit)
+			flags |= FLAG_IMPLICIT;
+		return create(accessPath, sourceContext, activationUnit, postdominators, flags);
+	}
+
+	private static AbstractionState create(AccessPath accessPath, SourceContext sourceContext,
+			Unit activationUnit, List<UnitContainer> postdominators, byte flags) {
+		return create(accessPath, sourceContext, activationUnit, postdominators, flags, null);
+	}
+
+	private static AbstractionState create(AccessPath accessPath, SourceContext sourceContext,
+			Unit activationUnit, List<UnitContainer> postdominators, byte flags,
+			ConcurrentMap<AbstractionState, AbstractionState> canonicalPool) {
+		if (postdominators == null || postdominators.isEmpty())
+			return new AbstractionState(accessPath, sourceContext, activationUnit, null, flags,
+					canonicalPool);
+		return new PostdominatorState(accessPath, sourceContext, activationUnit,
+				postdominators, flags, canonicalPool);
+	}
+
+	private AbstractionState(AccessPath accessPath, SourceContext sourceContext,
+			Unit activationUnit, List<UnitContainer> postdominators, byte flags,
+			ConcurrentMap<AbstractionState, AbstractionState> canonicalPool) {
+		this.accessPath = accessPath;
+		this.sourceContext = sourceContext;
+		this.activationUnit = activationUnit;
+		this.flags = flags;
+		this.canonicalPool = canonicalPool;
+		this.hashCode = computeHashCode(postdominators);
+	}
+
+	/**
+	 * Sets whether states shall be canonicalized. This must be done before
+	 * the first abstraction of an analysis run is created. Enabling
+	 * canonicalization always starts with a new, empty pool.
+	 * @param enabled True if states shall be canonicalized, otherwise false
+	 */
+	public static void setCanonicalizationEnabled(boolean enabled) {
+		pool = enabled ? new ConcurrentHashMap<AbstractionState, AbstractionState>() : null;
+	}
+
+	/**
+	 * Gets the number of distinct states in the canonicalization pool
+	 * @return The number of canonical states, or 0 if canonicalization is
+	 * disabled
+	 */
+	public static int getCanonicalStateCount() {
+		ConcurrentMap<AbstractionState, AbstractionState> curPool = pool;
+		return curPool == null ? 0 : curPool.size();
+	}
+
+	/**
+	 * Gets the canonical representative of this state. If canonicalization
+	 * is disabled, the state itself is returned.
+	 * @return The canonical representative of this state
+	 */
+	AbstractionState canonicalize() {
+		ConcurrentMap<AbstractionState, AbstractionState> curPool = pool;
+		if (isCanonical() || curPool == null)
+			return this;
+
+		AbstractionState existing = curPool.get(this);
+		if (existing != null)
+			return existing;
+
+		// The pool field is final, so the representative is safely
+		// published to other threads
+		AbstractionState newState = create(accessPath, sourceContext,
+				activationUnit, getPostdominators(), flags, curPool);
+		existing = curPool.putIfAbsent(newState, newState);
+		return existing == null ? newState : existing;
+	}
+
+	/**
+	 * Gets whether this state is the canonical representative of all equal
+	 * states
+	 * @return True if this state has been interned, otherwise false
+	 */
+	public boolean isCanonical() {
+		return canonicalPool != null;
+	}
+
+	public AccessPath getAccessPath() {
+		return this.accessPath;
+	}
+
+	public SourceContext getSourceContext() {
+		return this.sourceContext;
+	}
+
+	public Unit getActivationUnit() {
+		return this.activationUnit;
+	}
+
+	public boolean getExceptionThrown() {
+		return (flags & FLAG_EXCEPTION_THROWN) != 0;
+	}
+
+	/**
+	 * Gets the postdominators that must be passed to leave the current
+	 * conditional branch
+	 * @return The postdominators, top of stack first, or null if the taint
+	 * is not inside a conditional branch
+	 */
+	public List<UnitContainer> getPostdominators() {
+		return null;
+	}
+
+	public boolean dependsOnCutAP() {
+		return (flags & FLAG_DEPENDS_ON_CUT_AP) != 0;
+	}
+
+	public boolean isImplicit() {
+		return (flags & FLAG_IMPLICIT) != 0;
+	}
+
+	/**
+	 * Gets the flags of a derived state in which the given flag is set to
+	 * the given value
+	 * @param flag The flag to set or clear
+	 * @param value True if the flag shall be set, false if it shall be
+	 * cleared
+	 * @return The flags to copy into a derived state
+	 */
+	private byte getDerivedFlags(byte flag, boolean value) {
+		return (byte) (value ? flags | flag : flags & ~flag);
+	}
+
+	/**
+	 * Derives the state for a new access path. The postdominators are
+	 * dropped unless the new access path is empty.
+	 * @param p The new access path
+	 * @param keepSourceContext True if the derived state shall keep the
+	 * source context, false if it shall be dropped
+	 * @return The derived state
+	 */
+	AbstractionState deriveAccessPath(AccessPath p, boolean keepSourceContext) {
+		byte derivedFlags = activationUnit == null ? flags
+				: getDerivedFlags(FLAG_DEPENDS_ON_CUT_AP,
+						dependsOnCutAP() || p.isCutOffApproximation());
+		return create(p, keepSourceContext ? sourceContext : null,
+				activationUnit, p.isEmpty() ? getPostdominators() : null,
+				derivedFlags);
+	}
+
+	AbstractionState withSourceContext(SourceContext sourceContext) {
+		if (this.sourceContext == sourceContext)
+			return this;
+		return create(accessPath, sourceContext, activationUnit,
+				getPostdominators(), flags);
+	}
+
+	AbstractionState withActivationUnit(Unit activationUnit, boolean dependsOnCutAP) {
+		if (this.activationUnit == activationUnit && this.dependsOnCutAP() == dependsOnCutAP)
+			return this;
+		return create(accessPath, sourceContext, activationUnit, getPostdominators(),
+				getDerivedFlags(FLAG_DEPENDS_ON_CUT_AP, dependsOnCutAP));
+	}
+
+	AbstractionState withExceptionThrown(boolean exceptionThrown) {
+		if (this.getExceptionThrown() == exceptionThrown)
+			return this;
+		return create(accessPath, sourceContext, activationUnit, getPostdominators(),
+				getDerivedFlags(FLAG_EXCEPTION_THROWN, exceptionThrown));
+	}
+
+	AbstractionState withPostdominators(List<UnitContainer> postdominators) {
+		return create(accessPath, sourceContext, activationUnit, postdominators,
+				flags);
+	}
+
+	AbstractionState withImplicit(boolean isImplicit) {
+		if (this.isImplicit() == isImplicit)
+			return this;
+		return create(accessPath, sourceContext, activationUnit, getPostdominators(),
+				getDerivedFlags(FLAG_IMPLICIT, isImplicit));
+	}
+
+	/**
+	 * Derives a state in which the given postdominator is on top of the
+	 * postdominator stack
+	 * @param postdom The postdominator to push
+	 * @return The derived state
+	 */
+	AbstractionState pushPostdominator(UnitContainer postdom) {
+		List<UnitContainer> postdominators = getPostdominators();
+		if (postdominators == null)
+			return withPostdominators(Collections.singletonList(postdom));
+		List<UnitContainer> newPostdoms = new ArrayList<UnitContainer>(postdominators.size() + 1);
+		newPostdoms.add(postdom);
+		newPostdoms.addAll(postdominators);
+		return withPostdominators(newPostdoms);
+	}
+
+	/**
+	 * Derives a state in which the top postdominator has been removed
+	 * @return The derived state
+	 */
+	AbstractionState popPostdominator() {
+		List<UnitContainer> postdominators = getPostdominators();
+		if (postdominators == null || postdominators.size() <= 1)
+			return withPostdominators(null);
+		return withPostdominators(new ArrayList<UnitContainer>(
+				postdominators.subList(1, postdominators.size())));
+	}
+
+	/**
+	 * Checks whether this state equals the given one modulo the access path
+	 * @param other The state to compare this state with
+	 * @return True if the two states are equal modulo the access path,
+	 * otherwise false
+	 */
+	boolean localEquals(AbstractionState other) {
+		if (sourceContext == null) {
+			if (other.sourceContext != null)
+				return false;
+		} else if (!sourceContext.equals(other.sourceContext))
+			return false;
+		if (activationUnit == null) {
+			if (other.activationUnit != null)
+				return false;
+		} else if (!activationUnit.equals(other.activationUnit))
+			return false;
+		if (this.flags != other.flags)
+			return false;
+		List<UnitContainer> postdominators = getPostdominators();
+		if (postdominators == null) {
+			if (other.getPostdominators() != null)
+				return false;
+		} else if (!postdominators.equals(other.getPostdominators()))
+			return false;
+		return true;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		AbstractionState other = (AbstractionState) obj;
+
+		// Two distinct canonical states from the same pool are never equal.
+		// States from different pools, i.e., different analysis runs, must be
+		// compared field by field.
+		if (this.canonicalPool != null && this.canonicalPool == other.canonicalPool)
+			return false;
+		if (this.hashCode != other.hashCode)
+			return false;
+
+		if (accessPath == null) {
+			if (other.accessPath != null)
+				return false;
+		} else if (!accessPath.equals(other.accessPath))
+			return false;
+		return localEquals(other);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	private int computeHashCode(List<UnitContainer> postdominators) {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((sourceContext == null) ? 0 : sourceContext.hashCode());
+		result = prime * result + ((accessPath == null) ? 0 : accessPath.hashCode());
+		result = prime * result + ((activationUnit == null) ? 0 : activationUnit.hashCode());
+		result = prime * result + ((postdominators == null) ? 0 : postdominators.hashCode());
+		result = prime * result + flags;
+		return result;
+	}
+
+}
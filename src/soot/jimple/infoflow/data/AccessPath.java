@@ -12,7 +12,6 @@ package soot.jimple.infoflow.data;
 
 import heros.solver.Pair;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Set;
 
@@ -42,12 +41,12 @@ public class AccessPath implements Cloneable {
 	 */
 	private final Local value;
 	/**
-	 * list of fields, either they are based on a concrete @value or they indicate a static field
+	 * list of fields, either they are based on a concrete @value or they indicate a static field.
+	 * The chain is interned, so equal chains are identical.
 	 */
-	private final SootField[] fields;
+	private final FieldChain fields;
 	
 	private final Type baseType;
-	private final Type[] fieldTypes;
 	
 	private final boolean taintSubFields;
 	private final boolean cutOffApproximation;
@@ -69,11 +68,27 @@ public class AccessPath implements Cloneable {
 		this.value = null;
 		this.fields = null;
 		this.baseType = null;
-		this.fieldTypes = null;
 		this.taintSubFields = true;
 		this.cutOffApproximation = false;
 	}
 	
+	/**
+	 * Creates a new access path from an already normalized field chain
+	 * @param value The base value
+	 * @param fields The interned fields, or null if there are none
+	 * @param baseType The type of the base value
+	 * @param taintSubFields True if all objects reachable through the access
+	 * path shall be tainted
+	 */
+	private AccessPath(Local value, FieldChain fields, Type baseType,
+			boolean taintSubFields) {
+		this.value = value;
+		this.fields = fields;
+		this.baseType = baseType;
+		this.taintSubFields = taintSubFields;
+		this.cutOffApproximation = false;
+	}
+	
 	public AccessPath(Value val, boolean taintSubFields){
 		this(val, (SootField[]) null, null, (Type[]) null, taintSubFields);
 	}
@@ -220,22 +235,12 @@ public class AccessPath implements Cloneable {
 				this.cutOffApproximation = false || recursiveCutOff;
 			}
 			
-			if (fieldNum == 0) {
-				this.fields = null;
-				this.fieldTypes = null;
-			}
-			else {
-				this.fields = new SootField[fieldNum];
-				this.fieldTypes = new Type[fieldNum];
-				System.arraycopy(fields, 0, this.fields, 0, fieldNum);
-				System.arraycopy(fieldTypes, 0, this.fieldTypes, 0, fieldNum);
-			}
+			this.fields = FieldChain.intern(fields, fieldTypes, fieldNum);
 		}
 		else {
 			this.taintSubFields = taintSubFields;
 			this.cutOffApproximation = false;
 			this.fields = null;
-			this.fieldTypes = null;
 		}
 		
 		// Type checks
@@ -312,47 +317,58 @@ public class AccessPath implements Cloneable {
 	}
 	
 	public SootField getLastField() {
-		if (fields == null || fields.length == 0)
+		if (fields == null)
 			return null;
-		return fields[fields.length - 1];
+		return fields.getLastField();
 	}
 	
 	public Type getLastFieldType() {
-		if (fieldTypes == null || fieldTypes.length == 0)
+		if (fields == null)
 			return baseType;
-		return fieldTypes[fieldTypes.length - 1];
+		return fields.getLastType();
 	}
 	
 	public SootField getFirstField(){
-		if (fields == null || fields.length == 0)
+		if (fields == null)
 			return null;
-		return fields[0];
+		return fields.getFirstField();
 	}
 
 	public boolean firstFieldMatches(SootField field) {
-		if (fields == null || fields.length == 0)
+		if (fields == null)
 			return false;
-		if (field == fields[0])
+		if (field == fields.getFirstField())
 			return true;
 		return false;
 	}
 	
 	public Type getFirstFieldType(){
-		if (fieldTypes == null || fieldTypes.length == 0)
+		if (fields == null)
 			return null;
-		return fieldTypes[0];
+		return fields.getFirstType();
 	}
 
+	/**
+	 * Gets the fields of this access path. The array is shared between all
+	 * access paths with the same fields and must not be modified.
+	 * @return The fields of this access path, or null if there are none
+	 */
 	public SootField[] getFields(){
-		return fields;
+		return fields == null ? null : fields.getFields();
 	}
 	
+	/**
+	 * Gets the types of the fields of this access path. The array is shared
+	 * between all access paths with the same fields and must not be modified.
+	 * @return The types of the fields of this access path, or null if there
+	 * are no fields
+	 */
 	public Type[] getFieldTypes(){
-		return fieldTypes;
+		return fields == null ? null : fields.getTypes();
 	}
 	
 	public int getFieldCount() {
-		return fields == null ? 0 : fields.length;
+		return fields == null ? 0 : fields.getLength();
 	}
 	
 	@Override
@@ -362,8 +378,7 @@ public class AccessPath implements Cloneable {
 		
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((fields == null) ? 0 : Arrays.hashCode(fields));
-		result = prime * result + ((fieldTypes == null) ? 0 : Arrays.hashCode(fieldTypes));
+		result = prime * result + ((fields == null) ? 0 : fields.hashCode());
 		result = prime * result + ((value == null) ? 0 : value.hashCode());
 		result = prime * result + ((baseType == null) ? 0 : baseType.hashCode());
 		result = prime * result + (this.taintSubFields ? 1 : 0);
@@ -380,9 +395,10 @@ public class AccessPath implements Cloneable {
 			return false;
 		
 		AccessPath other = (AccessPath) obj;
-		if (!Arrays.equals(fields, other.fields))
-			return false;
-		if (!Arrays.equals(fieldTypes, other.fieldTypes))
+		
+		// Field chains are interned, so this usually is an identity check
+		if (fields != other.fields
+				&& (fields == null || !fields.equals(other.fields)))
 			return false;
 		
 		if (value == null) {
@@ -404,15 +420,15 @@ public class AccessPath implements Cloneable {
 	}
 	
 	public boolean isStaticFieldRef(){
-		return value == null && fields != null && fields.length > 0;
+		return value == null && fields != null;
 	}
 	
 	public boolean isInstanceFieldRef(){
-		return value != null && fields != null && fields.length > 0;
+		return value != null && fields != null;
 	}
 	
 	public boolean isLocal(){
-		return value != null && value instanceof Local && (fields == null || fields.length == 0);
+		return value != null && value instanceof Local && fields == null;
 	}
 	
 	@Override
@@ -421,11 +437,11 @@ public class AccessPath implements Cloneable {
 		if(value != null)
 			str += value.toString() +"(" + value.getType() +")";
 		if (fields != null)
-			for (int i = 0; i < fields.length; i++)
-				if (fields[i] != null) {
+			for (SootField field : fields.getFields())
+				if (field != null) {
 					if (!str.isEmpty())
 						str += " ";
-					str += fields[i];
+					str += field;
 				}
 		if (taintSubFields)
 			str += " *";
@@ -447,17 +463,52 @@ public class AccessPath implements Cloneable {
 				&& this.baseType.equals(newType))
 			return this;
 		
-		return new AccessPath(val, fields, newType, fieldTypes, this.taintSubFields,
+		// If we only exchange the base local, we can keep our field chain
+		if (val instanceof Local && newType != null && !cutFirstField
+				&& isNormalized((Local) val, newType, fields))
+			return new AccessPath((Local) val, fields, newType, this.taintSubFields);
+		
+		return new AccessPath(val, getFields(), newType, getFieldTypes(), this.taintSubFields,
 				cutFirstField, true);
 	}
 	
+	/**
+	 * Checks whether an access path with the given base and fields would be
+	 * left unchanged by the normalization in the constructor, i.e., whether
+	 * it neither exceeds the maximum access path length nor contains a
+	 * recursive base. Such access paths can be created directly from the
+	 * field chain without copying any arrays.
+	 * @param value The base value
+	 * @param baseType The type of the base value
+	 * @param fields The fields of the access path, or null if there are none
+	 * @return True if the access path is already normalized, otherwise false
+	 */
+	private static boolean isNormalized(Local value, Type baseType, FieldChain fields) {
+		if (fields == null)
+			return true;
+		if (fields.getLength() > Infoflow.getAccessPathLength())
+			return false;
+		if (!Infoflow.getUseRecursiveAccessPaths())
+			return true;
+		
+		// The first field of a static field reference is not checked as a base
+		Type[] fieldTypes = fields.getTypes();
+		for (int ei = value == null ? 1 : 0; ei < fieldTypes.length; ei++) {
+			final Type eiType = ei == 0 ? baseType : fieldTypes[ei - 1];
+			for (int ej = ei; ej < fieldTypes.length; ej++)
+				if (fieldTypes[ej] == eiType)
+					return false;
+		}
+		return true;
+	}
+	
 	@Override
 	public AccessPath clone(){
 		// The empty access path is a singleton
 		if (this == emptyAccessPath)
 			return this;
 
-		AccessPath a = new AccessPath(value, fields, baseType, fieldTypes, taintSubFields);
+		AccessPath a = new AccessPath(value, getFields(), baseType, getFieldTypes(), taintSubFields);
 		assert a.equals(this);
 		return a;
 	}
@@ -467,7 +518,7 @@ public class AccessPath implements Cloneable {
 	}
 	
 	public boolean isEmpty() {
-		return value == null && (fields == null || fields.length == 0);
+		return value == null && fields == null;
 	}
 
 	/**
@@ -494,12 +545,14 @@ public class AccessPath implements Cloneable {
 		
 		if (this.fields != null && a2.fields != null) {
 			// If this access path is deeper than the other one, it cannot entail it
-			if (this.fields.length > a2.fields.length)
+			if (this.fields.getLength() > a2.fields.getLength())
 				return false;
 			
 			// Check the fields in detail
-			for (int i = 0; i < this.fields.length; i++)
-				if (!this.fields[i].equals(a2.fields[i]))
+			SootField[] thisFields = this.fields.getFields();
+			SootField[] otherFields = a2.fields.getFields();
+			for (int i = 0; i < thisFields.length; i++)
+				if (!thisFields[i].equals(otherFields[i]))
 					return false;
 		}
 		return true;
@@ -512,7 +565,7 @@ public class AccessPath implements Cloneable {
 	 * @return The new access path
 	 */
 	public AccessPath merge(AccessPath ap) {
-		return appendFields(ap.fields, ap.fieldTypes, ap.taintSubFields);
+		return appendFields(ap.getFields(), ap.getFieldTypes(), ap.taintSubFields);
 	}
 	
 	/**
@@ -524,12 +577,27 @@ public class AccessPath implements Cloneable {
 	 * @return The new access path
 	 */
 	public AccessPath appendFields(SootField[] apFields, Type[] apFieldTypes, boolean taintSubFields) {
-		int offset = this.fields == null ? 0 : this.fields.length;
+		// Appending to the field chain is a pointer move unless the new
+		// access path needs to be normalized
+		if (this.value != null || this.fields != null) {
+			int apLength = apFields == null ? 0 : apFields.length;
+			if (getFieldCount() + apLength <= Infoflow.getAccessPathLength()) {
+				FieldChain newFields = this.fields == null
+						? FieldChain.intern(apFields, apFieldTypes, apLength)
+						: this.fields.append(apFields, apFieldTypes, apLength);
+				if (isNormalized(this.value, baseType, newFields))
+					return new AccessPath(this.value, newFields, baseType, taintSubFields);
+			}
+		}
+		
+		SootField[] thisFields = getFields();
+		Type[] thisFieldTypes = getFieldTypes();
+		int offset = thisFields == null ? 0 : thisFields.length;
 		SootField[] fields = new SootField[offset + (apFields == null ? 0 : apFields.length)];
 		Type[] fieldTypes = new Type[offset + (apFields == null ? 0 : apFields.length)];
-		if (this.fields != null) {
-			System.arraycopy(this.fields, 0, fields, 0, this.fields.length);
-			System.arraycopy(this.fieldTypes, 0, fieldTypes, 0, this.fieldTypes.length);
+		if (thisFields != null) {
+			System.arraycopy(thisFields, 0, fields, 0, thisFields.length);
+			System.arraycopy(thisFieldTypes, 0, fieldTypes, 0, thisFieldTypes.length);
 		}
 		if (apFields != null)
 			if (apFields != null && apFields.length > 0) {
@@ -546,23 +614,15 @@ public class AccessPath implements Cloneable {
 	 * @return A copy of this access path with the first field being dropped.
 	 */
 	public AccessPath dropFirstField() {
-		if (fields == null || fields.length == 0)
+		if (fields == null)
 			return this;
 		
-		final SootField[] newFields;
-		final Type[] newTypes;
-		if (fields.length > 1) {
-			newFields = new SootField[fields.length - 1];
-			System.arraycopy(fields, 1, newFields, 0, fields.length - 1);
-
-			newTypes = new Type[fields.length - 1];
-			System.arraycopy(fieldTypes, 1, newTypes, 0, fields.length - 1);
-		}
-		else {
-			newFields = null;
-			newTypes = null;
-		}
-		return new AccessPath(value, newFields, fieldTypes[0], newTypes, taintSubFields);		
+		FieldChain newFields = fields.dropFirst();
+		if (value != null && isNormalized(value, fields.getFirstType(), newFields))
+			return new AccessPath(value, newFields, fields.getFirstType(), taintSubFields);
+		return new AccessPath(value, newFields == null ? null : newFields.getFields(),
+				fields.getFirstType(), newFields == null ? null : newFields.getTypes(),
+				taintSubFields);
 	}
 	
 	/**
@@ -571,23 +631,14 @@ public class AccessPath implements Cloneable {
 	 * @return A copy of this access path with the last field being dropped.
 	 */
 	public AccessPath dropLastField() {
-		if (fields == null || fields.length == 0)
+		if (fields == null)
 			return this;
 		
-		final SootField[] newFields;
-		final Type[] newTypes;
-		if (fields.length > 1) {
-			newFields = new SootField[fields.length - 1];
-			System.arraycopy(fields, 0, newFields, 0, fields.length - 1);
-
-			newTypes = new Type[fields.length - 1];
-			System.arraycopy(fieldTypes, 0, newTypes, 0, fields.length - 1);
-		}
-		else {
-			newFields = null;
-			newTypes = null;
-		}
-		return new AccessPath(value, newFields, baseType, newTypes, taintSubFields);
+		FieldChain newFields = fields.getParent();
+		if (value != null && isNormalized(value, baseType, newFields))
+			return new AccessPath(value, newFields, baseType, taintSubFields);
+		return new AccessPath(value, newFields == null ? null : newFields.getFields(),
+				baseType, newFields == null ? null : newFields.getTypes(), taintSubFields);
 	}
 	
 	/**
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import heros.solver.Pair;
+
+import java.util.Arrays;
+
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.util.MyConcurrentHashMap;
+
+/**
+ * An interned, non-empty sequence of fields together with their types. All
+ * chains form a trie in which every chain points to the chain without its
+ * last field. Chains are only created through {@link #intern} and
+ * {@link #append}, so two equal chains that were created after the same call
+ * to {@link #reset()} are the same object. Appending and dropping the last
+ * field thus are simple pointer moves, and equality is an identity check.
+ *
+ * The trie only grows. Call {@link #reset()} once the chains of an analysis
+ * run are no longer needed. Chains from before the reset remain valid, but
+ * are compared field by field with newer ones.
+ */
+public class FieldChain {
+
+	private static volatile FieldChain currentRoot = new FieldChain();
+
+	/**
+	 * The root of the trie this chain belongs to. The root itself is an empty
+	 * sentinel that is never handed out.
+	 */
+	private final FieldChain root;
+	private final FieldChain parent;
+	private final SootField field;
+	private final Type type;
+	private final SootField firstField;
+	private final Type firstType;
+	private final int length;
+	private final int hashCode;
+
+	private volatile MyConcurrentHashMap<Pair<SootField, Type>, FieldChain> children = null;
+	private volatile SootField[] fieldArray = null;
+	private volatile Type[] typeArray = null;
+	private volatile FieldChain withoutFirst = null;
+
+	/**
+	 * Creates a new root node
+	 */
+	private FieldChain() {
+		this.root = this;
+		this.parent = null;
+		this.field = null;
+		this.type = null;
+		this.firstField = null;
+		this.firstType = null;
+		this.length = 0;
+		this.hashCode = 1;
+	}
+
+	private FieldChain(FieldChain parent, SootField field, Type type) {
+		this.root = parent.root;
+		this.parent = parent;
+		this.field = field;
+		this.type = type;
+		this.firstField = parent.length == 0 ? field : parent.firstField;
+		this.firstType = parent.length == 0 ? type : parent.firstType;
+		this.length = parent.length + 1;
+
+		final int prime = 31;
+		this.hashCode = prime * (prime * parent.hashCode + field.hashCode())
+				+ (type == null ? 0 : type.hashCode());
+	}
+
+	/**
+	 * Starts a new trie. Chains created afterwards are never identical to
+	 * chains created before.
+	 */
+	public static void reset() {
+		currentRoot = new FieldChain();
+	}
+
+	/**
+	 * Gets the interned chain for the first fieldNum fields in the given
+	 * arrays
+	 * @param fields The fields of the chain
+	 * @param types The types of the fields of the chain
+	 * @param fieldNum The number of fields to take from the arrays
+	 * @return The interned chain, or null if fieldNum is 0
+	 */
+	public static FieldChain intern(SootField[] fields, Type[] types, int fieldNum) {
+		return currentRoot.append(fields, types, fieldNum);
+	}
+
+	/**
+	 * Gets the interned chain that consists of this chain followed by the
+	 * given field
+	 * @param field The field to append
+	 * @param type The type of the field to append
+	 * @return The interned chain
+	 */
+	public FieldChain append(SootField field, Type type) {
+		MyConcurrentHashMap<Pair<SootField, Type>, FieldChain> curChildren = children;
+		if (curChildren == null) {
+			synchronized (this) {
+				curChildren = children;
+				if (curChildren == null) {
+					curChildren = new MyConcurrentHashMap<Pair<SootField, Type>, FieldChain>();
+					children = curChildren;
+				}
+			}
+		}
+
+		Pair<SootField, Type> key = new Pair<SootField, Type>(field, type);
+		FieldChain child = curChildren.get(key);
+		if (child == null)
+			child = curChildren.putIfAbsentElseGet(key, new FieldChain(this, field, type));
+		return child;
+	}
+
+	/**
+	 * Gets the interned chain that consists of this chain followed by the
+	 * first fieldNum fields in the given arrays
+	 * @param fields The fields to append
+	 * @param types The types of the fields to append
+	 * @param fieldNum The number of fields to take from the arrays
+	 * @return The interned chain, or null if this chain is a root and
+	 * fieldNum is 0
+	 */
+	public FieldChain append(SootField[] fields, Type[] types, int fieldNum) {
+		FieldChain chain = this;
+		for (int i = 0; i < fieldNum; i++)
+			chain = chain.append(fields[i], types[i]);
+		return chain.length == 0 ? null : chain;
+	}
+
+	/**
+	 * Gets the chain without the last field
+	 * @return The chain without the last field, or null if this chain only
+	 * consists of a single field
+	 */
+	public FieldChain getParent() {
+		return parent.length == 0 ? null : parent;
+	}
+
+	/**
+	 * Gets the chain without the first field. The result is cached, so
+	 * subsequent calls are pointer moves as well.
+	 * @return The chain without the first field, or null if this chain only
+	 * consists of a single field
+	 */
+	public FieldChain dropFirst() {
+		if (length == 1)
+			return null;
+		FieldChain chain = withoutFirst;
+		if (chain == null) {
+			chain = dropFirstSlow();
+			withoutFirst = chain;
+		}
+		return chain;
+	}
+
+	/**
+	 * Interns the chain without the first field by walking the trie
+	 * @return The chain without the first field
+	 */
+	private FieldChain dropFirstSlow() {
+		SootField[] fields = getFields();
+		Type[] types = getTypes();
+		FieldChain chain = root;
+		for (int i = 1; i < length; i++)
+			chain = chain.append(fields[i], types[i]);
+		return chain;
+	}
+
+	public SootField getLastField() {
+		return this.field;
+	}
+
+	public Type getLastType() {
+		return this.type;
+	}
+
+	public SootField getFirstField() {
+		return this.firstField;
+	}
+
+	public Type getFirstType() {
+		return this.firstType;
+	}
+
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Gets the fields in this chain. The array is shared and must not be
+	 * modified.
+	 * @return The fields in this chain
+	 */
+	public SootField[] getFields() {
+		SootField[] fields = fieldArray;
+		if (fields == null) {
+			fields = new SootField[length];
+			FieldChain chain = this;
+			for (int i = length - 1; i >= 0; i--) {
+				fields[i] = chain.field;
+				chain = chain.parent;
+			}
+			fieldArray = fields;
+		}
+		return fields;
+	}
+
+	/**
+	 * Gets the types of the fields in this chain. The array is shared and
+	 * must not be modified.
+	 * @return The types of the fields in this chain
+	 */
+	public Type[] getTypes() {
+		Type[] types = typeArray;
+		if (types == null) {
+			types = new Type[length];
+			FieldChain chain = this;
+			for (int i = length - 1; i >= 0; i--) {
+				types[i] = chain.type;
+				chain = chain.parent;
+			}
+			typeArray = types;
+		}
+		return types;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		FieldChain other = (FieldChain) obj;
+
+		// Within the same trie, equal chains are identical
+		if (this.root == other.root)
+			return false;
+		if (this.hashCode != other.hashCode || this.length != other.length)
+			return false;
+		return Arrays.equals(getFields(), other.getFields())
+				&& Arrays.equals(getTypes(), other.getTypes());
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(getFields());
+	}
+
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import soot.jimple.Stmt;
+
+/**
+ * Lock-free, append-only set of the neighbors of an abstraction. Two
+ * neighbors are considered identical if they have the same predecessor and
+ * the same current statement, both compared by identity. The neighbors are
+ * stored in a hash trie. Every slot of the trie only ever changes from empty
+ * to a neighbor and from a neighbor to a subtree containing this neighbor,
+ * so insertions only need a compare-and-swap, and iterators never miss a
+ * neighbor that was added before their creation. Neighbors that are added
+ * concurrently with an iteration may or may not be returned.
+ */
+public class NeighborSet implements Iterable<Abstraction> {
+
+	private static final int BITS_PER_LEVEL = 4;
+	private static final int WIDTH = 1 << BITS_PER_LEVEL;
+	private static final int MAX_DEPTH = 32 / BITS_PER_LEVEL;
+
+	/**
+	 * Inner node of the trie. Each slot is either empty, a neighbor, a child
+	 * node, or a collision list.
+	 */
+	private static class Node {
+		private final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<Object>(WIDTH);
+	}
+
+	/**
+	 * Immutable list of neighbors whose keys have the same hash code
+	 */
+	private static class Collision {
+		private final Abstraction[] entries;
+
+		private Collision(Abstraction[] entries) {
+			this.entries = entries;
+		}
+	}
+
+	private final Node root = new Node();
+
+	/**
+	 * Adds the given neighbor to this set unless there already is a neighbor
+	 * with the same predecessor and current statement
+	 * @param neighbor The neighbor to add
+	 * @return True if the neighbor was added, false if there already was an
+	 * identical one
+	 */
+	public boolean add(Abstraction neighbor) {
+		final Abstraction pred = neighbor.getPredecessor();
+		final Stmt stmt = neighbor.getCurrentStmt();
+		final int hash = hash(pred, stmt);
+
+		Node node = root;
+		int depth = 0;
+		while (true) {
+			int idx = indexOf(hash, depth);
+			Object cur = node.slots.get(idx);
+			if (cur == null) {
+				if (node.slots.compareAndSet(idx, null, neighbor))
+					return true;
+			}
+			else if (cur instanceof Node) {
+				node = (Node) cur;
+				depth++;
+			}
+			else if (cur instanceof Abstraction) {
+				Abstraction other = (Abstraction) cur;
+				if (isSameKey(other, pred, stmt))
+					return false;
+
+				// Move the existing neighbor one level down and try again.
+				// If another thread changed the slot in the meantime, we
+				// also just try again.
+				Object replacement;
+				if (depth + 1 < MAX_DEPTH) {
+					Node child = new Node();
+					child.slots.set(indexOf(hash(other.getPredecessor(),
+							other.getCurrentStmt()), depth + 1), other);
+					replacement = child;
+				}
+				else
+					replacement = new Collision(new Abstraction[] { other });
+				node.slots.compareAndSet(idx, cur, replacement);
+			}
+			else {
+				Abstraction[] entries = ((Collision) cur).entries;
+				for (Abstraction other : entries)
+					if (isSameKey(other, pred, stmt))
+						return false;
+				Abstraction[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+				newEntries[entries.length] = neighbor;
+				if (node.slots.compareAndSet(idx, cur, new Collision(newEntries)))
+					return true;
+			}
+		}
+	}
+
+	private static boolean isSameKey(Abstraction abs, Abstraction pred, Stmt stmt) {
+		return abs.getPredecessor() == pred && abs.getCurrentStmt() == stmt;
+	}
+
+	private static int hash(Abstraction pred, Stmt stmt) {
+		int h = 31 * System.identityHashCode(pred) + System.identityHashCode(stmt);
+		// Spread the bits, the trie consumes them from the lowest ones up
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		return h;
+	}
+
+	private static int indexOf(int hash, int depth) {
+		return (hash >>> (depth * BITS_PER_LEVEL)) & (WIDTH - 1);
+	}
+
+	@Override
+	public Iterator<Abstraction> iterator() {
+		return new NeighborIterator();
+	}
+
+	/**
+	 * Depth-first iterator over the trie
+	 */
+	private class NeighborIterator implements Iterator<Abstraction> {
+
+		private final Node[] nodes = new Node[MAX_DEPTH];
+		private final int[] positions = new int[MAX_DEPTH];
+		private int depth = 0;
+		private Abstraction[] collision = null;
+		private int collisionPos = 0;
+		private Abstraction next = null;
+
+		private NeighborIterator() {
+			nodes[0] = root;
+			advance();
+		}
+
+		private void advance() {
+			next = null;
+			if (collision != null) {
+				if (collisionPos < collision.length) {
+					next = collision[collisionPos++];
+					return;
+				}
+				collision = null;
+			}
+
+			while (depth >= 0) {
+				if (positions[depth] == WIDTH) {
+					depth--;
+					continue;
+				}
+				Object cur = nodes[depth].slots.get(positions[depth]++);
+				if (cur == null)
+					continue;
+				if (cur instanceof Abstraction) {
+					next = (Abstraction) cur;
+					return;
+				}
+				if (cur instanceof Node) {
+					depth++;
+					nodes[depth] = (Node) cur;
+					positions[depth] = 0;
+					continue;
+				}
+				collision = ((Collision) cur).entries;
+				collisionPos = 1;
+				next = collision[0];
+				return;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Abstraction next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			Abstraction abs = next;
+			advance();
+			return abs;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Neighbors cannot be removed");
+		}
+
+	}
+
+}
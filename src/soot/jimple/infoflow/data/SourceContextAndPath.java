@@ -8,6 +8,7 @@ import java.util.List;
 
 import soot.jimple.Stmt;
 import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.collect.ConsList;
 
 /**
  * Extension of {@link SourceContext} that also allows a paths from the source
@@ -16,8 +17,9 @@ import soot.jimple.infoflow.Infoflow;
  * @author Steven Arzt
  */
 public class SourceContextAndPath extends SourceContext implements Cloneable {
-	private List<Abstraction> path = null;
-	private List<Stmt> callStack = null;
+	private ConsList<Abstraction> path = null;
+	private ConsList<Stmt> callStack = null;
+	private boolean callStackEmptied = false;
 	private int hashCode = 0;
 	
 	public SourceContextAndPath(AccessPath value, Stmt stmt) {
@@ -30,7 +32,15 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 	
 	public List<Abstraction> getAbstractionPath() {
 		return path == null ? Collections.<Abstraction>emptyList()
-				: Collections.unmodifiableList(this.path);		
+				: Collections.unmodifiableList(this.path.toList());
+	}
+	
+	/**
+	 * Gets the number of abstractions on the taint propagation path
+	 * @return The length of the taint propagation path
+	 */
+	public int getPathLength() {
+		return path == null ? 0 : path.size();
 	}
 	
 	public List<Stmt> getPath() {
@@ -53,7 +63,9 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 	}
 	
 	/**
-	 * Extends the taint propagation path with the given abstraction
+	 * Extends the taint propagation path with the given abstraction. The new
+	 * object shares the existing path and call stack with this one, so this
+	 * takes constant time and memory regardless of the length of the path.
 	 * @param abs The abstraction to put on the taint propagation path
 	 * @param trackPath True if the abstraction shall be put on the propagation
 	 * path even if does not change the call stack. This is for instance useful
@@ -75,31 +87,18 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 			return this;
 		
 		// Do not add the very same abstraction over and over again
-		if (this.path != null) {
-			boolean found = false;
-			for (Abstraction a : this.path)
-				if (a == abs) {
-					found = true;
-					break;
-				}
-			if (found)
-				return this;
-		}
+		if (this.path != null && this.path.containsIdentical(abs))
+			return this;
 		
 		SourceContextAndPath scap = clone();
-		if (trackPath && abs.getCurrentStmt() != null) {
-			if (scap.path == null)
-				scap.path = new ArrayList<Abstraction>();
-			scap.path.add(0, abs);
-		}
+		if (trackPath && abs.getCurrentStmt() != null)
+			scap.path = new ConsList<Abstraction>(abs, scap.path);
 		
 		// Extend the call stack
 		if (abs.getCorrespondingCallSite() != null
-				&& abs.getCorrespondingCallSite() != abs.getCurrentStmt()) {
-			if (scap.callStack == null)
-				scap.callStack = new ArrayList<Stmt>();
-			scap.callStack.add(0, abs.getCorrespondingCallSite());
-		}
+				&& abs.getCorrespondingCallSite() != abs.getCurrentStmt())
+			scap.callStack = new ConsList<Stmt>(abs.getCorrespondingCallSite(),
+					scap.callStack);
 		
 		return scap;
 	}
@@ -111,11 +110,13 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 	 * element. If there is no call stack, null is returned.
 	 */
 	public Pair<SourceContextAndPath, Stmt> popTopCallStackItem() {
-		if (callStack == null || callStack.isEmpty())
+		if (callStack == null)
 			return null;
 		
 		SourceContextAndPath scap = clone();
-		return new Pair<>(scap, scap.callStack.remove(0));
+		scap.callStack = callStack.getTail();
+		scap.callStackEmptied = scap.callStack == null;
+		return new Pair<>(scap, callStack.getHead());
 	}
 	
 	@Override
@@ -129,15 +130,23 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 		if (this.hashCode != 0 && scap.hashCode != 0 && this.hashCode != scap.hashCode)
 			return false;
 		
+		// A call stack that has been emptied by returning from methods is not
+		// the same as a call stack that has never been used
 		if (this.callStack == null) {
-			if (scap.callStack != null)
+			if (scap.callStack != null || this.callStackEmptied != scap.callStackEmptied)
 				return false;
 		}
 		else if (!this.callStack.equals(scap.callStack))
 			return false;
 		
-		if (!Infoflow.getPathAgnosticResults() && !this.path.equals(scap.path))
-			return false;
+		if (!Infoflow.getPathAgnosticResults()) {
+			if (this.path == null) {
+				if (scap.path != null)
+					return false;
+			}
+			else if (!this.path.equals(scap.path))
+				return false;
+		}
 		
 		return super.equals(other);
 	}
@@ -147,21 +156,20 @@ public class SourceContextAndPath extends SourceContext implements Cloneable {
 		if (hashCode != 0)
 			return hashCode;
 		
-		synchronized(this) {
-			hashCode = (!Infoflow.getPathAgnosticResults() ? 31 * path.hashCode() : 0)
-					+ 31 * (callStack == null ? 0 : callStack.hashCode())
-					+ 31 * super.hashCode();
-		}
+		// The lists cache their own hash codes, so this is cheap
+		hashCode = (!Infoflow.getPathAgnosticResults() && path != null ? 31 * path.hashCode() : 0)
+				+ 31 * (callStack == null ? (callStackEmptied ? 1 : 0) : callStack.hashCode())
+				+ 31 * super.hashCode();
 		return hashCode;
 	}
 	
 	@Override
-	public synchronized SourceContextAndPath clone() {
+	public SourceContextAndPath clone() {
+		// The lists are immutable and can be shared
 		final SourceContextAndPath scap = new SourceContextAndPath(getAccessPath(), getStmt(), getUserData());
-		if (path != null)
-			scap.path = new ArrayList<Abstraction>(this.path);
-		if (callStack != null)
-			scap.callStack = new ArrayList<Stmt>(callStack);
+		scap.path = this.path;
+		scap.callStack = this.callStack;
+		scap.callStackEmptied = this.callStackEmptied;
 		return scap;
 	}
 	
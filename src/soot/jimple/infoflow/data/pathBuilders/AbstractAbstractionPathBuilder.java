@@ -1,6 +1,18 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
+import heros.solver.Pair;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.SourceContextAndPath;
+import soot.jimple.infoflow.results.ResultSinkInfo;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.util.ConcurrentHashSet;
+import soot.jimple.infoflow.util.MyConcurrentHashMap;
 
 /**
  * Abstract base class for all abstraction path builders
@@ -13,6 +25,17 @@ public abstract class AbstractAbstractionPathBuilder implements
 	protected final IInfoflowCFG icfg;
 	protected final boolean reconstructPaths;
 	
+	protected int maxPathsPerPair = -1;
+	protected int maxPathLength = -1;
+	protected long sinkTimeout = -1;
+	
+	private final MyConcurrentHashMap<Stmt, Long> sinkStartTimes =
+			new MyConcurrentHashMap<Stmt, Long>();
+	private final MyConcurrentHashMap<Pair<Stmt, Stmt>, AtomicInteger> pairPathCounts =
+			new MyConcurrentHashMap<Pair<Stmt, Stmt>, AtomicInteger>();
+	private final Set<Stmt> closedSinks = new ConcurrentHashSet<Stmt>();
+	private final Set<Pair<Stmt, Stmt>> closedPairs = new ConcurrentHashSet<Pair<Stmt, Stmt>>();
+	
 	/**
 	 * Creates a new instance of the {@link AbstractAbstractionPathBuilder} class
 	 * @param icfg The interprocedural control flow graph
@@ -24,5 +47,101 @@ public abstract class AbstractAbstractionPathBuilder implements
 		this.icfg = icfg;
 		this.reconstructPaths = reconstructPaths;
 	}
+	
+	@Override
+	public void setMaxPathsPerPair(int maxPathsPerPair) {
+		this.maxPathsPerPair = maxPathsPerPair;
+	}
+	
+	@Override
+	public void setMaxPathLength(int maxPathLength) {
+		this.maxPathLength = maxPathLength;
+	}
+	
+	@Override
+	public void setSinkTimeout(long timeout) {
+		this.sinkTimeout = timeout;
+	}
+	
+	/**
+	 * Checks whether the paths leading to the given sink may still be
+	 * explored. The time budget of a sink starts with the first call to this
+	 * method for the sink. Only the timeout closes a sink. Reaching the path
+	 * limit for one source does not, because other sources may still lead to
+	 * the same sink.
+	 * @param sinkAP The access path that reached the sink
+	 * @param sink The sink statement
+	 * @return True if the paths to the given sink may be explored further,
+	 * false if a limit has been reached for this sink
+	 */
+	protected boolean isSinkOpen(AccessPath sinkAP, Stmt sink) {
+		if (closedSinks.contains(sink))
+			return false;
+		if (sinkTimeout >= 0) {
+			long startTime = sinkStartTimes.putIfAbsentElseGet(sink, System.nanoTime());
+			if (System.nanoTime() - startTime >= sinkTimeout * 1000000000L) {
+				closeSink(sinkAP, sink);
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Checks whether the given path is still within the maximum path length
+	 * @param scap The path to check
+	 * @param sinkAP The access path that reached the sink
+	 * @param sink The sink statement
+	 * @return True if the given path may be used, false if it is too long
+	 */
+	protected boolean checkPathLength(SourceContextAndPath scap,
+			AccessPath sinkAP, Stmt sink) {
+		if (maxPathLength < 0 || scap.getPathLength() <= maxPathLength)
+			return true;
+		markTruncated(sinkAP, sink);
+		return false;
+	}
+	
+	/**
+	 * Counts a new path between the given source and sink. If the maximum
+	 * number of paths for this pair is exceeded, no further paths are
+	 * reported for this pair. Paths to the same sink from other sources are
+	 * not affected. Path-agnostic results contain at most one path per pair
+	 * anyway, so they are never counted.
+	 * @param sinkAP The access path that reached the sink
+	 * @param sink The sink statement
+	 * @param source The source statement
+	 * @return True if the new path may be reported, false if there already
+	 * are enough paths for this pair
+	 */
+	protected boolean registerPath(AccessPath sinkAP, Stmt sink, Stmt source) {
+		if (maxPathsPerPair < 0 || Infoflow.getPathAgnosticResults())
+			return true;
+		Pair<Stmt, Stmt> pair = new Pair<Stmt, Stmt>(sink, source);
+		if (closedPairs.contains(pair))
+			return false;
+		AtomicInteger pathCount = pairPathCounts.putIfAbsentElseGet
+				(pair, new AtomicInteger());
+		if (pathCount.incrementAndGet() <= maxPathsPerPair)
+			return true;
+		closedPairs.add(pair);
+		markTruncated(sinkAP, sink);
+		return false;
+	}
+	
+	private void closeSink(AccessPath sinkAP, Stmt sink) {
+		closedSinks.add(sink);
+		markTruncated(sinkAP, sink);
+	}
+	
+	/**
+	 * Records in the results that not all paths to the given sink have been
+	 * explored
+	 * @param sinkAP The access path that reached the sink
+	 * @param sink The sink statement
+	 */
+	protected void markTruncated(AccessPath sinkAP, Stmt sink) {
+		getResults().addTruncatedSink(new ResultSinkInfo(sinkAP, sink));
+	}
 
 }
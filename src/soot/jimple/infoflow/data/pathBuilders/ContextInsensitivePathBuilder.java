@@ -1,21 +1,21 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
-import heros.solver.CountingThreadPoolExecutor;
 
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.data.SourceContext;
 import soot.jimple.infoflow.data.SourceContextAndPath;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
 
 /**
  * Class for reconstructing abstraction paths from sinks to source. This builder
@@ -30,7 +30,7 @@ public class ContextInsensitivePathBuilder extends AbstractAbstractionPathBuilde
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final InfoflowResults results = new InfoflowResults();
-	private final CountingThreadPoolExecutor executor;
+	private final ISolverExecutor executor;
 			
 	/**
 	 * Creates a new instance of the {@link ContextSensitivePathBuilder} class
@@ -40,21 +40,36 @@ public class ContextInsensitivePathBuilder extends AbstractAbstractionPathBuilde
 	 */
 	public ContextInsensitivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
 			boolean reconstructPaths) {
+		this(icfg, maxThreadNum, reconstructPaths, SchedulingStrategy.ThreadPool);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link ContextInsensitivePathBuilder} class
+	 * @param icfg The interprocedural control flow graph
+	 * @param maxThreadNum The maximum number of threads to use
+	 * @param reconstructPaths True if the exact propagation path between source
+	 * and sink shall be reconstructed.
+	 * @param schedulingStrategy The strategy for distributing the path
+	 * building tasks among the worker threads
+	 */
+	public ContextInsensitivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
+			boolean reconstructPaths, SchedulingStrategy schedulingStrategy) {
 		super(icfg, reconstructPaths);
         int numThreads = Runtime.getRuntime().availableProcessors();
-		this.executor = createExecutor(maxThreadNum == -1 ? numThreads
+		this.executor = createExecutor(schedulingStrategy, maxThreadNum == -1 ? numThreads
 				: Math.min(maxThreadNum, numThreads));
 	}
 	
 	/**
 	 * Creates a new executor object for spawning worker threads
+	 * @param schedulingStrategy The strategy for distributing the tasks among
+	 * the worker threads
 	 * @param numThreads The number of threads to use
 	 * @return The generated executor
 	 */
-	private CountingThreadPoolExecutor createExecutor(int numThreads) {
-		return new CountingThreadPoolExecutor
-				(numThreads, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
-				new LinkedBlockingQueue<Runnable>());
+	private ISolverExecutor createExecutor(SchedulingStrategy schedulingStrategy,
+			int numThreads) {
+		return SolverExecutorFactory.createExecutor(schedulingStrategy, numThreads);
 	}
 	
 	/**
@@ -1,23 +1,23 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
-import heros.solver.CountingThreadPoolExecutor;
 
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.jimple.Stmt;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
 
 /**
  * Class for reconstructing abstraction paths from sinks to source
@@ -30,7 +30,7 @@ public class ContextInsensitiveSourceFinder extends AbstractAbstractionPathBuild
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final InfoflowResults results = new InfoflowResults();
-	private final CountingThreadPoolExecutor executor;
+	private final ISolverExecutor executor;
 	
 	private static int lastTaskId = 0;
 	
@@ -40,21 +40,34 @@ public class ContextInsensitiveSourceFinder extends AbstractAbstractionPathBuild
 	 * @param maxThreadNum The maximum number of threads to use
 	 */
 	public ContextInsensitiveSourceFinder(IInfoflowCFG icfg, int maxThreadNum) {
+		this(icfg, maxThreadNum, SchedulingStrategy.ThreadPool);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link ContextInsensitiveSourceFinder} class
+	 * @param icfg The interprocedural control flow graph
+	 * @param maxThreadNum The maximum number of threads to use
+	 * @param schedulingStrategy The strategy for distributing the source
+	 * finding tasks among the worker threads
+	 */
+	public ContextInsensitiveSourceFinder(IInfoflowCFG icfg, int maxThreadNum,
+			SchedulingStrategy schedulingStrategy) {
 		super(icfg, false);
         int numThreads = Runtime.getRuntime().availableProcessors();
-		this.executor = createExecutor(maxThreadNum == -1 ? numThreads
+		this.executor = createExecutor(schedulingStrategy, maxThreadNum == -1 ? numThreads
 				: Math.min(maxThreadNum, numThreads));
 	}
 	
 	/**
 	 * Creates a new executor object for spawning worker threads
+	 * @param schedulingStrategy The strategy for distributing the tasks among
+	 * the worker threads
 	 * @param numThreads The number of threads to use
 	 * @return The generated executor
 	 */
-	private CountingThreadPoolExecutor createExecutor(int numThreads) {
-		return new CountingThreadPoolExecutor
-				(numThreads, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
-				new LinkedBlockingQueue<Runnable>());
+	private ISolverExecutor createExecutor(SchedulingStrategy schedulingStrategy,
+			int numThreads) {
+		return SolverExecutorFactory.createExecutor(schedulingStrategy, numThreads);
 	}
 	
 	/**
@@ -1,23 +1,23 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
-import heros.solver.CountingThreadPoolExecutor;
 import heros.solver.Pair;
 
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.jimple.Stmt;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.data.SourceContext;
 import soot.jimple.infoflow.data.SourceContextAndPath;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
 
 /**
  * Class for reconstructing abstraction paths from sinks to source. This builder
@@ -32,7 +32,7 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final InfoflowResults results = new InfoflowResults();
-	private final CountingThreadPoolExecutor executor;
+	private final ISolverExecutor executor;
 			
 	/**
 	 * Creates a new instance of the {@link ContextSensitivePathBuilder} class
@@ -43,21 +43,36 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
 	 */
 	public ContextSensitivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
 			boolean reconstructPaths) {
+		this(icfg, maxThreadNum, reconstructPaths, SchedulingStrategy.ThreadPool);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link ContextSensitivePathBuilder} class
+	 * @param icfg The interprocedural control flow graph
+	 * @param maxThreadNum The maximum number of threads to use
+	 * @param reconstructPaths True if the exact propagation path between source
+	 * and sink shall be reconstructed.
+	 * @param schedulingStrategy The strategy for distributing the path
+	 * building tasks among the worker threads
+	 */
+	public ContextSensitivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
+			boolean reconstructPaths, SchedulingStrategy schedulingStrategy) {
 		super(icfg, reconstructPaths);
         int numThreads = Runtime.getRuntime().availableProcessors();
-		this.executor = createExecutor(maxThreadNum == -1 ? numThreads
+		this.executor = createExecutor(schedulingStrategy, maxThreadNum == -1 ? numThreads
 				: Math.min(maxThreadNum, numThreads));
 	}
 	
 	/**
 	 * Creates a new executor object for spawning worker threads
+	 * @param schedulingStrategy The strategy for distributing the tasks among
+	 * the worker threads
 	 * @param numThreads The number of threads to use
 	 * @return The generated executor
 	 */
-	private CountingThreadPoolExecutor createExecutor(int numThreads) {
-		return new CountingThreadPoolExecutor
-				(numThreads, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
-				new LinkedBlockingQueue<Runnable>());
+	private ISolverExecutor createExecutor(SchedulingStrategy schedulingStrategy,
+			int numThreads) {
+		return SolverExecutorFactory.createExecutor(schedulingStrategy, numThreads);
 	}
 	
 	/**
@@ -81,6 +96,10 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
 			
 			if (pred != null) {
 				for (SourceContextAndPath scap : paths) {
+					// Do not continue with sinks that have reached a limit
+					if (!isSinkOpen(scap.getAccessPath(), scap.getStmt()))
+						continue;
+					
 					// Process the predecessor
 					if (processPredecessor(scap, pred))
 						// Schedule the predecessor
@@ -102,6 +121,8 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
 			if (pred.getCurrentStmt() != null
 					&& pred.getCurrentStmt() == pred.getCorrespondingCallSite()) {
 				SourceContextAndPath extendedScap = scap.extendPath(pred, reconstructPaths);
+				if (!checkPathLength(extendedScap, scap.getAccessPath(), scap.getStmt()))
+					return false;
 				checkForSource(pred, extendedScap);
 				return pred.addPathElement(extendedScap);
 			}
@@ -128,6 +149,8 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
 			}
 			
 			// Add the new path
+			if (!checkPathLength(extendedScap, scap.getAccessPath(), scap.getStmt()))
+				return false;
 			checkForSource(pred, extendedScap);
 			return pred.addPathElement(extendedScap);
 		}
@@ -151,6 +174,8 @@ public class ContextSensitivePathBuilder extends AbstractAbstractionPathBuilder
 		
 		// Register the source that we have found
 		SourceContext sourceContext = abs.getSourceContext();
+		if (!registerPath(scap.getAccessPath(), scap.getStmt(), sourceContext.getStmt()))
+			return true;
 		results.addResult(scap.getAccessPath(),
 				scap.getStmt(),
 				sourceContext.getAccessPath(),
@@ -1,5 +1,6 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
 
 /**
@@ -44,6 +45,7 @@ public class DefaultPathBuilderFactory implements IPathBuilderFactory {
 	}
 	
 	private final PathBuilder pathBuilder;
+	private final SchedulingStrategy schedulingStrategy;
 	
 	/**
 	 * Creates a new instance of the {@link DefaultPathBuilderFactory} class
@@ -61,8 +63,23 @@ public class DefaultPathBuilderFactory implements IPathBuilderFactory {
 	 */
 	public DefaultPathBuilderFactory(PathBuilder builder,
 			boolean reconstructPaths) {
+		this(builder, reconstructPaths, SchedulingStrategy.ThreadPool);
+	}
+	
+	/**
+	 * Creates a new instance of the {@link DefaultPathBuilderFactory} class
+	 * @param builder The path building algorithm to use
+	 * @param reconstructPaths Specifies whether the exact propagation paths
+	 * between source and sink shall be reconstructed if supported by the chosen
+	 * path building algorithm.
+	 * @param schedulingStrategy The strategy for distributing the path
+	 * building tasks among the worker threads
+	 */
+	public DefaultPathBuilderFactory(PathBuilder builder,
+			boolean reconstructPaths, SchedulingStrategy schedulingStrategy) {
 		this.pathBuilder = builder;
 		this.reconstructPaths = reconstructPaths;
+		this.schedulingStrategy = schedulingStrategy;
 	}
 	
 	@Override
@@ -71,15 +88,16 @@ public class DefaultPathBuilderFactory implements IPathBuilderFactory {
 		switch (pathBuilder) {
 		case Recursive :
 			return new RecursivePathBuilder(icfg, maxThreadNum,
-					reconstructPaths);
+					reconstructPaths, schedulingStrategy);
 		case ContextSensitive :
 			return new ContextSensitivePathBuilder(icfg, maxThreadNum,
-					reconstructPaths);
+					reconstructPaths, schedulingStrategy);
 		case ContextInsensitive :
 			return new ContextInsensitivePathBuilder(icfg, maxThreadNum,
-					reconstructPaths);
+					reconstructPaths, schedulingStrategy);
 		case ContextInsensitiveSourceFinder :
-			return new ContextInsensitiveSourceFinder(icfg, maxThreadNum);
+			return new ContextInsensitiveSourceFinder(icfg, maxThreadNum,
+					schedulingStrategy);
 		case None:
 			return new EmptyPathBuilder();
 		}
@@ -100,4 +118,30 @@ public class DefaultPathBuilderFactory implements IPathBuilderFactory {
 		throw new RuntimeException("Unsupported path building algorithm");
 	}
 	
+	/**
+	 * Gets the path building algorithm used by this factory
+	 * @return The path building algorithm
+	 */
+	public PathBuilder getPathBuilder() {
+		return this.pathBuilder;
+	}
+	
+	/**
+	 * Gets whether the exact propagation paths shall be reconstructed
+	 * @return True if the exact propagation paths shall be reconstructed,
+	 * otherwise false
+	 */
+	public boolean getReconstructPaths() {
+		return this.reconstructPaths;
+	}
+	
+	/**
+	 * Gets the strategy for distributing the path building tasks among the
+	 * worker threads
+	 * @return The scheduling strategy of the path builders
+	 */
+	public SchedulingStrategy getSchedulingStrategy() {
+		return this.schedulingStrategy;
+	}
+	
 }
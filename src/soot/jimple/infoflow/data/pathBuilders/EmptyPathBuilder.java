@@ -26,4 +26,16 @@ public class EmptyPathBuilder implements IAbstractionPathBuilder {
 	public void shutdown() {
 	}
 
+	@Override
+	public void setMaxPathsPerPair(int maxPathsPerPair) {
+	}
+
+	@Override
+	public void setMaxPathLength(int maxPathLength) {
+	}
+
+	@Override
+	public void setSinkTimeout(long timeout) {
+	}
+
 }
@@ -30,4 +30,31 @@ public interface IAbstractionPathBuilder {
 	 */
 	public void shutdown();
 	
+	/**
+	 * Sets the maximum number of paths to report for a single pair of source
+	 * and sink. Once a pair exceeds this limit, no further paths are reported
+	 * for this pair. Other sources of the same sink are not affected. Only
+	 * path builders that enumerate alternative paths support this limit.
+	 * @param maxPathsPerPair The maximum number of paths per source and sink,
+	 * or -1 for no limit
+	 */
+	public void setMaxPathsPerPair(int maxPathsPerPair);
+	
+	/**
+	 * Sets the maximum number of abstractions on a propagation path. Longer
+	 * paths are discarded. Only path builders that reconstruct the exact
+	 * propagation paths support this limit.
+	 * @param maxPathLength The maximum length of a path, or -1 for no limit
+	 */
+	public void setMaxPathLength(int maxPathLength);
+	
+	/**
+	 * Sets the maximum time that may be spent on the paths leading to a
+	 * single sink. Once this time is exceeded, the sink is not explored any
+	 * further. Only path builders that enumerate alternative paths support
+	 * this limit.
+	 * @param timeout The maximum time per sink in seconds, or -1 for no limit
+	 */
+	public void setSinkTimeout(long timeout);
+	
 }
@@ -0,0 +1,258 @@
+package soot.jimple.infoflow.data.pathBuilders;
+
+import heros.solver.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.SourceContext;
+import soot.jimple.infoflow.data.SourceContextAndPath;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+
+/**
+ * Path builder that only finds the sources up front and reconstructs the
+ * propagation paths of single source-to-sink connections when they are
+ * requested through the results, long after the data flow analysis has
+ * finished.
+ *
+ * To find the sources, the predecessor chains of every abstraction at a sink
+ * are followed back to the sources. Like in the
+ * {@link ContextSensitivePathBuilder}, returns from methods are only followed
+ * towards the call site they belong to, so the sources are exactly the ones a
+ * full path reconstruction would report. No paths are built and the
+ * abstractions are not changed, the walk only remembers the call stacks with
+ * which it has already visited an abstraction. Every source is recorded
+ * together with the abstractions at the sink from which it was found. When a
+ * path is requested, the {@link ContextSensitivePathBuilder} only starts from
+ * these abstractions.
+ *
+ * The results keep the abstractions at the sinks and thus the propagation
+ * graph alive, so this mode needs as much memory as a full path
+ * reconstruction.
+ */
+public class OnDemandPathBuilder extends AbstractAbstractionPathBuilder {
+	
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	
+	private final int maxThreadNum;
+	private InfoflowResults results = new InfoflowResults();
+	
+	/**
+	 * Creates a new instance of the {@link OnDemandPathBuilder} class
+	 * @param icfg The interprocedural control flow graph
+	 * @param maxThreadNum The maximum number of threads to use
+	 */
+	public OnDemandPathBuilder(IInfoflowCFG icfg, int maxThreadNum) {
+		super(icfg, false);
+		this.maxThreadNum = maxThreadNum;
+	}
+	
+	@Override
+	public synchronized void computeTaintPaths(Set<AbstractionAtSink> res) {
+		long beforeSourceFinding = System.nanoTime();
+		results = new InfoflowResults();
+		results.setOnDemandPathBuilder(this);
+		for (AbstractionAtSink abs : res)
+			findSources(abs);
+		logger.info("Finding the sources for {} abstractions at sinks took {} seconds",
+				res.size(), (System.nanoTime() - beforeSourceFinding) / 1E9);
+	}
+	
+	/**
+	 * Follows the predecessor chains of the given abstraction at a sink back
+	 * to the sources and records every source that is found
+	 * @param absAtSink The abstraction at the sink
+	 */
+	private void findSources(AbstractionAtSink absAtSink) {
+		AccessPath sinkAP = absAtSink.getAbstraction().getAccessPath();
+		Stmt sink = absAtSink.getSinkStmt();
+		ResultSinkInfo sinkInfo = new ResultSinkInfo(sinkAP, sink);
+		
+		Map<Abstraction, Set<SourceContextAndPath>> doneMap =
+				new IdentityHashMap<Abstraction, Set<SourceContextAndPath>>();
+		List<Pair<Abstraction, SourceContextAndPath>> workList =
+				new ArrayList<Pair<Abstraction, SourceContextAndPath>>();
+		
+		// The neighbors of the abstraction at the sink have reached the sink
+		// as well
+		SourceContextAndPath scap = new SourceContextAndPath(sinkAP, sink);
+		schedule(absAtSink.getAbstraction(), scap.extendPath(absAtSink.getAbstraction(), false),
+				doneMap, workList);
+		if (absAtSink.getAbstraction().getNeighbors() != null)
+			for (Abstraction neighbor : absAtSink.getAbstraction().getNeighbors())
+				schedule(neighbor, scap.extendPath(neighbor, false), doneMap, workList);
+		
+		while (!workList.isEmpty()) {
+			if (!isSinkOpen(sinkAP, sink))
+				return;
+			
+			Pair<Abstraction, SourceContextAndPath> item = workList.remove(workList.size() - 1);
+			Abstraction abs = item.getO1();
+			Abstraction pred = abs.getPredecessor();
+			
+			// If we have no predecessors, this must be a source
+			if (pred == null) {
+				SourceContext sourceContext = abs.getSourceContext();
+				results.addResult(sinkAP, sink,
+						sourceContext.getAccessPath(),
+						sourceContext.getStmt(),
+						sourceContext.getUserData(),
+						Collections.<Stmt>emptyList());
+				results.addResultAbstraction(sinkInfo, sourceContext.getStmt(), absAtSink);
+				continue;
+			}
+			
+			processPredecessor(item.getO2(), pred, doneMap, workList);
+			if (pred.getNeighbors() != null)
+				for (Abstraction neighbor : pred.getNeighbors())
+					processPredecessor(item.getO2(), neighbor, doneMap, workList);
+		}
+	}
+	
+	/**
+	 * Continues the walk towards the sources with the given predecessor
+	 * @param scap The call stack with which the successor was reached
+	 * @param pred The predecessor to continue with
+	 * @param doneMap The call stacks with which the abstractions have already
+	 * been visited
+	 * @param workList The abstractions that still need to be visited
+	 */
+	private void processPredecessor(SourceContextAndPath scap, Abstraction pred,
+			Map<Abstraction, Set<SourceContextAndPath>> doneMap,
+			List<Pair<Abstraction, SourceContextAndPath>> workList) {
+		SourceContextAndPath extendedScap = scap.extendPath(pred, false);
+		
+		// If we return from a method, we must go back to the call site on top
+		// of the call stack. Call-to-return nodes do not enter the callee.
+		if (pred.getCurrentStmt() != null
+				&& pred.getCurrentStmt() != pred.getCorrespondingCallSite()
+				&& pred.getCurrentStmt().containsInvokeExpr()) {
+			Pair<SourceContextAndPath, Stmt> pathAndItem =
+					extendedScap.popTopCallStackItem();
+			if (pathAndItem != null) {
+				// Make sure that we don't follow an unrealizable path
+				if (pathAndItem.getO2() != pred.getCurrentStmt())
+					return;
+				extendedScap = pathAndItem.getO1();
+			}
+		}
+		schedule(pred, extendedScap, doneMap, workList);
+	}
+	
+	/**
+	 * Schedules the given abstraction with the given call stack unless it has
+	 * already been visited with the same call stack
+	 * @param abs The abstraction to schedule
+	 * @param scap The call stack with which the abstraction was reached
+	 * @param doneMap The call stacks with which the abstractions have already
+	 * been visited
+	 * @param workList The abstractions that still need to be visited
+	 */
+	private void schedule(Abstraction abs, SourceContextAndPath scap,
+			Map<Abstraction, Set<SourceContextAndPath>> doneMap,
+			List<Pair<Abstraction, SourceContextAndPath>> workList) {
+		Set<SourceContextAndPath> doneSet = doneMap.get(abs);
+		if (doneSet == null) {
+			doneSet = new HashSet<SourceContextAndPath>();
+			doneMap.put(abs, doneSet);
+		}
+		if (doneSet.add(scap))
+			workList.add(new Pair<Abstraction, SourceContextAndPath>(abs, scap));
+	}
+	
+	/**
+	 * Reconstructs the propagation path from the given source to the given
+	 * abstractions at a sink. If there are multiple paths, the shortest one
+	 * is returned.
+	 * @param abstractions The abstractions at the sink from which the source
+	 * was found
+	 * @param source The source statement at which the path shall start
+	 * @return The statements on the path from the source to the sink, or null
+	 * if no such path could be found
+	 */
+	public synchronized List<Stmt> reconstructPath(Set<AbstractionAtSink> abstractions,
+			Stmt source) {
+		ContextSensitivePathBuilder builder = new ContextSensitivePathBuilder(icfg,
+				maxThreadNum, true);
+		builder.setMaxPathsPerPair(maxPathsPerPair);
+		builder.setMaxPathLength(maxPathLength);
+		builder.setSinkTimeout(sinkTimeout);
+		try {
+			builder.computeTaintPaths(abstractions);
+		}
+		finally {
+			builder.shutdown();
+			
+			// The paths are cached inside the abstractions. We need to remove
+			// them, otherwise the next request would not get anywhere.
+			clearPathCaches(abstractions);
+		}
+		
+		List<Stmt> shortestPath = null;
+		for (Set<ResultSourceInfo> sourceInfos : builder.getResults().getResults().values())
+			for (ResultSourceInfo sourceInfo : sourceInfos)
+				if (sourceInfo.getSource() == source && sourceInfo.getPath() != null
+						&& (shortestPath == null || sourceInfo.getPath().size() < shortestPath.size()))
+					shortestPath = sourceInfo.getPath();
+		return shortestPath;
+	}
+	
+	/**
+	 * Removes the cached paths that the path reconstruction has stored in the
+	 * abstractions. The path builder only continues with the predecessors
+	 * and their neighbors of abstractions to which it has added a path, so
+	 * we do not need to look any further than the abstractions with a path
+	 * cache.
+	 * @param abstractions The abstractions at the sinks from which the path
+	 * reconstruction started
+	 */
+	private void clearPathCaches(Set<AbstractionAtSink> abstractions) {
+		List<Abstraction> workList = new ArrayList<Abstraction>();
+		for (AbstractionAtSink abs : abstractions) {
+			workList.add(abs.getAbstraction());
+			if (abs.getAbstraction().getNeighbors() != null)
+				for (Abstraction neighbor : abs.getAbstraction().getNeighbors())
+					workList.add(neighbor);
+		}
+		
+		while (!workList.isEmpty()) {
+			Abstraction abs = workList.remove(workList.size() - 1);
+			if (abs.getPaths() == null)
+				continue;
+			abs.clearPathCache();
+			
+			Abstraction pred = abs.getPredecessor();
+			if (pred != null) {
+				workList.add(pred);
+				if (pred.getNeighbors() != null)
+					for (Abstraction neighbor : pred.getNeighbors())
+						workList.add(neighbor);
+			}
+		}
+	}
+	
+	@Override
+	public InfoflowResults getResults() {
+		return this.results;
+	}
+	
+	@Override
+	public void shutdown() {
+	}
+	
+}
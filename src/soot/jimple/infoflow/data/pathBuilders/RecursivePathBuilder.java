@@ -1,6 +1,5 @@
 package soot.jimple.infoflow.data.pathBuilders;
 
-import heros.solver.CountingThreadPoolExecutor;
 import heros.solver.Pair;
 
 import java.util.ArrayList;
@@ -10,18 +9,21 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.jimple.Stmt;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.Infoflow;
 import soot.jimple.infoflow.data.Abstraction;
 import soot.jimple.infoflow.data.AbstractionAtSink;
+import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.data.SourceContextAndPath;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
 
 /**
  * Recursive algorithm for reconstructing abstraction paths from sink to source
@@ -33,7 +35,7 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final InfoflowResults results = new InfoflowResults();
-	private final CountingThreadPoolExecutor executor;
+	private final ISolverExecutor executor;
     
 	private static int lastTaskId = 0;
 
@@ -45,21 +47,35 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
      */
     public RecursivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
     		boolean reconstructPaths) {
+    	this(icfg, maxThreadNum, reconstructPaths, SchedulingStrategy.ThreadPool);
+    }
+
+	/**
+     * Creates a new instance of the {@link RecursivePathBuilder} class
+	 * @param maxThreadNum The maximum number of threads to use
+	 * @param reconstructPaths True if the exact propagation path between source
+	 * and sink shall be reconstructed.
+	 * @param schedulingStrategy The strategy for distributing the path
+	 * building tasks among the worker threads
+     */
+    public RecursivePathBuilder(IInfoflowCFG icfg, int maxThreadNum,
+    		boolean reconstructPaths, SchedulingStrategy schedulingStrategy) {
     	super(icfg, reconstructPaths);
     	int numThreads = Runtime.getRuntime().availableProcessors();
-		this.executor = createExecutor(maxThreadNum == -1 ? numThreads
+		this.executor = createExecutor(schedulingStrategy, maxThreadNum == -1 ? numThreads
 				: Math.min(maxThreadNum, numThreads));
     }
 
 	/**
 	 * Creates a new executor object for spawning worker threads
+	 * @param schedulingStrategy The strategy for distributing the tasks among
+	 * the worker threads
 	 * @param numThreads The number of threads to use
 	 * @return The generated executor
 	 */
-	private CountingThreadPoolExecutor createExecutor(int numThreads) {
-		return new CountingThreadPoolExecutor
-				(numThreads, Integer.MAX_VALUE, 30, TimeUnit.SECONDS,
-				new LinkedBlockingQueue<Runnable>());
+	private ISolverExecutor createExecutor(SchedulingStrategy schedulingStrategy,
+			int numThreads) {
+		return SolverExecutorFactory.createExecutor(schedulingStrategy, numThreads);
 	}
 	
 	/**
@@ -68,10 +84,13 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
 	 * a single path is selected randomly.
 	 * @param taskId A unique ID identifying this path search task
 	 * @param curAbs The current abstraction from which to start the search
+	 * @param sink The abstraction at the sink for which the paths are built
 	 * @return The path from the source to the current statement
 	 */
 	private Set<SourceContextAndPath> getPaths(int taskId, Abstraction curAbs,
-			Stack<Pair<Stmt, Set<Abstraction>>> callStack) {
+			Stack<Pair<Stmt, Set<Abstraction>>> callStack, AbstractionAtSink sink) {
+		if (!isSinkOpen(sink.getAbstraction().getAccessPath(), sink.getSinkStmt()))
+			return Collections.emptySet();
 		Set<SourceContextAndPath> cacheData = new HashSet<SourceContextAndPath>();
 		
 		Pair<Stmt, Set<Abstraction>> stackTop = callStack.isEmpty() ? null : callStack.peek();
@@ -88,7 +107,7 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
 					(curAbs.getSourceContext().getAccessPath(),
 							curAbs.getSourceContext().getStmt(),
 							curAbs.getSourceContext().getUserData()).extendPath(curAbs);
-			cacheData.add(sourceAndPath);
+			addPath(cacheData, sourceAndPath, sink);
 			
 			// Sources may not have predecessors
 			assert curAbs.getPredecessor() == null;
@@ -123,22 +142,51 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
 			if (scanPreds) {
 				// Otherwise, we have to check the predecessor
 				for (SourceContextAndPath curScap : getPaths(taskId,
-						curAbs.getPredecessor(), newCallStack)) {
+						curAbs.getPredecessor(), newCallStack, sink)) {
 					SourceContextAndPath extendedPath = curScap.extendPath(curAbs,
 							reconstructPaths);
-					cacheData.add(extendedPath);
+					addPath(cacheData, extendedPath, sink);
 				}
 			}
 		}
 		
 		if (curAbs.getNeighbors() != null)
 			for (Abstraction nb : curAbs.getNeighbors())
-				for (SourceContextAndPath path : getPaths(taskId, nb, callStack))
-					cacheData.add(path);
+				for (SourceContextAndPath path : getPaths(taskId, nb, callStack, sink))
+					addPath(cacheData, path, sink);
 		
 		return Collections.unmodifiableSet(cacheData);
 	}
 	
+	/**
+	 * Adds the given path to the paths found for an abstraction unless it is
+	 * too long or there already are enough paths from its source. Since every
+	 * path to the sink extends one of these paths, this also limits the
+	 * number of paths for each source at the sink.
+	 * @param cacheData The paths found for the current abstraction
+	 * @param scap The path to add
+	 * @param sink The abstraction at the sink for which the paths are built
+	 */
+	private void addPath(Set<SourceContextAndPath> cacheData,
+			SourceContextAndPath scap, AbstractionAtSink sink) {
+		AccessPath sinkAP = sink.getAbstraction().getAccessPath();
+		if (!checkPathLength(scap, sinkAP, sink.getSinkStmt()))
+			return;
+		
+		if (maxPathsPerPair >= 0 && !Infoflow.getPathAgnosticResults()
+				&& !cacheData.contains(scap)) {
+			int pathCount = 0;
+			for (SourceContextAndPath other : cacheData)
+				if (other.getStmt() == scap.getStmt())
+					pathCount++;
+			if (pathCount >= maxPathsPerPair) {
+				markTruncated(sinkAP, sink.getSinkStmt());
+				return;
+			}
+		}
+		cacheData.add(scap);
+	}
+	
 	/**
 	 * Computes the path of tainted data between the source and the sink
 	 * @param res The data flow tracker results
@@ -157,7 +205,7 @@ public class RecursivePathBuilder extends AbstractAbstractionPathBuilder {
 					initialStack.push(new Pair<Stmt, Set<Abstraction>>(null,
 							Collections.newSetFromMap(new IdentityHashMap<Abstraction,Boolean>())));
 		    		for (SourceContextAndPath context : getPaths(lastTaskId++,
-		    				abs.getAbstraction(), initialStack)) {
+		    				abs.getAbstraction(), initialStack, abs)) {
 		    			List<Stmt> newPath = new ArrayList<>(context.getPath());
 		    			newPath.add(abs.getSinkStmt());
 						results.addResult(abs.getAbstraction().getAccessPath(),
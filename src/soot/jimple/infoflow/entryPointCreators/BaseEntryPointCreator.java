@@ -97,6 +97,14 @@ public abstract class BaseEntryPointCreator implements IEntryPointCreator {
 	public void setSubstituteClasses(List<String> l){
 		substituteClasses = l;
 	}
+	
+	public boolean getSubstituteCallParams() {
+		return substituteCallParams;
+	}
+	
+	public List<String> getSubstituteClasses() {
+		return substituteClasses;
+	}
 
 	@Override
 	public SootMethod createDummyMain() {
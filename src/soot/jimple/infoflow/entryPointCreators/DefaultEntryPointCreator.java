@@ -120,6 +120,15 @@ public class DefaultEntryPointCreator extends BaseEntryPointCreator {
 		return mainMethod;
 	}
 
+	/**
+	 * Gets the methods to be called in the dummy main method
+	 * @return The signatures of the methods to be called in the dummy main
+	 * method
+	 */
+	public Collection<String> getMethodsToCall() {
+		return this.methodsToCall;
+	}
+
 	@Override
 	public Collection<String> getRequiredClasses() {
 		return SootMethodRepresentationParser.v().parseClassNames(
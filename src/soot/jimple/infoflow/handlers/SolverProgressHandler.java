@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.handlers;
+
+import soot.jimple.infoflow.solver.fastSolver.SolverStatistics;
+
+/**
+ * Handler that is called at a fixed interval while the data flow solvers are
+ * running
+ */
+public interface SolverProgressHandler {
+
+	/**
+	 * Callback that is invoked with the current statistics of the data flow
+	 * solvers. This method is called from a separate timer thread.
+	 * @param forwardStatistics The statistics of the forward solver
+	 * @param backwardStatistics The statistics of the backward solver for
+	 * alias analysis, or null if there is no such solver
+	 */
+	public void onSolverProgress(SolverStatistics forwardStatistics,
+			SolverStatistics backwardStatistics);
+
+}
@@ -83,6 +83,7 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 
 	private MyConcurrentHashMap<Unit, Set<Unit>> activationUnitsToCallSites =
 			new MyConcurrentHashMap<Unit, Set<Unit>>();
+	private final Set<SootMethod> aliasQueryMethods = new ConcurrentHashSet<SootMethod>();
 	
 	public AbstractInfoflowProblem(BiDiInterproceduralCFG<Unit, SootMethod> icfg,
 			ISourceSinkManager sourceSinkManager) {
@@ -129,6 +130,14 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 		this.solver = solver;
 	}
 	
+	/**
+	 * Gets the manager that decides which statements are sources and sinks
+	 * @return The source/sink manager of this problem
+	 */
+	public ISourceSinkManager getSourceSinkManager() {
+		return this.sourceSinkManager;
+	}
+	
 	public void setZeroValue(Abstraction zeroValue) {
 		this.zeroValue = zeroValue;
 	}
@@ -349,6 +358,26 @@ public abstract class AbstractInfoflowProblem extends DefaultJimpleIFDSTabulatio
 		return callSites.add(callSite);
 	}
 	
+	/**
+	 * Records that an alias analysis has been started for a value in the
+	 * given method
+	 * @param method The method in which the aliases are computed
+	 */
+	protected void recordAliasQuery(SootMethod method) {
+		aliasQueryMethods.add(method);
+	}
+	
+	/**
+	 * Checks whether an alias analysis has been started for a value in the
+	 * given method so far
+	 * @param method The method to check
+	 * @return True if aliases have been computed in the given method,
+	 * otherwise false
+	 */
+	public boolean hasComputedAliases(SootMethod method) {
+		return aliasQueryMethods.contains(method);
+	}
+	
 	public void setActivationUnitsToCallSites(AbstractInfoflowProblem other) {
 		this.activationUnitsToCallSites = other.activationUnitsToCallSites;
 	}
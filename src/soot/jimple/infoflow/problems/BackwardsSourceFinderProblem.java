@@ -0,0 +1,519 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.problems;
+
+import heros.FlowFunction;
+import heros.FlowFunctions;
+import heros.flowfunc.KillAll;
+import heros.solver.PathEdge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import soot.ArrayType;
+import soot.FastHierarchy;
+import soot.Local;
+import soot.PrimType;
+import soot.RefType;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.CaughtExceptionRef;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.IdentityStmt;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.ReturnStmt;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.Stmt;
+import soot.jimple.ThrowStmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.solver.functions.SolverCallFlowFunction;
+import soot.jimple.infoflow.solver.functions.SolverCallToReturnFlowFunction;
+import soot.jimple.infoflow.solver.functions.SolverNormalFlowFunction;
+import soot.jimple.infoflow.solver.functions.SolverReturnFlowFunction;
+import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.util.ConcurrentHashSet;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
+
+/**
+ * Backward data flow problem for the sink-first analysis mode. Starting at
+ * the values that reach the sinks, it walks the program backwards and
+ * collects all locals whose value may flow into a sink. The sources at which
+ * such a local is defined are recorded and are the only sources from which
+ * the forward analysis needs to start.
+ *
+ * The problem must be solved on a {@link soot.jimple.infoflow.solver.BackwardsInfoflowCFG}.
+ * It over-approximates the forward analysis: Heap locations are tracked
+ * flow-insensitively per field, for all arrays, and for all exceptions. Once
+ * such a location becomes relevant, every value stored into it is relevant
+ * as well. Library calls without a body and calls covered by a taint
+ * wrapper are assumed to propagate between all of their arguments, the base
+ * object, and the return value.
+ */
+public class BackwardsSourceFinderProblem extends AbstractInfoflowProblem {
+
+	private final Map<SootField, List<Stmt>> fieldStores = new HashMap<SootField, List<Stmt>>();
+	private final List<Stmt> arrayStores = new ArrayList<Stmt>();
+	private final List<Stmt> throwStmts = new ArrayList<Stmt>();
+
+	private final Set<SootField> relevantFields = new ConcurrentHashSet<SootField>();
+	private final Set<Type> relevantTypes = new ConcurrentHashSet<Type>();
+	private final AtomicBoolean arraysRelevant = new AtomicBoolean(false);
+	private final AtomicBoolean exceptionsRelevant = new AtomicBoolean(false);
+
+	private final Set<Unit> reachedSources = new ConcurrentHashSet<Unit>();
+
+	/**
+	 * Creates a new instance of the {@link BackwardsSourceFinderProblem} class
+	 * @param icfg The backwards interprocedural control flow graph
+	 * @param sourceSinkManager The manager that defines the sources and sinks
+	 * @param methods The methods whose heap writes shall be considered
+	 */
+	public BackwardsSourceFinderProblem(BiDiInterproceduralCFG<Unit, SootMethod> icfg,
+			ISourceSinkManager sourceSinkManager, Collection<SootMethod> methods) {
+		super(icfg, sourceSinkManager);
+
+		// Index all heap writes once, so that we can make the stored values
+		// relevant as soon as the heap location becomes relevant
+		for (SootMethod sm : methods) {
+			if (!sm.hasActiveBody())
+				continue;
+			for (Unit u : sm.getActiveBody().getUnits()) {
+				if (u instanceof AssignStmt) {
+					Value leftOp = ((AssignStmt) u).getLeftOp();
+					if (leftOp instanceof FieldRef) {
+						SootField field = ((FieldRef) leftOp).getField();
+						List<Stmt> stores = fieldStores.get(field);
+						if (stores == null) {
+							stores = new ArrayList<Stmt>();
+							fieldStores.put(field, stores);
+						}
+						stores.add((Stmt) u);
+					}
+					else if (leftOp instanceof ArrayRef)
+						arrayStores.add((Stmt) u);
+				}
+				else if (u instanceof ThrowStmt)
+					throwStmts.add((Stmt) u);
+			}
+		}
+	}
+
+	/**
+	 * Adds the values read by the given sink statement as initial seeds
+	 * @param sink The sink statement
+	 */
+	public void addSinkSeeds(Stmt sink) {
+		Set<Abstraction> res = new HashSet<Abstraction>();
+		for (ValueBox vb : sink.getUseBoxes())
+			if (!(vb.getValue() instanceof InvokeExpr))
+				addUses(vb.getValue(), sink, res);
+		if (!res.isEmpty())
+			addInitialSeeds(sink, res);
+	}
+
+	/**
+	 * Gets the source statements whose values may reach a sink
+	 * @return The source statements whose values may reach a sink
+	 */
+	public Set<Unit> getReachedSources() {
+		return this.reachedSources;
+	}
+
+	/**
+	 * Creates the fact that the given local is relevant
+	 * @param local The local that may flow into a sink
+	 * @param stmt The statement at which the local becomes relevant
+	 * @return The new fact
+	 */
+	private Abstraction createFact(Local local, Stmt stmt) {
+		markType(local.getType());
+		return getZeroValue().deriveNewAbstraction(new AccessPath(local, true), stmt);
+	}
+
+	/**
+	 * Makes all values read by the given value relevant
+	 * @param val The value that has become relevant
+	 * @param stmt The statement containing the value
+	 * @param res The set to which to add the new facts
+	 */
+	private void addUses(Value val, Stmt stmt, Set<Abstraction> res) {
+		if (val instanceof Local)
+			res.add(createFact((Local) val, stmt));
+		else if (val instanceof InstanceFieldRef) {
+			InstanceFieldRef ref = (InstanceFieldRef) val;
+			res.add(createFact((Local) ref.getBase(), stmt));
+			markField(ref.getField());
+		}
+		else if (val instanceof StaticFieldRef) {
+			if (enableStaticFields)
+				markField(((StaticFieldRef) val).getField());
+		}
+		else if (val instanceof ArrayRef) {
+			res.add(createFact((Local) ((ArrayRef) val).getBase(), stmt));
+			markArrays();
+		}
+		else if (val instanceof CaughtExceptionRef)
+			markExceptions();
+		else
+			for (ValueBox vb : val.getUseBoxes())
+				if (vb.getValue() instanceof Local)
+					res.add(createFact((Local) vb.getValue(), stmt));
+	}
+
+	/**
+	 * Makes the given field relevant. All values written into the field
+	 * become relevant at their store statements.
+	 * @param field The field that has become relevant
+	 */
+	private void markField(SootField field) {
+		if (!relevantFields.add(field))
+			return;
+		markType(field.getType());
+		List<Stmt> stores = fieldStores.get(field);
+		if (stores != null)
+			for (Stmt store : stores)
+				injectUses(store, ((AssignStmt) store).getRightOp());
+	}
+
+	/**
+	 * Makes the contents of all arrays relevant
+	 */
+	private void markArrays() {
+		if (arraysRelevant.compareAndSet(false, true))
+			for (Stmt store : arrayStores)
+				injectUses(store, ((AssignStmt) store).getRightOp());
+	}
+
+	/**
+	 * Makes all thrown exceptions relevant
+	 */
+	private void markExceptions() {
+		if (enableExceptions && exceptionsRelevant.compareAndSet(false, true))
+			for (Stmt throwStmt : throwStmts)
+				injectUses(throwStmt, ((ThrowStmt) throwStmt).getOp());
+	}
+
+	/**
+	 * Makes the fields of all objects that may be aliased by a relevant local
+	 * of the given type relevant
+	 * @param type The type of the relevant local
+	 */
+	private void markType(Type type) {
+		if (type instanceof ArrayType) {
+			markArrays();
+			markType(((ArrayType) type).getElementType());
+			return;
+		}
+		if (!(type instanceof RefType) || !relevantTypes.add(type))
+			return;
+
+		FastHierarchy fh = Scene.v().getOrMakeFastHierarchy();
+		for (SootField field : fieldStores.keySet()) {
+			if (field.isStatic())
+				continue;
+			Type declType = field.getDeclaringClass().getType();
+			if (fh.canStoreType(declType, type) || fh.canStoreType(type, declType))
+				markField(field);
+		}
+	}
+
+	/**
+	 * Injects the values read by the given right side of a heap write into
+	 * the solver
+	 * @param stmt The heap write
+	 * @param rightOp The value being written
+	 */
+	private void injectUses(Stmt stmt, Value rightOp) {
+		Set<Abstraction> res = new HashSet<Abstraction>();
+		addUses(rightOp, stmt, res);
+		for (Abstraction abs : res)
+			solver.processEdge(new PathEdge<Unit, Abstraction>(getZeroValue(), stmt, abs));
+	}
+
+	/**
+	 * Records the given statement if it is a source that defines one of the
+	 * given relevant locals. Facts are checked both at the statement that
+	 * processes them and at the statements they are propagated to, since the
+	 * solver never applies a flow function to a call at the very beginning of
+	 * a method.
+	 * @param u The statement to check
+	 * @param facts The facts that are relevant at the given statement
+	 */
+	private void checkSource(Unit u, Collection<Abstraction> facts) {
+		if (facts.isEmpty() || !(u instanceof Stmt) || reachedSources.contains(u))
+			return;
+		final Stmt stmt = (Stmt) u;
+		if (sourceSinkManager.getSourceInfo(stmt, interproceduralCFG()) == null)
+			return;
+
+		final Value target;
+		if (stmt instanceof DefinitionStmt)
+			target = ((DefinitionStmt) stmt).getLeftOp();
+		else if (stmt.containsInvokeExpr() && stmt.getInvokeExpr() instanceof InstanceInvokeExpr)
+			target = ((InstanceInvokeExpr) stmt.getInvokeExpr()).getBase();
+		else
+			return;
+
+		if (target instanceof FieldRef && relevantFields.contains(((FieldRef) target).getField())) {
+			reachedSources.add(stmt);
+			return;
+		}
+		for (Abstraction abs : facts)
+			if (abs.getAccessPath().getPlainValue() == target) {
+				reachedSources.add(stmt);
+				return;
+			}
+	}
+
+	/**
+	 * Checks whether all callees of the given call are code we analyze. If
+	 * one of them has no body, we cannot know how it propagates its values.
+	 * Static initializers that are triggered by the call do not count as
+	 * callees, e.g. for System.arraycopy() they are the only targets.
+	 * @param call The call site to check
+	 * @return True if the callee needs to be modeled conservatively,
+	 * otherwise false
+	 */
+	private boolean needsConservativeModel(Unit call) {
+		if (taintWrapper != null)
+			return true;
+		boolean hasCallee = false;
+		for (SootMethod callee : interproceduralCFG().getCalleesOfCallAt(call)) {
+			if (callee.getName().equals("<clinit>"))
+				continue;
+			if (!callee.isConcrete() || !callee.hasActiveBody())
+				return true;
+			hasCallee = true;
+		}
+		return !hasCallee;
+	}
+
+	@Override
+	public FlowFunctions<Unit, Abstraction, SootMethod> createFlowFunctionsFactory() {
+		return new FlowFunctions<Unit, Abstraction, SootMethod>() {
+
+			@Override
+			public FlowFunction<Abstraction> getNormalFlowFunction(final Unit src, final Unit dest) {
+				if (!(src instanceof Stmt))
+					return KillAll.v();
+				final Stmt stmt = (Stmt) src;
+
+				return new SolverNormalFlowFunction() {
+
+					@Override
+					public Set<Abstraction> computeTargets(Abstraction d1, Abstraction source) {
+						if (source == getZeroValue())
+							return Collections.emptySet();
+
+						checkSource(stmt, Collections.singleton(source));
+						Set<Abstraction> res = computeRelevantLocals(source);
+						checkSource(dest, res);
+						return res;
+					}
+
+					private Set<Abstraction> computeRelevantLocals(Abstraction source) {
+						final Value local = source.getAccessPath().getPlainValue();
+
+						// Parameters and "this" are mapped back into the
+						// caller at the start of the method
+						if (!(stmt instanceof DefinitionStmt) || stmt instanceof IdentityStmt
+								&& !(((IdentityStmt) stmt).getRightOp() instanceof CaughtExceptionRef))
+							return Collections.singleton(source);
+
+						final DefinitionStmt defStmt = (DefinitionStmt) stmt;
+						final Value leftOp = defStmt.getLeftOp();
+						Set<Abstraction> res = new HashSet<Abstraction>();
+						if (leftOp == local) {
+							// The local is overwritten, its value comes from
+							// the right side
+							addUses(defStmt.getRightOp(), stmt, res);
+							return res;
+						}
+
+						// A write into a relevant object makes the written
+						// value relevant as well
+						res.add(source);
+						if ((leftOp instanceof InstanceFieldRef
+									&& ((InstanceFieldRef) leftOp).getBase() == local)
+								|| (leftOp instanceof ArrayRef
+									&& ((ArrayRef) leftOp).getBase() == local))
+							addUses(defStmt.getRightOp(), stmt, res);
+						return res;
+					}
+
+				};
+			}
+
+			@Override
+			public FlowFunction<Abstraction> getCallFlowFunction(final Unit src, final SootMethod dest) {
+				if (!dest.isConcrete() || !dest.hasActiveBody())
+					return KillAll.v();
+
+				final Stmt stmt = (Stmt) src;
+				if (!inspectSinks && sourceSinkManager.isSink(stmt, interproceduralCFG()))
+					return KillAll.v();
+				if (!inspectSources && sourceSinkManager.getSourceInfo(stmt, interproceduralCFG()) != null)
+					return KillAll.v();
+
+				final InvokeExpr ie = stmt.getInvokeExpr();
+				final Value leftOp = stmt instanceof DefinitionStmt
+						? ((DefinitionStmt) stmt).getLeftOp() : null;
+				final boolean sameArity = ie.getArgCount() == dest.getParameterCount();
+
+				return new SolverCallFlowFunction() {
+
+					@Override
+					public Set<Abstraction> computeTargets(Abstraction d1, Abstraction source) {
+						if (source == getZeroValue())
+							return Collections.emptySet();
+
+						final Value local = source.getAccessPath().getPlainValue();
+						Set<Abstraction> res = new HashSet<Abstraction>();
+
+						// The return value is defined by the return statements
+						// of the callee
+						if (leftOp == local)
+							for (Unit u : dest.getActiveBody().getUnits())
+								if (u instanceof ReturnStmt)
+									addUses(((ReturnStmt) u).getOp(), (Stmt) u, res);
+
+						// Objects passed into the callee may be modified there.
+						// Calls with a different number of arguments, e.g.
+						// Thread.start() being resolved to run(), only pass the
+						// receiver object.
+						if (sameArity) {
+							for (int i = 0; i < ie.getArgCount(); i++)
+								if (ie.getArg(i) == local && !(local.getType() instanceof PrimType))
+									res.add(createFact(dest.getActiveBody().getParameterLocal(i), stmt));
+							if (!dest.isStatic() && ie instanceof InstanceInvokeExpr
+									&& ((InstanceInvokeExpr) ie).getBase() == local)
+								res.add(createFact(dest.getActiveBody().getThisLocal(), stmt));
+						}
+						else if (!dest.isStatic() && (ie.getArgs().contains(local)
+								|| (ie instanceof InstanceInvokeExpr
+										&& ((InstanceInvokeExpr) ie).getBase() == local)))
+							res.add(createFact(dest.getActiveBody().getThisLocal(), stmt));
+						return res;
+					}
+
+				};
+			}
+
+			@Override
+			public FlowFunction<Abstraction> getReturnFlowFunction(final Unit callSite,
+					final SootMethod callee, final Unit exitStmt, final Unit retSite) {
+				// Static initializers may be called from statements without
+				// an invocation. They only write to static fields, which we
+				// handle globally.
+				if (callSite == null || !((Stmt) callSite).containsInvokeExpr())
+					return KillAll.v();
+
+				final Stmt stmt = (Stmt) callSite;
+				final InvokeExpr ie = stmt.getInvokeExpr();
+				final boolean sameArity = ie.getArgCount() == callee.getParameterCount();
+				final Local thisLocal = callee.isStatic() ? null : callee.getActiveBody().getThisLocal();
+
+				return new SolverReturnFlowFunction() {
+
+					@Override
+					public Set<Abstraction> computeTargets(Abstraction source,
+							Collection<Abstraction> callerD1s) {
+						if (source == getZeroValue())
+							return Collections.emptySet();
+
+						final Value local = source.getAccessPath().getPlainValue();
+						Set<Abstraction> res = new HashSet<Abstraction>();
+
+						if (sameArity) {
+							for (int i = 0; i < ie.getArgCount(); i++)
+								if (callee.getActiveBody().getParameterLocal(i) == local
+										&& ie.getArg(i) instanceof Local)
+									res.add(createFact((Local) ie.getArg(i), stmt));
+							if (local == thisLocal && ie instanceof InstanceInvokeExpr)
+								res.add(createFact((Local) ((InstanceInvokeExpr) ie).getBase(), stmt));
+						}
+						else if (local == thisLocal) {
+							for (Value arg : ie.getArgs())
+								if (arg instanceof Local)
+									res.add(createFact((Local) arg, stmt));
+							if (ie instanceof InstanceInvokeExpr)
+								res.add(createFact((Local) ((InstanceInvokeExpr) ie).getBase(), stmt));
+						}
+						checkSource(retSite, res);
+						return res;
+					}
+
+				};
+			}
+
+			@Override
+			public FlowFunction<Abstraction> getCallToReturnFlowFunction(final Unit call,
+					final Unit returnSite) {
+				final Stmt stmt = (Stmt) call;
+				final InvokeExpr ie = stmt.getInvokeExpr();
+				final Value leftOp = stmt instanceof DefinitionStmt
+						? ((DefinitionStmt) stmt).getLeftOp() : null;
+				final boolean conservative = needsConservativeModel(call);
+
+				return new SolverCallToReturnFlowFunction() {
+
+					@Override
+					public Set<Abstraction> computeTargets(Abstraction d1, Abstraction source) {
+						if (source == getZeroValue())
+							return Collections.emptySet();
+
+						final Value local = source.getAccessPath().getPlainValue();
+						checkSource(stmt, Collections.singleton(source));
+
+						Set<Abstraction> res = new HashSet<Abstraction>();
+						if (leftOp != local)
+							res.add(source);
+
+						// If we cannot look into the callee, any value that
+						// goes in may come out again
+						if (conservative && (leftOp == local || ie.getArgs().contains(local)
+								|| (ie instanceof InstanceInvokeExpr
+										&& ((InstanceInvokeExpr) ie).getBase() == local))) {
+							for (Value arg : ie.getArgs())
+								if (arg instanceof Local)
+									res.add(createFact((Local) arg, stmt));
+							if (ie instanceof InstanceInvokeExpr)
+								res.add(createFact((Local) ((InstanceInvokeExpr) ie).getBase(), stmt));
+						}
+						checkSource(returnSite, res);
+						return res;
+					}
+
+				};
+			}
+
+		};
+	}
+
+}
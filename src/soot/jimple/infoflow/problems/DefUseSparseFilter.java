@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.problems;
+
+import heros.solver.IDESolver;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import soot.Local;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.Value;
+import soot.ValueBox;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.IfStmt;
+import soot.jimple.InstanceFieldRef;
+import soot.jimple.LookupSwitchStmt;
+import soot.jimple.StaticFieldRef;
+import soot.jimple.TableSwitchStmt;
+import soot.jimple.ThrowStmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.solver.fastSolver.ISparseFlowFilter;
+
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Sparse flow filter for the forward taint analysis. For every method, the
+ * locals and fields accessed by each statement are computed once. A statement
+ * can then be skipped for a taint if it neither reads nor writes the base
+ * local of the taint's access path, does not write a field the access path
+ * starts with, and does not access any static field if the taint is on a
+ * static field. Taints for implicit flows and exceptions, and inactive taints
+ * at their activation statement are never skipped.
+ *
+ * This filter relies on aliases being syntactic, i.e., it must not be used
+ * with an interactive aliasing strategy.
+ */
+public class DefUseSparseFilter implements ISparseFlowFilter<Unit, Abstraction> {
+
+	/**
+	 * The locals and fields a single statement accesses
+	 */
+	private static class StatementAccesses {
+		private final Set<Local> locals;
+		private final Set<SootField> writtenFields;
+		private final boolean accessesStaticFields;
+
+		public StatementAccesses(Set<Local> locals, Set<SootField> writtenFields,
+				boolean accessesStaticFields) {
+			this.locals = locals;
+			this.writtenFields = writtenFields;
+			this.accessesStaticFields = accessesStaticFields;
+		}
+	}
+
+	private final IInfoflowCFG icfg;
+	private final boolean enableImplicitFlows;
+	private final boolean enableExceptions;
+
+	protected final LoadingCache<SootMethod, Map<Unit, StatementAccesses>> methodAccesses =
+			IDESolver.DEFAULT_CACHE_BUILDER.build(new CacheLoader<SootMethod, Map<Unit, StatementAccesses>>() {
+				@Override
+				public Map<Unit, StatementAccesses> load(SootMethod method) throws Exception {
+					return computeAccesses(method);
+				}
+			});
+
+	/**
+	 * Creates a new instance of the {@link DefUseSparseFilter} class
+	 * @param icfg The interprocedural control flow graph
+	 * @param enableImplicitFlows True if the analysis tracks implicit flows,
+	 * in which case conditionals are never skipped
+	 * @param enableExceptions True if the analysis tracks exceptions, in which
+	 * case throw statements are never skipped
+	 */
+	public DefUseSparseFilter(IInfoflowCFG icfg, boolean enableImplicitFlows,
+			boolean enableExceptions) {
+		this.icfg = icfg;
+		this.enableImplicitFlows = enableImplicitFlows;
+		this.enableExceptions = enableExceptions;
+	}
+
+	/**
+	 * Computes the accessed locals and fields for all statements in the given
+	 * method
+	 * @param method The method for which to compute the accesses
+	 * @return A mapping from the statements in the given method to the locals
+	 * and fields they access
+	 */
+	private Map<Unit, StatementAccesses> computeAccesses(SootMethod method) {
+		if (!method.hasActiveBody())
+			return Collections.emptyMap();
+
+		Map<Unit, StatementAccesses> accesses = new HashMap<Unit, StatementAccesses>();
+		for (Unit u : method.getActiveBody().getUnits()) {
+			Set<Local> locals = new HashSet<Local>();
+			boolean accessesStaticFields = false;
+			for (ValueBox box : u.getUseAndDefBoxes()) {
+				Value val = box.getValue();
+				if (val instanceof Local)
+					locals.add((Local) val);
+				else if (val instanceof StaticFieldRef)
+					accessesStaticFields = true;
+			}
+
+			Set<SootField> writtenFields = Collections.emptySet();
+			if (u instanceof DefinitionStmt) {
+				Value leftOp = ((DefinitionStmt) u).getLeftOp();
+				if (leftOp instanceof InstanceFieldRef)
+					writtenFields = Collections.singleton(((InstanceFieldRef) leftOp).getField());
+			}
+			accesses.put(u, new StatementAccesses(locals, writtenFields, accessesStaticFields));
+		}
+		return accesses;
+	}
+
+	@Override
+	public boolean isTransparent(Unit stmt, Abstraction fact) {
+		// Implicit flows and exceptions are handled on statements that do not
+		// necessarily access the tainted value
+		AccessPath ap = fact.getAccessPath();
+		if (ap.isEmpty() || fact.getTopPostdominator() != null || fact.getExceptionThrown())
+			return false;
+		if (!fact.isAbstractionActive() && fact.getActivationUnit() == stmt)
+			return false;
+		if (enableImplicitFlows && (stmt instanceof IfStmt || stmt instanceof LookupSwitchStmt
+				|| stmt instanceof TableSwitchStmt))
+			return false;
+		if (enableExceptions && stmt instanceof ThrowStmt)
+			return false;
+
+		StatementAccesses accesses = methodAccesses.getUnchecked(icfg.getMethodOf(stmt)).get(stmt);
+		if (accesses == null)
+			return false;
+
+		if (ap.isStaticFieldRef())
+			return !accesses.accessesStaticFields;
+
+		// Writes to a field the taint starts with may kill the taint through
+		// a must-alias of the base
+		if (accesses.locals.contains(ap.getPlainValue()))
+			return false;
+		return !(ap.isInstanceFieldRef() && accesses.writtenFields.contains(ap.getFirstField()));
+	}
+
+}
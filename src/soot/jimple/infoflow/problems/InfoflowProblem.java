@@ -66,6 +66,8 @@ import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
 import soot.jimple.infoflow.solver.IInfoflowCFG;
 import soot.jimple.infoflow.solver.IInfoflowCFG.UnitContainer;
 import soot.jimple.infoflow.solver.InfoflowCFG;
+import soot.jimple.infoflow.solver.fastSolver.FlowTargetList;
+import soot.jimple.infoflow.solver.fastSolver.IFlowTargetCollector;
 import soot.jimple.infoflow.solver.functions.SolverCallFlowFunction;
 import soot.jimple.infoflow.solver.functions.SolverCallToReturnFlowFunction;
 import soot.jimple.infoflow.solver.functions.SolverNormalFlowFunction;
@@ -208,6 +210,8 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 			(final Abstraction d1, final Stmt src,
 			final Value targetValue, Set<Abstraction> taintSet,
 			SootMethod method, Abstraction newAbs) {
+		recordAliasQuery(method);
+		
 		// If we are not in a conditionally-called method, we run the
 		// full alias analysis algorithm. Otherwise, we use a global
 		// non-flow-sensitive approximation.
@@ -287,10 +291,54 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 							FlowFunctionType.NormalFlowFunction);
 				}
 				
+				@Override
+				public void computeTargets(Abstraction d1, Abstraction source,
+						IFlowTargetCollector<Abstraction> targets) {
+					// The handlers may inspect and replace the complete result
+					// set, so we can only emit the targets directly without them
+					if (taintPropagationHandlers != null) {
+						super.computeTargets(d1, source, targets);
+						return;
+					}
+					if (stopAfterFirstFlow && !results.isEmpty())
+						return;
+					computeTargetsInternal(d1, source, targets);
+				}
+				
 				public abstract Set<Abstraction> computeTargetsInternal(Abstraction d1, Abstraction source);
+				
+				public void computeTargetsInternal(Abstraction d1, Abstraction source,
+						IFlowTargetCollector<Abstraction> targets) {
+					for (Abstraction abs : computeTargetsInternal(d1, source))
+						targets.addTarget(abs);
+				}
 
 			}
 			
+			/**
+			 * Abstract base class for normal flow functions that emit their
+			 * results directly into the solver's collector instead of
+			 * allocating a new set for every application
+			 */
+			abstract class CollectingNormalFlowFunction extends NotifyingNormalFlowFunction {
+				
+				public CollectingNormalFlowFunction(Stmt stmt) {
+					super(stmt);
+				}
+				
+				@Override
+				public Set<Abstraction> computeTargetsInternal(Abstraction d1, Abstraction source) {
+					FlowTargetList<Abstraction> targets = new FlowTargetList<Abstraction>();
+					computeTargetsInternal(d1, source, targets);
+					return targets.toSet();
+				}
+				
+				@Override
+				public abstract void computeTargetsInternal(Abstraction d1, Abstraction source,
+						IFlowTargetCollector<Abstraction> targets);
+				
+			}
+			
 			/**
 			 * Notifies the outbound flow handlers, if any, about the computed
 			 * result abstractions for the current flow function
@@ -415,21 +463,22 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				if (src instanceof IdentityStmt) {
 					final IdentityStmt is = (IdentityStmt) src;
 					
-					return new NotifyingNormalFlowFunction(is) {
+					return new CollectingNormalFlowFunction(is) {
 						
 						@Override
-						public Set<Abstraction> computeTargetsInternal(Abstraction d1, Abstraction source) {
+						public void computeTargetsInternal(Abstraction d1, Abstraction source,
+								IFlowTargetCollector<Abstraction> targets) {
 							// Check whether we must leave a conditional branch
 							if (source.isTopPostdominator(is)) {
 								source = source.dropTopPostdominator();
 								// Have we dropped the last postdominator for an empty taint?
 								if (source.getAccessPath().isEmpty() && source.getTopPostdominator() == null)
-									return Collections.emptySet();
+									return;
 							}
 
 							// This may also be a parameter access we regard as a source
-							Set<Abstraction> res = new HashSet<Abstraction>();
 							if (source == getZeroValue() && sourceInfo != null) {
+								Set<Abstraction> res = new HashSet<Abstraction>();
 								Abstraction abs = new Abstraction(is.getLeftOp(), sourceInfo,
 										new AccessPath(is.getLeftOp(), true), is, false, false);
 								res.add(abs);
@@ -437,20 +486,16 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 								// Compute the aliases
 								if (triggerInaktiveTaintOrReverseFlow(is, is.getLeftOp(), abs))
 									computeAliasTaints(d1, is, is.getLeftOp(), res, interproceduralCFG().getMethodOf(is), abs);
-								return res;
+								for (Abstraction resAbs : res)
+									targets.addTarget(resAbs);
+								return;
 							}
 
-							boolean addOriginal = true;
-							if (is.getRightOp() instanceof CaughtExceptionRef) {
-								if (source.getExceptionThrown()) {
-									res.add(source.deriveNewAbstractionOnCatch(is.getLeftOp()));
-									addOriginal = false;
-								}
-							}
-
-							if (addOriginal)
-								res.add(source);
-							return res;
+							if (is.getRightOp() instanceof CaughtExceptionRef
+									&& source.getExceptionThrown())
+								targets.addTarget(source.deriveNewAbstractionOnCatch(is.getLeftOp()));
+							else
+								targets.addTarget(source);
 						}
 					};
 
@@ -737,16 +782,17 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 				// site we could jump to
 				else if (src instanceof ReturnStmt) {
 					final ReturnStmt returnStmt = (ReturnStmt) src;
-					return new NotifyingNormalFlowFunction(returnStmt) {
+					return new CollectingNormalFlowFunction(returnStmt) {
 						
 						@Override
-						public Set<Abstraction> computeTargetsInternal(Abstraction d1, Abstraction source) {
+						public void computeTargetsInternal(Abstraction d1, Abstraction source,
+								IFlowTargetCollector<Abstraction> targets) {
 							// Check whether we must leave a conditional branch
 							if (source.isTopPostdominator(returnStmt)) {
 								source = source.dropTopPostdominator();
 								// Have we dropped the last postdominator for an empty taint?
 								if (source.getAccessPath().isEmpty() && source.getTopPostdominator() == null)
-									return Collections.emptySet();
+									return;
 							}
 							
 							// Check whether we have reached a sink
@@ -756,28 +802,29 @@ public class InfoflowProblem extends AbstractInfoflowProblem {
 									&& source.getAccessPath().isEmpty())
 								addResult(new AbstractionAtSink(source, returnStmt));
 
-							return Collections.singleton(source);
+							targets.addTarget(source);
 						}
 					};
 				}
 				else if (enableExceptions && src instanceof ThrowStmt) {
 					final ThrowStmt throwStmt = (ThrowStmt) src;
-					return new NotifyingNormalFlowFunction(throwStmt) {
+					return new CollectingNormalFlowFunction(throwStmt) {
 
 						@Override
-						public Set<Abstraction> computeTargetsInternal(Abstraction d1, Abstraction source) {
+						public void computeTargetsInternal(Abstraction d1, Abstraction source,
+								IFlowTargetCollector<Abstraction> targets) {
 							// Check whether we must leave a conditional branch
 							if (source.isTopPostdominator(throwStmt)) {
 								source = source.dropTopPostdominator();
 								// Have we dropped the last postdominator for an empty taint?
 								if (source.getAccessPath().isEmpty() && source.getTopPostdominator() == null)
-									return Collections.emptySet();
+									return;
 							}
 
 							if (aliasing.mayAlias(throwStmt.getOp(), source.getAccessPath().getPlainValue()))
-								return Collections.singleton(source.deriveNewAbstractionOnThrow(throwStmt));
-
-							return Collections.singleton(source);
+								targets.addTarget(source.deriveNewAbstractionOnThrow(throwStmt));
+							else
+								targets.addTarget(source);
 						}
 					};
 				}
@@ -10,6 +10,8 @@
  ******************************************************************************/
 package soot.jimple.infoflow.results;
 
+import heros.solver.Pair;
+
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -23,7 +25,9 @@ import org.slf4j.LoggerFactory;
 import soot.Value;
 import soot.jimple.InvokeExpr;
 import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.AbstractionAtSink;
 import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.pathBuilders.OnDemandPathBuilder;
 import soot.jimple.infoflow.util.ConcurrentHashSet;
 import soot.jimple.infoflow.util.MyConcurrentHashMap;
 
@@ -33,16 +37,157 @@ import soot.jimple.infoflow.util.MyConcurrentHashMap;
  * @author Steven Arzt
  */
 public class InfoflowResults {
+	
+	/**
+	 * Enumeration containing the budgets that can cause the data flow
+	 * analysis to stop before it has found all flows
+	 */
+	public enum AbortReason {
+		/**
+		 * The wall-clock time limit for the data flow analysis was reached
+		 */
+		Timeout,
+		/**
+		 * The heap usage exceeded the configured threshold
+		 */
+		MemoryLimit,
+		/**
+		 * At least one worker process of a sharded analysis failed, so the
+		 * flows of its seeds are missing
+		 */
+		ShardFailure
+	}
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 		
 	private final MyConcurrentHashMap<ResultSinkInfo, Set<ResultSourceInfo>> results =
 			new MyConcurrentHashMap<ResultSinkInfo, Set<ResultSourceInfo>>();
 	
+	private AbortReason abortReason = null;
+	private final Set<ResultSinkInfo> truncatedSinks = new ConcurrentHashSet<ResultSinkInfo>();
+	
+	private final MyConcurrentHashMap<Pair<ResultSinkInfo, Stmt>, Set<AbstractionAtSink>> resultAbstractions =
+			new MyConcurrentHashMap<Pair<ResultSinkInfo, Stmt>, Set<AbstractionAtSink>>();
+	private OnDemandPathBuilder onDemandPathBuilder = null;
+	
 	public InfoflowResults() {
 		
 	}
 	
+	/**
+	 * Gets whether the data flow analysis was stopped before it had finished.
+	 * In that case, this object only contains the flows found until then.
+	 * @return True if the results are incomplete, otherwise false
+	 */
+	public boolean isIncomplete() {
+		return this.abortReason != null;
+	}
+	
+	/**
+	 * Gets the budget that ran out and caused the data flow analysis to stop
+	 * @return The reason why the analysis was stopped, or null if the
+	 * analysis has completed normally
+	 */
+	public AbortReason getAbortReason() {
+		return this.abortReason;
+	}
+	
+	/**
+	 * Marks these results as incomplete
+	 * @param abortReason The reason why the analysis was stopped
+	 */
+	public void setAbortReason(AbortReason abortReason) {
+		this.abortReason = abortReason;
+	}
+	
+	/**
+	 * Gets whether the path builder has stopped exploring the paths to at
+	 * least one sink because a path limit was reached. The results for these
+	 * sinks may lack propagation paths and sources.
+	 * @return True if the paths to at least one sink have been truncated,
+	 * otherwise false
+	 */
+	public boolean isPathsTruncated() {
+		return !this.truncatedSinks.isEmpty();
+	}
+	
+	/**
+	 * Gets the sinks for which not all paths have been explored because a
+	 * path limit was reached
+	 * @return The sinks with truncated paths
+	 */
+	public Set<ResultSinkInfo> getTruncatedSinks() {
+		return this.truncatedSinks;
+	}
+	
+	/**
+	 * Records that not all paths to the given sink have been explored
+	 * @param sink The sink whose paths have been truncated
+	 */
+	public void addTruncatedSink(ResultSinkInfo sink) {
+		this.truncatedSinks.add(sink);
+	}
+	
+	/**
+	 * Sets the path builder for reconstructing the propagation paths of single
+	 * results on demand
+	 * @param onDemandPathBuilder The path builder to use
+	 */
+	public void setOnDemandPathBuilder(OnDemandPathBuilder onDemandPathBuilder) {
+		this.onDemandPathBuilder = onDemandPathBuilder;
+	}
+	
+	/**
+	 * Keeps the given abstraction at a sink so that the propagation path
+	 * from the given source to this sink can be reconstructed on demand
+	 * @param sink The sink reached by the abstraction
+	 * @param source The source statement from which the abstraction
+	 * originates
+	 * @param abs The abstraction at the sink
+	 */
+	public void addResultAbstraction(ResultSinkInfo sink, Stmt source,
+			AbstractionAtSink abs) {
+		this.resultAbstractions.putIfAbsentElseGet(new Pair<ResultSinkInfo, Stmt>(sink, source),
+				new ConcurrentHashSet<AbstractionAtSink>()).add(abs);
+	}
+	
+	/**
+	 * Gets a handle for reconstructing the propagation path of the given
+	 * result later on. Handles are only available if the data flow analysis
+	 * was configured to reconstruct the paths lazily.
+	 * @param sink The sink of the result
+	 * @param source The source of the result
+	 * @return The handle for reconstructing the path of the given result, or
+	 * null if the path cannot be reconstructed on demand
+	 */
+	public PathHandle getPathHandle(ResultSinkInfo sink, ResultSourceInfo source) {
+		if (onDemandPathBuilder == null)
+			return null;
+		Set<AbstractionAtSink> abstractions = this.resultAbstractions.get
+				(new Pair<ResultSinkInfo, Stmt>(sink, source.getSource()));
+		if (abstractions == null)
+			return null;
+		return new PathHandle(abstractions, source.getSource());
+	}
+	
+	/**
+	 * Reconstructs the propagation path of a single result. This runs the
+	 * context-sensitive path search only for the abstractions at the sink
+	 * that originate from the source of the given result. If there are
+	 * multiple paths, the shortest one is returned.
+	 * @param handle The handle of the result as returned by
+	 * {@link #getPathHandle(ResultSinkInfo, ResultSourceInfo)}
+	 * @return The statements on the path from the source to the sink, or null
+	 * if no path could be found
+	 */
+	public List<Stmt> reconstructPath(PathHandle handle) {
+		if (onDemandPathBuilder == null)
+			throw new RuntimeException("The paths of these results cannot be "
+					+ "reconstructed on demand");
+		return onDemandPathBuilder.reconstructPath(handle.getAbstractions(),
+				handle.getSource());
+	}
+	
 	/**
 	 * Gets the number of entries in this result object
 	 * @return The number of entries in this result object
@@ -201,6 +346,8 @@ public class InfoflowResults {
 	 * Prints all results stored in this object to the standard output
 	 */
 	public void printResults() {
+		if (abortReason != null)
+			logger.warn("Results are incomplete, the analysis was aborted ({})", abortReason);
 		for (ResultSinkInfo sink : this.results.keySet()) {
 			logger.info("Found a flow to sink {}, from the following sources:", sink);
 			for (ResultSourceInfo source : this.results.get(sink)) {
@@ -217,6 +364,8 @@ public class InfoflowResults {
 	 * @throws IOException Thrown when data writing fails
 	 */
 	public void printResults(Writer wr) throws IOException {
+		if (abortReason != null)
+			wr.write("Results are incomplete, the analysis was aborted (" + abortReason + ")\n");
 		for (ResultSinkInfo sink : this.results.keySet()) {
 			wr.write("Found a flow to sink " + sink + ", from the following sources:\n");
 			for (ResultSourceInfo source : this.results.get(sink)) {
@@ -232,6 +381,8 @@ public class InfoflowResults {
 	 */
 	public void clear() {
 		this.results.clear();
+		this.truncatedSinks.clear();
+		this.resultAbstractions.clear();
 	}
 	
 	@Override
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.results;
+
+import java.util.Set;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.AbstractionAtSink;
+
+/**
+ * Opaque reference to a single source-to-sink connection whose propagation
+ * path has not been reconstructed yet. The handle keeps the abstractions at
+ * the sink that originate from the source alive, and with them the part of
+ * the propagation graph that leads up to the sink. Pass it to
+ * {@link InfoflowResults#reconstructPath(PathHandle)} to obtain the path.
+ */
+public class PathHandle {
+	
+	private final Set<AbstractionAtSink> abstractions;
+	private final Stmt source;
+	
+	PathHandle(Set<AbstractionAtSink> abstractions, Stmt source) {
+		this.abstractions = abstractions;
+		this.source = source;
+	}
+	
+	Set<AbstractionAtSink> getAbstractions() {
+		return this.abstractions;
+	}
+	
+	Stmt getSource() {
+		return this.source;
+	}
+	
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transport that exchanges jobs and results through temporary files. The
+ * worker writes its results into a file that the coordinator reads once the
+ * worker process has terminated.
+ */
+public class FileShardTransport implements IShardTransport {
+
+	/**
+	 * Name of this transport on the command line of the worker process
+	 */
+	public static final String NAME = "file";
+
+	private final List<File> files = new ArrayList<File>();
+	private final Map<Integer, File> resultFiles = new HashMap<Integer, File>();
+
+	@Override
+	public synchronized List<String> prepare(ShardJob job) throws IOException {
+		File jobFile = File.createTempFile("shard" + job.getShardIndex() + "-", ".job");
+		File resultFile = File.createTempFile("shard" + job.getShardIndex() + "-", ".results");
+		files.add(jobFile);
+		files.add(resultFile);
+		resultFiles.put(job.getShardIndex(), resultFile);
+
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream
+				(new FileOutputStream(jobFile)));
+		try {
+			out.writeObject(job);
+		}
+		finally {
+			out.close();
+		}
+		return Arrays.asList(NAME, jobFile.getAbsolutePath(), resultFile.getAbsolutePath());
+	}
+
+	@Override
+	public ObjectInputStream receive(ShardJob job, Process worker) throws IOException {
+		// The worker does not read anything from its standard input
+		worker.getOutputStream().close();
+		try {
+			worker.waitFor();
+		}
+		catch (InterruptedException ex) {
+			throw new IOException("Interrupted while waiting for shard " + job.getShardIndex(), ex);
+		}
+		File resultFile;
+		synchronized (this) {
+			resultFile = resultFiles.get(job.getShardIndex());
+		}
+		if (resultFile.length() == 0)
+			throw new IOException("Shard " + job.getShardIndex() + " did not write any results");
+		return new ShardObjectInputStream(new BufferedInputStream(new FileInputStream(resultFile)));
+	}
+
+	@Override
+	public synchronized void close() {
+		for (File f : files)
+			f.delete();
+		files.clear();
+		resultFiles.clear();
+	}
+
+	/**
+	 * Reads the job of a worker process
+	 * @param args The transport-specific command-line arguments of the worker
+	 * @return The job of the worker
+	 */
+	static ShardJob readJob(String[] args) throws IOException, ClassNotFoundException {
+		ObjectInputStream in = new ShardObjectInputStream(new BufferedInputStream
+				(new FileInputStream(args[1])));
+		try {
+			return (ShardJob) in.readObject();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Opens the stream to which a worker process writes its results
+	 * @param args The transport-specific command-line arguments of the worker
+	 * @return The stream for the results
+	 */
+	static ObjectOutputStream openResults(String[] args) throws IOException {
+		return new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(args[2])));
+	}
+
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.List;
+
+/**
+ * Common interface for the ways in which the coordinator of a sharded
+ * analysis hands the jobs to the worker processes and receives their
+ * results. The results are a stream of serialized {@link ShardResultEntry}
+ * objects that is terminated by a {@link ShardCompletion}.
+ */
+public interface IShardTransport {
+
+	/**
+	 * Prepares the transfer of the given job to its worker process
+	 * @param job The job to transfer
+	 * @return The command-line arguments with which the worker process must
+	 * be started to obtain the job
+	 * @throws IOException Thrown if the transfer could not be prepared
+	 */
+	public List<String> prepare(ShardJob job) throws IOException;
+
+	/**
+	 * Opens the stream of results of the given job. This method blocks until
+	 * the results become available. The transport owns the standard input of
+	 * the worker process and must close it. The returned stream must only
+	 * accept the classes of the shard messages, see
+	 * {@link ShardObjectInputStream}.
+	 * @param job The job whose results to receive
+	 * @param worker The worker process that runs the job
+	 * @return The stream from which the results can be read
+	 * @throws IOException Thrown if the results could not be received,
+	 * e.g., because the worker process has died
+	 */
+	public ObjectInputStream receive(ShardJob job, Process worker) throws IOException;
+
+	/**
+	 * Releases all resources of this transport, e.g., temporary files
+	 */
+	public void close();
+
+}
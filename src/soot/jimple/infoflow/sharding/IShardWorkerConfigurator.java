@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import soot.jimple.infoflow.Infoflow;
+
+/**
+ * Interface for classes that configure the data flow analysis inside the
+ * worker processes of a sharded analysis. The coordinator transfers the
+ * plain options to the workers on its own. Objects such as taint wrappers,
+ * IPC managers and preprocessors, however, cannot be transferred and must be
+ * created again by an implementation of this interface. Implementations
+ * need a public constructor without arguments.
+ */
+public interface IShardWorkerConfigurator {
+
+	/**
+	 * Configures the data flow analysis of a worker process. This method is
+	 * called after the options of the coordinator have been applied.
+	 * @param infoflow The data flow analysis to configure
+	 */
+	public void configure(Infoflow infoflow);
+
+}
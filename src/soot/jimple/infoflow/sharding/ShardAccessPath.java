@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+
+/**
+ * Scene-independent representation of an access path. The base local is
+ * identified by its name inside the method of the statement at which the
+ * access path is valid, the fields by their signatures.
+ */
+public class ShardAccessPath implements Serializable {
+
+	private static final long serialVersionUID = -3148263350658624395L;
+
+	private final String baseLocal;
+	private final String[] fields;
+	private final boolean taintSubFields;
+
+	/**
+	 * Creates a new instance of the {@link ShardAccessPath} class
+	 * @param baseLocal The name of the base local, or null for static fields
+	 * @param fields The signatures of the fields, or null if there are none
+	 * @param taintSubFields True if all fields reachable through this access
+	 * path are tainted as well
+	 */
+	public ShardAccessPath(String baseLocal, String[] fields, boolean taintSubFields) {
+		this.baseLocal = baseLocal;
+		this.fields = fields;
+		this.taintSubFields = taintSubFields;
+	}
+
+	/**
+	 * Gets the name of the base local
+	 * @return The name of the base local, or null for static fields
+	 */
+	public String getBaseLocal() {
+		return this.baseLocal;
+	}
+
+	/**
+	 * Gets the signatures of the fields
+	 * @return The signatures of the fields, or null if there are none
+	 */
+	public String[] getFields() {
+		return this.fields;
+	}
+
+	/**
+	 * Gets whether all fields reachable through this access path are tainted
+	 * as well
+	 * @return True if all fields reachable through this access path are
+	 * tainted as well, otherwise false
+	 */
+	public boolean getTaintSubFields() {
+		return this.taintSubFields;
+	}
+
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+
+import soot.jimple.infoflow.results.InfoflowResults.AbortReason;
+
+/**
+ * Message that a worker process sends after its last result entry
+ */
+public class ShardCompletion implements Serializable {
+
+	private static final long serialVersionUID = -6183780093421659221L;
+
+	private final int resultCount;
+	private final AbortReason abortReason;
+	private final String error;
+
+	/**
+	 * Creates a new instance of the {@link ShardCompletion} class
+	 * @param resultCount The number of result entries the worker has sent
+	 * @param abortReason The reason why the data flow analysis of the worker
+	 * was stopped early, or null if it completed normally
+	 * @param error The description of the error that made the worker fail,
+	 * or null if there was no error
+	 */
+	public ShardCompletion(int resultCount, AbortReason abortReason, String error) {
+		this.resultCount = resultCount;
+		this.abortReason = abortReason;
+		this.error = error;
+	}
+
+	public int getResultCount() {
+		return this.resultCount;
+	}
+
+	public AbortReason getAbortReason() {
+		return this.abortReason;
+	}
+
+	public String getError() {
+		return this.error;
+	}
+
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.InfoflowResults.AbortReason;
+
+/**
+ * Runs the shards of a sharded analysis in separate worker processes and
+ * merges their results. Every worker builds the Soot scene on its own and
+ * solves a partition of the seeds. The results are translated back into the
+ * scene of the coordinator.
+ */
+public class ShardCoordinator {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final IShardTransport transport;
+	private final List<String> jvmArgs;
+
+	private AbortReason abortReason = null;
+
+	/**
+	 * Creates a new instance of the {@link ShardCoordinator} class
+	 * @param transport The transport through which to exchange jobs and
+	 * results with the worker processes
+	 * @param jvmArgs The additional arguments for the virtual machines of the
+	 * worker processes, e.g., the maximum heap size
+	 */
+	public ShardCoordinator(IShardTransport transport, List<String> jvmArgs) {
+		this.transport = transport;
+		this.jvmArgs = jvmArgs == null ? Collections.<String>emptyList() : jvmArgs;
+	}
+
+	/**
+	 * Distributes the given seeds round-robin over the given number of
+	 * partitions. The seeds are sorted first so that the partitioning does
+	 * not depend on hash iteration order.
+	 * @param seeds The seeds to distribute
+	 * @param shardCount The maximum number of partitions
+	 * @return The non-empty partitions of the seeds
+	 */
+	public static List<List<StmtKey>> partition(Collection<StmtKey> seeds, int shardCount) {
+		List<StmtKey> sortedSeeds = new ArrayList<StmtKey>(seeds);
+		Collections.sort(sortedSeeds);
+
+		int partitionCount = Math.max(1, Math.min(shardCount, sortedSeeds.size()));
+		List<List<StmtKey>> partitions = new ArrayList<List<StmtKey>>(partitionCount);
+		for (int i = 0; i < partitionCount; i++)
+			partitions.add(new ArrayList<StmtKey>());
+		for (int i = 0; i < sortedSeeds.size(); i++)
+			partitions.get(i % partitionCount).add(sortedSeeds.get(i));
+		return partitions;
+	}
+
+	/**
+	 * Runs one worker process per partition and waits for all of them
+	 * @param template The job from which to derive the jobs of the shards
+	 * @param partitions The partitions of the seeds, one per worker
+	 * @param mapper The mapper that translates the results into the scene of
+	 * the coordinator
+	 * @return The merged results of all workers
+	 */
+	public InfoflowResults run(ShardJob template, List<List<StmtKey>> partitions,
+			final ShardSceneMapper mapper) {
+		final InfoflowResults results = new InfoflowResults();
+		List<Thread> receivers = new ArrayList<Thread>(partitions.size());
+		try {
+			for (int i = 0; i < partitions.size(); i++) {
+				final ShardJob job = template.forShard(i, partitions.size(), partitions.get(i));
+				final Process worker;
+				try {
+					worker = startWorker(transport.prepare(job));
+				}
+				catch (IOException ex) {
+					logger.error("Could not start worker for shard " + i, ex);
+					fail();
+					continue;
+				}
+				logger.info("Started worker for shard {} with {} seeds", i, job.getSeeds().size());
+
+				Thread receiver = new Thread("Shard receiver " + i) {
+
+					@Override
+					public void run() {
+						receive(job, worker, mapper, results);
+					}
+
+				};
+				receiver.start();
+				receivers.add(receiver);
+			}
+
+			for (Thread receiver : receivers)
+				receiver.join();
+		}
+		catch (InterruptedException ex) {
+			logger.error("Interrupted while waiting for the shards", ex);
+			fail();
+		}
+		finally {
+			transport.close();
+		}
+
+		synchronized (this) {
+			results.setAbortReason(abortReason);
+		}
+		return results;
+	}
+
+	private Process startWorker(List<String> transportArgs) throws IOException {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin"
+				+ File.separator + "java");
+		command.addAll(jvmArgs);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ShardWorker.class.getName());
+		command.addAll(transportArgs);
+
+		// The transport may pass secrets to the worker through its standard
+		// input
+		ProcessBuilder pb = new ProcessBuilder(command);
+		pb.inheritIO();
+		pb.redirectInput(Redirect.PIPE);
+		return pb.start();
+	}
+
+	/**
+	 * Reads the results of a single worker and adds them to the merged
+	 * results
+	 */
+	private void receive(ShardJob job, Process worker, ShardSceneMapper mapper,
+			InfoflowResults results) {
+		ShardCompletion completion = null;
+		int resultCount = 0;
+		try {
+			ObjectInputStream in = transport.receive(job, worker);
+			try {
+				while (completion == null) {
+					Object obj = in.readObject();
+					if (obj instanceof ShardResultEntry) {
+						// Soot is not thread-safe, so we translate the results
+						// one at a time
+						synchronized (mapper) {
+							mapper.addResult(results, (ShardResultEntry) obj);
+						}
+						resultCount++;
+					}
+					else if (obj instanceof ShardTruncatedSink) {
+						synchronized (mapper) {
+							mapper.addTruncatedSink(results, (ShardTruncatedSink) obj);
+						}
+					}
+					else
+						completion = (ShardCompletion) obj;
+				}
+			}
+			finally {
+				in.close();
+			}
+			worker.waitFor();
+		}
+		catch (EOFException ex) {
+			logger.error("Worker for shard " + job.getShardIndex() + " terminated unexpectedly");
+		}
+		catch (Exception ex) {
+			logger.error("Could not receive the results of shard " + job.getShardIndex(), ex);
+		}
+		finally {
+			worker.destroy();
+		}
+
+		if (completion == null)
+			fail();
+		else if (completion.getError() != null) {
+			logger.error("Worker for shard {} failed: {}", job.getShardIndex(), completion.getError());
+			fail();
+		}
+		else if (completion.getResultCount() != resultCount) {
+			logger.error("Worker for shard {} sent {} results, but announced {}",
+					job.getShardIndex(), resultCount, completion.getResultCount());
+			fail();
+		}
+		else {
+			logger.info("Shard {} completed with {} results", job.getShardIndex(), resultCount);
+			if (completion.getAbortReason() != null)
+				abort(completion.getAbortReason());
+		}
+	}
+
+	private synchronized void fail() {
+		this.abortReason = AbortReason.ShardFailure;
+	}
+
+	private synchronized void abort(AbortReason reason) {
+		if (this.abortReason == null)
+			this.abortReason = reason;
+	}
+
+}
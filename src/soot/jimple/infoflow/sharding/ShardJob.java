@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Description of the work of a single worker process in a sharded analysis.
+ * It contains everything the worker needs to build the same Soot scene as
+ * the coordinator, the configuration of the data flow analysis, and the
+ * seeds the worker shall solve.
+ */
+public class ShardJob implements Serializable, Cloneable {
+
+	private static final long serialVersionUID = -1525874409207563468L;
+
+	public static final String OPT_STOP_AFTER_FIRST_FLOW = "stopAfterFirstFlow";
+	public static final String OPT_IMPLICIT_FLOWS = "enableImplicitFlows";
+	public static final String OPT_STATIC_FIELDS = "enableStaticFields";
+	public static final String OPT_EXCEPTIONS = "enableExceptions";
+	public static final String OPT_FLOW_SENSITIVE_ALIASING = "flowSensitiveAliasing";
+	public static final String OPT_IGNORE_SYSTEM_PACKAGES = "ignoreFlowsInSystemPackages";
+	public static final String OPT_INSPECT_SOURCES = "inspectSources";
+	public static final String OPT_INSPECT_SINKS = "inspectSinks";
+	public static final String OPT_METHOD_BATCHING = "enableMethodBatching";
+	public static final String OPT_MERGE_POINT_CHECKING = "enableMergePointChecking";
+	public static final String OPT_SPARSE_PROPAGATION = "enableSparsePropagation";
+	public static final String OPT_CANONICALIZATION = "enableAbstractionCanonicalization";
+	public static final String OPT_RESULTS_ONLY = "enableResultsOnlyMode";
+	public static final String OPT_SINK_FIRST = "enableSinkFirstAnalysis";
+	public static final String OPT_CODE_ELIMINATION = "enableCodeElimination";
+	public static final String OPT_DATA_FLOW_TIMEOUT = "dataFlowTimeout";
+	public static final String OPT_MEMORY_THRESHOLD = "memoryThreshold";
+	public static final String OPT_MAX_PATHS_PER_PAIR = "maxPathsPerPair";
+	public static final String OPT_MAX_PATH_LENGTH = "maxPathLength";
+	public static final String OPT_PATH_SINK_TIMEOUT = "pathBuildingSinkTimeout";
+	public static final String OPT_MAX_THREADS = "maxThreadNum";
+	public static final String OPT_CALLGRAPH_ALGORITHM = "callgraphAlgorithm";
+	public static final String OPT_ALIASING_ALGORITHM = "aliasingAlgorithm";
+	public static final String OPT_SCHEDULING_STRATEGY = "schedulingStrategy";
+	public static final String OPT_SOLVER_POOL_MODE = "solverPoolMode";
+	public static final String OPT_FORWARD_SOLVER_WEIGHT = "forwardSolverWeight";
+	public static final String OPT_ALIAS_SOLVER_WEIGHT = "aliasSolverWeight";
+	public static final String OPT_JUMP_FUNCTIONS_BACKEND = "jumpFunctionsBackend";
+	public static final String OPT_ACCESS_PATH_LENGTH = "accessPathLength";
+	public static final String OPT_RECURSIVE_ACCESS_PATHS = "useRecursiveAccessPaths";
+	public static final String OPT_PATH_AGNOSTIC_RESULTS = "pathAgnosticResults";
+	public static final String OPT_ONE_RESULT_PER_ACCESS_PATH = "oneResultPerAccessPath";
+	public static final String OPT_PATH_BUILDER = "pathBuilder";
+	public static final String OPT_RECONSTRUCT_PATHS = "reconstructPaths";
+	public static final String OPT_PATH_BUILDER_SCHEDULING = "pathBuilderSchedulingStrategy";
+	public static final String OPT_ANDROID_PATH = "androidPath";
+	public static final String OPT_FORCE_ANDROID_JAR = "forceAndroidJar";
+	public static final String OPT_SUBSTITUTE_CLASSES = "substituteClasses";
+
+	private int shardIndex;
+	private int shardCount;
+
+	private String appPath;
+	private String libPath;
+	private String entryPoint;
+	private Collection<String> entryPoints;
+
+	private Collection<String> sources;
+	private Collection<String> sinks;
+	private Collection<String> parameterTaintMethods;
+	private Collection<String> returnTaintMethods;
+
+	private String sootConfigClass;
+	private String workerConfiguratorClass;
+
+	private final Map<String, Serializable> options = new HashMap<String, Serializable>();
+	private List<StmtKey> seeds = new ArrayList<StmtKey>();
+
+	/**
+	 * Creates a copy of this job for the given shard
+	 * @param shardIndex The index of the shard
+	 * @param shardCount The total number of shards
+	 * @param seeds The seeds the worker of the shard shall solve
+	 * @return The job of the given shard
+	 */
+	public ShardJob forShard(int shardIndex, int shardCount, List<StmtKey> seeds) {
+		try {
+			ShardJob job = (ShardJob) clone();
+			job.shardIndex = shardIndex;
+			job.shardCount = shardCount;
+			job.seeds = new ArrayList<StmtKey>(seeds);
+			return job;
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	public int getShardIndex() {
+		return this.shardIndex;
+	}
+
+	public int getShardCount() {
+		return this.shardCount;
+	}
+
+	public String getAppPath() {
+		return this.appPath;
+	}
+
+	public String getLibPath() {
+		return this.libPath;
+	}
+
+	/**
+	 * Sets the input of the analysis
+	 * @param appPath The classpath of the application to analyze
+	 * @param libPath The classpath of the libraries
+	 */
+	public void setInput(String appPath, String libPath) {
+		this.appPath = appPath;
+		this.libPath = libPath;
+	}
+
+	/**
+	 * Gets the single entry point of the analysis
+	 * @return The signature of the single entry point method, or null if
+	 * a dummy main method is generated for a list of entry points
+	 */
+	public String getEntryPoint() {
+		return this.entryPoint;
+	}
+
+	/**
+	 * Sets the single entry point of the analysis
+	 * @param entryPoint The signature of the entry point method
+	 */
+	public void setEntryPoint(String entryPoint) {
+		this.entryPoint = entryPoint;
+		this.entryPoints = null;
+	}
+
+	/**
+	 * Gets the entry points from which a dummy main method is generated
+	 * @return The signatures of the entry point methods, or null if there is
+	 * a single entry point
+	 */
+	public Collection<String> getEntryPoints() {
+		return this.entryPoints;
+	}
+
+	/**
+	 * Sets the entry points from which a dummy main method is generated
+	 * @param entryPoints The signatures of the entry point methods
+	 */
+	public void setEntryPoints(Collection<String> entryPoints) {
+		this.entryPoints = new ArrayList<String>(entryPoints);
+		this.entryPoint = null;
+	}
+
+	public Collection<String> getSources() {
+		return this.sources;
+	}
+
+	public Collection<String> getSinks() {
+		return this.sinks;
+	}
+
+	public Collection<String> getParameterTaintMethods() {
+		return this.parameterTaintMethods;
+	}
+
+	public Collection<String> getReturnTaintMethods() {
+		return this.returnTaintMethods;
+	}
+
+	/**
+	 * Sets the sources and sinks of the analysis
+	 * @param sources The signatures of the source methods
+	 * @param sinks The signatures of the sink methods
+	 * @param parameterTaintMethods The signatures of the methods whose
+	 * parameters are sources, or null
+	 * @param returnTaintMethods The signatures of the methods whose return
+	 * values are sinks, or null
+	 */
+	public void setSourcesSinks(Collection<String> sources, Collection<String> sinks,
+			Collection<String> parameterTaintMethods, Collection<String> returnTaintMethods) {
+		this.sources = copy(sources);
+		this.sinks = copy(sinks);
+		this.parameterTaintMethods = copy(parameterTaintMethods);
+		this.returnTaintMethods = copy(returnTaintMethods);
+	}
+
+	private static Collection<String> copy(Collection<String> values) {
+		return values == null ? null : new ArrayList<String>(values);
+	}
+
+	/**
+	 * Gets the class that configures Soot in the worker
+	 * @return The name of the class implementing
+	 * {@link soot.jimple.infoflow.config.IInfoflowConfig}, or null
+	 */
+	public String getSootConfigClass() {
+		return this.sootConfigClass;
+	}
+
+	public void setSootConfigClass(String sootConfigClass) {
+		this.sootConfigClass = sootConfigClass;
+	}
+
+	/**
+	 * Gets the class that applies the remaining configuration in the worker
+	 * @return The name of the class implementing
+	 * {@link IShardWorkerConfigurator}, or null
+	 */
+	public String getWorkerConfiguratorClass() {
+		return this.workerConfiguratorClass;
+	}
+
+	public void setWorkerConfiguratorClass(String workerConfiguratorClass) {
+		this.workerConfiguratorClass = workerConfiguratorClass;
+	}
+
+	/**
+	 * Sets an option of the data flow analysis
+	 * @param key The name of the option, one of the OPT_ constants
+	 * @param value The value of the option
+	 */
+	public void setOption(String key, Serializable value) {
+		this.options.put(key, value);
+	}
+
+	/**
+	 * Gets an option of the data flow analysis
+	 * @param key The name of the option, one of the OPT_ constants
+	 * @return The value of the option, or null if it has not been set
+	 */
+	public Serializable getOption(String key) {
+		return this.options.get(key);
+	}
+
+	/**
+	 * Gets a boolean option of the data flow analysis
+	 * @param key The name of the option, one of the OPT_ constants
+	 * @return The value of the option, or false if it has not been set
+	 */
+	public boolean getBooleanOption(String key) {
+		Serializable value = this.options.get(key);
+		return value != null && (Boolean) value;
+	}
+
+	/**
+	 * Gets the seeds the worker shall solve
+	 * @return The seeds of this shard
+	 */
+	public List<StmtKey> getSeeds() {
+		return this.seeds;
+	}
+
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Object stream for the messages exchanged between the coordinator and the
+ * workers of a sharded analysis. Only the message classes and the few JDK
+ * classes they consist of can be deserialized. Everything else is rejected
+ * before any of its code runs, so that a crafted stream cannot instantiate
+ * arbitrary serializable classes on the class path.
+ */
+public class ShardObjectInputStream extends ObjectInputStream {
+
+	private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays.asList(
+			// messages
+			ShardJob.class.getName(),
+			ShardResultEntry.class.getName(),
+			ShardTruncatedSink.class.getName(),
+			ShardCompletion.class.getName(),
+			ShardAccessPath.class.getName(),
+			StmtKey.class.getName(),
+
+			// option values
+			"soot.jimple.infoflow.IInfoflow$CallgraphAlgorithm",
+			"soot.jimple.infoflow.IInfoflow$AliasingAlgorithm",
+			"soot.jimple.infoflow.IInfoflow$SchedulingStrategy",
+			"soot.jimple.infoflow.IInfoflow$SolverPoolMode",
+			"soot.jimple.infoflow.IInfoflow$JumpFunctionsBackend",
+			"soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory$PathBuilder",
+			"soot.jimple.infoflow.results.InfoflowResults$AbortReason",
+
+			// JDK classes
+			"java.lang.Enum",
+			"java.lang.Number",
+			"java.lang.String",
+			"java.lang.Boolean",
+			"java.lang.Byte",
+			"java.lang.Character",
+			"java.lang.Short",
+			"java.lang.Integer",
+			"java.lang.Long",
+			"java.lang.Float",
+			"java.lang.Double",
+			"java.util.ArrayList",
+			"java.util.HashMap"));
+
+	public ShardObjectInputStream(InputStream in) throws IOException {
+		super(in);
+	}
+
+	/**
+	 * Checks whether objects of the given class may be exchanged between
+	 * the coordinator and the workers
+	 * @param className The name of the class to check
+	 * @return True if objects of the given class may be deserialized,
+	 * otherwise false
+	 */
+	public static boolean isAllowed(String className) {
+		// Arrays are allowed if their element type is
+		String name = className;
+		if (name.startsWith("[")) {
+			while (name.startsWith("["))
+				name = name.substring(1);
+			if (name.length() == 1)
+				return true;
+			if (!name.startsWith("L") || !name.endsWith(";"))
+				return false;
+			name = name.substring(1, name.length() - 1);
+		}
+		return ALLOWED_CLASSES.contains(name);
+	}
+
+	@Override
+	protected Class<?> resolveClass(ObjectStreamClass desc)
+			throws IOException, ClassNotFoundException {
+		if (!isAllowed(desc.getName()))
+			throw new InvalidClassException(desc.getName(),
+					"Class is not allowed in the messages of a sharded analysis");
+		return super.resolveClass(desc);
+	}
+
+	@Override
+	protected Class<?> resolveProxyClass(String[] interfaces)
+			throws IOException, ClassNotFoundException {
+		throw new InvalidClassException("Proxy classes are not allowed in the "
+				+ "messages of a sharded analysis");
+	}
+
+}
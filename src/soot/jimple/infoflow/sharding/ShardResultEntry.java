@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A single source-to-sink connection found by a worker process, in a form
+ * that can be sent to the coordinator
+ */
+public class ShardResultEntry implements Serializable {
+
+	private static final long serialVersionUID = 2708312839264125390L;
+
+	private final StmtKey sink;
+	private final ShardAccessPath sinkAccessPath;
+	private final StmtKey source;
+	private final ShardAccessPath sourceAccessPath;
+	private final Serializable userData;
+	private final List<StmtKey> path;
+
+	/**
+	 * Creates a new instance of the {@link ShardResultEntry} class
+	 * @param sink The sink statement
+	 * @param sinkAccessPath The access path that reached the sink
+	 * @param source The source statement
+	 * @param sourceAccessPath The access path tainted at the source
+	 * @param userData The user data of the source, or null
+	 * @param path The propagation path from the source to the sink, or null
+	 * if no path was reconstructed
+	 */
+	public ShardResultEntry(StmtKey sink, ShardAccessPath sinkAccessPath,
+			StmtKey source, ShardAccessPath sourceAccessPath,
+			Serializable userData, List<StmtKey> path) {
+		this.sink = sink;
+		this.sinkAccessPath = sinkAccessPath;
+		this.source = source;
+		this.sourceAccessPath = sourceAccessPath;
+		this.userData = userData;
+		this.path = path;
+	}
+
+	public StmtKey getSink() {
+		return this.sink;
+	}
+
+	public ShardAccessPath getSinkAccessPath() {
+		return this.sinkAccessPath;
+	}
+
+	public StmtKey getSource() {
+		return this.source;
+	}
+
+	public ShardAccessPath getSourceAccessPath() {
+		return this.sourceAccessPath;
+	}
+
+	public Serializable getUserData() {
+		return this.userData;
+	}
+
+	public List<StmtKey> getPath() {
+		return this.path;
+	}
+
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import soot.Local;
+import soot.Scene;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+
+/**
+ * Translates between the statements and access paths of the current Soot
+ * scene and their scene-independent representations that are exchanged
+ * between the processes of a sharded analysis
+ */
+public class ShardSceneMapper {
+
+	private final IInfoflowCFG icfg;
+	private final Map<SootMethod, Map<Unit, Integer>> unitIndices =
+			new HashMap<SootMethod, Map<Unit, Integer>>();
+	private final Map<SootMethod, List<Unit>> unitLists = new HashMap<SootMethod, List<Unit>>();
+
+	/**
+	 * Creates a new instance of the {@link ShardSceneMapper} class
+	 * @param icfg The interprocedural control flow graph of the current scene
+	 */
+	public ShardSceneMapper(IInfoflowCFG icfg) {
+		this.icfg = icfg;
+	}
+
+	/**
+	 * Gets the scene-independent key of the given statement
+	 * @param u The statement for which to get the key
+	 * @return The key of the given statement, or null if the given statement
+	 * is null
+	 */
+	public StmtKey getKey(Unit u) {
+		if (u == null)
+			return null;
+		SootMethod sm = icfg.getMethodOf(u);
+		Map<Unit, Integer> indices = unitIndices.get(sm);
+		if (indices == null) {
+			indices = new IdentityHashMap<Unit, Integer>();
+			int idx = 0;
+			for (Unit unit : sm.getActiveBody().getUnits())
+				indices.put(unit, idx++);
+			unitIndices.put(sm, indices);
+		}
+		return new StmtKey(sm.getSignature(), indices.get(u), u.toString());
+	}
+
+	/**
+	 * Gets the statement in the current scene that corresponds to the given
+	 * key
+	 * @param key The key of the statement, or null
+	 * @return The statement that corresponds to the given key, or null if
+	 * the key is null
+	 * @throws RuntimeException Thrown if there is no matching statement, i.e.,
+	 * if the scenes of the processes differ
+	 */
+	public Stmt getStmt(StmtKey key) {
+		if (key == null)
+			return null;
+		SootMethod sm = getMethod(key);
+		List<Unit> units = unitLists.get(sm);
+		if (units == null) {
+			units = new ArrayList<Unit>(sm.getActiveBody().getUnits());
+			unitLists.put(sm, units);
+		}
+		if (key.getIndex() >= units.size()
+				|| !units.get(key.getIndex()).toString().equals(key.getText()))
+			throw new RuntimeException("Statement " + key + " does not exist in the current scene");
+		return (Stmt) units.get(key.getIndex());
+	}
+
+	private SootMethod getMethod(StmtKey key) {
+		SootMethod sm = Scene.v().grabMethod(key.getMethodSignature());
+		if (sm == null || !sm.hasActiveBody())
+			throw new RuntimeException("Method " + key.getMethodSignature()
+					+ " does not exist in the current scene");
+		return sm;
+	}
+
+	/**
+	 * Converts the given access path into its scene-independent form
+	 * @param ap The access path to convert
+	 * @return The scene-independent form of the given access path
+	 */
+	public ShardAccessPath getAccessPath(AccessPath ap) {
+		String[] fields = null;
+		if (ap.getFieldCount() > 0) {
+			SootField[] apFields = ap.getFields();
+			fields = new String[apFields.length];
+			for (int i = 0; i < apFields.length; i++)
+				fields[i] = apFields[i].getSignature();
+		}
+		return new ShardAccessPath(ap.getPlainValue() == null ? null
+				: ap.getPlainValue().getName(), fields, ap.getTaintSubFields());
+	}
+
+	/**
+	 * Restores an access path in the current scene. Fields are restored with
+	 * their declared types.
+	 * @param ap The scene-independent form of the access path
+	 * @param context The statement at which the access path is valid. Its
+	 * method contains the base local of the access path.
+	 * @return The access path in the current scene
+	 */
+	public AccessPath getAccessPath(ShardAccessPath ap, Stmt context) {
+		Local base = null;
+		if (ap.getBaseLocal() != null) {
+			for (Local l : icfg.getMethodOf(context).getActiveBody().getLocals())
+				if (l.getName().equals(ap.getBaseLocal())) {
+					base = l;
+					break;
+				}
+			if (base == null)
+				throw new RuntimeException("Local " + ap.getBaseLocal() + " does not exist in "
+						+ icfg.getMethodOf(context));
+		}
+
+		SootField[] fields = null;
+		if (ap.getFields() != null) {
+			fields = new SootField[ap.getFields().length];
+			for (int i = 0; i < fields.length; i++) {
+				fields[i] = Scene.v().grabField(ap.getFields()[i]);
+				if (fields[i] == null)
+					throw new RuntimeException("Field " + ap.getFields()[i]
+							+ " does not exist in the current scene");
+			}
+		}
+
+		if (base == null && fields == null)
+			return AccessPath.getEmptyAccessPath();
+		return new AccessPath(base, fields, null, null, ap.getTaintSubFields(), false, false);
+	}
+
+	/**
+	 * Converts the given result into its scene-independent form. User data
+	 * is only kept if it is a string, a boxed primitive or another class that
+	 * {@link ShardObjectInputStream} accepts. Other user data is dropped.
+	 * @param sink The sink of the result
+	 * @param source The source of the result
+	 * @return The scene-independent form of the result
+	 */
+	public ShardResultEntry getResultEntry(ResultSinkInfo sink, ResultSourceInfo source) {
+		List<StmtKey> path = null;
+		if (source.getPath() != null) {
+			path = new ArrayList<StmtKey>(source.getPath().size());
+			for (Stmt s : source.getPath())
+				path.add(getKey(s));
+		}
+		Serializable userData = source.getUserData() instanceof Serializable
+				&& ShardObjectInputStream.isAllowed(source.getUserData().getClass().getName())
+				? (Serializable) source.getUserData() : null;
+		return new ShardResultEntry(getKey(sink.getSink()), getAccessPath(sink.getAccessPath()),
+				getKey(source.getSource()), getAccessPath(source.getAccessPath()),
+				userData, path);
+	}
+
+	/**
+	 * Restores the given result in the current scene and adds it to the
+	 * given results object
+	 * @param results The results object to which to add the result
+	 * @param entry The scene-independent form of the result
+	 */
+	public void addResult(InfoflowResults results, ShardResultEntry entry) {
+		Stmt sinkStmt = getStmt(entry.getSink());
+		Stmt sourceStmt = getStmt(entry.getSource());
+		List<Stmt> path = null;
+		if (entry.getPath() != null) {
+			path = new ArrayList<Stmt>(entry.getPath().size());
+			for (StmtKey key : entry.getPath())
+				path.add(getStmt(key));
+		}
+		results.addResult(getAccessPath(entry.getSinkAccessPath(), sinkStmt), sinkStmt,
+				getAccessPath(entry.getSourceAccessPath(), sourceStmt), sourceStmt,
+				entry.getUserData(), path);
+	}
+
+	/**
+	 * Converts the given sink with truncated paths into its scene-independent
+	 * form
+	 * @param sink The sink whose paths have been truncated
+	 * @return The scene-independent form of the sink
+	 */
+	public ShardTruncatedSink getTruncatedSink(ResultSinkInfo sink) {
+		return new ShardTruncatedSink(getKey(sink.getSink()),
+				getAccessPath(sink.getAccessPath()));
+	}
+
+	/**
+	 * Restores the given sink with truncated paths in the current scene and
+	 * records it in the given results object
+	 * @param results The results object in which to record the sink
+	 * @param entry The scene-independent form of the sink
+	 */
+	public void addTruncatedSink(InfoflowResults results, ShardTruncatedSink entry) {
+		Stmt sinkStmt = getStmt(entry.getSink());
+		results.addTruncatedSink(new ResultSinkInfo(
+				getAccessPath(entry.getSinkAccessPath(), sinkStmt), sinkStmt));
+	}
+
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+
+/**
+ * A sink for which the path builder of a worker process has not explored
+ * all paths, in a form that can be sent to the coordinator
+ */
+public class ShardTruncatedSink implements Serializable {
+
+	private static final long serialVersionUID = -3049981517204361724L;
+
+	private final StmtKey sink;
+	private final ShardAccessPath sinkAccessPath;
+
+	/**
+	 * Creates a new instance of the {@link ShardTruncatedSink} class
+	 * @param sink The sink statement
+	 * @param sinkAccessPath The access path that reached the sink
+	 */
+	public ShardTruncatedSink(StmtKey sink, ShardAccessPath sinkAccessPath) {
+		this.sink = sink;
+		this.sinkAccessPath = sinkAccessPath;
+	}
+
+	public StmtKey getSink() {
+		return this.sink;
+	}
+
+	public ShardAccessPath getSinkAccessPath() {
+		return this.sinkAccessPath;
+	}
+
+}
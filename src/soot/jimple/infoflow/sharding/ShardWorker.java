@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.IInfoflow.AliasingAlgorithm;
+import soot.jimple.infoflow.IInfoflow.CallgraphAlgorithm;
+import soot.jimple.infoflow.IInfoflow.JumpFunctionsBackend;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.config.IInfoflowConfig;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
+import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.source.DefaultSourceSinkManager;
+
+/**
+ * Main class of the worker processes of a sharded analysis. A worker
+ * receives its job through the transport given on the command line, builds
+ * the Soot scene, solves its partition of the seeds and sends back the
+ * results.
+ */
+public class ShardWorker {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardWorker.class);
+
+	private final ShardJob job;
+
+	private IInfoflowCFG icfg = null;
+	private InfoflowResults results = null;
+
+	/**
+	 * Creates a new instance of the {@link ShardWorker} class
+	 * @param job The job to run
+	 */
+	public ShardWorker(ShardJob job) {
+		this.job = job;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("Usage: ShardWorker file <jobFile> <resultFile> | socket <port> "
+					+ "(with the token on the standard input)");
+			System.exit(2);
+		}
+
+		int exitCode;
+		try {
+			if (FileShardTransport.NAME.equals(args[0])) {
+				ShardJob job = FileShardTransport.readJob(args);
+				ObjectOutputStream out = FileShardTransport.openResults(args);
+				try {
+					exitCode = new ShardWorker(job).run(out);
+				}
+				finally {
+					out.close();
+				}
+			}
+			else if (SocketShardTransport.NAME.equals(args[0])) {
+				Socket socket = SocketShardTransport.connect(args);
+				try {
+					ObjectInputStream in = new ShardObjectInputStream(new BufferedInputStream
+							(socket.getInputStream()));
+					ShardJob job = (ShardJob) in.readObject();
+					ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream
+							(socket.getOutputStream()));
+					exitCode = new ShardWorker(job).run(out);
+					out.flush();
+				}
+				finally {
+					socket.close();
+				}
+			}
+			else
+				throw new RuntimeException("Unknown shard transport: " + args[0]);
+		}
+		catch (Exception ex) {
+			logger.error("Shard worker failed", ex);
+			exitCode = 1;
+		}
+
+		// Soot and the solvers may leave non-daemon threads behind
+		System.exit(exitCode);
+	}
+
+	/**
+	 * Runs the job of this worker and writes the results to the given
+	 * stream. The last object on the stream is always a
+	 * {@link ShardCompletion}, even if the analysis has failed.
+	 * @param out The stream to which to write the results
+	 * @return The exit code of the worker process
+	 */
+	public int run(ObjectOutputStream out) throws IOException {
+		logger.info("Running shard {} of {} with {} seeds", job.getShardIndex() + 1,
+				job.getShardCount(), job.getSeeds().size());
+
+		String error = null;
+		int resultCount = 0;
+		try {
+			Infoflow infoflow = createInfoflow();
+			infoflow.addResultsAvailableHandler(new ResultsAvailableHandler() {
+
+				@Override
+				public void onResultsAvailable(IInfoflowCFG cfg, InfoflowResults results) {
+					ShardWorker.this.icfg = cfg;
+					ShardWorker.this.results = results;
+				}
+
+			});
+			computeInfoflow(infoflow);
+
+			if (results == null)
+				error = "The data flow analysis did not produce any results";
+			else {
+				ShardSceneMapper mapper = new ShardSceneMapper(icfg);
+				for (Entry<ResultSinkInfo, Set<ResultSourceInfo>> entry : results.getResults().entrySet())
+					for (ResultSourceInfo source : entry.getValue()) {
+						out.writeObject(mapper.getResultEntry(entry.getKey(), source));
+						out.flush();
+						resultCount++;
+					}
+				for (ResultSinkInfo sink : results.getTruncatedSinks()) {
+					out.writeObject(mapper.getTruncatedSink(sink));
+					out.flush();
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw ex;
+		}
+		catch (Exception ex) {
+			logger.error("Data flow analysis of shard " + job.getShardIndex() + " failed", ex);
+			error = ex.toString();
+		}
+
+		out.writeObject(new ShardCompletion(resultCount,
+				results == null ? null : results.getAbortReason(), error));
+		out.flush();
+		return error == null ? 0 : 1;
+	}
+
+	/**
+	 * Creates the data flow analysis and applies the options of the job
+	 * @return The configured data flow analysis
+	 */
+	private Infoflow createInfoflow() throws ReflectiveOperationException {
+		String androidPath = (String) job.getOption(ShardJob.OPT_ANDROID_PATH);
+		Infoflow infoflow = new Infoflow(androidPath == null ? "" : androidPath,
+				job.getBooleanOption(ShardJob.OPT_FORCE_ANDROID_JAR), null,
+				new DefaultPathBuilderFactory(
+						(PathBuilder) job.getOption(ShardJob.OPT_PATH_BUILDER),
+						job.getBooleanOption(ShardJob.OPT_RECONSTRUCT_PATHS),
+						(SchedulingStrategy) job.getOption(ShardJob.OPT_PATH_BUILDER_SCHEDULING)));
+
+		infoflow.setStopAfterFirstFlow(job.getBooleanOption(ShardJob.OPT_STOP_AFTER_FIRST_FLOW));
+		infoflow.setEnableImplicitFlows(job.getBooleanOption(ShardJob.OPT_IMPLICIT_FLOWS));
+		infoflow.setEnableStaticFieldTracking(job.getBooleanOption(ShardJob.OPT_STATIC_FIELDS));
+		infoflow.setEnableExceptionTracking(job.getBooleanOption(ShardJob.OPT_EXCEPTIONS));
+		infoflow.setFlowSensitiveAliasing(job.getBooleanOption(ShardJob.OPT_FLOW_SENSITIVE_ALIASING));
+		infoflow.setIgnoreFlowsInSystemPackages(job.getBooleanOption(ShardJob.OPT_IGNORE_SYSTEM_PACKAGES));
+		infoflow.setInspectSources(job.getBooleanOption(ShardJob.OPT_INSPECT_SOURCES));
+		infoflow.setInspectSinks(job.getBooleanOption(ShardJob.OPT_INSPECT_SINKS));
+		infoflow.setEnableMethodBatching(job.getBooleanOption(ShardJob.OPT_METHOD_BATCHING));
+		infoflow.setEnableMergePointChecking(job.getBooleanOption(ShardJob.OPT_MERGE_POINT_CHECKING));
+		infoflow.setEnableSparsePropagation(job.getBooleanOption(ShardJob.OPT_SPARSE_PROPAGATION));
+		infoflow.setEnableAbstractionCanonicalization(job.getBooleanOption(ShardJob.OPT_CANONICALIZATION));
+		infoflow.setEnableResultsOnlyMode(job.getBooleanOption(ShardJob.OPT_RESULTS_ONLY));
+		infoflow.setEnableSinkFirstAnalysis(job.getBooleanOption(ShardJob.OPT_SINK_FIRST));
+		infoflow.setEnableCodeElimination(job.getBooleanOption(ShardJob.OPT_CODE_ELIMINATION));
+		infoflow.setDataFlowTimeout((Long) job.getOption(ShardJob.OPT_DATA_FLOW_TIMEOUT));
+		infoflow.setMemoryThreshold((Double) job.getOption(ShardJob.OPT_MEMORY_THRESHOLD));
+		infoflow.setMaxPathsPerPair((Integer) job.getOption(ShardJob.OPT_MAX_PATHS_PER_PAIR));
+		infoflow.setMaxPathLength((Integer) job.getOption(ShardJob.OPT_MAX_PATH_LENGTH));
+		infoflow.setPathBuildingSinkTimeout((Long) job.getOption(ShardJob.OPT_PATH_SINK_TIMEOUT));
+		infoflow.setMaxThreadNum((Integer) job.getOption(ShardJob.OPT_MAX_THREADS));
+		infoflow.setCallgraphAlgorithm((CallgraphAlgorithm) job.getOption(ShardJob.OPT_CALLGRAPH_ALGORITHM));
+		infoflow.setAliasingAlgorithm((AliasingAlgorithm) job.getOption(ShardJob.OPT_ALIASING_ALGORITHM));
+		infoflow.setSchedulingStrategy((SchedulingStrategy) job.getOption(ShardJob.OPT_SCHEDULING_STRATEGY));
+		infoflow.setSolverPoolMode((SolverPoolMode) job.getOption(ShardJob.OPT_SOLVER_POOL_MODE));
+		infoflow.setSolverWeights((Integer) job.getOption(ShardJob.OPT_FORWARD_SOLVER_WEIGHT),
+				(Integer) job.getOption(ShardJob.OPT_ALIAS_SOLVER_WEIGHT));
+		infoflow.setJumpFunctionsBackend((JumpFunctionsBackend) job.getOption(ShardJob.OPT_JUMP_FUNCTIONS_BACKEND));
+
+		Infoflow.setAccessPathLength((Integer) job.getOption(ShardJob.OPT_ACCESS_PATH_LENGTH));
+		Infoflow.setUseRecursiveAccessPaths(job.getBooleanOption(ShardJob.OPT_RECURSIVE_ACCESS_PATHS));
+		Infoflow.setPathAgnosticResults(job.getBooleanOption(ShardJob.OPT_PATH_AGNOSTIC_RESULTS));
+		Infoflow.setOneResultPerAccessPath(job.getBooleanOption(ShardJob.OPT_ONE_RESULT_PER_ACCESS_PATH));
+
+		if (job.getSootConfigClass() != null)
+			infoflow.setSootConfig((IInfoflowConfig) Class.forName(job.getSootConfigClass())
+					.getDeclaredConstructor().newInstance());
+		infoflow.setSeedPartition(job.getSeeds());
+
+		// The configurator comes last so that it can override everything
+		if (job.getWorkerConfiguratorClass() != null) {
+			IShardWorkerConfigurator configurator = (IShardWorkerConfigurator)
+					Class.forName(job.getWorkerConfiguratorClass())
+					.getDeclaredConstructor().newInstance();
+			configurator.configure(infoflow);
+		}
+		return infoflow;
+	}
+
+	/**
+	 * Runs the data flow analysis on the input of the job
+	 * @param infoflow The data flow analysis to run
+	 */
+	private void computeInfoflow(Infoflow infoflow) {
+		DefaultSourceSinkManager sourcesSinks = new DefaultSourceSinkManager(job.getSources(),
+				job.getSinks(), job.getParameterTaintMethods(), job.getReturnTaintMethods());
+		if (job.getEntryPoint() != null)
+			infoflow.computeInfoflow(job.getAppPath(), job.getLibPath(), job.getEntryPoint(),
+					sourcesSinks);
+		else {
+			DefaultEntryPointCreator entryPointCreator = new DefaultEntryPointCreator(job.getEntryPoints());
+			@SuppressWarnings("unchecked")
+			List<String> substituteClasses = (List<String>) job.getOption(ShardJob.OPT_SUBSTITUTE_CLASSES);
+			if (substituteClasses != null) {
+				entryPointCreator.setSubstituteCallParams(true);
+				entryPointCreator.setSubstituteClasses(new ArrayList<String>(substituteClasses));
+			}
+			infoflow.computeInfoflow(job.getAppPath(), job.getLibPath(), entryPointCreator,
+					sourcesSinks);
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transport that exchanges jobs and results through local socket
+ * connections. The coordinator opens one server socket per shard on the
+ * loopback interface. The worker connects to it, receives its job and
+ * streams back its results as soon as they are available.
+ *
+ * Any local process can connect to the server socket. The coordinator
+ * therefore passes a random token to the worker through the worker's
+ * standard input, where other users cannot read it. A connection only
+ * receives the job if it first presents this token. Other connections are
+ * closed, and the coordinator keeps waiting for its worker.
+ */
+public class SocketShardTransport implements IShardTransport {
+
+	/**
+	 * Name of this transport on the command line of the worker process
+	 */
+	public static final String NAME = "socket";
+
+	private static final int ACCEPT_TIMEOUT = 1000;
+	private static final int AUTHENTICATION_TIMEOUT = 10000;
+	private static final int TOKEN_LENGTH = 32;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+	private final SecureRandom random = new SecureRandom();
+
+	private final Map<Integer, ServerSocket> serverSockets = new HashMap<Integer, ServerSocket>();
+	private final Map<Integer, byte[]> tokens = new HashMap<Integer, byte[]>();
+	private final Map<Integer, Socket> sockets = new HashMap<Integer, Socket>();
+
+	@Override
+	public synchronized List<String> prepare(ShardJob job) throws IOException {
+		ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		serverSocket.setSoTimeout(ACCEPT_TIMEOUT);
+		serverSockets.put(job.getShardIndex(), serverSocket);
+
+		byte[] token = new byte[TOKEN_LENGTH];
+		random.nextBytes(token);
+		tokens.put(job.getShardIndex(), token);
+		return Arrays.asList(NAME, Integer.toString(serverSocket.getLocalPort()));
+	}
+
+	@Override
+	public ObjectInputStream receive(ShardJob job, Process worker) throws IOException {
+		ServerSocket serverSocket;
+		byte[] token;
+		synchronized (this) {
+			serverSocket = serverSockets.get(job.getShardIndex());
+			token = tokens.get(job.getShardIndex());
+		}
+
+		// The token never appears on the command line, where other users
+		// could see it
+		OutputStream workerIn = worker.getOutputStream();
+		try {
+			workerIn.write(toHex(token).getBytes(StandardCharsets.US_ASCII));
+			workerIn.write('\n');
+		}
+		finally {
+			workerIn.close();
+		}
+
+		// Wait for the worker to connect. If the worker dies before, we would
+		// otherwise wait forever.
+		Socket socket = null;
+		while (socket == null) {
+			try {
+				socket = serverSocket.accept();
+				if (!authenticate(socket, token)) {
+					logger.warn("Rejected a connection to shard {} that did not present "
+							+ "the worker's token", job.getShardIndex());
+					socket.close();
+					socket = null;
+				}
+			}
+			catch (SocketTimeoutException ex) {
+				try {
+					int exitCode = worker.exitValue();
+					throw new IOException("Shard " + job.getShardIndex()
+							+ " terminated with exit code " + exitCode + " before connecting");
+				}
+				catch (IllegalThreadStateException ex2) {
+					// still running, keep waiting
+				}
+			}
+		}
+		synchronized (this) {
+			sockets.put(job.getShardIndex(), socket);
+		}
+
+		ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream
+				(socket.getOutputStream()));
+		out.writeObject(job);
+		out.flush();
+		return new ShardObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+	}
+
+	/**
+	 * Checks whether the peer of the given connection knows the token of the
+	 * worker process
+	 * @param socket The connection to check
+	 * @param token The token of the worker process
+	 * @return True if the peer has sent the correct token, otherwise false
+	 */
+	private boolean authenticate(Socket socket, byte[] token) {
+		byte[] received = new byte[TOKEN_LENGTH];
+		try {
+			socket.setSoTimeout(AUTHENTICATION_TIMEOUT);
+			new DataInputStream(socket.getInputStream()).readFully(received);
+			socket.setSoTimeout(0);
+		}
+		catch (IOException ex) {
+			return false;
+		}
+		return MessageDigest.isEqual(token, received);
+	}
+
+	@Override
+	public synchronized void close() {
+		for (Socket socket : sockets.values())
+			try {
+				socket.close();
+			}
+			catch (IOException ex) {
+				// nothing we can do about it
+			}
+		for (ServerSocket serverSocket : serverSockets.values())
+			try {
+				serverSocket.close();
+			}
+			catch (IOException ex) {
+				// nothing we can do about it
+			}
+		sockets.clear();
+		serverSockets.clear();
+		tokens.clear();
+	}
+
+	/**
+	 * Connects a worker process to its coordinator. The token that
+	 * authenticates the worker is read from the standard input.
+	 * @param args The transport-specific command-line arguments of the worker
+	 * @return The connection to the coordinator
+	 */
+	static Socket connect(String[] args) throws IOException {
+		String line = new BufferedReader(new InputStreamReader(System.in,
+				StandardCharsets.US_ASCII)).readLine();
+		if (line == null || line.length() != TOKEN_LENGTH * 2)
+			throw new IOException("No valid token received from the coordinator");
+
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(args[1]));
+		socket.getOutputStream().write(fromHex(line));
+		socket.getOutputStream().flush();
+		return socket;
+	}
+
+	private static String toHex(byte[] data) {
+		StringBuilder sb = new StringBuilder(data.length * 2);
+		for (byte b : data)
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+					.append(Character.forDigit(b & 0xF, 16));
+		return sb.toString();
+	}
+
+	private static byte[] fromHex(String hex) throws IOException {
+		byte[] data = new byte[hex.length() / 2];
+		for (int i = 0; i < data.length; i++) {
+			int hi = Character.digit(hex.charAt(i * 2), 16);
+			int lo = Character.digit(hex.charAt(i * 2 + 1), 16);
+			if (hi < 0 || lo < 0)
+				throw new IOException("Invalid token received from the coordinator");
+			data[i] = (byte) ((hi << 4) | lo);
+		}
+		return data;
+	}
+
+}
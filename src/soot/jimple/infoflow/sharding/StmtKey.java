@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.sharding;
+
+import java.io.Serializable;
+
+/**
+ * Identifies a statement independently of the Soot scene in which it was
+ * created, so that the coordinator and the worker processes of a sharded
+ * analysis can refer to the same statement. The statement is identified by
+ * the signature of its method and its position in the method body. Since all
+ * processes build their scenes from the same input in the same way, these
+ * positions match. The text of the statement is kept to detect mismatches.
+ */
+public class StmtKey implements Serializable, Comparable<StmtKey> {
+
+	private static final long serialVersionUID = 4393460218335346870L;
+
+	private final String methodSignature;
+	private final int index;
+	private final String text;
+
+	/**
+	 * Creates a new instance of the {@link StmtKey} class
+	 * @param methodSignature The signature of the method containing the
+	 * statement
+	 * @param index The position of the statement in the body of its method
+	 * @param text The textual representation of the statement
+	 */
+	public StmtKey(String methodSignature, int index, String text) {
+		this.methodSignature = methodSignature;
+		this.index = index;
+		this.text = text;
+	}
+
+	/**
+	 * Gets the signature of the method containing the statement
+	 * @return The signature of the method containing the statement
+	 */
+	public String getMethodSignature() {
+		return this.methodSignature;
+	}
+
+	/**
+	 * Gets the position of the statement in the body of its method
+	 * @return The position of the statement in the body of its method
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Gets the textual representation of the statement
+	 * @return The textual representation of the statement
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	@Override
+	public int compareTo(StmtKey other) {
+		int cmp = methodSignature.compareTo(other.methodSignature);
+		if (cmp != 0)
+			return cmp;
+		return index < other.index ? -1 : (index == other.index ? 0 : 1);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * methodSignature.hashCode() + index;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		StmtKey other = (StmtKey) obj;
+		return index == other.index && methodSignature.equals(other.methodSignature);
+	}
+
+	@Override
+	public String toString() {
+		return methodSignature + "#" + index + ": " + text;
+	}
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * Class for computing the distance between methods and the closest method
+ * containing a sink in the callgraph. Taints can reach a sink both by being
+ * passed into a callee and by being returned to a caller, so the callgraph is
+ * treated as an undirected graph.
+ */
+public class SinkDistanceCalculator {
+
+	private final IInfoflowCFG icfg;
+
+	/**
+	 * Creates a new instance of the {@link SinkDistanceCalculator} class
+	 * @param icfg The interprocedural control flow graph from which to take
+	 * the callgraph edges
+	 */
+	public SinkDistanceCalculator(IInfoflowCFG icfg) {
+		this.icfg = icfg;
+	}
+
+	/**
+	 * Computes the callgraph distance between all methods and the closest
+	 * method containing a sink using a breadth-first search that starts at
+	 * all sink methods at once
+	 * @param sinkMethods The methods that contain at least one sink
+	 * @return A mapping from methods to their distance to the closest sink
+	 * method. Methods from which no sink method is reachable are not
+	 * contained in the map.
+	 */
+	public Map<SootMethod, Integer> computeDistances(Collection<SootMethod> sinkMethods) {
+		Map<SootMethod, Integer> distances = new HashMap<SootMethod, Integer>();
+		Queue<SootMethod> worklist = new ArrayDeque<SootMethod>();
+		for (SootMethod sm : sinkMethods)
+			if (distances.put(sm, 0) == null)
+				worklist.add(sm);
+
+		while (!worklist.isEmpty()) {
+			SootMethod method = worklist.poll();
+			int nextDistance = distances.get(method) + 1;
+
+			// Callers of the current method
+			for (Unit callSite : icfg.getCallersOf(method)) {
+				SootMethod caller = icfg.getMethodOf(callSite);
+				if (caller != null && !distances.containsKey(caller)) {
+					distances.put(caller, nextDistance);
+					worklist.add(caller);
+				}
+			}
+
+			// Callees of the current method
+			if (method.hasActiveBody())
+				for (Unit callSite : icfg.getCallsFromWithin(method))
+					for (SootMethod callee : icfg.getCalleesOfCallAt(callSite))
+						if (!distances.containsKey(callee)) {
+							distances.put(callee, nextDistance);
+							worklist.add(callee);
+						}
+		}
+		return distances;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.jimple.infoflow.results.InfoflowResults.AbortReason;
+import soot.jimple.infoflow.solver.fastSolver.IFDSSolver;
+
+/**
+ * Timer task that periodically checks whether the data flow analysis is
+ * still within its time and memory budgets, and kills the solvers if it is
+ * not. The solvers then drain their work queue and the results found so far
+ * can be processed as usual.
+ *
+ * The heap usage is measured after garbage collection, so that garbage which
+ * has simply not been collected yet does not make the analysis stop.
+ */
+public class SolverBudgetWatcher extends TimerTask {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final List<IFDSSolver<?,?,?,?>> solvers = new ArrayList<IFDSSolver<?,?,?,?>>();
+	private final long startTime;
+	private final long timeoutNanos;
+	private final double memoryThreshold;
+
+	private volatile AbortReason abortReason = null;
+
+	/**
+	 * Creates a new instance of the {@link SolverBudgetWatcher} class
+	 * @param timeout The maximum time in seconds the solvers may run, or -1
+	 * for no time limit
+	 * @param memoryThreshold The maximum fraction of the maximum heap size
+	 * that may be in use after garbage collection, or -1 for no memory limit
+	 */
+	public SolverBudgetWatcher(long timeout, double memoryThreshold) {
+		this.startTime = System.nanoTime();
+		this.timeoutNanos = timeout < 0 ? -1 : timeout * 1000000000L;
+		this.memoryThreshold = memoryThreshold;
+	}
+
+	/**
+	 * Adds a solver that shall be killed when a budget runs out
+	 * @param solver The solver to add
+	 */
+	public void addSolver(IFDSSolver<?,?,?,?> solver) {
+		this.solvers.add(solver);
+	}
+
+	@Override
+	public void run() {
+		if (abortReason != null)
+			return;
+
+		if (timeoutNanos >= 0 && System.nanoTime() - startTime > timeoutNanos) {
+			logger.warn("Data flow analysis timed out after {} seconds, "
+					+ "stopping with partial results", timeoutNanos / 1000000000L);
+			abort(AbortReason.Timeout);
+		}
+		else if (memoryThreshold >= 0) {
+			long maxMemory = Runtime.getRuntime().maxMemory();
+			long usedMemory = getHeapUsageAfterGC();
+			if (usedMemory > memoryThreshold * maxMemory) {
+				logger.warn("Heap usage of {} MB exceeds the threshold of {} MB, "
+						+ "stopping with partial results", usedMemory / (1024 * 1024),
+						(long) (memoryThreshold * maxMemory) / (1024 * 1024));
+				abort(AbortReason.MemoryLimit);
+			}
+		}
+	}
+
+	private void abort(AbortReason reason) {
+		this.abortReason = reason;
+		for (IFDSSolver<?,?,?,?> solver : solvers)
+			solver.kill();
+		cancel();
+	}
+
+	/**
+	 * Gets the amount of heap memory that was in use after the last garbage
+	 * collection of the respective memory pools
+	 * @return The heap usage after garbage collection in bytes
+	 */
+	private long getHeapUsageAfterGC() {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() != MemoryType.HEAP)
+				continue;
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (usage == null)
+				usage = pool.getUsage();
+			used += usage.getUsed();
+		}
+		return used;
+	}
+
+	/**
+	 * Gets the budget that ran out
+	 * @return The budget that ran out, or null if the analysis has stayed
+	 * within all of its budgets
+	 */
+	public AbortReason getAbortReason() {
+		return this.abortReason;
+	}
+
+}
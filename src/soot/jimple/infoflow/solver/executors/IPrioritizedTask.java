@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+/**
+ * Common interface for all tasks that can be ordered by an executor with a
+ * prioritized work queue
+ */
+public interface IPrioritizedTask extends Runnable {
+
+	/**
+	 * Gets the priority of this task. Tasks with lower values are run first.
+	 * @return The priority of this task
+	 */
+	public int getPriority();
+
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Common interface for all executors that can be used by the data flow solvers
+ * and the path builders to run their tasks. Implementations must keep track of
+ * the number of outstanding tasks, including those that are spawned by other
+ * tasks, so that clients can wait for the whole computation to finish.
+ */
+public interface ISolverExecutor extends Executor {
+
+	/**
+	 * Waits until all tasks submitted to this executor, including the ones
+	 * that were transitively spawned by other tasks, have been completed
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting
+	 */
+	public void awaitCompletion() throws InterruptedException;
+
+	/**
+	 * Gets the first exception that was thrown by one of the tasks run by this
+	 * executor
+	 * @return The first exception thrown by a task, or null if all tasks
+	 * completed normally
+	 */
+	public Throwable getException();
+
+	/**
+	 * Gets whether this executor is shutting down, i.e., whether it is no
+	 * longer worth submitting new tasks
+	 * @return True if this executor is shutting down, otherwise false
+	 */
+	public boolean isTerminating();
+
+	/**
+	 * Gets whether this executor has been shut down and all of its worker
+	 * threads are gone
+	 * @return True if this executor has been terminated, otherwise false
+	 */
+	public boolean isTerminated();
+
+	/**
+	 * Gets the approximate number of threads that are currently running tasks
+	 * @return The approximate number of threads that are currently running
+	 * tasks
+	 */
+	public int getActiveCount();
+
+	/**
+	 * Gets the approximate number of tasks that have been submitted, but not
+	 * yet started
+	 * @return The approximate number of tasks waiting to be run
+	 */
+	public int getQueueSize();
+
+	/**
+	 * Shuts down this executor. Tasks that have already been submitted are
+	 * still run, but new submissions are rejected.
+	 */
+	public void shutdown();
+
+}
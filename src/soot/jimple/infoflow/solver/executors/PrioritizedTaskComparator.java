@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.Comparator;
+
+/**
+ * Comparator for ordering the tasks in a prioritized work queue. Tasks that
+ * do not implement {@link IPrioritizedTask} are run after all prioritized
+ * ones.
+ */
+public class PrioritizedTaskComparator implements Comparator<Runnable> {
+
+	@Override
+	public int compare(Runnable o1, Runnable o2) {
+		int p1 = getPriority(o1);
+		int p2 = getPriority(o2);
+		return p1 < p2 ? -1 : (p1 == p2 ? 0 : 1);
+	}
+
+	private int getPriority(Runnable task) {
+		if (task instanceof IPrioritizedTask)
+			return ((IPrioritizedTask) task).getPriority();
+		return Integer.MAX_VALUE;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
+
+/**
+ * Factory class for creating the executors used by the data flow solvers and
+ * the path builders
+ */
+public class SolverExecutorFactory {
+
+	/**
+	 * Name of the group member that runs the tasks of the forward solver
+	 */
+	public static final String FORWARD_SOLVER = "forward";
+
+	/**
+	 * Name of the group member that runs the tasks of the alias solver
+	 */
+	public static final String ALIAS_SOLVER = "alias";
+
+	/**
+	 * Creates a new executor for the given scheduling strategy
+	 * @param strategy The scheduling strategy that defines how tasks are
+	 * distributed among the worker threads
+	 * @param numThreads The number of worker threads to use
+	 * @return The new executor
+	 */
+	public static ISolverExecutor createExecutor(SchedulingStrategy strategy,
+			int numThreads) {
+		switch (strategy) {
+		case ThreadPool :
+			return new CountingSolverExecutor(numThreads, Integer.MAX_VALUE,
+					30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+		case WorkStealing :
+			return new WorkStealingSolverExecutor(numThreads);
+		case SinkDirected :
+			return new CountingSolverExecutor(numThreads, Integer.MAX_VALUE,
+					30, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(11,
+							new PrioritizedTaskComparator()));
+		}
+		throw new RuntimeException("Unsupported scheduling strategy");
+	}
+
+	/**
+	 * Creates a new group of executors for the forward solver and, if
+	 * required, the alias solver
+	 * @param strategy The scheduling strategy that defines how tasks are
+	 * distributed among the worker threads
+	 * @param poolMode Defines whether the solvers share their worker threads
+	 * @param numThreads The total number of worker threads to use
+	 * @param forwardWeight The share of the worker threads for the forward
+	 * solver
+	 * @param aliasWeight The share of the worker threads for the alias solver
+	 * @param withAliasSolver True if there is an alias solver that needs an
+	 * executor, otherwise false. If there is no alias solver, all worker
+	 * threads are given to the forward solver.
+	 * @return The new group. Its members are named {@link #FORWARD_SOLVER}
+	 * and {@link #ALIAS_SOLVER}.
+	 */
+	public static SolverExecutorGroup createExecutorGroup(SchedulingStrategy strategy,
+			SolverPoolMode poolMode, int numThreads, int forwardWeight, int aliasWeight,
+			boolean withAliasSolver) {
+		if (forwardWeight < 1 || aliasWeight < 1)
+			throw new IllegalArgumentException("Solver weights must be positive");
+		
+		SolverExecutorGroup group;
+		if (!withAliasSolver)
+			poolMode = SolverPoolMode.Shared;
+		switch (poolMode) {
+		case Shared :
+			group = new SolverExecutorGroup();
+			ISolverExecutor executor = createExecutor(strategy, numThreads);
+			group.addMember(FORWARD_SOLVER, executor);
+			if (withAliasSolver)
+				group.addMember(ALIAS_SOLVER, executor);
+			return group;
+		case Separate :
+			// Both solvers get at least one thread, the remaining ones are
+			// split according to the weights
+			int aliasThreads = Math.max(1, Math.round((float) numThreads * aliasWeight
+					/ (forwardWeight + aliasWeight)));
+			int forwardThreads = Math.max(1, numThreads - aliasThreads);
+			group = new SolverExecutorGroup();
+			group.addMember(FORWARD_SOLVER, createExecutor(strategy, forwardThreads));
+			group.addMember(ALIAS_SOLVER, createExecutor(strategy, aliasThreads));
+			return group;
+		case Weighted :
+			// The common pool only runs dispatch tasks that all look the
+			// same. The order of the actual tasks is defined by the queues
+			// of the solvers. Work stealing is not possible in this mode.
+			group = new SolverExecutorGroup(createExecutor(SchedulingStrategy.ThreadPool,
+					numThreads), strategy == SchedulingStrategy.SinkDirected
+							? new PrioritizedTaskComparator() : null);
+			group.addMember(FORWARD_SOLVER, forwardWeight);
+			group.addMember(ALIAS_SOLVER, aliasWeight);
+			return group;
+		}
+		throw new RuntimeException("Unsupported solver pool mode");
+	}
+
+}
@@ -0,0 +1,465 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group of executors for solvers that submit tasks to each other, such as
+ * the forward solver and the backward alias solver. Every solver gets its
+ * own member executor, which counts the tasks of this solver, so that the
+ * queue sizes and active threads can be reported per solver.
+ *
+ * The members either hand their tasks to executors of their own, i.e.,
+ * separate thread pools or one shared pool, or put them into queues of their
+ * own from which the worker threads of a common pool pick tasks according to
+ * the weights of the members. In the latter case, a burst of tasks in one
+ * solver cannot starve the other one.
+ *
+ * Termination is detected for the group as a whole. A solver is only done
+ * once no member has outstanding tasks, because a running task of one solver
+ * may still spawn new tasks in the other one.
+ */
+public class SolverExecutorGroup {
+
+	private final List<Member> members = new ArrayList<Member>();
+	private final List<ISolverExecutor> executors = new ArrayList<ISolverExecutor>();
+
+	private final ISolverExecutor weightedPool;
+	private final Comparator<Runnable> taskOrder;
+	private final AtomicLong dispatchCounter = new AtomicLong();
+	private int totalWeight = 0;
+
+	private final AtomicLong pendingTasks = new AtomicLong();
+	private final Object completionLock = new Object();
+
+	private volatile Throwable exception = null;
+	private volatile boolean terminating = false;
+
+	/**
+	 * Executor of a single solver inside the group
+	 */
+	public class Member implements ISolverExecutor {
+
+		private final String name;
+		private final ISolverExecutor executor;
+		private final int weight;
+		private final Queue<Runnable> queue;
+
+		private final AtomicInteger queuedTasks = new AtomicInteger();
+		private final AtomicInteger activeTasks = new AtomicInteger();
+		private final AtomicLong completedTasks = new AtomicLong();
+
+		private Member(String name, ISolverExecutor executor, int weight,
+				Queue<Runnable> queue) {
+			this.name = name;
+			this.executor = executor;
+			this.weight = weight;
+			this.queue = queue;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			if (isTerminating())
+				throw new RejectedExecutionException("Executor group is shutting down");
+
+			pendingTasks.incrementAndGet();
+			queuedTasks.incrementAndGet();
+			MemberTask task = new MemberTask(this, command);
+			if (queue == null) {
+				try {
+					executor.execute(task);
+				}
+				catch (RuntimeException ex) {
+					queuedTasks.decrementAndGet();
+					taskDone();
+					throw ex;
+				}
+			}
+			else {
+				// Every dispatch task runs exactly one member task, so there
+				// is always a task waiting for it
+				queue.add(task);
+				try {
+					weightedPool.execute(new DispatchTask());
+				}
+				catch (RuntimeException ex) {
+					// If another dispatch task has already taken our task,
+					// the counters have been updated when running it
+					if (queue.remove(task)) {
+						queuedTasks.decrementAndGet();
+						taskDone();
+					}
+					throw ex;
+				}
+			}
+		}
+
+		/**
+		 * Gets the name of this member
+		 * @return The name of this member
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Gets the weight with which the worker threads pick the tasks of this
+		 * member if the group distributes its tasks by weight
+		 * @return The weight of this member, or 0 if the tasks of this member
+		 * are handed to an executor directly
+		 */
+		public int getWeight() {
+			return this.weight;
+		}
+
+		/**
+		 * Gets the number of tasks of this member that have been completed
+		 * so far
+		 * @return The number of completed tasks of this member
+		 */
+		public long getCompletedTaskCount() {
+			return completedTasks.get();
+		}
+
+		@Override
+		public void awaitCompletion() throws InterruptedException {
+			SolverExecutorGroup.this.awaitCompletion();
+		}
+
+		@Override
+		public Throwable getException() {
+			return exception;
+		}
+
+		@Override
+		public boolean isTerminating() {
+			return SolverExecutorGroup.this.isTerminating();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return SolverExecutorGroup.this.isTerminated();
+		}
+
+		/**
+		 * Gets the approximate number of threads that are currently running
+		 * tasks of this member
+		 */
+		@Override
+		public int getActiveCount() {
+			return activeTasks.get();
+		}
+
+		/**
+		 * Gets the approximate number of tasks of this member that have been
+		 * submitted, but not yet started
+		 */
+		@Override
+		public int getQueueSize() {
+			return queuedTasks.get();
+		}
+
+		/**
+		 * Shuts down the whole group. Since termination is only detected for
+		 * the group as a whole, all members are done at this point anyway.
+		 */
+		@Override
+		public void shutdown() {
+			SolverExecutorGroup.this.shutdown();
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + queuedTasks.get() + " queued, " + activeTasks.get()
+					+ " active, " + completedTasks.get() + " completed";
+		}
+
+	}
+
+	/**
+	 * Task that wraps a runnable and maintains the task counters of the group
+	 * and of the member to which it was submitted. The priority of the
+	 * wrapped task is retained.
+	 */
+	private class MemberTask implements IPrioritizedTask {
+
+		private final Member member;
+		private final Runnable command;
+
+		public MemberTask(Member member, Runnable command) {
+			this.member = member;
+			this.command = command;
+		}
+
+		@Override
+		public void run() {
+			member.queuedTasks.decrementAndGet();
+			member.activeTasks.incrementAndGet();
+			try {
+				if (exception == null)
+					command.run();
+			}
+			catch (Throwable t) {
+				registerException(t);
+			}
+			finally {
+				member.activeTasks.decrementAndGet();
+				member.completedTasks.incrementAndGet();
+				taskDone();
+			}
+		}
+
+		@Override
+		public int getPriority() {
+			if (command instanceof IPrioritizedTask)
+				return ((IPrioritizedTask) command).getPriority();
+			return Integer.MAX_VALUE;
+		}
+
+	}
+
+	/**
+	 * Task that runs on the common pool and picks the next member task
+	 * according to the weights of the members
+	 */
+	private class DispatchTask implements Runnable {
+
+		@Override
+		public void run() {
+			// Walk through the members in a fixed cycle in which every member
+			// appears as often as its weight. If the chosen member has no
+			// waiting tasks, we take the next member that has one. There are
+			// at least as many waiting tasks as dispatch tasks, so we will
+			// find one eventually.
+			int slot = (int) (dispatchCounter.getAndIncrement() % totalWeight);
+			int first = 0;
+			while (slot >= members.get(first).weight) {
+				slot -= members.get(first).weight;
+				first++;
+			}
+			while (true) {
+				for (int i = 0; i < members.size(); i++) {
+					Runnable task = members.get((first + i) % members.size()).queue.poll();
+					if (task != null) {
+						task.run();
+						return;
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Creates a new group whose members hand their tasks to the executors
+	 * given when adding them
+	 */
+	public SolverExecutorGroup() {
+		this.weightedPool = null;
+		this.taskOrder = null;
+	}
+
+	/**
+	 * Creates a new group whose members keep their tasks in queues of their
+	 * own. The worker threads of the given pool pick the tasks from these
+	 * queues according to the weights of the members.
+	 * @param pool The pool that runs the tasks of all members. This pool only
+	 * sees interchangeable dispatch tasks, so a plain thread pool is
+	 * sufficient.
+	 * @param taskOrder The order in which the tasks of a single member are
+	 * run, or null to run them in the order in which they were submitted
+	 */
+	public SolverExecutorGroup(ISolverExecutor pool, Comparator<Runnable> taskOrder) {
+		this.weightedPool = pool;
+		this.taskOrder = taskOrder;
+		this.executors.add(pool);
+	}
+
+	/**
+	 * Adds a new member that hands its tasks to the given executor. Members
+	 * can share an executor. This method must be called before the first
+	 * task is submitted.
+	 * @param name The name of the new member
+	 * @param executor The executor that shall run the tasks of the new member
+	 * @return The executor of the new member
+	 */
+	public Member addMember(String name, ISolverExecutor executor) {
+		if (weightedPool != null)
+			throw new IllegalStateException("The members of this group need weights");
+		Member member = new Member(name, executor, 0, null);
+		members.add(member);
+		boolean found = false;
+		for (ISolverExecutor e : executors)
+			if (e == executor) {
+				found = true;
+				break;
+			}
+		if (!found)
+			executors.add(executor);
+		return member;
+	}
+
+	/**
+	 * Adds a new member whose tasks are picked from a queue of its own by the
+	 * common pool. This method must be called before the first task is
+	 * submitted.
+	 * @param name The name of the new member
+	 * @param weight The share of the worker threads this member gets when
+	 * other members have waiting tasks as well. A member with weight 3 gets
+	 * three times as many tasks run as a member with weight 1.
+	 * @return The executor of the new member
+	 */
+	public Member addMember(String name, int weight) {
+		if (weightedPool == null)
+			throw new IllegalStateException("The members of this group need executors");
+		if (weight < 1)
+			throw new IllegalArgumentException("Member weights must be positive");
+		Queue<Runnable> queue = taskOrder == null ? new ConcurrentLinkedQueue<Runnable>()
+				: new PriorityBlockingQueue<Runnable>(11, taskOrder);
+		Member member = new Member(name, null, weight, queue);
+		members.add(member);
+		totalWeight += weight;
+		return member;
+	}
+
+	/**
+	 * Gets the member with the given name
+	 * @param name The name of the member to get
+	 * @return The member with the given name, or null if there is no such
+	 * member
+	 */
+	public Member getMember(String name) {
+		for (Member member : members)
+			if (member.name.equals(name))
+				return member;
+		return null;
+	}
+
+	/**
+	 * Gets all members of this group
+	 * @return The members of this group in the order in which they were added
+	 */
+	public List<Member> getMembers() {
+		return Collections.unmodifiableList(members);
+	}
+
+	/**
+	 * Marks a task as done and wakes up the threads waiting for completion if
+	 * this was the last outstanding task of all members
+	 */
+	private void taskDone() {
+		if (pendingTasks.decrementAndGet() == 0)
+			synchronized (completionLock) {
+				completionLock.notifyAll();
+			}
+	}
+
+	/**
+	 * Records an exception that was thrown by a task and aborts the
+	 * computation. Tasks that are still waiting are dropped when they are
+	 * run.
+	 * @param t The exception that was thrown
+	 */
+	private void registerException(Throwable t) {
+		synchronized (completionLock) {
+			if (exception == null)
+				exception = t;
+			terminating = true;
+			completionLock.notifyAll();
+		}
+		for (ISolverExecutor executor : executors)
+			executor.shutdown();
+	}
+
+	/**
+	 * Waits until all tasks submitted to any member of this group, including
+	 * the ones that were transitively spawned by other tasks, have been
+	 * completed
+	 * @throws InterruptedException Thrown if the current thread was
+	 * interrupted while waiting
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		synchronized (completionLock) {
+			while (pendingTasks.get() > 0 && exception == null)
+				completionLock.wait();
+		}
+	}
+
+	/**
+	 * Gets the first exception that was thrown by one of the tasks of any
+	 * member
+	 * @return The first exception thrown by a task, or null if all tasks
+	 * completed normally
+	 */
+	public Throwable getException() {
+		return exception;
+	}
+
+	/**
+	 * Gets whether this group is shutting down, i.e., whether it is no longer
+	 * worth submitting new tasks to any member
+	 * @return True if this group is shutting down, otherwise false
+	 */
+	public boolean isTerminating() {
+		if (terminating)
+			return true;
+		for (ISolverExecutor executor : executors)
+			if (executor.isTerminating())
+				return true;
+		return false;
+	}
+
+	/**
+	 * Gets whether all executors of this group have been shut down and all of
+	 * their worker threads are gone
+	 * @return True if this group has been terminated, otherwise false
+	 */
+	public boolean isTerminated() {
+		for (ISolverExecutor executor : executors)
+			if (!executor.isTerminated())
+				return false;
+		return true;
+	}
+
+	/**
+	 * Gets the approximate number of threads that are currently running tasks
+	 * of any member
+	 * @return The approximate number of threads that are currently running
+	 * tasks
+	 */
+	public int getActiveCount() {
+		int count = 0;
+		for (ISolverExecutor executor : executors)
+			count += executor.getActiveCount();
+		return count;
+	}
+
+	/**
+	 * Shuts down all executors of this group. Tasks that have already been
+	 * submitted are still run, but new submissions are rejected.
+	 */
+	public void shutdown() {
+		terminating = true;
+		for (ISolverExecutor executor : executors)
+			executor.shutdown();
+	}
+
+}
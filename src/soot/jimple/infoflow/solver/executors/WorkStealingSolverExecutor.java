@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.executors;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor based on a {@link ForkJoinPool}. Every worker thread has its own
+ * deque. Tasks that are submitted from inside a worker thread (i.e., new
+ * edges created while processing another edge) are pushed onto that worker's
+ * local deque. Idle workers steal from the other workers' deques, so there is
+ * no single queue on which all threads contend.
+ *
+ * Termination is detected by counting the outstanding tasks. The computation
+ * is complete once this counter drops to zero.
+ */
+public class WorkStealingSolverExecutor implements ISolverExecutor {
+
+	private final ForkJoinPool pool;
+
+	private final AtomicLong pendingTasks = new AtomicLong();
+	private final Object completionLock = new Object();
+
+	private volatile Throwable exception = null;
+	private volatile boolean terminating = false;
+
+	/**
+	 * Creates a new instance of the {@link WorkStealingSolverExecutor} class
+	 * @param numThreads The number of worker threads to use
+	 */
+	public WorkStealingSolverExecutor(int numThreads) {
+		// We use LIFO processing of the local deques. This keeps the working
+		// set of every thread small since new edges are processed first.
+		this.pool = new ForkJoinPool(Math.max(1, numThreads),
+				ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+	}
+
+	/**
+	 * Task that wraps a runnable and maintains the counter of outstanding
+	 * tasks
+	 */
+	private class SolverTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -5264462413658632187L;
+
+		private final Runnable command;
+
+		public SolverTask(Runnable command) {
+			this.command = command;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				if (exception == null)
+					command.run();
+			}
+			catch (Throwable t) {
+				registerException(t);
+			}
+			finally {
+				taskDone();
+			}
+		}
+
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if (terminating)
+			throw new RejectedExecutionException("Executor is shutting down");
+
+		pendingTasks.incrementAndGet();
+		SolverTask task = new SolverTask(command);
+		try {
+			// If we are called from one of our own workers, we put the new
+			// task onto the local deque. Otherwise, it is an external
+			// submission.
+			if (ForkJoinTask.getPool() == pool)
+				task.fork();
+			else
+				pool.execute(task);
+		}
+		catch (RuntimeException ex) {
+			taskDone();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Marks a task as done and wakes up the threads waiting for completion if
+	 * this was the last outstanding task
+	 */
+	private void taskDone() {
+		if (pendingTasks.decrementAndGet() == 0)
+			synchronized (completionLock) {
+				completionLock.notifyAll();
+			}
+	}
+
+	/**
+	 * Records an exception that was thrown by a task and aborts the
+	 * computation
+	 * @param t The exception that was thrown
+	 */
+	private void registerException(Throwable t) {
+		synchronized (completionLock) {
+			if (exception == null)
+				exception = t;
+			terminating = true;
+			completionLock.notifyAll();
+		}
+		pool.shutdownNow();
+	}
+
+	@Override
+	public void awaitCompletion() throws InterruptedException {
+		synchronized (completionLock) {
+			while (pendingTasks.get() > 0 && exception == null)
+				completionLock.wait();
+		}
+	}
+
+	@Override
+	public Throwable getException() {
+		return exception;
+	}
+
+	@Override
+	public boolean isTerminating() {
+		return terminating || pool.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return pool.isTerminated();
+	}
+
+	@Override
+	public int getActiveCount() {
+		return pool.getActiveThreadCount();
+	}
+
+	@Override
+	public int getQueueSize() {
+		return (int) Math.min(Integer.MAX_VALUE,
+				pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount());
+	}
+
+	@Override
+	public void shutdown() {
+		terminating = true;
+		pool.shutdown();
+	}
+
+}
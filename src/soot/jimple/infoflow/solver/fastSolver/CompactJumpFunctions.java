@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+import heros.SynchronizedBy;
+import heros.ThreadSafe;
+import heros.solver.PathEdge;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Memory-efficient implementation of the jump function table. Every node and
+ * every abstraction is assigned a dense integer id once. The jump functions
+ * themselves are then stored as (d1, n, d2) triples of these ids in an
+ * open-addressing hash table made of primitive arrays. Checking and
+ * registering an edge thus neither allocates a {@link PathEdge} nor a map
+ * entry.
+ *
+ * The table is split into segments that are locked independently, so
+ * concurrent insertions only contend if they hash to the same segment.
+ */
+@ThreadSafe
+public class CompactJumpFunctions<N,D> extends JumpFunctions<N,D> {
+
+	private static final int NUM_SEGMENTS = 64;
+	private static final int INITIAL_SEGMENT_CAPACITY = 256;
+
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentHashMap<N, Integer> nodeIds = new ConcurrentHashMap<N, Integer>();
+	@SynchronizedBy("thread safe data structure")
+	private final ConcurrentHashMap<D, Integer> factIds = new ConcurrentHashMap<D, Integer>();
+	private final AtomicInteger nodeIdCounter = new AtomicInteger();
+	private final AtomicInteger factIdCounter = new AtomicInteger();
+
+	@SynchronizedBy("consistent lock on the respective segment")
+	private volatile Segment[] segments = createSegments();
+
+	/**
+	 * One independently locked part of the jump function table. The keys are
+	 * stored as three consecutive ints per slot. A slot is free if its value
+	 * is null.
+	 */
+	private static final class Segment {
+
+		private int[] keys = new int[INITIAL_SEGMENT_CAPACITY * 3];
+		private Object[] values = new Object[INITIAL_SEGMENT_CAPACITY];
+		private int size = 0;
+
+		/**
+		 * Registers the given triple if it is not already contained in this
+		 * segment
+		 * @return The value previously registered for the triple, or null if
+		 * the triple is new
+		 */
+		synchronized Object putIfAbsent(int hash, int d1, int n, int d2, Object value) {
+			int mask = values.length - 1;
+			int slot = hash & mask;
+			while (values[slot] != null) {
+				int base = slot * 3;
+				if (keys[base] == d1 && keys[base + 1] == n && keys[base + 2] == d2)
+					return values[slot];
+				slot = (slot + 1) & mask;
+			}
+
+			int base = slot * 3;
+			keys[base] = d1;
+			keys[base + 1] = n;
+			keys[base + 2] = d2;
+			values[slot] = value;
+
+			// Keep the load factor below 2/3 to keep probe sequences short
+			if (++size * 3 > values.length * 2)
+				grow();
+			return null;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			Object[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new Object[oldValues.length * 2];
+			int mask = values.length - 1;
+
+			for (int i = 0; i < oldValues.length; i++)
+				if (oldValues[i] != null) {
+					int d1 = oldKeys[i * 3];
+					int n = oldKeys[i * 3 + 1];
+					int d2 = oldKeys[i * 3 + 2];
+					int slot = hash(d1, n, d2) & mask;
+					while (values[slot] != null)
+						slot = (slot + 1) & mask;
+					keys[slot * 3] = d1;
+					keys[slot * 3 + 1] = n;
+					keys[slot * 3 + 2] = d2;
+					values[slot] = oldValues[i];
+				}
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+	}
+
+	public CompactJumpFunctions() {
+	}
+
+	private static Segment[] createSegments() {
+		Segment[] segments = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < segments.length; i++)
+			segments[i] = new Segment();
+		return segments;
+	}
+
+	/**
+	 * Computes the hash code of a (d1, n, d2) triple. The lower bits select
+	 * the slot inside a segment, the upper bits select the segment.
+	 */
+	private static int hash(int d1, int n, int d2) {
+		int h = d1 * 0x9E3779B1;
+		h = (h ^ n) * 0x85EBCA6B;
+		h = (h ^ d2) * 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Gets the dense id of the given object, assigning a new one if the object
+	 * has not been seen before
+	 * @param ids The map containing the ids assigned so far
+	 * @param counter The counter from which to draw new ids
+	 * @param obj The object for which to get the id
+	 * @return The id of the given object
+	 */
+	private static <T> int getId(ConcurrentHashMap<T, Integer> ids,
+			AtomicInteger counter, T obj) {
+		Integer id = ids.get(obj);
+		if (id != null)
+			return id;
+
+		Integer newId = counter.getAndIncrement();
+		id = ids.putIfAbsent(obj, newId);
+		return id == null ? newId : id;
+	}
+
+	@Override
+	public D addFunction(PathEdge<N, D> edge) {
+		return addFunction(edge.factAtSource(), edge.getTarget(), edge.factAtTarget());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public D addFunction(D sourceVal, N target, D targetVal) {
+		int d1 = getId(factIds, factIdCounter, sourceVal);
+		int n = getId(nodeIds, nodeIdCounter, target);
+		int d2 = getId(factIds, factIdCounter, targetVal);
+		int hash = hash(d1, n, d2);
+
+		Segment[] segs = this.segments;
+		Segment seg = segs[(hash >>> 26) & (NUM_SEGMENTS - 1)];
+		return (D) seg.putIfAbsent(hash, d1, n, d2, targetVal);
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Segment seg : segments)
+			size += seg.size();
+		return size;
+	}
+
+	@Override
+	public int getApproximateEntrySize() {
+		// three ints and a reference per slot at an average load factor of
+		// about 1/2
+		return 32;
+	}
+
+	@Override
+	public synchronized void clear() {
+		this.segments = createSegments();
+		this.nodeIds.clear();
+		this.factIds.clear();
+	}
+
+}
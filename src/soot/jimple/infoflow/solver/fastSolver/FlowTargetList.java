@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reusable collector for flow function targets. Flow functions usually emit
+ * only very few targets, so duplicates are detected by a linear scan. Only
+ * if many targets are emitted, a hash set is built for this purpose. After
+ * {@link #clear()}, the collector can be used for the next flow function
+ * application without allocating anything.
+ *
+ * @param <D> The type of data-flow facts to be computed by the tabulation problem
+ */
+public class FlowTargetList<D> implements IFlowTargetCollector<D> {
+
+	/**
+	 * The number of targets above which duplicates are detected using a hash
+	 * set instead of a linear scan
+	 */
+	private static final int MAX_LINEAR_SIZE = 8;
+
+	private final List<D> targets = new ArrayList<D>();
+	private Set<D> index = null;
+
+	@Override
+	public void addTarget(D target) {
+		if (index != null) {
+			if (index.add(target))
+				targets.add(target);
+			return;
+		}
+
+		for (int i = 0; i < targets.size(); i++)
+			if (targets.get(i).equals(target))
+				return;
+		targets.add(target);
+		if (targets.size() > MAX_LINEAR_SIZE)
+			index = new HashSet<D>(targets);
+	}
+
+	/**
+	 * Gets the number of distinct targets added since the last call to
+	 * {@link #clear()}
+	 * @return The number of targets in this collector
+	 */
+	public int size() {
+		return targets.size();
+	}
+
+	/**
+	 * Gets the target at the given position. Targets are kept in the order in
+	 * which they were added.
+	 * @param idx The position of the target to get
+	 * @return The target at the given position
+	 */
+	public D get(int idx) {
+		return targets.get(idx);
+	}
+
+	/**
+	 * Copies the targets in this collector into a set
+	 * @return A set containing all targets in this collector
+	 */
+	public Set<D> toSet() {
+		switch (targets.size()) {
+			case 0:
+				return Collections.emptySet();
+			case 1:
+				return Collections.singleton(targets.get(0));
+			default:
+				return new HashSet<D>(targets);
+		}
+	}
+
+	/**
+	 * Removes all targets from this collector
+	 */
+	public void clear() {
+		targets.clear();
+		index = null;
+	}
+
+}
@@ -21,25 +21,35 @@ import heros.FlowFunctions;
 import heros.IFDSTabulationProblem;
 import heros.SynchronizedBy;
 import heros.ZeroedFlowFunctions;
-import heros.solver.CountingThreadPoolExecutor;
 import heros.solver.Pair;
 import heros.solver.PathEdge;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import soot.SootMethod;
 import soot.Unit;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
+import soot.jimple.infoflow.solver.executors.CountingSolverExecutor;
+import soot.jimple.infoflow.solver.executors.IPrioritizedTask;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
 import soot.jimple.infoflow.util.ConcurrentHashSet;
 import soot.jimple.infoflow.util.MyConcurrentHashMap;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
@@ -59,6 +69,12 @@ import com.google.common.cache.CacheBuilder;
  */
 public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiInterproceduralCFG<N, M>> {
 	
+	/**
+	 * The maximum number of edges that a single batch task processes before it
+	 * gives the other methods' batches a chance to run
+	 */
+	private static final int MAX_BATCH_SIZE = 1000;
+	
 	public static CacheBuilder<Object, Object> DEFAULT_CACHE_BUILDER = CacheBuilder.newBuilder().concurrencyLevel
 			(Runtime.getRuntime().availableProcessors()).initialCapacity(10000).softValues();
 	
@@ -67,13 +83,13 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
     //enable with -Dorg.slf4j.simpleLogger.defaultLogLevel=trace
     public static final boolean DEBUG = logger.isDebugEnabled();
 
-	protected CountingThreadPoolExecutor executor;
+	protected ISolverExecutor executor;
 	
 	@DontSynchronize("only used by single thread")
 	protected int numThreads;
 	
 	@SynchronizedBy("thread safe data structure, consistent locking when used")
-	protected final JumpFunctions<N,D> jumpFn;
+	protected JumpFunctions<N,D> jumpFn;
 	
 	@SynchronizedBy("thread safe data structure, only modified internally")
 	protected final I icfg;
@@ -96,8 +112,28 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 	@DontSynchronize("only used by single thread")
 	protected final Map<N,Set<D>> initialSeeds;
 	
-	@DontSynchronize("benign races")
-	public long propagationCount;
+	@SynchronizedBy("thread safe data structure")
+	protected final AtomicLong propagationCount = new AtomicLong();
+	
+	@SynchronizedBy("thread safe data structure")
+	protected final AtomicLong skippedJumpFunctionCount = new AtomicLong();
+	
+	@DontSynchronize("benign races, only the first write matters")
+	private long startTime = 0;
+	
+	@SynchronizedBy("thread safe data structure")
+	private final AtomicLongArray flowFunctionNanos =
+			new AtomicLongArray(FlowFunctionType.values().length);
+	
+	@SynchronizedBy("thread safe data structure")
+	private final AtomicLongArray flowFunctionCalls =
+			new AtomicLongArray(FlowFunctionType.values().length);
+	
+	@DontSynchronize("readOnly")
+	private boolean measureFlowFunctionTimes = false;
+	
+	@DontSynchronize("only ever set to true")
+	private volatile boolean killed = false;
 	
 	@DontSynchronize("stateless")
 	protected final D zeroValue;
@@ -114,6 +150,35 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 	@DontSynchronize("readOnly")
 	private boolean enableMergePointChecking = false;
 	
+	@DontSynchronize("readOnly")
+	private boolean enableMethodBatching = false;
+	
+	@DontSynchronize("readOnly")
+	private Map<M, Integer> methodPriorities = null;
+	
+	@DontSynchronize("readOnly")
+	private ISparseFlowFilter<N, D> sparseFlowFilter = null;
+	
+	//target lists for collecting flow function results, reused per thread
+	@DontSynchronize("thread local")
+	private final ThreadLocal<Deque<FlowTargetList<D>>> targetListPool =
+			new ThreadLocal<Deque<FlowTargetList<D>>>() {
+		
+		@Override
+		protected Deque<FlowTargetList<D>> initialValue() {
+			return new ArrayDeque<FlowTargetList<D>>();
+		}
+		
+	};
+	
+	@SynchronizedBy("thread safe data structure")
+	protected final AtomicLong sparseSkippedCount = new AtomicLong();
+	
+	//pending edges grouped by the method containing their target statement
+	@SynchronizedBy("thread safe data structure")
+	protected final MyConcurrentHashMap<M, MethodBatch> methodBatches =
+			new MyConcurrentHashMap<M, MethodBatch>();
+	
 	/**
 	 * Creates a solver for the given problem, which caches flow functions and edge functions.
 	 * The solver must then be started by calling {@link #solve()}.
@@ -223,11 +288,56 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
     protected void scheduleEdgeProcessing(PathEdge<N,D> edge){
     	// If the executor has been killed, there is little point
     	// in submitting new tasks
-    	if (executor.isTerminating())
+    	if (killed || executor.isTerminating())
     		return;
-    	executor.execute(new PathEdgeProcessingTask(edge));
-    	propagationCount++;
+    	if (startTime == 0)
+    		startTime = System.nanoTime();
+    	if (enableMethodBatching) {
+    		M method = icfg.getMethodOf(edge.getTarget());
+    		MethodBatch batch = methodBatches.get(method);
+    		if (batch == null)
+    			batch = methodBatches.putIfAbsentElseGet(method,
+    					new MethodBatch(getMethodPriority(method)));
+    		batch.addEdge(edge);
+    	}
+    	else
+    		executor.execute(new PathEdgeProcessingTask(edge, methodPriorities == null
+    				? 0 : getMethodPriority(icfg.getMethodOf(edge.getTarget()))));
+    	propagationCount.incrementAndGet();
     }
+    
+	/**
+	 * Gets the scheduling priority of the edges in the given method
+	 * @param method The method for which to get the priority
+	 * @return The priority of the edges in the given method. Lower values
+	 * are processed first.
+	 */
+	private int getMethodPriority(M method) {
+		if (methodPriorities == null)
+			return 0;
+		Integer priority = methodPriorities.get(method);
+		return priority == null ? Integer.MAX_VALUE : priority;
+	}
+    
+	/**
+	 * Processes the given edge in the current thread by dispatching it to the
+	 * call, exit, or normal flow handling
+	 * @param edge The edge to process
+	 */
+	private void processPathEdge(PathEdge<N,D> edge) {
+		if(icfg.isCallStmt(edge.getTarget())) {
+			processCall(edge);
+		} else {
+			//note that some statements, such as "throw" may be
+			//both an exit statement and a "normal" statement
+			if(icfg.isExitStmt(edge.getTarget())) {
+				processExit(edge);
+			}
+			if(!icfg.getSuccsOf(edge.getTarget()).isEmpty()) {
+				processNormalFlow(edge);
+			}
+		}
+	}
 	
 	/**
 	 * Lines 13-20 of the algorithm; processing a call site in the caller's context.
@@ -247,69 +357,105 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		assert d2 != null;
 		Collection<N> returnSiteNs = icfg.getReturnSitesOfCallAt(n);
 		
-		//for each possible callee
-		Collection<M> callees = icfg.getCalleesOfCallAt(n);
-		for(M sCalledProcN: callees) { //still line 14
-			//compute the call-flow function
-			FlowFunction<D> function = flowFunctions.getCallFlowFunction(n, sCalledProcN);
-			Set<D> res = computeCallFlowFunction(function, d1, d2);
+		FlowTargetList<D> res = acquireTargetList();
+		FlowTargetList<D> retTargets = acquireTargetList();
+		try {
+			//for each possible callee
+			Collection<M> callees = icfg.getCalleesOfCallAt(n);
+			for(M sCalledProcN: callees) { //still line 14
+				//compute the call-flow function
+				FlowFunction<D> function = flowFunctions.getCallFlowFunction(n, sCalledProcN);
+				res.clear();
+				applyCallFlowFunction(function, d1, d2, res);
 			
-			Collection<N> startPointsOf = icfg.getStartPointsOf(sCalledProcN);
-			//for each result node of the call-flow function
-			for(D d3: res) {
-				compactAbstractionChain(d3, d2);
+				Collection<N> startPointsOf = icfg.getStartPointsOf(sCalledProcN);
+				//for each result node of the call-flow function
+				for(int i = 0; i < res.size(); i++) {
+					D d3 = res.get(i);
+					compactAbstractionChain(d3, d2);
 				
-				//for each callee's start point(s)
-				for(N sP: startPointsOf) {
-					//create initial self-loop
-					propagate(d3, sP, d3, n, false); //line 15
-				}
+					//if we already know the callee's summary from a previous
+					//run, we do not need to descend into the callee
+					Set<Pair<N, D>> storedSumm = getStoredEndSummary(sCalledProcN, d3);
+				
+					//for each callee's start point(s)
+					if (storedSumm == null)
+						for(N sP: startPointsOf) {
+							//create initial self-loop
+							propagate(d3, sP, d3, n, false); //line 15
+						}
 				
-				//register the fact that <sp,d3> has an incoming edge from <n,d2>
-				//line 15.1 of Naeem/Lhotak/Rodriguez
-				if (!addIncoming(sCalledProcN,d3,n,d1,d2))
-					continue;
+					//register the fact that <sp,d3> has an incoming edge from <n,d2>
+					//line 15.1 of Naeem/Lhotak/Rodriguez
+					if (!addIncoming(sCalledProcN,d3,n,d1,d2))
+						continue;
 				
-				//line 15.2
-				Set<Pair<N, D>> endSumm = endSummary(sCalledProcN, d3);
+					//line 15.2
+					Set<Pair<N, D>> endSumm = storedSumm != null ? storedSumm
+							: endSummary(sCalledProcN, d3);
 					
-				//still line 15.2 of Naeem/Lhotak/Rodriguez
-				//for each already-queried exit value <eP,d4> reachable from <sP,d3>,
-				//create new caller-side jump functions to the return sites
-				//because we have observed a potentially new incoming edge into <sP,d3>
-				if (endSumm != null)
-					for(Pair<N, D> entry: endSumm) {
-						N eP = entry.getO1();
-						D d4 = entry.getO2();
-						//for each return site
-						for(N retSiteN: returnSiteNs) {
-							//compute return-flow function
-							FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(n, sCalledProcN, eP, retSiteN);
-							//for each target value of the function
-							for(D d5: computeReturnFlowFunction(retFunction, d4, n, Collections.singleton(d1))) {
-								// If we have not changed anything in the callee, we do not need the facts
-								// from there. Even if we change something: If we don't need the concrete
-								// path, we can skip the callee in the predecessor chain
-								D d5p = d5;
-								if (d5.equals(d2))
-									d5p = d2;
-								else if (setJumpPredecessors)
-									d5p.setPredecessor(d3);
-								propagate(d1, retSiteN, d5p, n, false);
+					//still line 15.2 of Naeem/Lhotak/Rodriguez
+					//for each already-queried exit value <eP,d4> reachable from <sP,d3>,
+					//create new caller-side jump functions to the return sites
+					//because we have observed a potentially new incoming edge into <sP,d3>
+					if (endSumm != null)
+						for(Pair<N, D> entry: endSumm) {
+							N eP = entry.getO1();
+							D d4 = entry.getO2();
+							//for each return site
+							for(N retSiteN: returnSiteNs) {
+								//compute return-flow function
+								FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(n, sCalledProcN, eP, retSiteN);
+								//for each target value of the function
+								retTargets.clear();
+								applyReturnFlowFunction(retFunction, d4, n, Collections.singleton(d1), retTargets);
+								for(int j = 0; j < retTargets.size(); j++) {
+									D d5 = retTargets.get(j);
+									// If we have not changed anything in the callee, we do not need the facts
+									// from there. Even if we change something: If we don't need the concrete
+									// path, we can skip the callee in the predecessor chain
+									D d5p = d5;
+									if (d5.equals(d2))
+										d5p = d2;
+									else if (setJumpPredecessors)
+										d5p.setPredecessor(d3);
+									propagate(d1, retSiteN, d5p, n, false);
+								}
 							}
 						}
-					}
+				}
 			}
-		}
-		//line 17-19 of Naeem/Lhotak/Rodriguez		
-		//process intra-procedural flows along call-to-return flow functions
-		for (N returnSiteN : returnSiteNs) {
-			FlowFunction<D> callToReturnFlowFunction = flowFunctions.getCallToReturnFlowFunction(n, returnSiteN);
-			for(D d3: computeCallToReturnFlowFunction(callToReturnFlowFunction, d1, d2)) {
-				compactAbstractionChain(d3, d2);
-				propagate(d1, returnSiteN, d3, n, false);
+			//line 17-19 of Naeem/Lhotak/Rodriguez		
+			//process intra-procedural flows along call-to-return flow functions
+			for (N returnSiteN : returnSiteNs) {
+				FlowFunction<D> callToReturnFlowFunction = flowFunctions.getCallToReturnFlowFunction(n, returnSiteN);
+				res.clear();
+				applyCallToReturnFlowFunction(callToReturnFlowFunction, d1, d2, res);
+				for(int i = 0; i < res.size(); i++) {
+					D d3 = res.get(i);
+					compactAbstractionChain(d3, d2);
+					propagate(d1, returnSiteN, d3, n, false);
+				}
 			}
 		}
+		finally {
+			releaseTargetList(res);
+			releaseTargetList(retTargets);
+		}
+	}
+	
+	/**
+	 * Gets an end summary for the given callee that was not computed by this
+	 * solver, but is known from elsewhere, e.g., from a previous analysis
+	 * run. If such a summary is available, the solver does not descend into
+	 * the callee.
+	 * @param callee The method being called
+	 * @param d3 The abstraction at the callee's start point
+	 * @return The exit statements and abstractions of the callee for the
+	 * given incoming abstraction, or null if no such summary is known
+	 */
+	protected Set<Pair<N, D>> getStoredEndSummary(M callee, D d3) {
+		return null;
 	}
 	
 	/**
@@ -342,6 +488,21 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		return callFlowFunction.computeTargets(d2);
 	}
 
+	/**
+	 * Computes the call flow function for the given call-site abstraction and
+	 * passes the results to the given collector. The default implementation
+	 * adapts {@link #computeCallFlowFunction(FlowFunction, Object, Object)}.
+	 * @param callFlowFunction The call flow function to compute
+	 * @param d1 The abstraction at the current method's start node.
+	 * @param d2 The abstraction at the call site
+	 * @param targets The collector that receives the caller-side
+	 * abstractions at the callee's start node
+	 */
+	protected void computeCallFlowFunction
+			(FlowFunction<D> callFlowFunction, D d1, D d2, IFlowTargetCollector<D> targets) {
+		addTargets(computeCallFlowFunction(callFlowFunction, d1, d2), targets);
+	}
+
 	/**
 	 * Computes the call-to-return flow function for the given call-site
 	 * abstraction
@@ -355,6 +516,23 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 			(FlowFunction<D> callToReturnFlowFunction, D d1, D d2) {
 		return callToReturnFlowFunction.computeTargets(d2);
 	}
+
+	/**
+	 * Computes the call-to-return flow function for the given call-site
+	 * abstraction and passes the results to the given collector. The default
+	 * implementation adapts
+	 * {@link #computeCallToReturnFlowFunction(FlowFunction, Object, Object)}.
+	 * @param callToReturnFlowFunction The call-to-return flow function to
+	 * compute
+	 * @param d1 The abstraction at the current method's start node.
+	 * @param d2 The abstraction at the call site
+	 * @param targets The collector that receives the caller-side
+	 * abstractions at the return site
+	 */
+	protected void computeCallToReturnFlowFunction
+			(FlowFunction<D> callToReturnFlowFunction, D d1, D d2, IFlowTargetCollector<D> targets) {
+		addTargets(computeCallToReturnFlowFunction(callToReturnFlowFunction, d1, d2), targets);
+	}
 	
 	/**
 	 * Lines 21-32 of the algorithm.
@@ -380,61 +558,71 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 			return;
 		Map<N,Map<D, D>> inc = incoming(d1, methodThatNeedsSummary);
 		
-		//for each incoming call edge already processed
-		//(see processCall(..))
-		if (inc != null)
-			for (Entry<N,Map<D, D>> entry: inc.entrySet()) {
-				//line 22
-				N c = entry.getKey();
-				//for each return site
-				for(N retSiteC: icfg.getReturnSitesOfCallAt(c)) {
-					//compute return-flow function
-					FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(c, methodThatNeedsSummary,n,retSiteC);
-					Set<D> targets = computeReturnFlowFunction(retFunction, d2, c, entry.getValue().keySet());
-					//for each incoming-call value
-					for(Entry<D, D> d1d2entry : entry.getValue().entrySet()) {
-						final D d4 = d1d2entry.getKey();
-						final D predVal = d1d2entry.getValue();
+		FlowTargetList<D> targets = acquireTargetList();
+		try {
+			//for each incoming call edge already processed
+			//(see processCall(..))
+			if (inc != null)
+				for (Entry<N,Map<D, D>> entry: inc.entrySet()) {
+					//line 22
+					N c = entry.getKey();
+					//for each return site
+					for(N retSiteC: icfg.getReturnSitesOfCallAt(c)) {
+						//compute return-flow function
+						FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(c, methodThatNeedsSummary,n,retSiteC);
+						targets.clear();
+						applyReturnFlowFunction(retFunction, d2, c, entry.getValue().keySet(), targets);
+						//for each incoming-call value
+						for(Entry<D, D> d1d2entry : entry.getValue().entrySet()) {
+							final D d4 = d1d2entry.getKey();
+							final D predVal = d1d2entry.getValue();
 						
-						for(D d5: targets) {
-							compactAbstractionChain(d5, d2);
+							for(int i = 0; i < targets.size(); i++) {
+								D d5 = targets.get(i);
+								compactAbstractionChain(d5, d2);
 							
-							// If we have not changed anything in the callee, we do not need the facts
-							// from there. Even if we change something: If we don't need the concrete
-							// path, we can skip the callee in the predecessor chain
-							D d5p = d5;
-							if (d5.equals(predVal))
-								d5p = predVal;
-							else if (setJumpPredecessors)
-								d5p.setPredecessor(d1);
-							propagate(d4, retSiteC, d5p, c, false);
+								// If we have not changed anything in the callee, we do not need the facts
+								// from there. Even if we change something: If we don't need the concrete
+								// path, we can skip the callee in the predecessor chain
+								D d5p = d5;
+								if (d5.equals(predVal))
+									d5p = predVal;
+								else if (setJumpPredecessors)
+									d5p.setPredecessor(d1);
+								propagate(d4, retSiteC, d5p, c, false);
+							}
 						}
 					}
 				}
-			}
 		
-		//handling for unbalanced problems where we return out of a method with a fact for which we have no incoming flow
-		//note: we propagate that way only values that originate from ZERO, as conditionally generated values should only
-		//be propagated into callers that have an incoming edge for this condition
-		if(followReturnsPastSeeds && d1 == zeroValue && (inc == null || inc.isEmpty())) {
-			Collection<N> callers = icfg.getCallersOf(methodThatNeedsSummary);
-			for(N c: callers) {
-				for(N retSiteC: icfg.getReturnSitesOfCallAt(c)) {
-					FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(c, methodThatNeedsSummary,n,retSiteC);
-					Set<D> targets = computeReturnFlowFunction(retFunction, d2, c, Collections.singleton(zeroValue));
-					for(D d5: targets) {
-						compactAbstractionChain(d5, d2);
-						propagate(zeroValue, retSiteC, d5, c, true);
+			//handling for unbalanced problems where we return out of a method with a fact for which we have no incoming flow
+			//note: we propagate that way only values that originate from ZERO, as conditionally generated values should only
+			//be propagated into callers that have an incoming edge for this condition
+			if(followReturnsPastSeeds && d1 == zeroValue && (inc == null || inc.isEmpty())) {
+				Collection<N> callers = icfg.getCallersOf(methodThatNeedsSummary);
+				for(N c: callers) {
+					for(N retSiteC: icfg.getReturnSitesOfCallAt(c)) {
+						FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(c, methodThatNeedsSummary,n,retSiteC);
+						targets.clear();
+						applyReturnFlowFunction(retFunction, d2, c, Collections.singleton(zeroValue), targets);
+						for(int i = 0; i < targets.size(); i++) {
+							D d5 = targets.get(i);
+							compactAbstractionChain(d5, d2);
+							propagate(zeroValue, retSiteC, d5, c, true);
+						}
 					}
 				}
+				//in cases where there are no callers, the return statement would normally not be processed at all;
+				//this might be undesirable if the flow function has a side effect such as registering a taint;
+				//instead we thus call the return flow function will a null caller
+				if(callers.isEmpty()) {
+					FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(null, methodThatNeedsSummary,n,null);
+					retFunction.computeTargets(d2);
+				}
 			}
-			//in cases where there are no callers, the return statement would normally not be processed at all;
-			//this might be undesirable if the flow function has a side effect such as registering a taint;
-			//instead we thus call the return flow function will a null caller
-			if(callers.isEmpty()) {
-				FlowFunction<D> retFunction = flowFunctions.getReturnFlowFunction(null, methodThatNeedsSummary,n,null);
-				retFunction.computeTargets(d2);
-			}
+		}
+		finally {
+			releaseTargetList(targets);
 		}
 	}
 	
@@ -452,6 +640,24 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		return retFunction.computeTargets(d2);
 	}
 
+	/**
+	 * Computes the return flow function for the given set of caller-side
+	 * abstractions and passes the results to the given collector. The default
+	 * implementation adapts
+	 * {@link #computeReturnFlowFunction(FlowFunction, Object, Object, Collection)}.
+	 * @param retFunction The return flow function to compute
+	 * @param d2 The abstraction at the exit node in the callee
+	 * @param callSite The call site
+	 * @param callerSideDs The abstractions at the call site
+	 * @param targets The collector that receives the caller-side
+	 * abstractions at the return site
+	 */
+	protected void computeReturnFlowFunction
+			(FlowFunction<D> retFunction, D d2, N callSite, Collection<D> callerSideDs,
+			IFlowTargetCollector<D> targets) {
+		addTargets(computeReturnFlowFunction(retFunction, d2, callSite, callerSideDs), targets);
+	}
+
 	/**
 	 * Lines 33-37 of the algorithm.
 	 * Simply propagate normal, intra-procedural flows.
@@ -462,14 +668,153 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		final N n = edge.getTarget(); 
 		final D d2 = edge.factAtTarget();
 		
-		for (N m : icfg.getSuccsOf(n)) {
-			FlowFunction<D> flowFunction = flowFunctions.getNormalFlowFunction(n,m);
-			Set<D> res = computeNormalFlowFunction(flowFunction, d1, d2);
-			for (D d3 : res) {
-				compactAbstractionChain(d3, d2);
-				propagate(d1, m, d3, null, false);
+		FlowTargetList<D> res = acquireTargetList();
+		try {
+			for (N m : icfg.getSuccsOf(n)) {
+				FlowFunction<D> flowFunction = flowFunctions.getNormalFlowFunction(n,m);
+				res.clear();
+				applyNormalFlowFunction(flowFunction, d1, d2, res);
+				for (int i = 0; i < res.size(); i++) {
+					D d3 = res.get(i);
+					compactAbstractionChain(d3, d2);
+					propagate(d1, skipTransparentStatements(m, d3), d3, null, false);
+				}
 			}
 		}
+		finally {
+			releaseTargetList(res);
+		}
+	}
+	
+	/**
+	 * Gets an empty target list for collecting the results of a flow function
+	 * from the pool of the current thread
+	 * @return An empty target list
+	 */
+	private FlowTargetList<D> acquireTargetList() {
+		FlowTargetList<D> targets = targetListPool.get().poll();
+		return targets == null ? new FlowTargetList<D>() : targets;
+	}
+	
+	/**
+	 * Returns a target list to the pool of the current thread
+	 * @param targets The target list that is no longer used
+	 */
+	private void releaseTargetList(FlowTargetList<D> targets) {
+		targets.clear();
+		targetListPool.get().push(targets);
+	}
+	
+	/**
+	 * Moves the given fact over all statements whose normal flow functions
+	 * cannot change it. Calls, exit statements, merge points, and branches are
+	 * never skipped, so the jump functions remain sufficient for termination
+	 * and the interprocedural handling is not affected.
+	 * @param target The statement before which the given fact holds
+	 * @param fact The fact to move
+	 * @return The first statement starting at the given one that may change
+	 * the given fact
+	 */
+	private N skipTransparentStatements(N target, D fact) {
+		if (sparseFlowFilter == null || fact == zeroValue)
+			return target;
+		
+		N curStmt = target;
+		int skipped = 0;
+		while (!icfg.isCallStmt(curStmt)
+				&& !icfg.isExitStmt(curStmt)
+				&& !isMergePoint(curStmt)
+				&& sparseFlowFilter.isTransparent(curStmt, fact)) {
+			List<N> succs = icfg.getSuccsOf(curStmt);
+			if (succs.size() != 1)
+				break;
+			curStmt = succs.get(0);
+			skipped++;
+		}
+		if (skipped > 0)
+			sparseSkippedCount.addAndGet(skipped);
+		return curStmt;
+	}
+	
+	/**
+	 * Applies the given normal flow function and records the time spent in it
+	 * if enabled
+	 */
+	private void applyNormalFlowFunction(FlowFunction<D> flowFunction, D d1, D d2,
+			IFlowTargetCollector<D> targets) {
+		if (!measureFlowFunctionTimes) {
+			computeNormalFlowFunction(flowFunction, d1, d2, targets);
+			return;
+		}
+		long before = System.nanoTime();
+		try {
+			computeNormalFlowFunction(flowFunction, d1, d2, targets);
+		}
+		finally {
+			recordFlowFunctionTime(FlowFunctionType.NormalFlowFunction, before);
+		}
+	}
+	
+	/**
+	 * Applies the given call flow function and records the time spent in it
+	 * if enabled
+	 */
+	private void applyCallFlowFunction(FlowFunction<D> flowFunction, D d1, D d2,
+			IFlowTargetCollector<D> targets) {
+		if (!measureFlowFunctionTimes) {
+			computeCallFlowFunction(flowFunction, d1, d2, targets);
+			return;
+		}
+		long before = System.nanoTime();
+		try {
+			computeCallFlowFunction(flowFunction, d1, d2, targets);
+		}
+		finally {
+			recordFlowFunctionTime(FlowFunctionType.CallFlowFunction, before);
+		}
+	}
+	
+	/**
+	 * Applies the given call-to-return flow function and records the time
+	 * spent in it if enabled
+	 */
+	private void applyCallToReturnFlowFunction(FlowFunction<D> flowFunction, D d1, D d2,
+			IFlowTargetCollector<D> targets) {
+		if (!measureFlowFunctionTimes) {
+			computeCallToReturnFlowFunction(flowFunction, d1, d2, targets);
+			return;
+		}
+		long before = System.nanoTime();
+		try {
+			computeCallToReturnFlowFunction(flowFunction, d1, d2, targets);
+		}
+		finally {
+			recordFlowFunctionTime(FlowFunctionType.CallToReturnFlowFunction, before);
+		}
+	}
+	
+	/**
+	 * Applies the given return flow function and records the time spent in it
+	 * if enabled
+	 */
+	private void applyReturnFlowFunction(FlowFunction<D> retFunction, D d2,
+			N callSite, Collection<D> callerSideDs, IFlowTargetCollector<D> targets) {
+		if (!measureFlowFunctionTimes) {
+			computeReturnFlowFunction(retFunction, d2, callSite, callerSideDs, targets);
+			return;
+		}
+		long before = System.nanoTime();
+		try {
+			computeReturnFlowFunction(retFunction, d2, callSite, callerSideDs, targets);
+		}
+		finally {
+			recordFlowFunctionTime(FlowFunctionType.ReturnFlowFunction, before);
+		}
+	}
+	
+	private void recordFlowFunctionTime(FlowFunctionType type, long before) {
+		flowFunctionNanos.addAndGet(type.ordinal(), System.nanoTime() - before);
+		flowFunctionCalls.incrementAndGet(type.ordinal());
 	}
 	
 	/**
@@ -485,6 +830,32 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		return flowFunction.computeTargets(d2);
 	}
 	
+	/**
+	 * Computes the normal flow function for the given set of start and end
+	 * abstractions and passes the results to the given collector. The
+	 * default implementation adapts
+	 * {@link #computeNormalFlowFunction(FlowFunction, Object, Object)}.
+	 * @param flowFunction The normal flow function to compute
+	 * @param d1 The abstraction at the method's start node
+	 * @param d2 The abstraction at the current node
+	 * @param targets The collector that receives the abstractions at the
+	 * successor node
+	 */
+	protected void computeNormalFlowFunction
+			(FlowFunction<D> flowFunction, D d1, D d2, IFlowTargetCollector<D> targets) {
+		addTargets(computeNormalFlowFunction(flowFunction, d1, d2), targets);
+	}
+	
+	/**
+	 * Passes all facts in the given set to the given collector
+	 * @param res The set of facts computed by a set-based flow function
+	 * @param targets The collector to which to pass the facts
+	 */
+	protected void addTargets(Set<D> res, IFlowTargetCollector<D> targets) {
+		for (D d : res)
+			targets.addTarget(d);
+	}
+	
 	/**
 	 * Propagates the flow further down the exploded super graph. 
 	 * @param sourceVal the source value of the propagated summary edge
@@ -518,22 +889,32 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 			/* deliberately exposed to clients */ N relatedCallSite,
 			/* deliberately exposed to clients */ boolean isUnbalancedReturn,
 			boolean forceRegister) {
-		final PathEdge<N,D> edge = new PathEdge<N,D>(sourceVal, target, targetVal);
-		final D existingVal = (forceRegister || !enableMergePointChecking || isMergePoint(target)) ?
-				jumpFn.addFunction(edge) : null;
+		// Only allocate the path edge once we know that it is new
+		final D existingVal;
+		if (forceRegister || !enableMergePointChecking || isMergePoint(target))
+			existingVal = jumpFn.addFunction(sourceVal, target, targetVal);
+		else {
+			existingVal = null;
+			skippedJumpFunctionCount.incrementAndGet();
+		}
 		if (existingVal != null) {
 			if (existingVal != targetVal)
 				existingVal.addNeighbor(targetVal);
 		}
 		else {
-			scheduleEdgeProcessing(edge);
+			scheduleEdgeProcessing(new PathEdge<N,D>(sourceVal, target, targetVal));
 			if(targetVal!=zeroValue)
 				logger.trace("EDGE: <{},{}> -> <{},{}>", icfg.getMethodOf(target), sourceVal, target, targetVal);
 		}
 	}
 	
 	/**
-	 * Gets whether the given unit is a merge point in the ICFG
+	 * Gets whether the given unit is a merge point in the ICFG. Every cycle
+	 * in a method's control flow graph either contains the start point or is
+	 * entered through a node with more than one predecessor, so recording the
+	 * jump functions only at merge points still guarantees termination.
+	 * Statements without predecessors are treated as merge points as well
+	 * since they can only be reached through calls or injected edges.
 	 * @param target The unit to check
 	 * @return True if the given unit is a merge point in the ICFG, otherwise
 	 * false
@@ -543,15 +924,11 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 			return true;
 		
 		List<N> preds = icfg.getPredsOf(target);
-		int size = preds.size();
-		if (size > 1)
+		if (preds.size() != 1)
 			return true;
-		if (size > 0)
-			for (N pred : preds)
-				if (icfg.isCallStmt(pred))
-					return true;
 		
-		return false;
+		// Return sites of calls
+		return icfg.isCallStmt(preds.get(0));
 	}
 
 	private Set<Pair<N, D>> endSummary(M m, D d3) {
@@ -583,8 +960,8 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 	/**
 	 * Factory method for this solver's thread-pool executor.
 	 */
-	protected CountingThreadPoolExecutor getExecutor() {
-		return new CountingThreadPoolExecutor(1, this.numThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+	protected ISolverExecutor getExecutor() {
+		return new CountingSolverExecutor(1, this.numThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
 	}
 	
 	/**
@@ -596,35 +973,152 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 	}
 
 	public void printStats() {
+		logger.info("{}: {}", getDebugName(), getStatistics());
 		if(logger.isDebugEnabled()) {
 			if(ffCache!=null)
 				ffCache.printStats();
 		} else {
-			logger.info("No statistics were collected, as DEBUG is disabled.");
+			logger.info("No flow function cache statistics were collected, as DEBUG is disabled.");
 		}
 	}
 	
-	private class PathEdgeProcessingTask implements Runnable {
+	/**
+	 * Stops this solver. No new edges are scheduled and pending edges are
+	 * dropped when their task is run, so the executor drains quickly. The
+	 * edges processed so far remain valid, i.e., all results found until now
+	 * are retained.
+	 */
+	public void kill() {
+		this.killed = true;
+	}
+	
+	/**
+	 * Gets whether this solver has been stopped before reaching its fixed
+	 * point
+	 * @return True if this solver has been killed, otherwise false
+	 */
+	public boolean isKilled() {
+		return this.killed;
+	}
+	
+	/**
+	 * Takes a snapshot of the current statistics of this solver. This method
+	 * can be called from any thread while the solver is running.
+	 * @return The current statistics of this solver
+	 */
+	public SolverStatistics getStatistics() {
+		int numTypes = FlowFunctionType.values().length;
+		long[] nanos = new long[numTypes];
+		long[] calls = new long[numTypes];
+		for (int i = 0; i < numTypes; i++) {
+			nanos[i] = flowFunctionNanos.get(i);
+			calls[i] = flowFunctionCalls.get(i);
+		}
+		return new SolverStatistics(startTime, propagationCount.get(),
+				skippedJumpFunctionCount.get(), executor.getQueueSize(), nanos, calls,
+				jumpFn.size(), incoming.size(), endSummary.size());
+	}
+	
+	/**
+	 * Gets the number of edges scheduled for processing so far
+	 * @return The number of edges scheduled for processing so far
+	 */
+	public long getPropagationCount() {
+		return propagationCount.get();
+	}
+	
+	/**
+	 * Gets the number of edges that were not recorded in the jump function
+	 * table because they do not target a merge point
+	 * @return The number of edges not recorded in the jump function table
+	 */
+	public long getSkippedJumpFunctionCount() {
+		return skippedJumpFunctionCount.get();
+	}
+	
+	private class PathEdgeProcessingTask implements IPrioritizedTask {
 		private final PathEdge<N,D> edge;
+		private final int priority;
 
-		public PathEdgeProcessingTask(PathEdge<N,D> edge) {
+		public PathEdgeProcessingTask(PathEdge<N,D> edge, int priority) {
 			this.edge = edge;
+			this.priority = priority;
 		}
 
 		public void run() {
-			if(icfg.isCallStmt(edge.getTarget())) {
-				processCall(edge);
-			} else {
-				//note that some statements, such as "throw" may be
-				//both an exit statement and a "normal" statement
-				if(icfg.isExitStmt(edge.getTarget())) {
-					processExit(edge);
+			if (!killed)
+				processPathEdge(edge);
+		}
+
+		@Override
+		public int getPriority() {
+			return priority;
+		}
+	}
+	
+	/**
+	 * Queue of pending edges whose targets all lie in the same method. At most
+	 * one task drains a given batch at any time, so a worker keeps the
+	 * method's control flow graph, flow functions, and summaries in its cache
+	 * while processing many facts. Edges that are added while the batch is
+	 * being drained are picked up by the running task.
+	 */
+	protected class MethodBatch implements IPrioritizedTask {
+		private final Queue<PathEdge<N,D>> pendingEdges = new ConcurrentLinkedQueue<PathEdge<N,D>>();
+		private final AtomicBoolean scheduled = new AtomicBoolean(false);
+		private final int priority;
+		
+		public MethodBatch(int priority) {
+			this.priority = priority;
+		}
+		
+		/**
+		 * Adds an edge to this batch and schedules the batch for processing
+		 * if it is not already scheduled
+		 * @param edge The edge to add
+		 */
+		public void addEdge(PathEdge<N,D> edge) {
+			pendingEdges.add(edge);
+			if (scheduled.compareAndSet(false, true))
+				executor.execute(this);
+		}
+		
+		public void run() {
+			int processed = 0;
+			while (true) {
+				PathEdge<N,D> edge;
+				while (!killed && (edge = pendingEdges.poll()) != null) {
+					processPathEdge(edge);
+					
+					// Do not let a single hot method starve all others. We
+					// stay scheduled and simply go to the end of the queue.
+					if (++processed >= MAX_BATCH_SIZE && !pendingEdges.isEmpty()) {
+						if (!executor.isTerminating())
+							executor.execute(this);
+						return;
+					}
 				}
-				if(!icfg.getSuccsOf(edge.getTarget()).isEmpty()) {
-					processNormalFlow(edge);
+				
+				// Edges that are still pending when the solver is killed are
+				// simply dropped
+				if (killed) {
+					pendingEdges.clear();
+					scheduled.set(false);
+					return;
 				}
+				
+				// Another thread may have added an edge after we found the
+				// queue empty, but before we reset the flag
+				scheduled.set(false);
+				if (pendingEdges.isEmpty() || !scheduled.compareAndSet(false, true))
+					return;
 			}
 		}
+		
+		@Override
+		public int getPriority() {
+			return priority;
+		}
 	}
 	
 	/**
@@ -637,13 +1131,89 @@ public class IFDSSolver<N,D extends FastSolverLinkedNode<D, N>,M,I extends BiDiI
 		this.setJumpPredecessors = setJumpPredecessors;
 	}
 	
+	/**
+	 * Sets whether the time spent in the individual types of flow functions
+	 * shall be measured. This requires two calls to {@link System#nanoTime()}
+	 * per flow function application.
+	 * @param measureFlowFunctionTimes True if flow function times shall be
+	 * measured, otherwise false
+	 */
+	public void setMeasureFlowFunctionTimes(boolean measureFlowFunctionTimes) {
+		this.measureFlowFunctionTimes = measureFlowFunctionTimes;
+	}
+	
+	/**
+	 * Sets the priorities with which the edges in the individual methods
+	 * shall be processed. Priorities are only honored if the executor has a
+	 * prioritized work queue.
+	 * @param methodPriorities A mapping from methods to priorities. Edges in
+	 * methods with lower values are processed first, edges in methods that
+	 * are not contained in the map are processed last. Pass null to give all
+	 * edges the same priority.
+	 */
+	public void setMethodPriorities(Map<M, Integer> methodPriorities) {
+		this.methodPriorities = methodPriorities;
+	}
+	
 	/**
 	 * Sets whether only abstractions at merge points shall be recorded to jumpFn.
+	 * Merge points are start points, statements with more than one
+	 * predecessor, and return sites of calls. Edges to other statements are
+	 * processed without being recorded.
 	 * @param enableMergePointChecking True if only abstractions at merge points
 	 * shall be recorded to jumpFn, otherwise false.
 	 */
 	public void setEnableMergePointChecking(boolean enableMergePointChecking) {
 		this.enableMergePointChecking = enableMergePointChecking;
 	}
+	
+	/**
+	 * Sets the filter for sparse propagation. If a filter is set, edges are
+	 * not propagated to statements that cannot change their fact, but
+	 * directly to the next statement that may. Taint propagation handlers are
+	 * not notified about the skipped statements.
+	 * @param sparseFlowFilter The filter that decides which statements can be
+	 * skipped, or null to visit every statement
+	 */
+	public void setSparseFlowFilter(ISparseFlowFilter<N, D> sparseFlowFilter) {
+		this.sparseFlowFilter = sparseFlowFilter;
+	}
+	
+	/**
+	 * Gets the number of statements that were skipped by sparse propagation
+	 * @return The number of statements that were skipped so far
+	 */
+	public long getSparseSkippedCount() {
+		return sparseSkippedCount.get();
+	}
+	
+	/**
+	 * Sets whether pending edges shall be grouped by the method containing
+	 * their target statement, so that all edges of one method are processed
+	 * as one batch by the same thread.
+	 * @param enableMethodBatching True if edges shall be processed in batches
+	 * per method, false if every edge shall be processed as a separate task
+	 */
+	public void setEnableMethodBatching(boolean enableMethodBatching) {
+		this.enableMethodBatching = enableMethodBatching;
+	}
+	
+	/**
+	 * Sets the table in which this solver records its jump functions. This
+	 * must be done before the solver is started.
+	 * @param jumpFunctions The jump function table to use, e.g., a
+	 * {@link CompactJumpFunctions} object to save memory
+	 */
+	public void setJumpFunctions(JumpFunctions<N,D> jumpFunctions) {
+		this.jumpFn = jumpFunctions;
+	}
+	
+	/**
+	 * Gets the table in which this solver records its jump functions
+	 * @return The jump function table of this solver
+	 */
+	public JumpFunctions<N,D> getJumpFunctions() {
+		return this.jumpFn;
+	}
 
 }
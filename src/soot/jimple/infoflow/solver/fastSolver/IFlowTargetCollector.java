@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+/**
+ * Receiver for the target facts computed by a flow function. Instead of
+ * allocating a new set for every application, flow functions can emit their
+ * targets into a collector that the solver reuses.
+ *
+ * @param <D> The type of data-flow facts to be computed by the tabulation problem
+ */
+public interface IFlowTargetCollector<D> {
+
+	/**
+	 * Adds a target fact. Adding a fact that is equal to one already added
+	 * has no effect.
+	 * @param target The target fact to add. The fact must not be modified
+	 * afterwards.
+	 */
+	public void addTarget(D target);
+
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+/**
+ * Filter that tells the solver which statements a fact can be moved over
+ * without applying their normal flow functions. The solver uses this for
+ * sparse propagation: an edge directly jumps to the next statement that may
+ * change its fact instead of visiting every statement in between.
+ *
+ * @param <N> The type of nodes in the interprocedural control-flow graph
+ * @param <D> The type of data-flow facts to be computed by the tabulation problem
+ */
+public interface ISparseFlowFilter<N, D> {
+
+	/**
+	 * Gets whether the normal flow function of the given statement maps the
+	 * given fact to itself and nothing else for all successors, and has no
+	 * other side effects such as reporting results
+	 * @param stmt The statement to check
+	 * @param fact The fact that holds before the statement
+	 * @return True if the statement can be skipped for the given fact,
+	 * otherwise false
+	 */
+	public boolean isTransparent(N stmt, D fact);
+
+}
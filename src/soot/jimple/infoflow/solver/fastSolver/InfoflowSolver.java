@@ -11,21 +11,38 @@
 package soot.jimple.infoflow.solver.fastSolver;
 
 import heros.FlowFunction;
-import heros.solver.CountingThreadPoolExecutor;
+import heros.flowfunc.Identity;
+import heros.flowfunc.KillAll;
+import heros.solver.Pair;
 import heros.solver.PathEdge;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import soot.SootMethod;
 import soot.Unit;
+import soot.jimple.Stmt;
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
 import soot.jimple.infoflow.problems.AbstractInfoflowProblem;
 import soot.jimple.infoflow.solver.IInfoflowSolver;
+import soot.jimple.infoflow.solver.executors.CountingSolverExecutor;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorGroup;
 import soot.jimple.infoflow.solver.functions.SolverCallFlowFunction;
 import soot.jimple.infoflow.solver.functions.SolverCallToReturnFlowFunction;
 import soot.jimple.infoflow.solver.functions.SolverNormalFlowFunction;
 import soot.jimple.infoflow.solver.functions.SolverReturnFlowFunction;
+import soot.jimple.infoflow.source.ISourceSinkManager;
+import soot.jimple.infoflow.summaries.AccessPathTemplate;
+import soot.jimple.infoflow.summaries.MethodSummaryStore;
+import soot.jimple.infoflow.summaries.MethodSummaryStore.ExitTemplate;
+import soot.jimple.infoflow.util.MyConcurrentHashMap;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 /**
  * We are subclassing the JimpleIFDSSolver because we need the same executor for both the forward and the backward analysis
@@ -35,14 +52,35 @@ import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, SootMethod, BiDiInterproceduralCFG<Unit, SootMethod>>
 		implements IInfoflowSolver {
 
-	public InfoflowSolver(AbstractInfoflowProblem problem, CountingThreadPoolExecutor executor) {
+	private final AbstractInfoflowProblem problem;
+	private final ISourceSinkManager sourceSinkManager;
+	
+	private MethodSummaryStore summaryStore = null;
+	private final MyConcurrentHashMap<SootMethod, Boolean> summarizableMethods =
+			new MyConcurrentHashMap<SootMethod, Boolean>();
+	private final MyConcurrentHashMap<SootMethod, List<Unit>> methodUnits =
+			new MyConcurrentHashMap<SootMethod, List<Unit>>();
+	
+	/**
+	 * Creates a new instance of the {@link InfoflowSolver} class
+	 * @param problem The data flow problem to solve
+	 * @param executor The executor on which to schedule the edge processing
+	 * tasks. Use a {@link CountingSolverExecutor} for a shared work queue or
+	 * a work-stealing executor for per-thread queues. If the forward and the
+	 * alias solver use different executors, these must be members of the
+	 * same {@link SolverExecutorGroup}, so that the solvers only terminate
+	 * once both of them are done.
+	 */
+	public InfoflowSolver(AbstractInfoflowProblem problem, ISolverExecutor executor) {
 		super(problem);
 		this.executor = executor;
+		this.problem = problem;
+		this.sourceSinkManager = problem.getSourceSinkManager();
 		problem.setSolver(this);		
 	}
 	
 	@Override
-	protected CountingThreadPoolExecutor getExecutor() {
+	protected ISolverExecutor getExecutor() {
 		return executor;
 	}
 
@@ -58,6 +96,46 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, SootMethod, Bi
 		addIncoming(callee, d3, callSite, d1, d2);
 	}
 	
+	@Override
+	protected void computeReturnFlowFunction(FlowFunction<Abstraction> retFunction,
+			Abstraction d2, Unit callSite, Collection<Abstraction> callerSideDs,
+			IFlowTargetCollector<Abstraction> targets) {
+		if (retFunction instanceof SolverReturnFlowFunction)
+			((SolverReturnFlowFunction) retFunction).computeTargets(d2, callerSideDs, targets);
+		else
+			super.computeReturnFlowFunction(retFunction, d2, callSite, callerSideDs, targets);
+	}
+
+	@Override
+	protected void computeNormalFlowFunction(FlowFunction<Abstraction> flowFunction,
+			Abstraction d1, Abstraction d2, IFlowTargetCollector<Abstraction> targets) {
+		if (flowFunction instanceof SolverNormalFlowFunction)
+			((SolverNormalFlowFunction) flowFunction).computeTargets(d1, d2, targets);
+		// Most statements do not change the taint at all
+		else if (flowFunction instanceof Identity)
+			targets.addTarget(d2);
+		else if (!(flowFunction instanceof KillAll))
+			super.computeNormalFlowFunction(flowFunction, d1, d2, targets);
+	}
+
+	@Override
+	protected void computeCallToReturnFlowFunction(FlowFunction<Abstraction> flowFunction,
+			Abstraction d1, Abstraction d2, IFlowTargetCollector<Abstraction> targets) {
+		if (flowFunction instanceof SolverCallToReturnFlowFunction)
+			((SolverCallToReturnFlowFunction) flowFunction).computeTargets(d1, d2, targets);
+		else
+			super.computeCallToReturnFlowFunction(flowFunction, d1, d2, targets);
+	}
+
+	@Override
+	protected void computeCallFlowFunction(FlowFunction<Abstraction> flowFunction,
+			Abstraction d1, Abstraction d2, IFlowTargetCollector<Abstraction> targets) {
+		if (flowFunction instanceof SolverCallFlowFunction)
+			((SolverCallFlowFunction) flowFunction).computeTargets(d1, d2, targets);
+		else if (!(flowFunction instanceof KillAll))
+			super.computeCallFlowFunction(flowFunction, d1, d2, targets);
+	}
+
 	@Override
 	protected Set<Abstraction> computeReturnFlowFunction
 			(FlowFunction<Abstraction> retFunction, Abstraction d2, Unit callSite, Collection<Abstraction> callerSideDs) {
@@ -96,11 +174,198 @@ public class InfoflowSolver extends IFDSSolver<Unit, Abstraction, SootMethod, Bi
 			return flowFunction.computeTargets(d2);		
 	}
 	
+	/**
+	 * Sets the store from which to take the end summaries of methods instead
+	 * of analyzing these methods again
+	 * @param summaryStore The summary store to use, or null to always analyze
+	 * all methods
+	 */
+	public void setSummaryStore(MethodSummaryStore summaryStore) {
+		this.summaryStore = summaryStore;
+	}
+	
+	@Override
+	protected Set<Pair<Unit, Abstraction>> getStoredEndSummary(SootMethod callee,
+			Abstraction d3) {
+		if (summaryStore == null || d3 == zeroValue || !isSummarizable(d3)
+				|| !isSummarizable(callee))
+			return null;
+		
+		Set<ExitTemplate> exits = summaryStore.getSummary(callee,
+				AccessPathTemplate.fromAccessPath(d3.getAccessPath()));
+		if (exits == null)
+			return null;
+		
+		List<Unit> units = getUnits(callee);
+		Set<Pair<Unit, Abstraction>> endSumm = new HashSet<Pair<Unit, Abstraction>>(exits.size());
+		for (ExitTemplate exit : exits) {
+			if (exit.getExitIndex() < 0 || exit.getExitIndex() >= units.size())
+				return null;
+			Stmt exitStmt = (Stmt) units.get(exit.getExitIndex());
+			AccessPath ap = exit.getAccessPath().toAccessPath(callee.getActiveBody());
+			if (ap == null || !icfg.isExitStmt(exitStmt))
+				return null;
+			
+			Abstraction d4 = d3.deriveNewAbstraction(ap, exitStmt);
+			if (exit.getExceptionThrown())
+				d4 = d4.deriveNewAbstractionOnThrow(exitStmt);
+			endSumm.add(new Pair<Unit, Abstraction>(exitStmt, d4));
+		}
+		return endSumm;
+	}
+	
+	/**
+	 * Records the end summaries of all methods analyzed by this solver in the
+	 * summary store. This method must only be called after the
+	 * solver has finished, otherwise the summaries might be incomplete.
+	 * 
+	 * Methods in which, directly or transitively, an alias analysis was
+	 * started are left out. An end summary only contains the taints at the
+	 * exit statements. The aliases that the alias analysis propagates back
+	 * into the callers would be missing if the summary was applied instead of
+	 * analyzing the method again.
+	 */
+	public void storeSummaries() {
+		if (summaryStore == null)
+			return;
+		
+		Map<SootMethod, Boolean> aliasFreeMethods = new HashMap<SootMethod, Boolean>();
+		for (Pair<SootMethod, Abstraction> context : incoming.keySet()) {
+			SootMethod callee = context.getO1();
+			Abstraction d1 = context.getO2();
+			if (d1 == zeroValue || !isSummarizable(d1) || !isSummarizable(callee))
+				continue;
+			
+			Boolean aliasFree = aliasFreeMethods.get(callee);
+			if (aliasFree == null) {
+				aliasFree = !reachesAliasQuery(callee);
+				aliasFreeMethods.put(callee, aliasFree);
+			}
+			if (!aliasFree)
+				continue;
+			
+			// We can only store the summary if all exit abstractions can be
+			// expressed as templates
+			List<Unit> units = getUnits(callee);
+			Set<ExitTemplate> exits = new HashSet<ExitTemplate>();
+			boolean complete = true;
+			Set<Pair<Unit, Abstraction>> endSumm = endSummary.get(context);
+			if (endSumm != null)
+				for (Pair<Unit, Abstraction> exit : endSumm) {
+					Abstraction d2 = exit.getO2();
+					int exitIndex = units.indexOf(exit.getO1());
+					if (exitIndex < 0 || !isSummarizable(d2)) {
+						complete = false;
+						break;
+					}
+					exits.add(new ExitTemplate(exitIndex, d2.getExceptionThrown(),
+							AccessPathTemplate.fromAccessPath(d2.getAccessPath())));
+				}
+			if (complete)
+				summaryStore.addSummary(callee, AccessPathTemplate.fromAccessPath
+						(d1.getAccessPath()), exits);
+		}
+	}
+	
+	/**
+	 * Checks whether the given abstraction can be part of a stored summary.
+	 * This is only the case for plain taints without any state that depends
+	 * on the calling context.
+	 * @param abs The abstraction to check
+	 * @return True if the given abstraction can be part of a stored summary,
+	 * otherwise false
+	 */
+	private boolean isSummarizable(Abstraction abs) {
+		return abs.isAbstractionActive()
+				&& !abs.isImplicit()
+				&& abs.getTopPostdominator() == null
+				&& !abs.getAccessPath().isEmpty()
+				&& !abs.getAccessPath().isCutOffApproximation();
+	}
+	
+	/**
+	 * Checks whether summaries of the given method can be stored. This is the
+	 * case for methods accepted by the summary store that neither contain nor
+	 * transitively call any sources or sinks.
+	 * @param method The method to check
+	 * @return True if summaries of the given method can be stored, otherwise
+	 * false
+	 */
+	private boolean isSummarizable(SootMethod method) {
+		Boolean summarizable = summarizableMethods.get(method);
+		if (summarizable == null) {
+			summarizable = method.hasActiveBody()
+					&& summaryStore.acceptsMethod(method)
+					&& !reachesSourceOrSink(method);
+			summarizableMethods.put(method, summarizable);
+		}
+		return summarizable;
+	}
+	
+	/**
+	 * Checks whether the given method transitively calls a source or a sink
+	 * @param method The method to check
+	 * @return True if the given method transitively calls a source or a sink,
+	 * otherwise false
+	 */
+	private boolean reachesSourceOrSink(SootMethod method) {
+		Set<SootMethod> doneSet = new HashSet<SootMethod>();
+		List<SootMethod> workList = new ArrayList<SootMethod>();
+		workList.add(method);
+		while (!workList.isEmpty()) {
+			SootMethod sm = workList.remove(workList.size() - 1);
+			if (!doneSet.add(sm))
+				continue;
+			for (Unit u : icfg.getCallsFromWithin(sm)) {
+				Stmt stmt = (Stmt) u;
+				if (sourceSinkManager.isSink(stmt, icfg)
+						|| sourceSinkManager.getSourceInfo(stmt, icfg) != null)
+					return true;
+				workList.addAll(icfg.getCalleesOfCallAt(u));
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Checks whether an alias analysis has been started in the given method
+	 * or in one of its transitive callees
+	 * @param method The method to check
+	 * @return True if aliases have been computed in the given method or in a
+	 * method it transitively calls, otherwise false
+	 */
+	private boolean reachesAliasQuery(SootMethod method) {
+		Set<SootMethod> doneSet = new HashSet<SootMethod>();
+		List<SootMethod> workList = new ArrayList<SootMethod>();
+		workList.add(method);
+		while (!workList.isEmpty()) {
+			SootMethod sm = workList.remove(workList.size() - 1);
+			if (!doneSet.add(sm))
+				continue;
+			if (problem.hasComputedAliases(sm))
+				return true;
+			for (Unit u : icfg.getCallsFromWithin(sm))
+				workList.addAll(icfg.getCalleesOfCallAt(u));
+		}
+		return false;
+	}
+	
+	private List<Unit> getUnits(SootMethod method) {
+		List<Unit> units = methodUnits.get(method);
+		if (units == null)
+			units = methodUnits.putIfAbsentElseGet(method,
+					new ArrayList<Unit>(method.getActiveBody().getUnits()));
+		return units;
+	}
+	
 	@Override
 	public void cleanup() {
 		this.jumpFn.clear();
 		this.incoming.clear();
 		this.endSummary.clear();
+		this.methodBatches.clear();
+		this.summarizableMethods.clear();
+		this.methodUnits.clear();
 	}
 	
 	@Override
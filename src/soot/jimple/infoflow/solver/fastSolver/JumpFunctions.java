@@ -42,6 +42,37 @@ public class JumpFunctions<N,D> {
 		return nonEmptyReverseLookup.putIfAbsent(edge, edge.factAtTarget());
 	}
 	
+	/**
+	 * Records a jump function from the given source value to the given target
+	 * value at the given target statement.
+	 * @param sourceVal The abstraction at the start node of the method
+	 * @param target The target statement
+	 * @param targetVal The abstraction at the target statement
+	 * @return The abstraction previously registered for this jump function if
+	 * there was one, otherwise null
+	 */
+	public D addFunction(D sourceVal, N target, D targetVal) {
+		return addFunction(new PathEdge<N, D>(sourceVal, target, targetVal));
+	}
+	
+	/**
+	 * Gets the number of jump functions in this table
+	 * @return The number of jump functions in this table
+	 */
+	public int size() {
+		return nonEmptyReverseLookup.size();
+	}
+	
+	/**
+	 * Gets the approximate number of bytes that this table needs for storing
+	 * a single jump function. This includes the path edge object and the hash
+	 * map entry, but not the abstractions themselves.
+	 * @return The approximate number of bytes per jump function
+	 */
+	public int getApproximateEntrySize() {
+		return 72;
+	}
+	
 	/**
 	 * Removes all jump functions
 	 */
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.solver.fastSolver;
+
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
+
+/**
+ * Snapshot of the statistics of a data flow solver at a given point in time.
+ * Snapshots are immutable, so they can be handed to other threads, e.g., for
+ * reporting the progress of a long-running analysis.
+ */
+public class SolverStatistics {
+
+	private final long timestamp;
+	private final long startTime;
+	private final long propagationCount;
+	private final long skippedJumpFunctionCount;
+	private final int queueSize;
+	private final long[] flowFunctionNanos;
+	private final long[] flowFunctionCalls;
+	private final int jumpFunctionCount;
+	private final int incomingCount;
+	private final int endSummaryCount;
+
+	SolverStatistics(long startTime, long propagationCount,
+			long skippedJumpFunctionCount, int queueSize, long[] flowFunctionNanos,
+			long[] flowFunctionCalls, int jumpFunctionCount, int incomingCount,
+			int endSummaryCount) {
+		this.timestamp = System.nanoTime();
+		this.startTime = startTime;
+		this.propagationCount = propagationCount;
+		this.skippedJumpFunctionCount = skippedJumpFunctionCount;
+		this.queueSize = queueSize;
+		this.flowFunctionNanos = flowFunctionNanos;
+		this.flowFunctionCalls = flowFunctionCalls;
+		this.jumpFunctionCount = jumpFunctionCount;
+		this.incomingCount = incomingCount;
+		this.endSummaryCount = endSummaryCount;
+	}
+
+	/**
+	 * Gets the time at which this snapshot was taken
+	 * @return The time at which this snapshot was taken as returned by
+	 * {@link System#nanoTime()}
+	 */
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * Gets the time that has passed between the first edge being scheduled
+	 * and this snapshot
+	 * @return The time the solver has been running in nanoseconds, or 0 if
+	 * the solver has not started yet
+	 */
+	public long getElapsedNanos() {
+		return startTime == 0 ? 0 : timestamp - startTime;
+	}
+
+	/**
+	 * Gets the number of edges scheduled for processing so far
+	 * @return The number of edges scheduled for processing so far
+	 */
+	public long getPropagationCount() {
+		return this.propagationCount;
+	}
+
+	/**
+	 * Gets the number of edges that were not recorded in the jump function
+	 * table because they do not target a merge point
+	 * @return The number of edges not recorded in the jump function table
+	 */
+	public long getSkippedJumpFunctionCount() {
+		return this.skippedJumpFunctionCount;
+	}
+
+	/**
+	 * Gets the number of tasks waiting in the queue of the executor. If the
+	 * executor is shared between solvers without being a member of a
+	 * {@link soot.jimple.infoflow.solver.executors.SolverExecutorGroup},
+	 * this includes the tasks of all solvers.
+	 * @return The number of tasks waiting in the queue of the executor
+	 */
+	public int getQueueSize() {
+		return this.queueSize;
+	}
+
+	/**
+	 * Gets the average number of edges scheduled per second since the solver
+	 * has started
+	 * @return The average number of edges per second
+	 */
+	public double getEdgesPerSecond() {
+		long elapsed = getElapsedNanos();
+		return elapsed == 0 ? 0 : propagationCount / (elapsed / 1E9);
+	}
+
+	/**
+	 * Gets the number of edges scheduled per second between the given earlier
+	 * snapshot and this one
+	 * @param previous The earlier snapshot of the same solver
+	 * @return The number of edges per second between the two snapshots
+	 */
+	public double getEdgesPerSecondSince(SolverStatistics previous) {
+		long elapsed = timestamp - previous.timestamp;
+		return elapsed <= 0 ? 0 : (propagationCount - previous.propagationCount)
+				/ (elapsed / 1E9);
+	}
+
+	/**
+	 * Gets the total time spent in flow functions of the given type. Times are
+	 * only measured if enabled in the solver.
+	 * @param type The type of flow function
+	 * @return The total time spent in flow functions of the given type in
+	 * nanoseconds
+	 */
+	public long getFlowFunctionNanos(FlowFunctionType type) {
+		return this.flowFunctionNanos[type.ordinal()];
+	}
+
+	/**
+	 * Gets the number of times flow functions of the given type were applied.
+	 * Calls are only counted if time measurement is enabled in the solver.
+	 * @param type The type of flow function
+	 * @return The number of times flow functions of the given type were
+	 * applied
+	 */
+	public long getFlowFunctionCalls(FlowFunctionType type) {
+		return this.flowFunctionCalls[type.ordinal()];
+	}
+
+	/**
+	 * Gets the number of entries in the jump function table
+	 * @return The number of entries in the jump function table
+	 */
+	public int getJumpFunctionCount() {
+		return this.jumpFunctionCount;
+	}
+
+	/**
+	 * Gets the number of (method, abstraction) pairs with incoming call edges
+	 * @return The number of entries in the incoming table
+	 */
+	public int getIncomingCount() {
+		return this.incomingCount;
+	}
+
+	/**
+	 * Gets the number of (method, abstraction) pairs with end summaries
+	 * @return The number of entries in the end summary table
+	 */
+	public int getEndSummaryCount() {
+		return this.endSummaryCount;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(propagationCount).append(" edges (");
+		sb.append((long) getEdgesPerSecond()).append(" per second), ");
+		sb.append(queueSize).append(" queued tasks, ");
+		sb.append(jumpFunctionCount).append(" jump functions, ");
+		sb.append(incomingCount).append(" incoming, ");
+		sb.append(endSummaryCount).append(" end summaries");
+		for (FlowFunctionType type : FlowFunctionType.values())
+			if (flowFunctionCalls[type.ordinal()] > 0)
+				sb.append(", ").append(type).append(": ")
+						.append(flowFunctionCalls[type.ordinal()]).append(" calls in ")
+						.append(flowFunctionNanos[type.ordinal()] / 1E9).append(" seconds");
+		return sb.toString();
+	}
+
+}
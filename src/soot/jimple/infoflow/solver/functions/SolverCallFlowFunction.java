@@ -5,6 +5,7 @@ import heros.FlowFunction;
 import java.util.Set;
 
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.solver.fastSolver.IFlowTargetCollector;
 
 /**
  * A special implementation of the call flow function that allows
@@ -28,4 +29,19 @@ public abstract class SolverCallFlowFunction implements FlowFunction<Abstraction
 	 */
 	public abstract Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2);
 	
+	/**
+	 * Computes the call flow function for the given call-site abstraction and
+	 * passes the results to the given collector. The default implementation
+	 * adapts {@link #computeTargets(Abstraction, Abstraction)}.
+	 * @param d1 The abstraction at the current method's start node.
+	 * @param d2 The abstraction at the call site
+	 * @param targets The collector that receives the caller-side abstractions
+	 * at the callee's start node
+	 */
+	public void computeTargets(Abstraction d1, Abstraction d2,
+			IFlowTargetCollector<Abstraction> targets) {
+		for (Abstraction abs : computeTargets(d1, d2))
+			targets.addTarget(abs);
+	}
+	
 }
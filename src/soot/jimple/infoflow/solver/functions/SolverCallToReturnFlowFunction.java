@@ -5,6 +5,7 @@ import heros.FlowFunction;
 import java.util.Set;
 
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.solver.fastSolver.IFlowTargetCollector;
 
 /**
  * A special implementation of the call-to-return flow function that allows
@@ -29,4 +30,20 @@ public abstract class SolverCallToReturnFlowFunction implements FlowFunction<Abs
 	 */
 	public abstract Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2);
 	
+	/**
+	 * Computes the abstractions at the return site and passes them to the
+	 * given collector. The default implementation adapts
+	 * {@link #computeTargets(Abstraction, Abstraction)}.
+	 * @param d1 The abstraction at the beginning of the caller, i.e. the
+	 * context in which the method call is made
+	 * @param d2 The abstraction at the call site
+	 * @param targets The collector that receives the abstractions at the
+	 * return site
+	 */
+	public void computeTargets(Abstraction d1, Abstraction d2,
+			IFlowTargetCollector<Abstraction> targets) {
+		for (Abstraction abs : computeTargets(d1, d2))
+			targets.addTarget(abs);
+	}
+	
 }
@@ -5,6 +5,7 @@ import heros.FlowFunction;
 import java.util.Set;
 
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.solver.fastSolver.IFlowTargetCollector;
 
 /**
  * A special implementation of the normal flow function that allows access to
@@ -28,4 +29,21 @@ public abstract class SolverNormalFlowFunction implements FlowFunction<Abstracti
 	 */
 	public abstract Set<Abstraction> computeTargets(Abstraction d1, Abstraction d2);
 	
+	/**
+	 * Computes the abstractions at the next node in the CFG and passes them
+	 * to the given collector. The default implementation adapts
+	 * {@link #computeTargets(Abstraction, Abstraction)}. Flow functions can
+	 * override this method to avoid allocating a new result set.
+	 * @param d1 The abstraction at the beginning of the current method, i.e.
+	 * the context
+	 * @param d2 The abstraction at the current node
+	 * @param targets The collector that receives the abstractions at the
+	 * next node
+	 */
+	public void computeTargets(Abstraction d1, Abstraction d2,
+			IFlowTargetCollector<Abstraction> targets) {
+		for (Abstraction abs : computeTargets(d1, d2))
+			targets.addTarget(abs);
+	}
+	
 }
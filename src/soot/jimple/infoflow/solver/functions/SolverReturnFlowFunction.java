@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.Set;
 
 import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.solver.fastSolver.IFlowTargetCollector;
 
 /**
  * A special implementation of the return flow function that allows access to
@@ -32,4 +33,21 @@ public abstract class SolverReturnFlowFunction implements FlowFunction<Abstracti
 	 */
 	public abstract Set<Abstraction> computeTargets(Abstraction source, Collection<Abstraction> callerD1s);
 	
+	/**
+	 * Computes the abstractions at the return site and passes them to the
+	 * given collector. The default implementation adapts
+	 * {@link #computeTargets(Abstraction, Collection)}.
+	 * @param source The abstraction at the exit node
+	 * @param callerD1s The abstractions at the start nodes of all methods to
+	 * which we return (i.e. the contexts to which this flow function will be
+	 * applied).
+	 * @param targets The collector that receives the abstractions at the
+	 * return site
+	 */
+	public void computeTargets(Abstraction source, Collection<Abstraction> callerD1s,
+			IFlowTargetCollector<Abstraction> targets) {
+		for (Abstraction abs : computeTargets(source, callerD1s))
+			targets.addTarget(abs);
+	}
+	
 }
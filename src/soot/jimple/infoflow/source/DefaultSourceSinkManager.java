@@ -78,6 +78,14 @@ public class DefaultSourceSinkManager extends MethodBasedSourceSinkManager {
 		this.sources = sources;
 	}
 	
+	/**
+	 * Gets the list of methods to be treated as sources
+	 * @return The list of methods to be treated as sources
+	 */
+	public Collection<String> getSources() {
+		return this.sources;
+	}
+	
 	/**
 	 * Sets the list of methods to be treated as sinks
 	 * @param sinks The list of methods to be treated as sinks
@@ -86,6 +94,14 @@ public class DefaultSourceSinkManager extends MethodBasedSourceSinkManager {
 		this.sinks = sinks;
 	}
 	
+	/**
+	 * Gets the list of methods to be treated as sinks
+	 * @return The list of methods to be treated as sinks
+	 */
+	public Collection<String> getSinks() {
+		return this.sinks;
+	}
+	
 	@Override
 	public SourceInfo getSourceMethodInfo(SootMethod sMethod) {
 		if (!sources.contains(sMethod.toString()))
@@ -138,6 +154,16 @@ public class DefaultSourceSinkManager extends MethodBasedSourceSinkManager {
 		this.parameterTaintMethods = parameterTaintMethods;
 	}
 	
+	/**
+	 * Gets the list of methods whose parameters shall be regarded as taint
+	 * sources
+	 * @return The list of methods whose parameters shall be regarded as
+	 * taint sources, or null if there are none
+	 */
+	public Collection<String> getParameterTaintMethods() {
+		return this.parameterTaintMethods;
+	}
+	
 	/**
 	 * Sets the list of methods whose return values shall be regarded as taint
 	 * sinks
@@ -147,5 +173,15 @@ public class DefaultSourceSinkManager extends MethodBasedSourceSinkManager {
 	public void setReturnTaintMethods(List<String> returnTaintMethods) {
 		this.returnTaintMethods = returnTaintMethods;
 	}
+	
+	/**
+	 * Gets the list of methods whose return values shall be regarded as
+	 * taint sinks
+	 * @return The list of methods whose return values shall be regarded as
+	 * taint sinks, or null if there are none
+	 */
+	public Collection<String> getReturnTaintMethods() {
+		return this.returnTaintMethods;
+	}
 
 }
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.summaries;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import soot.Body;
+import soot.Local;
+import soot.Scene;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.data.AccessPath;
+
+/**
+ * Representation of an access path that does not depend on the current Soot
+ * instance. Locals are referenced by name, fields and types by their
+ * signatures. Templates can thus be written to disk and turned back into
+ * access paths in a later analysis run on the same method body.
+ */
+public class AccessPathTemplate {
+
+	private final String baseLocal;
+	private final String baseType;
+	private final String[] fields;
+	private final String[] fieldTypes;
+	private final boolean taintSubFields;
+
+	private int hashCode = 0;
+
+	private AccessPathTemplate(String baseLocal, String baseType, String[] fields,
+			String[] fieldTypes, boolean taintSubFields) {
+		this.baseLocal = baseLocal;
+		this.baseType = baseType;
+		this.fields = fields;
+		this.fieldTypes = fieldTypes;
+		this.taintSubFields = taintSubFields;
+	}
+
+	/**
+	 * Creates a template from the given access path
+	 * @param ap The access path from which to create the template. This
+	 * access path must not be empty.
+	 * @return The template for the given access path
+	 */
+	public static AccessPathTemplate fromAccessPath(AccessPath ap) {
+		assert !ap.isEmpty();
+
+		int fieldCount = ap.getFieldCount();
+		String[] fields = new String[fieldCount];
+		String[] fieldTypes = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = ap.getFields()[i].getSignature();
+			fieldTypes[i] = ap.getFieldTypes()[i].toString();
+		}
+
+		return new AccessPathTemplate(
+				ap.getPlainValue() == null ? null : ap.getPlainValue().getName(),
+				ap.getBaseType() == null ? null : ap.getBaseType().toString(),
+				fields, fieldTypes, ap.getTaintSubFields());
+	}
+
+	/**
+	 * Creates the access path that this template describes inside the given
+	 * method body
+	 * @param body The method body in which to resolve the locals
+	 * @return The access path described by this template, or null if the
+	 * template references locals, fields, or types that do not exist
+	 */
+	public AccessPath toAccessPath(Body body) {
+		Local base = null;
+		if (baseLocal != null) {
+			for (Local l : body.getLocals())
+				if (l.getName().equals(baseLocal)) {
+					base = l;
+					break;
+				}
+			if (base == null)
+				return null;
+		}
+
+		SootField[] apFields = null;
+		Type[] apFieldTypes = null;
+		if (fields.length > 0) {
+			apFields = new SootField[fields.length];
+			apFieldTypes = new Type[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				apFields[i] = Scene.v().grabField(fields[i]);
+				apFieldTypes[i] = getType(fieldTypes[i]);
+				if (apFields[i] == null || apFieldTypes[i] == null)
+					return null;
+			}
+		}
+		else if (base == null)
+			return null;
+
+		Type apBaseType = baseType == null ? null : getType(baseType);
+		if (baseType != null && apBaseType == null)
+			return null;
+		return new AccessPath(base, apFields, apBaseType, apFieldTypes, taintSubFields);
+	}
+
+	private static Type getType(String typeName) {
+		try {
+			return Scene.v().getType(typeName);
+		}
+		catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes this template to the given output
+	 * @param out The output to which to write the template
+	 * @throws IOException Thrown if the template could not be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		writeNullableString(out, baseLocal);
+		writeNullableString(out, baseType);
+		out.writeBoolean(taintSubFields);
+		out.writeInt(fields.length);
+		for (int i = 0; i < fields.length; i++) {
+			out.writeUTF(fields[i]);
+			out.writeUTF(fieldTypes[i]);
+		}
+	}
+
+	/**
+	 * Reads a template from the given input
+	 * @param in The input from which to read the template
+	 * @return The template that was read
+	 * @throws IOException Thrown if the template could not be read
+	 */
+	public static AccessPathTemplate read(DataInput in) throws IOException {
+		String baseLocal = readNullableString(in);
+		String baseType = readNullableString(in);
+		boolean taintSubFields = in.readBoolean();
+		int fieldCount = in.readInt();
+		String[] fields = new String[fieldCount];
+		String[] fieldTypes = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = in.readUTF();
+			fieldTypes[i] = in.readUTF();
+		}
+		return new AccessPathTemplate(baseLocal, baseType, fields, fieldTypes,
+				taintSubFields);
+	}
+
+	static void writeNullableString(DataOutput out, String str) throws IOException {
+		out.writeBoolean(str != null);
+		if (str != null)
+			out.writeUTF(str);
+	}
+
+	static String readNullableString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	@Override
+	public int hashCode() {
+		if (hashCode != 0)
+			return hashCode;
+
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((baseLocal == null) ? 0 : baseLocal.hashCode());
+		result = prime * result + ((baseType == null) ? 0 : baseType.hashCode());
+		result = prime * result + Arrays.hashCode(fields);
+		result = prime * result + Arrays.hashCode(fieldTypes);
+		result = prime * result + (taintSubFields ? 1231 : 1237);
+		this.hashCode = result;
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		AccessPathTemplate other = (AccessPathTemplate) obj;
+		if (baseLocal == null) {
+			if (other.baseLocal != null)
+				return false;
+		} else if (!baseLocal.equals(other.baseLocal))
+			return false;
+		if (baseType == null) {
+			if (other.baseType != null)
+				return false;
+		} else if (!baseType.equals(other.baseType))
+			return false;
+		if (!Arrays.equals(fields, other.fields))
+			return false;
+		if (!Arrays.equals(fieldTypes, other.fieldTypes))
+			return false;
+		return taintSubFields == other.taintSubFields;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(baseLocal == null ? "<static>" : baseLocal);
+		for (String field : fields)
+			sb.append(".").append(field);
+		if (taintSubFields)
+			sb.append(".*");
+		return sb.toString();
+	}
+
+}
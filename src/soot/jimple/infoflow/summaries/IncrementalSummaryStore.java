@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.summaries;
+
+import java.io.File;
+
+import soot.SootMethod;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+
+/**
+ * Summary store for incremental re-analysis. In contrast to the plain
+ * {@link MethodSummaryStore}, this store holds the summaries of application
+ * methods as well. If a method or one of its call edges changes, the
+ * summaries of this method and of all of its transitive callers are
+ * invalidated, while the summaries of all other methods are reused. Only
+ * end summaries are stored. Jump functions and results are recomputed in
+ * every run.
+ */
+public class IncrementalSummaryStore extends MethodSummaryStore {
+
+	/**
+	 * Creates a new incremental summary store and loads the summaries of the
+	 * previous analysis run from the given file if it exists
+	 * @param file The file in which the summaries are stored
+	 * @param configuration A string describing all analysis options that
+	 * influence the summaries. If the file was written with a different
+	 * configuration, its contents are discarded.
+	 * @param icfg The interprocedural control flow graph of the current run
+	 */
+	public IncrementalSummaryStore(File file, String configuration,
+			IInfoflowCFG icfg) {
+		super(file, configuration, icfg);
+	}
+
+	@Override
+	public boolean acceptsMethod(SootMethod method) {
+		return true;
+	}
+
+}
@@ -0,0 +1,509 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.summaries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import soot.Body;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.util.MyConcurrentHashMap;
+import soot.jimple.infoflow.util.SystemClassHandler;
+
+/**
+ * Persistent store for the end summaries of library methods. For every method
+ * and every incoming access path, the store records the access paths that
+ * reach the method's exit statements. Summaries are keyed by the method
+ * signature and a hash of the method. A summary of a method does not only
+ * depend on the method's own body, but on everything the method transitively
+ * calls. The hash of a method therefore covers the bodies and call edges of
+ * all methods in its strongly connected component of the callgraph and the
+ * hashes of all components it calls. A summary is thus dropped as soon as the
+ * method or one of its transitive callees changes. The whole store is
+ * discarded if it was written by a different version of the file format or
+ * for a different analysis configuration.
+ */
+public class MethodSummaryStore {
+
+	private static final int MAGIC = 0x46445353;
+	private static final int FORMAT_VERSION = 2;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final File file;
+	private final String configuration;
+	private final IInfoflowCFG icfg;
+
+	private final MyConcurrentHashMap<String, MethodEntry> methods =
+			new MyConcurrentHashMap<String, MethodEntry>();
+	private final Map<SootMethod, Long> componentHashes = new HashMap<SootMethod, Long>();
+
+	private volatile boolean changed = false;
+
+	private final AtomicInteger hitCount = new AtomicInteger();
+	private final AtomicInteger invalidatedCount = new AtomicInteger();
+
+	/**
+	 * The end summary of a method for one incoming access path
+	 */
+	public static class ExitTemplate {
+
+		private final int exitIndex;
+		private final boolean exceptionThrown;
+		private final AccessPathTemplate accessPath;
+
+		/**
+		 * Creates a new instance of the {@link ExitTemplate} class
+		 * @param exitIndex The index of the exit statement in the method body
+		 * @param exceptionThrown True if the tainted value leaves the method
+		 * as a thrown exception, otherwise false
+		 * @param accessPath The access path that is tainted at the exit
+		 * statement
+		 */
+		public ExitTemplate(int exitIndex, boolean exceptionThrown,
+				AccessPathTemplate accessPath) {
+			this.exitIndex = exitIndex;
+			this.exceptionThrown = exceptionThrown;
+			this.accessPath = accessPath;
+		}
+
+		public int getExitIndex() {
+			return this.exitIndex;
+		}
+
+		public boolean getExceptionThrown() {
+			return this.exceptionThrown;
+		}
+
+		public AccessPathTemplate getAccessPath() {
+			return this.accessPath;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * exitIndex + (exceptionThrown ? 1 : 0))
+					+ accessPath.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			ExitTemplate other = (ExitTemplate) obj;
+			return exitIndex == other.exitIndex
+					&& exceptionThrown == other.exceptionThrown
+					&& accessPath.equals(other.accessPath);
+		}
+
+	}
+
+	/**
+	 * All summaries of a single method
+	 */
+	private static class MethodEntry {
+
+		private final long methodHash;
+		private final MyConcurrentHashMap<AccessPathTemplate, Set<ExitTemplate>> summaries =
+				new MyConcurrentHashMap<AccessPathTemplate, Set<ExitTemplate>>();
+		private volatile boolean validated = false;
+
+		public MethodEntry(long methodHash) {
+			this.methodHash = methodHash;
+		}
+
+	}
+
+	/**
+	 * Creates a new summary store and loads the summaries from the given file
+	 * if it exists
+	 * @param file The file in which the summaries are stored
+	 * @param configuration A string describing all analysis options that
+	 * influence the summaries. If the file was written with a different
+	 * configuration, its contents are discarded.
+	 * @param icfg The interprocedural control flow graph of the current run
+	 */
+	public MethodSummaryStore(File file, String configuration, IInfoflowCFG icfg) {
+		this.file = file;
+		this.configuration = configuration;
+		this.icfg = icfg;
+		if (file.exists())
+			load();
+	}
+
+	private void load() {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				logger.info("Summary file {} has an unsupported format, ignoring it", file);
+				return;
+			}
+			if (!in.readUTF().equals(configuration)) {
+				logger.info("Summary file {} was created with a different configuration, ignoring it", file);
+				return;
+			}
+
+			int methodCount = in.readInt();
+			for (int i = 0; i < methodCount; i++) {
+				String signature = in.readUTF();
+				MethodEntry entry = new MethodEntry(in.readLong());
+				int entryCount = in.readInt();
+				for (int j = 0; j < entryCount; j++) {
+					AccessPathTemplate ap = AccessPathTemplate.read(in);
+					int exitCount = in.readInt();
+					Set<ExitTemplate> exits = new HashSet<ExitTemplate>(exitCount);
+					for (int k = 0; k < exitCount; k++) {
+						int exitIndex = in.readInt();
+						boolean exceptionThrown = in.readBoolean();
+						exits.add(new ExitTemplate(exitIndex, exceptionThrown,
+								AccessPathTemplate.read(in)));
+					}
+					entry.summaries.put(ap, Collections.unmodifiableSet(exits));
+				}
+				methods.put(signature, entry);
+			}
+			logger.info("Loaded summaries for {} methods from {}", methods.size(), file);
+		}
+		catch (IOException ex) {
+			logger.warn("Could not read summary file " + file + ", ignoring it", ex);
+			methods.clear();
+		}
+		finally {
+			if (in != null)
+				try {
+					in.close();
+				}
+				catch (IOException e) {
+					logger.error("Could not close summary file", e);
+				}
+		}
+	}
+
+	/**
+	 * Writes all summaries to the summary file if the store has changed.
+	 * The file is replaced atomically, so concurrent readers either see the
+	 * old or the new version.
+	 * @throws IOException Thrown if the summary file could not be written
+	 */
+	public void save() throws IOException {
+		if (!changed)
+			return;
+
+		File tempFile = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(configuration);
+
+			out.writeInt(methods.size());
+			for (Entry<String, MethodEntry> method : methods.entrySet()) {
+				out.writeUTF(method.getKey());
+				out.writeLong(method.getValue().methodHash);
+
+				Map<AccessPathTemplate, Set<ExitTemplate>> summaries = method.getValue().summaries;
+				out.writeInt(summaries.size());
+				for (Entry<AccessPathTemplate, Set<ExitTemplate>> summary : summaries.entrySet()) {
+					summary.getKey().write(out);
+					out.writeInt(summary.getValue().size());
+					for (ExitTemplate exit : summary.getValue()) {
+						out.writeInt(exit.getExitIndex());
+						out.writeBoolean(exit.getExceptionThrown());
+						exit.getAccessPath().write(out);
+					}
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		changed = false;
+		logger.info("Wrote summaries for {} methods to {}", methods.size(), file);
+	}
+
+	/**
+	 * Gets the stored end summary of the given method for the given incoming
+	 * access path
+	 * @param method The method for which to get the summary
+	 * @param entry The access path at the start point of the method
+	 * @return The exit access paths of the given method for the given incoming
+	 * access path, or null if no summary is available
+	 */
+	public Set<ExitTemplate> getSummary(SootMethod method, AccessPathTemplate entry) {
+		MethodEntry methodEntry = methods.get(method.getSignature());
+		if (methodEntry == null)
+			return null;
+
+		// Drop the summaries if the method has changed since they were
+		// computed
+		if (!methodEntry.validated) {
+			if (methodEntry.methodHash != getMethodHash(method)) {
+				if (methods.remove(method.getSignature(), methodEntry)) {
+					changed = true;
+					invalidatedCount.incrementAndGet();
+				}
+				return null;
+			}
+			methodEntry.validated = true;
+		}
+		Set<ExitTemplate> exits = methodEntry.summaries.get(entry);
+		if (exits != null)
+			hitCount.incrementAndGet();
+		return exits;
+	}
+
+	/**
+	 * Records the end summary of the given method for the given incoming
+	 * access path. Summaries that are already in the store are not replaced.
+	 * @param method The method for which to record the summary
+	 * @param entry The access path at the start point of the method
+	 * @param exits The access paths at the exit statements of the method
+	 */
+	public void addSummary(SootMethod method, AccessPathTemplate entry, Set<ExitTemplate> exits) {
+		long methodHash = getMethodHash(method);
+		MethodEntry methodEntry = methods.get(method.getSignature());
+		if (methodEntry == null || methodEntry.methodHash != methodHash) {
+			MethodEntry newEntry = new MethodEntry(methodHash);
+			newEntry.validated = true;
+			if (methodEntry == null)
+				methodEntry = methods.putIfAbsentElseGet(method.getSignature(), newEntry);
+			else if (methods.replace(method.getSignature(), methodEntry, newEntry))
+				methodEntry = newEntry;
+			else
+				methodEntry = methods.get(method.getSignature());
+			if (methodEntry == null || methodEntry.methodHash != methodHash)
+				return;
+		}
+		if (methodEntry.summaries.putIfAbsent(entry, Collections.unmodifiableSet(
+				new HashSet<ExitTemplate>(exits))) == null)
+			changed = true;
+	}
+
+	/**
+	 * Gets the number of methods for which this store contains summaries
+	 * @return The number of methods for which this store contains summaries
+	 */
+	public int getMethodCount() {
+		return methods.size();
+	}
+
+	/**
+	 * Gets the number of summaries that were taken from this store
+	 * @return The number of summaries that were taken from this store
+	 */
+	public int getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of methods whose summaries were dropped because the
+	 * method has changed
+	 * @return The number of methods whose summaries were dropped
+	 */
+	public int getInvalidatedCount() {
+		return invalidatedCount.get();
+	}
+
+	/**
+	 * Checks whether this store shall hold the summaries of the given method
+	 * @param method The method to check
+	 * @return True if this store shall hold the summaries of the given method,
+	 * otherwise false
+	 */
+	public boolean acceptsMethod(SootMethod method) {
+		return SystemClassHandler.isClassInSystemPackage(method.getDeclaringClass().getName());
+	}
+
+	/**
+	 * Gets the hash that identifies the version of the given method for
+	 * which a summary is valid. If this hash changes, all summaries of the
+	 * method are dropped.
+	 * @param method The method for which to get the hash
+	 * @return The hash of the given method
+	 */
+	private synchronized long getMethodHash(SootMethod method) {
+		Long hash = componentHashes.get(method);
+		if (hash == null) {
+			computeComponentHashes(method);
+			hash = componentHashes.get(method);
+		}
+		return hash;
+	}
+
+	/**
+	 * Computes the hashes of all methods reachable from the given one. This
+	 * is an iterative version of Tarjan's algorithm for finding strongly
+	 * connected components, as callgraphs can be too deep for recursion.
+	 * Components are completed in reverse topological order, so the hashes
+	 * of all callee components are known when a component is hashed.
+	 * @param root The method from which to start
+	 */
+	private void computeComponentHashes(SootMethod root) {
+		Map<SootMethod, Integer> index = new HashMap<SootMethod, Integer>();
+		Map<SootMethod, Integer> lowLink = new HashMap<SootMethod, Integer>();
+		Deque<SootMethod> stack = new ArrayDeque<SootMethod>();
+		Set<SootMethod> onStack = new HashSet<SootMethod>();
+		Deque<SootMethod> callStack = new ArrayDeque<SootMethod>();
+		Deque<Iterator<SootMethod>> calleeIterators = new ArrayDeque<Iterator<SootMethod>>();
+
+		index.put(root, 0);
+		lowLink.put(root, 0);
+		stack.push(root);
+		onStack.add(root);
+		callStack.push(root);
+		calleeIterators.push(getCallees(root).iterator());
+
+		while (!callStack.isEmpty()) {
+			SootMethod method = callStack.peek();
+			Iterator<SootMethod> calleeIt = calleeIterators.peek();
+			if (calleeIt.hasNext()) {
+				SootMethod callee = calleeIt.next();
+				if (componentHashes.containsKey(callee))
+					continue;
+				if (!index.containsKey(callee)) {
+					int idx = index.size();
+					index.put(callee, idx);
+					lowLink.put(callee, idx);
+					stack.push(callee);
+					onStack.add(callee);
+					callStack.push(callee);
+					calleeIterators.push(getCallees(callee).iterator());
+				}
+				else if (onStack.contains(callee))
+					lowLink.put(method, Math.min(lowLink.get(method), index.get(callee)));
+				continue;
+			}
+
+			// All callees have been processed
+			callStack.pop();
+			calleeIterators.pop();
+			if (!callStack.isEmpty()) {
+				SootMethod caller = callStack.peek();
+				lowLink.put(caller, Math.min(lowLink.get(caller), lowLink.get(method)));
+			}
+
+			if (lowLink.get(method).equals(index.get(method))) {
+				List<SootMethod> component = new ArrayList<SootMethod>();
+				SootMethod member;
+				do {
+					member = stack.pop();
+					onStack.remove(member);
+					component.add(member);
+				} while (member != method);
+				hashComponent(component);
+			}
+		}
+	}
+
+	/**
+	 * Computes the hashes for the methods in the given strongly connected
+	 * component. The hashes of all callee components must already be known.
+	 * @param component The methods in the component
+	 */
+	private void hashComponent(List<SootMethod> component) {
+		// Hash the members and their call edges in a stable order
+		Set<String> memberHashes = new TreeSet<String>();
+		Set<Long> calleeHashes = new TreeSet<Long>();
+		for (SootMethod member : component) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(member.getSignature());
+			if (member.hasActiveBody())
+				sb.append(":").append(computeBodyHash(member.getActiveBody()));
+			Set<String> calleeSigs = new TreeSet<String>();
+			for (SootMethod callee : getCallees(member)) {
+				calleeSigs.add(callee.getSignature());
+				Long calleeHash = componentHashes.get(callee);
+				if (calleeHash != null)
+					calleeHashes.add(calleeHash);
+			}
+			sb.append("->").append(calleeSigs);
+			memberHashes.add(sb.toString());
+		}
+
+		long componentHash = 0xcbf29ce484222325L;
+		for (String memberHash : memberHashes)
+			componentHash = hash(componentHash, memberHash);
+		for (Long calleeHash : calleeHashes)
+			componentHash = hash(componentHash, calleeHash.toString());
+
+		// Every member gets its own hash derived from the component hash
+		for (SootMethod member : component)
+			componentHashes.put(member, hash(componentHash, member.getSignature()));
+	}
+
+	private Set<SootMethod> getCallees(SootMethod method) {
+		if (!method.hasActiveBody())
+			return Collections.emptySet();
+		Set<SootMethod> callees = new HashSet<SootMethod>();
+		for (Unit u : icfg.getCallsFromWithin(method))
+			callees.addAll(icfg.getCalleesOfCallAt(u));
+		return callees;
+	}
+
+
+	/**
+	 * Computes a hash over the textual Jimple representation of the given
+	 * method body
+	 * @param body The body for which to compute the hash
+	 * @return The 64-bit FNV-1a hash of the given body
+	 */
+	public static long computeBodyHash(Body body) {
+		long hash = 0xcbf29ce484222325L;
+		for (Local l : body.getLocals())
+			hash = hash(hash, l.getType() + " " + l.getName());
+		for (Unit u : body.getUnits())
+			hash = hash(hash, u.toString());
+		return hash;
+	}
+
+	private static long hash(long hash, String str) {
+		for (int i = 0; i < str.length(); i++) {
+			hash ^= str.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		// Separate the individual strings
+		hash ^= '\n';
+		hash *= 0x100000001b3L;
+		return hash;
+	}
+
+}
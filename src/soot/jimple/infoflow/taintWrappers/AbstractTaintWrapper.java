@@ -50,4 +50,15 @@ public abstract class AbstractTaintWrapper implements ITaintPropagationWrapper {
 		return wrapperMisses.get();
 	}
 	
+	/**
+	 * Gets a string that identifies the rules of this taint wrapper. Method
+	 * summaries cached by a previous analysis run are only reused if this
+	 * string has not changed. Taint wrappers whose rules are configurable
+	 * must therefore override this method.
+	 * @return A string that identifies the rules of this taint wrapper
+	 */
+	public String getRulesIdentifier() {
+		return getClass().getName();
+	}
+	
 }
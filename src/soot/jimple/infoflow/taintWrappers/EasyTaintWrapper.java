@@ -22,7 +22,10 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -488,6 +491,29 @@ public class EasyTaintWrapper extends AbstractTaintWrapper implements Cloneable
 		methods.add(subSignature);
 	}
 	
+	@Override
+	public String getRulesIdentifier() {
+		// The rules can be too large for the identifier, so we only include
+		// their hash. The maps and sets are sorted to get a stable text.
+		StringBuilder sb = new StringBuilder();
+		appendRules(sb, "wrap", classList);
+		appendRules(sb, "exclude", excludeList);
+		appendRules(sb, "kill", killList);
+		sb.append("include=").append(new TreeSet<String>(includeList));
+		return super.getRulesIdentifier()
+				+ ",aggressive=" + aggressiveMode
+				+ ",equalsHashCode=" + alwaysModelEqualsHashCode
+				+ ",rules=" + Integer.toHexString(sb.toString().hashCode());
+	}
+	
+	private static void appendRules(StringBuilder sb, String kind,
+			Map<String, Set<String>> rules) {
+		sb.append(kind).append("=");
+		for (Entry<String, Set<String>> entry : new TreeMap<String, Set<String>>(rules).entrySet())
+			sb.append(entry.getKey()).append(new TreeSet<String>(entry.getValue()));
+		sb.append(";");
+	}
+	
 	@Override
 	public EasyTaintWrapper clone() {
 		return new EasyTaintWrapper(this);
@@ -12,6 +12,7 @@ package soot.jimple.infoflow.taintWrappers;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.TreeSet;
 
 import soot.SootMethod;
 import soot.jimple.Stmt;
@@ -71,4 +72,15 @@ public class TaintWrapperSet extends AbstractTaintWrapper {
 		return false;
 	}
 	
+	@Override
+	public String getRulesIdentifier() {
+		// The wrappers are kept in a hash set, so we sort their identifiers
+		Set<String> identifiers = new TreeSet<String>();
+		for (ITaintPropagationWrapper w : this.wrappers)
+			identifiers.add(w instanceof AbstractTaintWrapper
+					? ((AbstractTaintWrapper) w).getRulesIdentifier()
+					: w.getClass().getName());
+		return super.getRulesIdentifier() + identifiers;
+	}
+	
 }
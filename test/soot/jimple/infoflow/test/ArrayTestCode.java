@@ -13,6 +13,7 @@ package soot.jimple.infoflow.test;
 import java.util.Arrays;
 import java.util.List;
 
+import soot.jimple.infoflow.test.android.AccountManager;
 import soot.jimple.infoflow.test.android.ConnectionManager;
 import soot.jimple.infoflow.test.android.TelephonyManager;
 import soot.jimple.infoflow.test.utilclasses.ClassWithFinal;
@@ -119,6 +120,16 @@ public class ArrayTestCode {
 		cm.publish(copyTainted[0]);
 	}
 	
+	public void nativeCopyTest(){
+		AccountManager am = new AccountManager();
+		String[] userData = am.getUserData("user");
+		String[] copy = new String[2];
+		System.arraycopy(userData, 0, copy, 0, 2);
+		
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(copy[0]);
+	}
+	
 	public void arrayAsFieldOfClass(){
 		String tainted = TelephonyManager.getDeviceId();
 		
@@ -11,6 +11,7 @@
 package soot.jimple.infoflow.test;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 import soot.jimple.infoflow.test.android.AccountManager;
 import soot.jimple.infoflow.test.android.ConnectionManager;
@@ -1113,4 +1114,30 @@ public class HeapTestCode {
 		leakData(y.next);
 	}
 	
+	private class RefHolder {
+		AtomicReference<String> ref;
+	}
+	
+	public void aliasThroughLibraryTest() {
+		AtomicReference<String> ref = new AtomicReference<String>();
+		RefHolder holder = new RefHolder();
+		holder.ref = ref;
+		ref.set(TelephonyManager.getDeviceId());
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(holder.ref.get());
+	}
+	
+	private class YHolder {
+		Y y;
+	}
+	
+	public void aliasThroughSetterTest() {
+		Y y = new Y();
+		YHolder holder = new YHolder();
+		holder.y = y;
+		y.set(TelephonyManager.getDeviceId());
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(holder.y.f);
+	}
+	
 }
@@ -169,4 +169,38 @@ public class MultiTestCode {
 		cm.publish(data[0]);
 	}
 
+	private String id2(String s) {
+		return s;
+	}
+	
+	public void multiPathTestCode1() {
+		AccountManager am = new AccountManager();
+		String pwd = am.getPassword();
+		
+		String foo;
+		if (pwd.length() > 0)
+			foo = id(pwd);
+		else
+			foo = id2(pwd);
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(foo);
+	}
+
+	public void multiPathTestCode2() {
+		AccountManager am = new AccountManager();
+		String pwd = am.getPassword();
+		
+		String foo;
+		if (pwd.length() > 0)
+			foo = id(pwd);
+		else
+			foo = id2(pwd);
+		
+		// The second source only reaches the sink over a longer path
+		String imei = id(id(id(id(TelephonyManager.getDeviceId()))));
+		String data = foo.length() > 1 ? foo : imei;
+		ConnectionManager cm = new ConnectionManager();
+		cm.publish(data);
+	}
+
 }
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.IntType;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AbstractionState;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Checks that sharing canonical abstraction states yields exactly the same
+ * results as comparing abstractions field by field
+ */
+public class AbstractionCanonicalizationTests extends JUnitTests {
+
+	private static final InfoflowConfigurator CANONICALIZATION = new InfoflowConfigurator() {
+
+		@Override
+		public void configure(Infoflow infoflow, boolean enabled) {
+			infoflow.setEnableAbstractionCanonicalization(enabled);
+		}
+
+	};
+
+	@Test(timeout = 300000)
+	public void aliasTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>",
+				CANONICALIZATION);
+	}
+
+	@Test(timeout = 300000)
+	public void fieldTest() {
+		checkSameResults("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+				CANONICALIZATION);
+	}
+
+	@Test(timeout = 300000)
+	public void loopPathTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>",
+				CANONICALIZATION);
+	}
+
+	@Test
+	public void poolChangeTest() {
+		// Equal states interned into the pools of different runs must still
+		// be equal
+		AccessPath ap = new AccessPath(new JimpleLocal("a", IntType.v()), true);
+		Abstraction zero = Abstraction.getZeroAbstraction(true);
+		try {
+			AbstractionState.setCanonicalizationEnabled(true);
+			Abstraction first = zero.deriveNewAbstraction(ap, null);
+			first.hashCode();
+			AbstractionState.setCanonicalizationEnabled(true);
+			Abstraction second = zero.deriveNewAbstraction(ap, null);
+			second.hashCode();
+			assertEquals(first, second);
+		}
+		finally {
+			AbstractionState.setCanonicalizationEnabled(false);
+		}
+	}
+
+	@Test(timeout = 300000)
+	public void implicitFlowTest() {
+		soot.G.reset();
+		Infoflow infoflow = initInfoflow();
+		infoflow.setEnableAbstractionCanonicalization(true);
+		infoflow.setEnableImplicitFlows(true);
+		infoflow.setInspectSinks(false);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.ImplicitFlowTestCode: void simpleTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+}
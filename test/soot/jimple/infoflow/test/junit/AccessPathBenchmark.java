@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.RefType;
+import soot.SootClass;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.FieldChain;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * Compares the cost of deriving and comparing access paths between plain
+ * field arrays that are copied on every derivation and compared element by
+ * element, as access paths used to do, and the interned field chains, both on
+ * their own and inside {@link AccessPath} objects. Every round appends the
+ * fields one by one, drops them again from the front and from the back, and
+ * compares each intermediate result with an equal, separately derived one.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class AccessPathBenchmark {
+
+	private static final int RUNS = 5;
+	private static final int ITERATIONS = 200000;
+	private static final int FIELD_COUNT = 5;
+
+	/**
+	 * Field sequence stored in arrays that are copied on every derivation
+	 */
+	private static class ArrayFieldPath {
+
+		private final SootField[] fields;
+		private final Type[] fieldTypes;
+
+		public ArrayFieldPath(SootField[] fields, Type[] fieldTypes) {
+			this.fields = fields;
+			this.fieldTypes = fieldTypes;
+		}
+
+		public ArrayFieldPath appendField(SootField field, Type type) {
+			SootField[] newFields = new SootField[fields.length + 1];
+			Type[] newTypes = new Type[fields.length + 1];
+			System.arraycopy(fields, 0, newFields, 0, fields.length);
+			System.arraycopy(fieldTypes, 0, newTypes, 0, fields.length);
+			newFields[fields.length] = field;
+			newTypes[fields.length] = type;
+			return new ArrayFieldPath(newFields, newTypes);
+		}
+
+		public ArrayFieldPath dropFirstField() {
+			SootField[] newFields = new SootField[fields.length - 1];
+			Type[] newTypes = new Type[fields.length - 1];
+			System.arraycopy(fields, 1, newFields, 0, newFields.length);
+			System.arraycopy(fieldTypes, 1, newTypes, 0, newTypes.length);
+			return new ArrayFieldPath(newFields, newTypes);
+		}
+
+		public ArrayFieldPath dropLastField() {
+			SootField[] newFields = new SootField[fields.length - 1];
+			Type[] newTypes = new Type[fields.length - 1];
+			System.arraycopy(fields, 0, newFields, 0, newFields.length);
+			System.arraycopy(fieldTypes, 0, newTypes, 0, newTypes.length);
+			return new ArrayFieldPath(newFields, newTypes);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			ArrayFieldPath other = (ArrayFieldPath) obj;
+			return Arrays.equals(fields, other.fields)
+					&& Arrays.equals(fieldTypes, other.fieldTypes);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(fields) + Arrays.hashCode(fieldTypes);
+		}
+
+	}
+
+	private SootField[] fields;
+	private Type[] fieldTypes;
+	private SootField[][] singleFields;
+	private Type[][] singleFieldTypes;
+	private JimpleLocal base;
+
+	/**
+	 * Creates a chain of fields with pairwise different types, so that the
+	 * access paths are not shortened as recursive data structures
+	 */
+	private void createFields() {
+		soot.G.reset();
+		FieldChain.reset();
+		fields = new SootField[FIELD_COUNT];
+		fieldTypes = new Type[FIELD_COUNT];
+		singleFields = new SootField[FIELD_COUNT][];
+		singleFieldTypes = new Type[FIELD_COUNT][];
+		for (int i = 0; i < FIELD_COUNT; i++) {
+			SootClass declaringClass = new SootClass("Node" + i);
+			fieldTypes[i] = RefType.v("Node" + (i + 1));
+			fields[i] = new SootField("next" + i, fieldTypes[i]);
+			declaringClass.addField(fields[i]);
+			singleFields[i] = new SootField[] { fields[i] };
+			singleFieldTypes[i] = new Type[] { fieldTypes[i] };
+		}
+		base = new JimpleLocal("base", RefType.v("Node0"));
+	}
+
+	private long measureArrays() {
+		long start = System.nanoTime();
+		int matches = 0;
+		for (int it = 0; it < ITERATIONS; it++) {
+			ArrayFieldPath path = new ArrayFieldPath(new SootField[0], new Type[0]);
+			ArrayFieldPath other = new ArrayFieldPath(new SootField[0], new Type[0]);
+			for (int i = 0; i < FIELD_COUNT; i++) {
+				path = path.appendField(fields[i], fieldTypes[i]);
+				other = other.appendField(fields[i], fieldTypes[i]);
+				if (path.equals(other))
+					matches++;
+			}
+			ArrayFieldPath front = path;
+			ArrayFieldPath otherFront = other;
+			ArrayFieldPath back = path;
+			ArrayFieldPath otherBack = other;
+			for (int i = 1; i < FIELD_COUNT; i++) {
+				front = front.dropFirstField();
+				otherFront = otherFront.dropFirstField();
+				back = back.dropLastField();
+				otherBack = otherBack.dropLastField();
+				if (front.equals(otherFront))
+					matches++;
+				if (back.equals(otherBack))
+					matches++;
+			}
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(ITERATIONS * (3 * FIELD_COUNT - 2), matches);
+		return time;
+	}
+
+	private long measureChains() {
+		long start = System.nanoTime();
+		int matches = 0;
+		for (int it = 0; it < ITERATIONS; it++) {
+			FieldChain path = FieldChain.intern(fields, fieldTypes, 1);
+			FieldChain other = FieldChain.intern(fields, fieldTypes, 1);
+			matches++;
+			for (int i = 1; i < FIELD_COUNT; i++) {
+				path = path.append(fields[i], fieldTypes[i]);
+				other = other.append(fields[i], fieldTypes[i]);
+				if (path.equals(other))
+					matches++;
+			}
+			FieldChain front = path;
+			FieldChain otherFront = other;
+			FieldChain back = path;
+			FieldChain otherBack = other;
+			for (int i = 1; i < FIELD_COUNT; i++) {
+				front = front.dropFirst();
+				otherFront = otherFront.dropFirst();
+				back = back.getParent();
+				otherBack = otherBack.getParent();
+				if (front.equals(otherFront))
+					matches++;
+				if (back.equals(otherBack))
+					matches++;
+			}
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(ITERATIONS * (3 * FIELD_COUNT - 2), matches);
+		return time;
+	}
+
+	private long measureAccessPaths() {
+		long start = System.nanoTime();
+		int matches = 0;
+		for (int it = 0; it < ITERATIONS; it++) {
+			AccessPath path = new AccessPath(base, true);
+			AccessPath other = new AccessPath(base, true);
+			for (int i = 0; i < FIELD_COUNT; i++) {
+				path = path.appendFields(singleFields[i], singleFieldTypes[i], true);
+				other = other.appendFields(singleFields[i], singleFieldTypes[i], true);
+				if (path.equals(other))
+					matches++;
+			}
+			AccessPath front = path;
+			AccessPath otherFront = other;
+			AccessPath back = path;
+			AccessPath otherBack = other;
+			for (int i = 1; i < FIELD_COUNT; i++) {
+				front = front.dropFirstField();
+				otherFront = otherFront.dropFirstField();
+				back = back.dropLastField();
+				otherBack = otherBack.dropLastField();
+				if (front.equals(otherFront))
+					matches++;
+				if (back.equals(otherBack))
+					matches++;
+			}
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(ITERATIONS * (3 * FIELD_COUNT - 2), matches);
+		return time;
+	}
+
+	private long median(List<Long> values) {
+		List<Long> sorted = new ArrayList<Long>(values);
+		Collections.sort(sorted);
+		return sorted.get(sorted.size() / 2);
+	}
+
+	@Test
+	public void derivationAndEquality() {
+		createFields();
+		List<Long> arrayTimes = new ArrayList<Long>();
+		List<Long> chainTimes = new ArrayList<Long>();
+		List<Long> accessPathTimes = new ArrayList<Long>();
+
+		// Alternate between the representations so that JIT warm-up affects
+		// both the same way. The first round is only for warm-up.
+		for (int i = 0; i <= RUNS; i++) {
+			long arrays = measureArrays();
+			long chains = measureChains();
+			long accessPaths = measureAccessPaths();
+			if (i > 0) {
+				arrayTimes.add(arrays);
+				chainTimes.add(chains);
+				accessPathTimes.add(accessPaths);
+			}
+		}
+
+		// Equal access paths must share their field chains
+		AccessPath ap1 = new AccessPath(base, fields.clone(), true);
+		AccessPath ap2 = new AccessPath(base, true).appendFields(fields, fieldTypes, true);
+		assertTrue(ap1.equals(ap2));
+		assertSame(ap1.getFields(), ap2.getFields());
+
+		System.out.println("Access path derivation and equality (median of " + RUNS
+				+ " runs, " + ITERATIONS + " iterations):");
+		System.out.println("  Field arrays:          " + median(arrayTimes) / 1E6 + " ms " + arrayTimes);
+		System.out.println("  Interned field chains: " + median(chainTimes) / 1E6 + " ms " + chainTimes);
+		System.out.println("  Access paths:          " + median(accessPathTimes) / 1E6 + " ms " + accessPathTimes);
+	}
+
+}
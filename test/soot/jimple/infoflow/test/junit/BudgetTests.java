@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.results.InfoflowResults.AbortReason;
+
+/**
+ * Checks that the analysis stops with partial results when a budget runs out
+ */
+public class BudgetTests extends JUnitTests {
+
+	@Test(timeout = 300000)
+	public void withinBudgetTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setDataFlowTimeout(3600);
+		infoflow.setMemoryThreshold(1.0);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void timeoutTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setDataFlowTimeout(0);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		assertTrue(infoflow.isResultAvailable());
+		assertTrue(infoflow.getResults().isIncomplete());
+		assertEquals(AbortReason.Timeout, infoflow.getResults().getAbortReason());
+	}
+
+	@Test(timeout = 300000)
+	public void memoryLimitTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setMemoryThreshold(0);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		assertTrue(infoflow.isResultAvailable());
+		assertEquals(AbortReason.MemoryLimit, infoflow.getResults().getAbortReason());
+	}
+
+}
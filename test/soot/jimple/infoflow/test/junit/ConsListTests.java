@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.collect.ConsList;
+import soot.jimple.infoflow.collect.PersistentIdentitySet;
+
+/**
+ * checks that the persistent lists used for taint propagation paths share
+ * their tails, compare like normal lists and find their elements by identity
+ */
+public class ConsListTests {
+
+	@Test(timeout=300000)
+	public void sharingTest() {
+		ConsList<String> tail = new ConsList<String>("c", null);
+		ConsList<String> list1 = new ConsList<String>("b", tail);
+		ConsList<String> list2 = new ConsList<String>("x", tail);
+		assertSame(list1.getTail(), list2.getTail());
+		assertEquals(2, list1.size());
+		assertEquals(Arrays.asList("b", "c"), list1.toList());
+		assertEquals(Arrays.asList("x", "c"), list2.toList());
+
+		// The old list must not change when a new one is derived from it
+		assertEquals(Arrays.asList("c"), tail.toList());
+	}
+
+	@Test(timeout=300000)
+	public void equalityTest() {
+		ConsList<String> list1 = new ConsList<String>("a", new ConsList<String>("b", null));
+		ConsList<String> list2 = new ConsList<String>(new String("a"),
+				new ConsList<String>(new String("b"), null));
+		ConsList<String> list3 = new ConsList<String>("b", new ConsList<String>("a", null));
+		assertEquals(list1, list2);
+		assertEquals(list1.hashCode(), list2.hashCode());
+		assertNotEquals(list1, list3);
+		assertNotEquals(list1, list1.getTail());
+	}
+
+	@Test(timeout=300000)
+	public void identityTest() {
+		ConsList<String> list = null;
+		String[] elements = new String[1000];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new String("e" + i);
+			list = new ConsList<String>(elements[i], list);
+		}
+		for (String e : elements)
+			assertTrue(list.containsIdentical(e));
+
+		// Equal, but not identical objects are not contained
+		assertFalse(list.containsIdentical(new String("e0")));
+		assertFalse(list.getTail().containsIdentical(elements[elements.length - 1]));
+	}
+
+	@Test(timeout=300000)
+	public void deepPathTest() {
+		// Simulates the duplicate check of a long path that is extended one
+		// abstraction at a time and branches off in the middle
+		ConsList<Object> list = null;
+		ConsList<Object> branch = null;
+		Object[] elements = new Object[100000];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new Object();
+			assertTrue(list == null || !list.containsIdentical(elements[i]));
+			list = new ConsList<Object>(elements[i], list);
+			if (i == elements.length / 2)
+				branch = list;
+		}
+		assertEquals(elements.length, list.size());
+		for (int i = 0; i < elements.length; i++) {
+			assertTrue(list.containsIdentical(elements[i]));
+			assertEquals(i <= elements.length / 2, branch.containsIdentical(elements[i]));
+		}
+		assertFalse(list.containsIdentical(new Object()));
+
+		// Extending the shorter branch must not affect the longer list
+		Object other = new Object();
+		ConsList<Object> branch2 = new ConsList<Object>(other, branch);
+		assertTrue(branch2.containsIdentical(other));
+		assertFalse(list.containsIdentical(other));
+	}
+
+	@Test(timeout=300000)
+	public void persistentIdentitySetTest() {
+		PersistentIdentitySet set = PersistentIdentitySet.EMPTY;
+		String[] elements = new String[5000];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = new String("e" + i);
+			set = set.plus(elements[i]);
+		}
+		assertEquals(elements.length, set.size());
+		assertSame(set, set.plus(elements[42]));
+		for (String e : elements)
+			assertTrue(set.contains(e));
+		assertFalse(set.contains(new String("e0")));
+		assertFalse(PersistentIdentitySet.EMPTY.contains(elements[0]));
+	}
+
+}
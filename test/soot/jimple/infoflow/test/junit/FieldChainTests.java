@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.RefType;
+import soot.SootField;
+import soot.Type;
+import soot.jimple.infoflow.data.FieldChain;
+/**
+ * checks that field chains are interned and that derivations return the
+ * interned chains
+ */
+public class FieldChainTests {
+
+	private SootField[] fields;
+	private Type[] types;
+
+	@Before
+	public void setUp() {
+		soot.G.reset();
+		FieldChain.reset();
+		fields = new SootField[3];
+		types = new Type[3];
+		for (int i = 0; i < fields.length; i++) {
+			types[i] = RefType.v("Type" + i);
+			fields[i] = new SootField("f" + i, types[i]);
+		}
+	}
+
+	@Test(timeout=300000)
+	public void internTest() {
+		FieldChain chain = FieldChain.intern(fields, types, 3);
+		assertSame(chain, FieldChain.intern(fields.clone(), types.clone(), 3));
+		assertSame(chain, FieldChain.intern(fields, types, 1)
+				.append(fields[1], types[1]).append(fields[2], types[2]));
+		assertNull(FieldChain.intern(fields, types, 0));
+
+		assertEquals(3, chain.getLength());
+		assertSame(fields[0], chain.getFirstField());
+		assertSame(types[0], chain.getFirstType());
+		assertSame(fields[2], chain.getLastField());
+		assertSame(types[2], chain.getLastType());
+		assertArrayEquals(fields, chain.getFields());
+		assertArrayEquals(types, chain.getTypes());
+	}
+
+	@Test(timeout=300000)
+	public void dropTest() {
+		FieldChain chain = FieldChain.intern(fields, types, 3);
+		assertSame(FieldChain.intern(fields, types, 2), chain.getParent());
+		assertNull(FieldChain.intern(fields, types, 1).getParent());
+
+		SootField[] tail = new SootField[] { fields[1], fields[2] };
+		Type[] tailTypes = new Type[] { types[1], types[2] };
+		assertSame(FieldChain.intern(tail, tailTypes, 2), chain.dropFirst());
+		assertSame(chain.dropFirst(), chain.dropFirst());
+		assertNull(FieldChain.intern(fields, types, 1).dropFirst());
+	}
+
+	@Test(timeout=300000)
+	public void typeTest() {
+		// The same field with a different type is a different chain
+		FieldChain chain = FieldChain.intern(fields, types, 1);
+		FieldChain otherType = FieldChain.intern(new SootField[] { fields[0] },
+				new Type[] { types[1] }, 1);
+		assertNotSame(chain, otherType);
+		assertFalse(chain.equals(otherType));
+	}
+
+	@Test(timeout=300000)
+	public void resetTest() {
+		FieldChain before = FieldChain.intern(fields, types, 3);
+		FieldChain.reset();
+		FieldChain after = FieldChain.intern(fields, types, 3);
+
+		// Chains from different tries are still equal
+		assertNotSame(before, after);
+		assertEquals(before, after);
+		assertEquals(before.hashCode(), after.hashCode());
+		assertFalse(before.getParent().equals(after));
+	}
+
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.infoflow.test.synthetic.SyntheticProgramGenerator;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
+
+/**
+ * Compares the time until the first flow is found for the FIFO thread pool
+ * and the sink-directed scheduling strategy. The test methods below are
+ * analyzed together as one program, and so is a generated program, both with
+ * "stop after first flow" enabled. The time is measured from the first
+ * propagated taint to the point at which the results are available, so
+ * callgraph construction is not included.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class FirstResultBenchmark extends SyntheticBenchmarkBase {
+
+	private static final int RUNS = 5;
+	private static final int SYNTHETIC_METHODS_PER_LEVEL = 160;
+
+	private static final List<String> ENTRY_POINTS = Arrays.asList(
+			"<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void genericsfinalconstructorProblem()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void testPointsToSet()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void methodTainted()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void method2()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void method3()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void method4()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void method5()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void method6()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void innerClassTest()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void multiCallTest()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void passOverTest()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void loopTest()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void dataObjectTest()>",
+			"<soot.jimple.infoflow.test.OtherTestCode: void accessPathTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>",
+			"<soot.jimple.infoflow.test.ListTestCode: void writeReadTest()>",
+			"<soot.jimple.infoflow.test.ListTestCode: void concreteWriteReadPos0Test()>");
+
+	/**
+	 * Handler that records when the solver propagates its first taint and
+	 * when the results become available
+	 */
+	private static class TimingHandler implements TaintPropagationHandler,
+			ResultsAvailableHandler {
+
+		private volatile long firstPropagation = 0;
+		private volatile long resultsAvailable = 0;
+		private volatile int resultCount = 0;
+
+		@Override
+		public void notifyFlowIn(Unit stmt, Abstraction taint,
+				BiDiInterproceduralCFG<Unit, SootMethod> cfg,
+				FlowFunctionType type) {
+			if (firstPropagation == 0)
+				firstPropagation = System.nanoTime();
+		}
+
+		@Override
+		public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction incoming,
+				Set<Abstraction> outgoing,
+				BiDiInterproceduralCFG<Unit, SootMethod> cfg,
+				FlowFunctionType type) {
+			return outgoing;
+		}
+
+		@Override
+		public void onResultsAvailable(IInfoflowCFG cfg, InfoflowResults results) {
+			resultsAvailable = System.nanoTime();
+			resultCount = results.size();
+		}
+
+	}
+
+	/**
+	 * Runs the given data flow analysis until the first flow is found
+	 * @param infoflow The data flow analysis to run
+	 * @param strategy The scheduling strategy to use
+	 * @param generator The generator for the program to analyze, or null to
+	 * analyze the test methods
+	 * @return The time from the first propagated taint until the results
+	 * were available in nanoseconds
+	 */
+	private long measure(Infoflow infoflow, SchedulingStrategy strategy,
+			SyntheticProgramGenerator generator) {
+		infoflow.setSchedulingStrategy(strategy);
+		infoflow.setStopAfterFirstFlow(true);
+		TimingHandler handler = new TimingHandler();
+		infoflow.addTaintPropagationHandler(handler);
+		infoflow.addResultsAvailableHandler(handler);
+		if (generator == null)
+			infoflow.computeInfoflow(appPath, libPath, new ArrayList<String>(ENTRY_POINTS),
+					sources, sinks);
+		else
+			infoflow.computeInfoflow(appPath, libPath, generator,
+					generator.getSources(), generator.getSinks());
+
+		assertTrue(handler.resultCount > 0);
+		return handler.resultsAvailable - handler.firstPropagation;
+	}
+
+	private long measureTestMethods(SchedulingStrategy strategy) {
+		soot.G.reset();
+		return measure(initInfoflow(), strategy, null);
+	}
+
+	private long measureSynthetic(SchedulingStrategy strategy) {
+		SyntheticProgramGenerator generator = createGenerator(SYNTHETIC_METHODS_PER_LEVEL);
+		return measure(createInfoflow(), strategy, generator);
+	}
+
+	private long median(List<Long> values) {
+		List<Long> sorted = new ArrayList<Long>(values);
+		Collections.sort(sorted);
+		return sorted.get(sorted.size() / 2);
+	}
+
+	private void printTimes(String program, List<Long> fifoTimes,
+			List<Long> sinkDirectedTimes) {
+		System.out.println("Time to first result on " + program + " (median of "
+				+ RUNS + " runs):");
+		System.out.println("  FIFO:          " + median(fifoTimes) / 1E6 + " ms " + fifoTimes);
+		System.out.println("  Sink-directed: " + median(sinkDirectedTimes) / 1E6 + " ms " + sinkDirectedTimes);
+	}
+
+	@Test
+	public void timeToFirstResult() {
+		List<Long> fifoTimes = new ArrayList<Long>();
+		List<Long> sinkDirectedTimes = new ArrayList<Long>();
+
+		// Alternate between the strategies so that JIT warm-up affects both
+		// the same way. The first round is only for warm-up.
+		for (int i = 0; i <= RUNS; i++) {
+			long fifo = measureTestMethods(SchedulingStrategy.ThreadPool);
+			long sinkDirected = measureTestMethods(SchedulingStrategy.SinkDirected);
+			if (i > 0) {
+				fifoTimes.add(fifo);
+				sinkDirectedTimes.add(sinkDirected);
+			}
+		}
+		printTimes("the test methods", fifoTimes, sinkDirectedTimes);
+	}
+
+	@Test
+	public void timeToFirstResultSynthetic() {
+		List<Long> fifoTimes = new ArrayList<Long>();
+		List<Long> sinkDirectedTimes = new ArrayList<Long>();
+
+		for (int i = 0; i <= RUNS; i++) {
+			long fifo = measureSynthetic(SchedulingStrategy.ThreadPool);
+			long sinkDirected = measureSynthetic(SchedulingStrategy.SinkDirected);
+			if (i > 0) {
+				fifoTimes.add(fifo);
+				sinkDirectedTimes.add(sinkDirected);
+			}
+		}
+		printTimes("a generated program with " + SYNTHETIC_METHODS_PER_LEVEL
+				+ " methods per level", fifoTimes, sinkDirectedTimes);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.solver.fastSolver.FlowTargetList;
+/**
+ * checks that the reusable flow function target collector behaves like a set
+ */
+public class FlowTargetListTests {
+
+	@Test(timeout=300000)
+	public void duplicateTest() {
+		FlowTargetList<String> targets = new FlowTargetList<String>();
+		String a = new String("a");
+		targets.addTarget(a);
+		targets.addTarget(new String("a"));
+		targets.addTarget("b");
+		assertEquals(2, targets.size());
+
+		// The first of two equal targets is kept
+		assertSame(a, targets.get(0));
+		assertEquals("b", targets.get(1));
+		assertEquals(2, targets.toSet().size());
+	}
+
+	@Test(timeout=300000)
+	public void manyTargetsTest() {
+		FlowTargetList<Integer> targets = new FlowTargetList<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			targets.addTarget(i);
+			targets.addTarget(i);
+		}
+		assertEquals(1000, targets.size());
+		for (int i = 0; i < 1000; i++)
+			assertEquals(Integer.valueOf(i), targets.get(i));
+
+		// The collector must be reusable after clearing it
+		targets.clear();
+		assertEquals(0, targets.size());
+		assertTrue(targets.toSet().isEmpty());
+		targets.addTarget(1);
+		targets.addTarget(1);
+		assertEquals(1, targets.size());
+	}
+
+}
@@ -18,14 +18,20 @@ import static org.junit.Assert.fail;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
 import soot.jimple.infoflow.Infoflow;
 import soot.jimple.infoflow.config.ConfigForTest;
 import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
 import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
 /**
  * abstract super class of all test cases which handles initialization, keeps track of sources and sinks and allows to customize the tests (taintWrapper, debug)
@@ -126,6 +132,67 @@ public abstract class JUnitTests {
     	}
 	  }
     
+    /**
+     * Switches one option of a data flow analysis on or off, so that tests
+     * can compare the results with and without it
+     */
+    public interface InfoflowConfigurator {
+    	
+    	/**
+    	 * Applies the option to the given data flow analysis
+    	 * @param infoflow The data flow analysis to configure
+    	 * @param enabled True if the option shall be enabled, otherwise false
+    	 */
+    	public void configure(Infoflow infoflow, boolean enabled);
+    	
+    }
+    
+    /**
+     * Gets the source-to-sink connections found by the given data flow
+     * analysis. Statements are not comparable across Soot runs, so the
+     * connections are returned as their textual representations.
+     * @param infoflow The data flow analysis that has been run
+     * @return The textual representations of the connections found
+     */
+    public static Set<String> getResultStrings(Infoflow infoflow) {
+    	Set<String> results = new HashSet<String>();
+    	if (infoflow.isResultAvailable())
+    		for (Entry<ResultSinkInfo, Set<ResultSourceInfo>> entry :
+    				infoflow.getResults().getResults().entrySet())
+    			for (ResultSourceInfo source : entry.getValue())
+    				results.add(entry.getKey() + " <- " + source);
+    	return results;
+    }
+    
+    /**
+     * Runs the data flow analysis on the given entry point
+     * @param entryPoint The entry point from which to start the analysis
+     * @param configurator The configurator for the option under test
+     * @param enabled True if the option shall be enabled, otherwise false
+     * @return The source-to-sink connections found by the analysis
+     */
+    protected Set<String> computeResults(String entryPoint,
+    		InfoflowConfigurator configurator, boolean enabled) {
+    	soot.G.reset();
+    	Infoflow infoflow = initInfoflow();
+    	configurator.configure(infoflow, enabled);
+    	List<String> epoints = new ArrayList<String>();
+    	epoints.add(entryPoint);
+    	infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+    	return getResultStrings(infoflow);
+    }
+    
+    /**
+     * Checks that the data flow analysis finds the same source-to-sink
+     * connections on the given entry point with and without an option
+     * @param entryPoint The entry point from which to start the analysis
+     * @param configurator The configurator for the option under test
+     */
+    protected void checkSameResults(String entryPoint, InfoflowConfigurator configurator) {
+    	assertEquals(computeResults(entryPoint, configurator, false),
+    			computeResults(entryPoint, configurator, true));
+    }
+    
     protected Infoflow initInfoflow(){
     	return initInfoflow(false);
     }
@@ -134,6 +201,21 @@ public abstract class JUnitTests {
     	Infoflow result = new Infoflow();
     	ConfigForTest testConfig = new ConfigForTest();
     	result.setSootConfig(testConfig);
+    	// Allows running the whole suite with and without method batching,
+    	// merge point checking, sparse propagation, abstraction
+    	// canonicalization, results-only mode, sink-first analysis, lazy path
+    	// reconstruction, the different solver pool modes, and sharding, see
+    	// the "runtests" target
+    	result.setEnableMethodBatching(Boolean.getBoolean("infoflow.methodBatching"));
+    	result.setEnableMergePointChecking(Boolean.getBoolean("infoflow.mergePointChecking"));
+    	result.setEnableSparsePropagation(Boolean.getBoolean("infoflow.sparsePropagation"));
+    	result.setEnableAbstractionCanonicalization(Boolean.getBoolean("infoflow.canonicalAbstractions"));
+    	result.setEnableResultsOnlyMode(Boolean.getBoolean("infoflow.resultsOnly"));
+    	result.setEnableSinkFirstAnalysis(Boolean.getBoolean("infoflow.sinkFirst"));
+    	result.setEnableLazyPathReconstruction(Boolean.getBoolean("infoflow.lazyPaths"));
+    	result.setSolverPoolMode(SolverPoolMode.valueOf(System.getProperty(
+    			"infoflow.solverPoolMode", SolverPoolMode.Shared.name())));
+    	result.setShardCount(Integer.getInteger("infoflow.shardCount", 1));
     	if (useTaintWrapper){
     		EasyTaintWrapper easyWrapper;
 			try {
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.solver.fastSolver.CompactJumpFunctions;
+/**
+ * checks that the compact jump function table behaves like the map-based one
+ */
+public class JumpFunctionsTests {
+
+	@Test(timeout=300000)
+	public void compactAddFunctionTest() {
+		CompactJumpFunctions<String, String> jumpFn = new CompactJumpFunctions<String, String>();
+		String d2 = new String("b");
+		assertNull(jumpFn.addFunction("a", "n", d2));
+
+		// An equal, but not identical fact must yield the first registered one
+		assertSame(d2, jumpFn.addFunction("a", "n", new String("b")));
+		assertNull(jumpFn.addFunction("b", "n", "a"));
+		assertNull(jumpFn.addFunction("a", "m", "b"));
+		assertEquals(3, jumpFn.size());
+	}
+
+	@Test(timeout=300000)
+	public void compactGrowTest() {
+		CompactJumpFunctions<Integer, Integer> jumpFn = new CompactJumpFunctions<Integer, Integer>();
+		for (int i = 0; i < 100000; i++)
+			assertNull(jumpFn.addFunction(i % 7, i % 1000, i));
+		for (int i = 0; i < 100000; i++)
+			assertEquals(Integer.valueOf(i), jumpFn.addFunction(i % 7, i % 1000, i));
+		assertEquals(100000, jumpFn.size());
+
+		jumpFn.clear();
+		assertEquals(0, jumpFn.size());
+		assertNull(jumpFn.addFunction(0, 0, 0));
+	}
+
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.PathHandle;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+
+/**
+ * Checks that the propagation paths can be reconstructed for single results
+ * after the data flow analysis has finished
+ */
+public class LazyPathTests extends JUnitTests {
+
+	private void checkLazyPaths(String entryPoint, int resultCount) {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setEnableLazyPathReconstruction(true);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add(entryPoint);
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, resultCount);
+
+		InfoflowResults results = infoflow.getResults();
+		for (Entry<ResultSinkInfo, Set<ResultSourceInfo>> entry : results.getResults().entrySet())
+			for (ResultSourceInfo source : entry.getValue()) {
+				PathHandle handle = results.getPathHandle(entry.getKey(), source);
+				assertNotNull(handle);
+				List<Stmt> path = results.reconstructPath(handle);
+				assertNotNull(path);
+				assertEquals(source.getSource(), path.get(0));
+				assertEquals(entry.getKey().getSink(), path.get(path.size() - 1));
+
+				// Up front, the results only contain the call sites on the way
+				if (source.getPath() != null)
+					assertTrue(path.containsAll(source.getPath()));
+
+				// Asking again must give the same path
+				assertEquals(path, results.reconstructPath(handle));
+			}
+	}
+
+	@Test(timeout = 300000)
+	public void fieldPathTest() {
+		checkLazyPaths("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>", 2);
+	}
+
+	@Test(timeout = 300000)
+	public void aliasPathTest() {
+		checkLazyPaths("<soot.jimple.infoflow.test.HeapTestCode: void tripleAliasTest()>", 3);
+	}
+
+	@Test(timeout = 300000)
+	public void loopPathTest() {
+		checkLazyPaths("<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>", 1);
+	}
+
+	@Test(timeout = 300000)
+	public void noHandlesTest() {
+		Infoflow infoflow = initInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+
+		// Without lazy path reconstruction, the propagation graph is gone
+		InfoflowResults results = infoflow.getResults();
+		for (Entry<ResultSinkInfo, Set<ResultSourceInfo>> entry : results.getResults().entrySet())
+			for (ResultSourceInfo source : entry.getValue())
+				assertNull(results.getPathHandle(entry.getKey(), source));
+	}
+
+}
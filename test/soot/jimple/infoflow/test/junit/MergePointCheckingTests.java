@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+
+/**
+ * Checks that recording jump functions only at merge points yields exactly
+ * the same results as recording all jump functions
+ */
+public class MergePointCheckingTests extends JUnitTests {
+
+	private static final InfoflowConfigurator MERGE_POINT_CHECKING = new InfoflowConfigurator() {
+
+		@Override
+		public void configure(Infoflow infoflow, boolean enabled) {
+			infoflow.setEnableMergePointChecking(enabled);
+		}
+
+	};
+
+	@Test(timeout = 300000)
+	public void forLoopTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void testForLoop()>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void recursionTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void recursionTest()>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void loopCallTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MapTestCode: void loopCallTest()>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void loopPathTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void fieldTest() {
+		checkSameResults("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+				MERGE_POINT_CHECKING);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.test.synthetic.SyntheticProgramGenerator;
+
+/**
+ * Compares the solver throughput with and without method batching on
+ * generated programs of increasing size. Every configuration is run several
+ * times and the run with the median throughput is reported. Both
+ * configurations must find the same source-to-sink connections.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class MethodBatchingBenchmark extends SyntheticBenchmarkBase {
+
+	private static final int RUNS = 3;
+	private static final int[] METHODS_PER_LEVEL = { 10, 40, 160 };
+
+	private Measurement measure(int methodsPerLevel, boolean enableMethodBatching) {
+		SyntheticProgramGenerator generator = createGenerator(methodsPerLevel);
+		Infoflow infoflow = createInfoflow();
+		infoflow.setEnableMethodBatching(enableMethodBatching);
+		return measure(generator, infoflow);
+	}
+
+	private Measurement median(List<Measurement> measurements) {
+		List<Measurement> sorted = new ArrayList<Measurement>(measurements);
+		Collections.sort(sorted, new Comparator<Measurement>() {
+
+			@Override
+			public int compare(Measurement o1, Measurement o2) {
+				return Double.compare(o1.edgesPerSecond, o2.edgesPerSecond);
+			}
+
+		});
+		return sorted.get(sorted.size() / 2);
+	}
+
+	@Test
+	public void throughputWithAndWithoutBatching() {
+		// Warm up the JIT on the smallest program
+		measure(METHODS_PER_LEVEL[0], false);
+		measure(METHODS_PER_LEVEL[0], true);
+
+		System.out.println("Method batching on synthetic programs (call depth "
+				+ CALL_DEPTH + ", fan-out " + FAN_OUT + ", median of " + RUNS + " runs):");
+		for (int methodsPerLevel : METHODS_PER_LEVEL) {
+			// Alternate between the configurations so that JIT and heap
+			// effects affect both the same way
+			List<Measurement> unbatched = new ArrayList<Measurement>();
+			List<Measurement> batched = new ArrayList<Measurement>();
+			for (int i = 0; i < RUNS; i++) {
+				unbatched.add(measure(methodsPerLevel, false));
+				batched.add(measure(methodsPerLevel, true));
+			}
+
+			Measurement unbatchedMedian = median(unbatched);
+			Measurement batchedMedian = median(batched);
+			System.out.println(String.format("%6d methods per level, unbatched: %s",
+					methodsPerLevel, unbatchedMedian));
+			System.out.println(String.format("%6d methods per level, batched:   %s",
+					methodsPerLevel, batchedMedian));
+			assertEquals(unbatchedMedian.results, batchedMedian.results);
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.RefType;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.NeighborSet;
+import soot.jimple.infoflow.source.SourceInfo;
+import soot.jimple.internal.JimpleLocal;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Compares the cost of registering neighbors at a hot join point between a
+ * synchronized identity set that is scanned linearly for identical
+ * neighbors, as abstractions used to do, and the lock-free
+ * {@link NeighborSet}. Several threads concurrently add the same neighbors,
+ * so that every neighbor is offered once per thread.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class NeighborSetBenchmark {
+
+	private static final int RUNS = 5;
+	private static final int THREADS = 4;
+	private static final int NEIGHBOR_COUNT = 4000;
+
+	/**
+	 * Neighbor registration as it was done in the abstraction itself
+	 */
+	private static class LockedNeighbors {
+
+		private Set<Abstraction> neighbors = null;
+
+		public synchronized void add(Abstraction neighbor) {
+			if (neighbors == null)
+				neighbors = Sets.newIdentityHashSet();
+			else
+				for (Abstraction nb : neighbors)
+					if (neighbor.getPredecessor() == nb.getPredecessor()
+							&& neighbor.getCurrentStmt() == nb.getCurrentStmt())
+						return;
+			neighbors.add(neighbor);
+		}
+
+		public synchronized int size() {
+			return neighbors.size();
+		}
+
+	}
+
+	private interface NeighborSink {
+		public void add(Abstraction neighbor);
+	}
+
+	private List<Abstraction> createNeighbors() {
+		soot.G.reset();
+		AccessPath accessPath = new AccessPath(new JimpleLocal("x",
+				RefType.v("java.lang.Object")), true);
+		Stmt stmt = Jimple.v().newNopStmt();
+		List<Abstraction> neighbors = new ArrayList<Abstraction>();
+		for (int i = 0; i < NEIGHBOR_COUNT; i++) {
+			JimpleLocal source = new JimpleLocal("s" + i, RefType.v("java.lang.Object"));
+			Abstraction pred = new Abstraction(source, new SourceInfo(true),
+					new AccessPath(source, true), Jimple.v().newNopStmt(), false, false);
+			neighbors.add(pred.deriveNewAbstraction(accessPath, stmt));
+		}
+		return neighbors;
+	}
+
+	private long measure(final List<Abstraction> neighbors, final NeighborSink sink)
+			throws InterruptedException {
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t * NEIGHBOR_COUNT / THREADS;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < neighbors.size(); i++)
+						sink.add(neighbors.get((i + offset) % neighbors.size()));
+				}
+			});
+		}
+
+		long start = System.nanoTime();
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		return System.nanoTime() - start;
+	}
+
+	private long median(List<Long> values) {
+		List<Long> sorted = new ArrayList<Long>(values);
+		Collections.sort(sorted);
+		return sorted.get(sorted.size() / 2);
+	}
+
+	@Test
+	public void hotJoinPoint() throws InterruptedException {
+		List<Abstraction> neighbors = createNeighbors();
+		List<Long> lockedTimes = new ArrayList<Long>();
+		List<Long> lockFreeTimes = new ArrayList<Long>();
+
+		// The first round is only for warm-up
+		for (int i = 0; i <= RUNS; i++) {
+			final LockedNeighbors locked = new LockedNeighbors();
+			long lockedTime = measure(neighbors, new NeighborSink() {
+				@Override
+				public void add(Abstraction neighbor) {
+					locked.add(neighbor);
+				}
+			});
+			assertEquals(NEIGHBOR_COUNT, locked.size());
+
+			final NeighborSet lockFree = new NeighborSet();
+			long lockFreeTime = measure(neighbors, new NeighborSink() {
+				@Override
+				public void add(Abstraction neighbor) {
+					lockFree.add(neighbor);
+				}
+			});
+			int count = 0;
+			for (Abstraction nb : lockFree)
+				if (nb != null)
+					count++;
+			assertEquals(NEIGHBOR_COUNT, count);
+
+			if (i > 0) {
+				lockedTimes.add(lockedTime);
+				lockFreeTimes.add(lockFreeTime);
+			}
+		}
+
+		System.out.println("Registering " + NEIGHBOR_COUNT + " neighbors from " + THREADS
+				+ " threads (median of " + RUNS + " runs):");
+		System.out.println("  Synchronized linear scan: " + median(lockedTimes) / 1E6 + " ms " + lockedTimes);
+		System.out.println("  Lock-free neighbor set:   " + median(lockFreeTimes) / 1E6 + " ms " + lockFreeTimes);
+	}
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import soot.RefType;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.data.NeighborSet;
+import soot.jimple.infoflow.source.SourceInfo;
+import soot.jimple.internal.JimpleLocal;
+
+/**
+ * checks that neighbor sets keep exactly one neighbor per predecessor and
+ * statement, also when they are filled and read concurrently
+ */
+public class NeighborSetTests {
+
+	private static final int THREADS = 4;
+
+	private JimpleLocal local;
+	private AccessPath accessPath;
+
+	@Before
+	public void setUp() {
+		soot.G.reset();
+		local = new JimpleLocal("x", RefType.v("java.lang.Object"));
+		accessPath = new AccessPath(local, true);
+	}
+
+	/**
+	 * Creates the given number of distinct source abstractions that can be
+	 * used as predecessors
+	 */
+	private List<Abstraction> createPredecessors(int count) {
+		List<Abstraction> preds = new ArrayList<Abstraction>();
+		for (int i = 0; i < count; i++) {
+			JimpleLocal source = new JimpleLocal("s" + i, RefType.v("java.lang.Object"));
+			preds.add(new Abstraction(source, new SourceInfo(true),
+					new AccessPath(source, true), Jimple.v().newNopStmt(), false, false));
+		}
+		return preds;
+	}
+
+	private List<Stmt> createStmts(int count) {
+		List<Stmt> stmts = new ArrayList<Stmt>();
+		for (int i = 0; i < count; i++)
+			stmts.add(Jimple.v().newNopStmt());
+		return stmts;
+	}
+
+	private int countNeighbors(Iterable<Abstraction> neighbors) {
+		Map<Abstraction, Abstraction> seen = new IdentityHashMap<Abstraction, Abstraction>();
+		for (Abstraction nb : neighbors)
+			assertNull(seen.put(nb, nb));
+		return seen.size();
+	}
+
+	@Test(timeout=300000)
+	public void dedupTest() {
+		List<Abstraction> preds = createPredecessors(50);
+		List<Stmt> stmts = createStmts(20);
+		NeighborSet set = new NeighborSet();
+		for (Abstraction pred : preds)
+			for (Stmt stmt : stmts) {
+				assertTrue(set.add(pred.deriveNewAbstraction(accessPath, stmt)));
+				assertFalse(set.add(pred.deriveNewAbstraction(accessPath, stmt)));
+			}
+		assertEquals(preds.size() * stmts.size(), countNeighbors(set));
+	}
+
+	@Test(timeout=300000)
+	public void addNeighborTest() {
+		List<Abstraction> preds = createPredecessors(10);
+		Stmt stmt = Jimple.v().newNopStmt();
+		Abstraction abs = preds.get(0).deriveNewAbstraction(accessPath, stmt);
+		assertNull(abs.getNeighbors());
+
+		// An abstraction with the same predecessor and statement is no
+		// neighbor
+		abs.addNeighbor(preds.get(0).deriveNewAbstraction(accessPath, stmt));
+		assertNull(abs.getNeighbors());
+
+		for (Abstraction pred : preds.subList(1, preds.size())) {
+			abs.addNeighbor(pred.deriveNewAbstraction(accessPath, stmt));
+			abs.addNeighbor(pred.deriveNewAbstraction(accessPath, stmt));
+		}
+		assertEquals(preds.size() - 1, countNeighbors(abs.getNeighbors()));
+	}
+
+	@Test(timeout=300000)
+	public void concurrentAddTest() throws InterruptedException {
+		final List<Abstraction> preds = createPredecessors(100);
+		final List<Stmt> stmts = createStmts(30);
+		final Abstraction abs = preds.get(0).deriveNewAbstraction(accessPath, stmts.get(0));
+		final CountDownLatch start = new CountDownLatch(1);
+
+		// All threads add the same neighbors in different orders, and read
+		// the set while doing so
+		List<Thread> threads = new ArrayList<Thread>();
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t;
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i = 0; i < preds.size(); i++) {
+							Abstraction pred = preds.get((i + offset * 17) % preds.size());
+							for (Stmt stmt : stmts)
+								abs.addNeighbor(pred.deriveNewAbstraction(accessPath, stmt));
+							countNeighbors(abs.getNeighbors());
+						}
+					}
+					catch (Throwable ex) {
+						errors.add(ex);
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads)
+			thread.join();
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(preds.size() * stmts.size() - 1, countNeighbors(abs.getNeighbors()));
+	}
+
+}
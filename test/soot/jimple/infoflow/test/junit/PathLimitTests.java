@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import soot.jimple.Stmt;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.results.ResultSinkInfo;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+
+/**
+ * Checks that the path builders stop enumerating paths when a path limit is
+ * reached and record this in the results
+ */
+public class PathLimitTests extends JUnitTests {
+
+	@After
+	public void resetPathAgnosticResults() {
+		Infoflow.setPathAgnosticResults(true);
+	}
+
+	private Infoflow initPathInfoflow(PathBuilder pathBuilder) {
+		// Every branch yields a separate path to the sink
+		Infoflow.setPathAgnosticResults(false);
+		Infoflow infoflow = new Infoflow("", false, null,
+				new DefaultPathBuilderFactory(pathBuilder, true));
+		infoflow.setSootConfig(new ConfigForTest());
+		return infoflow;
+	}
+
+	private void computeMultiPath(Infoflow infoflow) {
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.MultiTestCode: void multiPathTestCode1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		assertTrue(infoflow.isResultAvailable());
+	}
+
+	/**
+	 * Gets the largest number of paths reported for a single pair of source
+	 * and sink
+	 */
+	private int getMaxPathsPerPair(InfoflowResults results) {
+		int maxPaths = 0;
+		for (Set<ResultSourceInfo> sourceInfos : results.getResults().values()) {
+			Map<Stmt, Integer> pathCounts = new HashMap<Stmt, Integer>();
+			for (ResultSourceInfo source : sourceInfos) {
+				Integer pathCount = pathCounts.get(source.getSource());
+				pathCount = pathCount == null ? 1 : pathCount + 1;
+				pathCounts.put(source.getSource(), pathCount);
+				maxPaths = Math.max(maxPaths, pathCount);
+			}
+		}
+		return maxPaths;
+	}
+
+	@Test(timeout = 300000)
+	public void withinLimitsTest() {
+		Infoflow infoflow = initPathInfoflow(PathBuilder.ContextSensitive);
+		infoflow.setMaxPathsPerPair(100);
+		infoflow.setMaxPathLength(100);
+		infoflow.setPathBuildingSinkTimeout(3600);
+		computeMultiPath(infoflow);
+		assertEquals(1, infoflow.getResults().size());
+		assertTrue(getMaxPathsPerPair(infoflow.getResults()) > 2);
+		assertFalse(infoflow.getResults().isPathsTruncated());
+	}
+
+	@Test(timeout = 300000)
+	public void maxPathsTest() {
+		Infoflow infoflow = initPathInfoflow(PathBuilder.ContextSensitive);
+		infoflow.setMaxPathsPerPair(2);
+		computeMultiPath(infoflow);
+		assertEquals(1, infoflow.getResults().size());
+		assertEquals(2, getMaxPathsPerPair(infoflow.getResults()));
+		assertTrue(infoflow.getResults().isPathsTruncated());
+		for (ResultSinkInfo sink : infoflow.getResults().getResults().keySet())
+			assertTrue(infoflow.getResults().getTruncatedSinks().contains(sink));
+	}
+
+	@Test(timeout = 300000)
+	public void maxPathsOtherSourceTest() {
+		// One source exceeding its limit must not hide the other source
+		Infoflow infoflow = initPathInfoflow(PathBuilder.ContextSensitive);
+		infoflow.setMaxPathsPerPair(1);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.MultiTestCode: void multiPathTestCode2()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		assertTrue(infoflow.isResultAvailable());
+		assertTrue(infoflow.getResults().isPathBetweenMethods(sink, sourcePwd));
+		assertTrue(infoflow.getResults().isPathBetweenMethods(sink, sourceDeviceId));
+		assertEquals(1, getMaxPathsPerPair(infoflow.getResults()));
+		assertTrue(infoflow.getResults().isPathsTruncated());
+	}
+
+	@Test(timeout = 300000)
+	public void maxPathLengthTest() {
+		Infoflow infoflow = initPathInfoflow(PathBuilder.ContextSensitive);
+		infoflow.setMaxPathLength(2);
+		computeMultiPath(infoflow);
+		assertTrue(infoflow.getResults().isEmpty());
+		assertTrue(infoflow.getResults().isPathsTruncated());
+	}
+
+	@Test(timeout = 300000)
+	public void recursiveMaxPathLengthTest() {
+		Infoflow infoflow = initPathInfoflow(PathBuilder.Recursive);
+		infoflow.setMaxPathLength(2);
+		computeMultiPath(infoflow);
+		assertTrue(infoflow.getResults().isEmpty());
+		assertTrue(infoflow.getResults().isPathsTruncated());
+	}
+
+	@Test(timeout = 300000)
+	public void sinkTimeoutTest() {
+		Infoflow infoflow = initPathInfoflow(PathBuilder.ContextSensitive);
+		infoflow.setPathBuildingSinkTimeout(0);
+		computeMultiPath(infoflow);
+		assertTrue(infoflow.getResults().isEmpty());
+		assertTrue(infoflow.getResults().isPathsTruncated());
+	}
+
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+
+/**
+ * Checks that the results-only mode, in which abstractions carry their
+ * sources instead of their predecessors, finds exactly the same
+ * source-to-sink connections as the regular path building
+ */
+public class ResultsOnlyModeTests extends JUnitTests {
+
+	private static final InfoflowConfigurator RESULTS_ONLY = new InfoflowConfigurator() {
+
+		@Override
+		public void configure(Infoflow infoflow, boolean enabled) {
+			infoflow.setEnableResultsOnlyMode(enabled);
+		}
+
+	};
+
+	@Test(timeout = 300000)
+	public void aliasTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void fieldTest() {
+		checkSameResults("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void loopPathTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void multiSourceTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void intMultiTest()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void sameSourceTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void sameSourceMultiTest1()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void exceptionTest() {
+		checkSameResults("<soot.jimple.infoflow.test.ExceptionTestCode: void exceptionControlFlowTest1()>",
+				RESULTS_ONLY);
+	}
+
+	@Test(timeout = 300000)
+	public void implicitFlowTest() {
+		soot.G.reset();
+		Infoflow infoflow = initInfoflow();
+		infoflow.setEnableResultsOnlyMode(true);
+		infoflow.setEnableImplicitFlows(true);
+		infoflow.setInspectSinks(false);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.ImplicitFlowTestCode: void simpleTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow.JumpFunctionsBackend;
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
+import soot.jimple.infoflow.Infoflow;
+
+/**
+ * Tests that the alternative scheduling strategies for the solver tasks
+ * produce the same results as the default thread pool
+ */
+public class SchedulingTests extends JUnitTests {
+
+	@Test(timeout = 300000)
+	public void workStealingHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.WorkStealing);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void workStealingNegativeHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.WorkStealing);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest0()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		negativeCheckInfoflow(infoflow);
+	}
+
+	@Test(timeout = 300000)
+	public void workStealingFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.WorkStealing);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void methodBatchingHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setEnableMethodBatching(true);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void methodBatchingWorkStealingFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.WorkStealing);
+		infoflow.setEnableMethodBatching(true);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void compactJumpFunctionsHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setJumpFunctionsBackend(JumpFunctionsBackend.Compact);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void compactJumpFunctionsFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setJumpFunctionsBackend(JumpFunctionsBackend.Compact);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void sinkDirectedHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.SinkDirected);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void sinkDirectedFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.SinkDirected);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void sinkDirectedStopAfterFirstFlowTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.SinkDirected);
+		infoflow.setStopAfterFirstFlow(true);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		
+		// Concurrent workers may have found more flows before the analysis
+		// was stopped
+		assertTrue(infoflow.isResultAvailable());
+		assertTrue(infoflow.getResults().size() >= 1);
+	}
+
+	@Test(timeout = 300000)
+	public void separatePoolsHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSolverPoolMode(SolverPoolMode.Separate);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void separatePoolsWorkStealingFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.WorkStealing);
+		infoflow.setSolverPoolMode(SolverPoolMode.Separate);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void weightedHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSolverPoolMode(SolverPoolMode.Weighted);
+		infoflow.setSolverWeights(1, 4);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void weightedSinkDirectedFieldTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSchedulingStrategy(SchedulingStrategy.SinkDirected);
+		infoflow.setSolverPoolMode(SolverPoolMode.Weighted);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void weightedNegativeHeapTest() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSolverPoolMode(SolverPoolMode.Weighted);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest0()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		negativeCheckInfoflow(infoflow);
+	}
+
+}
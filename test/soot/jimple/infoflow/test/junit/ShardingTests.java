@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow.ShardTransport;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.results.ResultSourceInfo;
+import soot.jimple.infoflow.sharding.ShardCompletion;
+import soot.jimple.infoflow.sharding.ShardCoordinator;
+import soot.jimple.infoflow.sharding.ShardJob;
+import soot.jimple.infoflow.sharding.ShardObjectInputStream;
+import soot.jimple.infoflow.sharding.ShardWorker;
+import soot.jimple.infoflow.sharding.SocketShardTransport;
+import soot.jimple.infoflow.sharding.StmtKey;
+
+/**
+ * Tests that distributing the seeds among several worker processes produces
+ * the same results as the analysis in a single process
+ */
+public class ShardingTests extends JUnitTests {
+
+	private Infoflow initShardedInfoflow(int shardCount, ShardTransport transport) {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setShardCount(shardCount);
+		infoflow.setShardTransport(transport);
+		return infoflow;
+	}
+
+	@Test(timeout = 300000)
+	public void fileTransportHeapTest() {
+		Infoflow infoflow = initShardedInfoflow(2, ShardTransport.File);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void fileTransportTripleAliasTest() {
+		Infoflow infoflow = initShardedInfoflow(3, ShardTransport.File);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void tripleAliasTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 3);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void socketTransportFieldTest() {
+		Infoflow infoflow = initShardedInfoflow(2, ShardTransport.Socket);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void fileTransportMultiSourceTest() {
+		Infoflow infoflow = initShardedInfoflow(2, ShardTransport.File);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 3);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void socketTransportMultiSourceTest() {
+		Infoflow infoflow = initShardedInfoflow(2, ShardTransport.Socket);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 3);
+		assertFalse(infoflow.getResults().isIncomplete());
+	}
+
+	@Test(timeout = 300000)
+	public void shardedPathReconstructionTest() {
+		Infoflow infoflow = new Infoflow("", false, null,
+				new DefaultPathBuilderFactory(PathBuilder.ContextSensitive, true));
+		infoflow.setSootConfig(new ConfigForTest());
+		infoflow.setShardCount(2);
+		infoflow.setShardTransport(ShardTransport.Socket);
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+
+		// The paths must have been translated into our own scene
+		for (Set<ResultSourceInfo> sources : infoflow.getResults().getResults().values())
+			for (ResultSourceInfo source : sources) {
+				assertNotNull(source.getPath());
+				assertFalse(source.getPath().isEmpty());
+			}
+	}
+
+	@Test
+	public void partitionTest() {
+		StmtKey a = new StmtKey("<A: void a()>", 0, "a");
+		StmtKey b = new StmtKey("<A: void a()>", 3, "b");
+		StmtKey c = new StmtKey("<B: void b()>", 1, "c");
+
+		List<List<StmtKey>> partitions = ShardCoordinator.partition(Arrays.asList(c, a, b), 2);
+		assertEquals(2, partitions.size());
+		assertEquals(Arrays.asList(a, c), partitions.get(0));
+		assertEquals(Collections.singletonList(b), partitions.get(1));
+
+		// We never create empty shards
+		assertEquals(1, ShardCoordinator.partition(Collections.singletonList(a), 4).size());
+	}
+
+	@Test(timeout = 300000)
+	public void socketTransportRejectsUnauthenticatedPeerTest() throws Exception {
+		SocketShardTransport transport = new SocketShardTransport();
+		try {
+			ShardJob job = new ShardJob().forShard(0, 1, Collections.<StmtKey>emptyList());
+			List<String> args = transport.prepare(job);
+
+			// Another local process connects before the worker does. It does
+			// not know the token and must not receive the job.
+			Socket intruder = new Socket(InetAddress.getLoopbackAddress(),
+					Integer.parseInt(args.get(1)));
+			intruder.getOutputStream().write(new byte[32]);
+			intruder.getOutputStream().flush();
+
+			List<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin"
+					+ File.separator + "java");
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(ShardWorker.class.getName());
+			command.addAll(args);
+			ProcessBuilder pb = new ProcessBuilder(command);
+			pb.redirectOutput(Redirect.INHERIT);
+			pb.redirectError(Redirect.INHERIT);
+			Process worker = pb.start();
+			try {
+				// The worker gets its job, which is incomplete, so it reports
+				// an error
+				ObjectInputStream in = transport.receive(job, worker);
+				Object obj = in.readObject();
+				assertTrue(obj instanceof ShardCompletion);
+				assertNotNull(((ShardCompletion) obj).getError());
+				assertEquals(-1, intruder.getInputStream().read());
+			}
+			finally {
+				worker.destroy();
+				intruder.close();
+			}
+		}
+		finally {
+			transport.close();
+		}
+	}
+
+	@Test
+	public void objectFilterTest() throws Exception {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bos);
+		out.writeObject(new StmtKey("<A: void a()>", 0, "a"));
+		out.writeObject(new int[] { 1 });
+		out.writeObject(new java.util.Date());
+		out.close();
+
+		ObjectInputStream in = new ShardObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+		assertTrue(in.readObject() instanceof StmtKey);
+		assertTrue(in.readObject() instanceof int[]);
+		try {
+			in.readObject();
+			fail("Deserialized a class that is not part of the shard messages");
+		}
+		catch (InvalidClassException ex) {
+			// expected
+		}
+		in.close();
+	}
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Tests that pruning the sources in a backward pass from the sinks does not
+ * change the results of the data flow analysis
+ */
+public class SinkFirstTests extends JUnitTests {
+
+	private static final InfoflowConfigurator SINK_FIRST = new InfoflowConfigurator() {
+
+		@Override
+		public void configure(Infoflow infoflow, boolean enabled) {
+			infoflow.setEnableSinkFirstAnalysis(enabled);
+		}
+
+	};
+
+	private Infoflow initSinkFirstInfoflow() {
+		Infoflow infoflow = initInfoflow();
+		infoflow.setEnableSinkFirstAnalysis(true);
+		return infoflow;
+	}
+
+	@Test(timeout = 300000)
+	public void tripleAliasTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void tripleAliasTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 3);
+	}
+
+	@Test(timeout = 300000)
+	public void fieldTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+	}
+
+	@Test(timeout = 300000)
+	public void callTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method2()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void exceptionTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.ExceptionTestCode: void exceptionControlFlowTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void taintWrapperTest() throws IOException {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		infoflow.setTaintWrapper(new EasyTaintWrapper(new File("EasyTaintWrapperSource.txt")));
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.ExceptionTestCode: void exceptionControlFlowTest1()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 1);
+	}
+
+	@Test(timeout = 300000)
+	public void bodilessCalleeTest() {
+		// System.arraycopy() has no body, so the backward pass must assume
+		// that the source array flows into the array that reaches the sink
+		String entryPoint = "<soot.jimple.infoflow.test.ArrayTestCode: void nativeCopyTest()>";
+		Set<String> expected = computeResults(entryPoint, SINK_FIRST, false);
+		assertEquals(2, expected.size());
+		assertEquals(expected, computeResults(entryPoint, SINK_FIRST, true));
+	}
+
+	@Test(timeout = 300000)
+	public void multiSourceTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 3);
+	}
+
+	@Test(timeout = 300000)
+	public void negativeTest() {
+		Infoflow infoflow = initSinkFirstInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void method2NotTainted()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		negativeCheckInfoflow(infoflow);
+	}
+
+}
@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.IInfoflow.SchedulingStrategy;
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
+import soot.jimple.infoflow.solver.executors.ISolverExecutor;
+import soot.jimple.infoflow.solver.executors.SolverExecutorFactory;
+import soot.jimple.infoflow.solver.executors.SolverExecutorGroup;
+
+/**
+ * checks that executor groups only terminate once the tasks of all members
+ * are done, and that they count the tasks per member
+ */
+public class SolverExecutorGroupTests {
+
+	private static final int ROUNDS = 2000;
+
+	/**
+	 * Task that bounces between two executors, like an edge that is handed
+	 * from the forward solver to the alias solver and back
+	 */
+	private static class PingPongTask implements Runnable {
+
+		private final ISolverExecutor self;
+		private final ISolverExecutor other;
+		private final int remaining;
+		private final AtomicInteger counter;
+
+		public PingPongTask(ISolverExecutor self, ISolverExecutor other, int remaining,
+				AtomicInteger counter) {
+			this.self = self;
+			this.other = other;
+			this.remaining = remaining;
+			this.counter = counter;
+		}
+
+		@Override
+		public void run() {
+			counter.incrementAndGet();
+			if (remaining > 0)
+				other.execute(new PingPongTask(other, self, remaining - 1, counter));
+		}
+
+	}
+
+	private void checkTermination(SolverPoolMode poolMode, SchedulingStrategy strategy)
+			throws InterruptedException {
+		SolverExecutorGroup group = SolverExecutorFactory.createExecutorGroup(strategy,
+				poolMode, 4, 3, 1, true);
+		SolverExecutorGroup.Member forward = group.getMember(SolverExecutorFactory.FORWARD_SOLVER);
+		SolverExecutorGroup.Member alias = group.getMember(SolverExecutorFactory.ALIAS_SOLVER);
+		AtomicInteger counter = new AtomicInteger();
+		for (int i = 0; i < 10; i++)
+			forward.execute(new PingPongTask(forward, alias, ROUNDS, counter));
+
+		// Waiting on the forward solver must include the alias tasks
+		forward.awaitCompletion();
+		assertEquals(10 * (ROUNDS + 1), counter.get());
+		assertEquals(10 * (ROUNDS / 2 + 1), forward.getCompletedTaskCount());
+		assertEquals(10 * ROUNDS / 2, alias.getCompletedTaskCount());
+		assertEquals(0, forward.getQueueSize());
+		assertEquals(0, alias.getQueueSize());
+
+		forward.shutdown();
+		while (!group.isTerminated())
+			Thread.sleep(10);
+		assertTrue(alias.isTerminated());
+	}
+
+	@Test(timeout=300000)
+	public void separatePoolsTerminationTest() throws InterruptedException {
+		checkTermination(SolverPoolMode.Separate, SchedulingStrategy.ThreadPool);
+	}
+
+	@Test(timeout=300000)
+	public void separateWorkStealingTerminationTest() throws InterruptedException {
+		checkTermination(SolverPoolMode.Separate, SchedulingStrategy.WorkStealing);
+	}
+
+	@Test(timeout=300000)
+	public void weightedTerminationTest() throws InterruptedException {
+		checkTermination(SolverPoolMode.Weighted, SchedulingStrategy.ThreadPool);
+	}
+
+	@Test(timeout=300000)
+	public void weightedSinkDirectedTerminationTest() throws InterruptedException {
+		checkTermination(SolverPoolMode.Weighted, SchedulingStrategy.SinkDirected);
+	}
+
+	@Test(timeout=300000)
+	public void sharedTerminationTest() throws InterruptedException {
+		checkTermination(SolverPoolMode.Shared, SchedulingStrategy.ThreadPool);
+	}
+
+	@Test(timeout=300000)
+	public void queueMetricsTest() throws InterruptedException {
+		SolverExecutorGroup group = SolverExecutorFactory.createExecutorGroup(
+				SchedulingStrategy.ThreadPool, SolverPoolMode.Weighted, 1, 3, 1, true);
+		SolverExecutorGroup.Member forward = group.getMember(SolverExecutorFactory.FORWARD_SOLVER);
+		SolverExecutorGroup.Member alias = group.getMember(SolverExecutorFactory.ALIAS_SOLVER);
+
+		// Block the only worker thread, so that all other tasks have to wait
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		forward.execute(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				}
+				catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		assertTrue(started.await(60, TimeUnit.SECONDS));
+
+		final StringBuffer order = new StringBuffer();
+		for (int i = 0; i < 8; i++) {
+			forward.execute(new Runnable() {
+				@Override
+				public void run() {
+					order.append('F');
+				}
+			});
+			alias.execute(new Runnable() {
+				@Override
+				public void run() {
+					order.append('A');
+				}
+			});
+		}
+		assertEquals(8, forward.getQueueSize());
+		assertEquals(8, alias.getQueueSize());
+		assertEquals(1, forward.getActiveCount());
+		assertEquals(0, alias.getActiveCount());
+
+		release.countDown();
+		forward.awaitCompletion();
+		assertEquals(0, forward.getQueueSize());
+		assertEquals(0, alias.getQueueSize());
+
+		// While both solvers have waiting tasks, the forward solver gets
+		// three out of four
+		String executed = order.toString();
+		int forwardCount = 0;
+		for (int i = 0; i < 8; i++)
+			if (executed.charAt(i) == 'F')
+				forwardCount++;
+		assertEquals(executed, 6, forwardCount);
+		group.shutdown();
+	}
+
+	@Test(timeout=300000)
+	public void exceptionTest() throws InterruptedException {
+		SolverExecutorGroup group = SolverExecutorFactory.createExecutorGroup(
+				SchedulingStrategy.ThreadPool, SolverPoolMode.Separate, 2, 1, 1, true);
+		SolverExecutorGroup.Member forward = group.getMember(SolverExecutorFactory.FORWARD_SOLVER);
+		SolverExecutorGroup.Member alias = group.getMember(SolverExecutorFactory.ALIAS_SOLVER);
+		alias.execute(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("alias failure");
+			}
+		});
+
+		// The exception in the alias solver must also stop the forward solver
+		forward.awaitCompletion();
+		assertNotNull(forward.getException());
+		assertEquals("alias failure", forward.getException().getMessage());
+		assertTrue(forward.isTerminating());
+		while (!group.isTerminated())
+			Thread.sleep(10);
+	}
+
+}
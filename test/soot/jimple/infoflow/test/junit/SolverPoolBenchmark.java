@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.data.Abstraction;
+import soot.jimple.infoflow.handlers.ResultsAvailableHandler;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler;
+import soot.jimple.infoflow.results.InfoflowResults;
+import soot.jimple.infoflow.solver.IInfoflowCFG;
+import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
+
+/**
+ * Compares the time the solvers need when the forward solver and the alias
+ * solver share one executor, have separate thread pools, or share the worker
+ * threads by weight. All test methods below make heavy use of aliasing and
+ * are analyzed together as one program. The time is measured from the first
+ * propagated taint to the point at which the results are available, so
+ * callgraph construction is not included.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class SolverPoolBenchmark extends JUnitTests {
+
+	private static final int RUNS = 5;
+
+	private static final List<String> ENTRY_POINTS = Arrays.asList(
+			"<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void twoLevelTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void multiAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void overwriteAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void arrayAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void functionAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void functionAliasTest2()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void multiLevelTaint()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void multiLevelTaint2()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void threeLevelTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void recursionTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void returnAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void testAliases()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void aliasPerformanceTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void backwardsParameterTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void doubleAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void tripleAliasTest()>",
+			"<soot.jimple.infoflow.test.HeapTestCode: void multiAliasBaseTest()>");
+
+	/**
+	 * Handler that records when the solver propagates its first taint and
+	 * when the results become available
+	 */
+	private static class TimingHandler implements TaintPropagationHandler,
+			ResultsAvailableHandler {
+
+		private volatile long firstPropagation = 0;
+		private volatile long resultsAvailable = 0;
+		private volatile int resultCount = 0;
+
+		@Override
+		public void notifyFlowIn(Unit stmt, Abstraction taint,
+				BiDiInterproceduralCFG<Unit, SootMethod> cfg,
+				FlowFunctionType type) {
+			if (firstPropagation == 0)
+				firstPropagation = System.nanoTime();
+		}
+
+		@Override
+		public Set<Abstraction> notifyFlowOut(Unit stmt, Abstraction incoming,
+				Set<Abstraction> outgoing,
+				BiDiInterproceduralCFG<Unit, SootMethod> cfg,
+				FlowFunctionType type) {
+			return outgoing;
+		}
+
+		@Override
+		public void onResultsAvailable(IInfoflowCFG cfg, InfoflowResults results) {
+			resultsAvailable = System.nanoTime();
+			resultCount = results.size();
+		}
+
+	}
+
+	private long measure(SolverPoolMode poolMode) {
+		soot.G.reset();
+		Infoflow infoflow = initInfoflow();
+		infoflow.setSolverPoolMode(poolMode);
+		TimingHandler handler = new TimingHandler();
+		infoflow.addTaintPropagationHandler(handler);
+		infoflow.addResultsAvailableHandler(handler);
+		infoflow.computeInfoflow(appPath, libPath, new ArrayList<String>(ENTRY_POINTS),
+				sources, sinks);
+
+		assertTrue(handler.resultCount > 0);
+		return handler.resultsAvailable - handler.firstPropagation;
+	}
+
+	private long median(List<Long> values) {
+		List<Long> sorted = new ArrayList<Long>(values);
+		Collections.sort(sorted);
+		return sorted.get(sorted.size() / 2);
+	}
+
+	@Test
+	public void aliasHeavyAnalysis() {
+		List<Long> sharedTimes = new ArrayList<Long>();
+		List<Long> separateTimes = new ArrayList<Long>();
+		List<Long> weightedTimes = new ArrayList<Long>();
+
+		// Alternate between the modes so that JIT warm-up affects all of them
+		// the same way. The first round is only for warm-up.
+		for (int i = 0; i <= RUNS; i++) {
+			long shared = measure(SolverPoolMode.Shared);
+			long separate = measure(SolverPoolMode.Separate);
+			long weighted = measure(SolverPoolMode.Weighted);
+			if (i > 0) {
+				sharedTimes.add(shared);
+				separateTimes.add(separate);
+				weightedTimes.add(weighted);
+			}
+		}
+
+		System.out.println("Solver time for alias-heavy code (median of " + RUNS + " runs):");
+		System.out.println("  Shared executor: " + median(sharedTimes) / 1E6 + " ms " + sharedTimes);
+		System.out.println("  Separate pools:  " + median(separateTimes) / 1E6 + " ms " + separateTimes);
+		System.out.println("  Weighted queues: " + median(weightedTimes) / 1E6 + " ms " + weightedTimes);
+	}
+
+}
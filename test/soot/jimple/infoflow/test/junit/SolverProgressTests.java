@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.handlers.SolverProgressHandler;
+import soot.jimple.infoflow.handlers.TaintPropagationHandler.FlowFunctionType;
+import soot.jimple.infoflow.solver.fastSolver.SolverStatistics;
+
+/**
+ * Checks that the solver statistics are reported to progress handlers
+ */
+public class SolverProgressTests extends JUnitTests {
+
+	@Test(timeout = 300000)
+	public void progressHandlerTest() {
+		final List<SolverStatistics> reports = new ArrayList<SolverStatistics>();
+		Infoflow infoflow = initInfoflow();
+		infoflow.setProgressInterval(1);
+		infoflow.addSolverProgressHandler(new SolverProgressHandler() {
+			
+			@Override
+			public void onSolverProgress(SolverStatistics forwardStatistics,
+					SolverStatistics backwardStatistics) {
+				synchronized (reports) {
+					reports.add(forwardStatistics);
+				}
+			}
+			
+		});
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		checkInfoflow(infoflow, 2);
+		
+		// The handlers are always called once after the solver has finished
+		SolverStatistics last;
+		synchronized (reports) {
+			assertTrue(reports.size() > 0);
+			last = reports.get(reports.size() - 1);
+		}
+		assertNotNull(last);
+		assertTrue(last.getPropagationCount() > 0);
+		assertTrue(last.getJumpFunctionCount() > 0);
+		assertTrue(last.getFlowFunctionCalls(FlowFunctionType.NormalFlowFunction) > 0);
+		
+		// Counters never decrease
+		synchronized (reports) {
+			for (int i = 1; i < reports.size(); i++)
+				assertTrue(reports.get(i).getPropagationCount()
+						>= reports.get(i - 1).getPropagationCount());
+		}
+	}
+
+}
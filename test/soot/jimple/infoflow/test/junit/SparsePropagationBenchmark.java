@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.test.synthetic.SyntheticProgramGenerator;
+
+/**
+ * Analyzes generated programs of increasing size once with dense and once
+ * with sparse propagation and reports the number of edges, the throughput,
+ * the peak heap usage and the wall time side by side. Both runs must find
+ * the same source-to-sink connections.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class SparsePropagationBenchmark extends SyntheticBenchmarkBase {
+
+	private static final int[] METHODS_PER_LEVEL = { 10, 40, 160 };
+
+	private Measurement measure(int methodsPerLevel, boolean enableSparsePropagation) {
+		SyntheticProgramGenerator generator = createGenerator(methodsPerLevel);
+		Infoflow infoflow = createInfoflow();
+		infoflow.setEnableSparsePropagation(enableSparsePropagation);
+		return measure(generator, infoflow);
+	}
+
+	@Test
+	public void denseVersusSparse() {
+		// Warm up the JIT on the smallest program
+		measure(METHODS_PER_LEVEL[0], false);
+		measure(METHODS_PER_LEVEL[0], true);
+
+		System.out.println("Dense versus sparse propagation on synthetic programs "
+				+ "(call depth " + CALL_DEPTH + ", fan-out " + FAN_OUT + "):");
+		for (int methodsPerLevel : METHODS_PER_LEVEL) {
+			Measurement dense = measure(methodsPerLevel, false);
+			Measurement sparse = measure(methodsPerLevel, true);
+			System.out.println(String.format("%6d methods per level, dense:  %s",
+					methodsPerLevel, dense));
+			System.out.println(String.format("%6d methods per level, sparse: %s",
+					methodsPerLevel, sparse));
+			System.out.println(String.format("%6d methods per level, sparse propagates "
+					+ "%.1f%% of the dense forward edges",
+					methodsPerLevel, 100.0 * sparse.forwardEdges / dense.forwardEdges));
+			assertEquals(dense.results, sparse.results);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.handlers.SolverProgressHandler;
+import soot.jimple.infoflow.solver.fastSolver.SolverStatistics;
+
+/**
+ * Checks that sparse propagation yields exactly the same results as visiting
+ * every statement, and that it does not propagate more edges
+ */
+public class SparsePropagationTests extends JUnitTests {
+
+	/**
+	 * Handler that remembers the number of edges of the forward solver. The
+	 * last call happens after the solver has finished.
+	 */
+	private static class EdgeCountHandler implements SolverProgressHandler {
+
+		private volatile long edgeCount = 0;
+
+		@Override
+		public void onSolverProgress(SolverStatistics forwardStatistics,
+				SolverStatistics backwardStatistics) {
+			edgeCount = forwardStatistics.getPropagationCount();
+		}
+
+	}
+
+	private void checkSameResults(String entryPoint) {
+		final EdgeCountHandler denseHandler = new EdgeCountHandler();
+		final EdgeCountHandler sparseHandler = new EdgeCountHandler();
+		checkSameResults(entryPoint, new InfoflowConfigurator() {
+
+			@Override
+			public void configure(Infoflow infoflow, boolean enabled) {
+				infoflow.setEnableSparsePropagation(enabled);
+				infoflow.addSolverProgressHandler(enabled ? sparseHandler : denseHandler);
+			}
+
+		});
+		assertTrue(sparseHandler.edgeCount <= denseHandler.edgeCount);
+	}
+
+	@Test(timeout = 300000)
+	public void forLoopTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void testForLoop()>");
+	}
+
+	@Test(timeout = 300000)
+	public void aliasTest() {
+		checkSameResults("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>");
+	}
+
+	@Test(timeout = 300000)
+	public void fieldTest() {
+		checkSameResults("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>");
+	}
+
+	@Test(timeout = 300000)
+	public void staticFieldTest() {
+		checkSameResults("<soot.jimple.infoflow.test.StaticTestCode: void staticTest()>");
+	}
+
+	@Test(timeout = 300000)
+	public void loopPathTest() {
+		checkSameResults("<soot.jimple.infoflow.test.MultiTestCode: void loopPathTestCode1()>");
+	}
+
+}
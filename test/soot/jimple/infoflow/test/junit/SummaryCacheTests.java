@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import soot.Body;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Transform;
+import soot.jimple.Jimple;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.data.AccessPath;
+import soot.jimple.infoflow.solver.InfoflowCFG;
+import soot.jimple.infoflow.summaries.AccessPathTemplate;
+import soot.jimple.infoflow.summaries.MethodSummaryStore;
+import soot.jimple.infoflow.summaries.MethodSummaryStore.ExitTemplate;
+import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+
+/**
+ * Checks that library summaries cached by a previous run and the state kept
+ * for incremental re-analysis yield the same results as analyzing the methods
+ * again
+ */
+public class SummaryCacheTests extends JUnitTests {
+
+	private Infoflow runTwice(String entryPoint, int resultCount, boolean incremental)
+			throws IOException {
+		return runTwice(entryPoint, resultCount, incremental, null);
+	}
+
+	/**
+	 * Analyzes the given entry point twice with the same summary file
+	 * @param secondRunPreProcessor A transformation that changes the program
+	 * before the second run, or null to analyze the same program again
+	 * @return The data flow analysis of the second run
+	 */
+	private Infoflow runTwice(String entryPoint, int resultCount, boolean incremental,
+			Transform secondRunPreProcessor) throws IOException {
+		File cacheFile = File.createTempFile("summaries", ".bin");
+		cacheFile.delete();
+		try {
+			Infoflow infoflow = null;
+			for (int i = 0; i < 2; i++) {
+				soot.G.reset();
+				infoflow = initInfoflow();
+				if (incremental)
+					infoflow.setIncrementalStateFile(cacheFile.getPath());
+				else
+					infoflow.setSummaryCacheFile(cacheFile.getPath());
+				if (i == 1 && secondRunPreProcessor != null)
+					infoflow.setPreProcessors(Collections.singleton(secondRunPreProcessor));
+				List<String> epoints = new ArrayList<String>();
+				epoints.add(entryPoint);
+				infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+				checkInfoflow(infoflow, resultCount);
+			}
+			return infoflow;
+		}
+		finally {
+			cacheFile.delete();
+		}
+	}
+
+	@Test(timeout = 300000)
+	public void listTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.ListTestCode: void writeReadTest()>", 1, false);
+	}
+
+	@Test(timeout = 300000)
+	public void concreteArrayListTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.ListTestCode: void concreteWriteReadPos0Test()>", 1, false);
+	}
+
+	@Test(timeout = 300000)
+	public void aliasThroughLibraryTest() throws IOException {
+		// The alias is only found if the library method is analyzed again
+		runTwice("<soot.jimple.infoflow.test.HeapTestCode: void aliasThroughLibraryTest()>", 1, false);
+	}
+
+	@Test(timeout = 300000)
+	public void calleeChangeTest() throws IOException {
+		// Analyze the program once to get a callgraph
+		Infoflow infoflow = initInfoflow();
+		List<String> epoints = new ArrayList<String>();
+		epoints.add("<soot.jimple.infoflow.test.HeapTestCode: void aliasThroughLibraryTest()>");
+		infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+		InfoflowCFG icfg = new InfoflowCFG();
+
+		SootMethod caller = Scene.v().getMethod(epoints.get(0));
+		SootMethod callee = Scene.v().getMethod(sink);
+		AccessPathTemplate entry = AccessPathTemplate.fromAccessPath(new AccessPath(
+				caller.getActiveBody().getThisLocal(), true));
+
+		File cacheFile = File.createTempFile("summaries", ".bin");
+		cacheFile.delete();
+		try {
+			MethodSummaryStore store = new MethodSummaryStore(cacheFile, "", icfg);
+			store.addSummary(caller, entry, Collections.<ExitTemplate>emptySet());
+			store.save();
+
+			// The summary is reused as long as nothing changes
+			store = new MethodSummaryStore(cacheFile, "", icfg);
+			assertNotNull(store.getSummary(caller, entry));
+
+			// Changing the callee must drop the summary of the caller
+			Body body = callee.getActiveBody();
+			body.getUnits().insertBefore(Jimple.v().newNopStmt(), body.getUnits().getLast());
+			store = new MethodSummaryStore(cacheFile, "", icfg);
+			assertNull(store.getSummary(caller, entry));
+			assertEquals(1, store.getInvalidatedCount());
+		}
+		finally {
+			cacheFile.delete();
+		}
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalListTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.ListTestCode: void writeReadTest()>", 1, true);
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalHeapTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.HeapTestCode: void methodTest1()>", 1, true);
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalAliasTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.HeapTestCode: void aliasThroughSetterTest()>", 1, true);
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalReuseTest() throws IOException {
+		Infoflow infoflow = runTwice("<soot.jimple.infoflow.test.OtherTestCode: void multiCallTest()>",
+				2, true);
+		assertTrue(infoflow.getSummaryStore().getHitCount() > 0);
+		assertEquals(0, infoflow.getSummaryStore().getInvalidatedCount());
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalChangeTest() throws IOException {
+		// Changing x() must invalidate the summaries of x() and its caller
+		// annotate()
+		Transform changeCallee = new Transform("wjtp.changeCallee", null) {
+
+			@Override
+			public void apply() {
+				// Rename a local, as the dead code elimination drops nops
+				Body body = Scene.v().getMethod("<soot.jimple.infoflow.test.OtherTestCode: "
+						+ "java.lang.String x(java.lang.String)>").getActiveBody();
+				body.getParameterLocal(0).setName("changed");
+			}
+
+		};
+		Infoflow infoflow = runTwice("<soot.jimple.infoflow.test.OtherTestCode: void multiCallTest()>",
+				2, true, changeCallee);
+		assertEquals(2, infoflow.getSummaryStore().getInvalidatedCount());
+	}
+
+	@Test(timeout = 300000)
+	public void taintWrapperChangeTest() throws IOException {
+		// Summaries computed under other taint wrapper rules must not be
+		// reused
+		File cacheFile = File.createTempFile("summaries", ".bin");
+		cacheFile.delete();
+		try {
+			Infoflow infoflow = null;
+			for (int i = 0; i < 2; i++) {
+				soot.G.reset();
+				infoflow = initInfoflow(true);
+				if (i == 1)
+					((EasyTaintWrapper) infoflow.getTaintWrapper()).addMethodForWrapping(
+							"java.lang.String", "java.lang.String trim()");
+				infoflow.setIncrementalStateFile(cacheFile.getPath());
+				List<String> epoints = new ArrayList<String>();
+				epoints.add("<soot.jimple.infoflow.test.OtherTestCode: void multiCallTest()>");
+				infoflow.computeInfoflow(appPath, libPath, epoints, sources, sinks);
+				checkInfoflow(infoflow, 2);
+			}
+			assertEquals(0, infoflow.getSummaryStore().getHitCount());
+		}
+		finally {
+			cacheFile.delete();
+		}
+	}
+
+	@Test(timeout = 300000)
+	public void incrementalFieldTest() throws IOException {
+		runTwice("<soot.jimple.infoflow.test.OtherTestCode: void testWithField()>", 2, true);
+	}
+
+}
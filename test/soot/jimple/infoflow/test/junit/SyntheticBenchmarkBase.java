@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Set;
+
+import soot.jimple.infoflow.DefaultBiDiICFGFactory;
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.config.ConfigForTest;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory;
+import soot.jimple.infoflow.data.pathBuilders.DefaultPathBuilderFactory.PathBuilder;
+import soot.jimple.infoflow.handlers.SolverProgressHandler;
+import soot.jimple.infoflow.solver.fastSolver.SolverStatistics;
+import soot.jimple.infoflow.test.synthetic.SyntheticProgramGenerator;
+
+/**
+ * Common base class for the benchmarks that run the data flow analysis on
+ * generated programs. It creates the programs and the analysis and measures
+ * a single run.
+ */
+public abstract class SyntheticBenchmarkBase extends JUnitTests {
+
+	protected static final int CALL_DEPTH = 6;
+	protected static final int FAN_OUT = 3;
+
+	/**
+	 * Handler that keeps the final statistics of the solvers. The last call
+	 * happens after the forward solver has finished.
+	 */
+	private static class StatisticsHandler implements SolverProgressHandler {
+
+		private volatile SolverStatistics forwardStatistics;
+		private volatile SolverStatistics backwardStatistics;
+
+		@Override
+		public void onSolverProgress(SolverStatistics forwardStatistics,
+				SolverStatistics backwardStatistics) {
+			this.forwardStatistics = forwardStatistics;
+			this.backwardStatistics = backwardStatistics;
+		}
+
+	}
+
+	/**
+	 * The figures measured for a single analysis run
+	 */
+	protected static class Measurement {
+
+		protected long forwardEdges;
+		protected long backwardEdges;
+		protected double edgesPerSecond;
+		protected long peakHeap;
+		protected long wallTime;
+		protected Set<String> results;
+
+		@Override
+		public String toString() {
+			return String.format("%10d fwd edges, %10d bwd edges, %12.0f edges/s, "
+					+ "%6d MB peak heap, %8.0f ms wall time, %d results",
+					forwardEdges, backwardEdges, edgesPerSecond,
+					peakHeap / (1024 * 1024), wallTime / 1E6, results.size());
+		}
+
+	}
+
+	private void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+
+	/**
+	 * Gets the peak heap usage since the last reset. The peaks of the single
+	 * pools need not have occurred at the same time, so this is an upper
+	 * bound.
+	 */
+	private long getPeakHeap() {
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+
+	/**
+	 * Creates the generator for a program with the given number of methods
+	 * on every call level
+	 */
+	protected SyntheticProgramGenerator createGenerator(int methodsPerLevel) {
+		SyntheticProgramGenerator generator = new SyntheticProgramGenerator();
+		generator.setCallDepth(CALL_DEPTH);
+		generator.setFanOut(FAN_OUT);
+		generator.setMethodsPerLevel(methodsPerLevel);
+		generator.setSourceCount(methodsPerLevel / 2);
+		generator.setSinkCount(methodsPerLevel / 2);
+		generator.setAliasDensity(0.2);
+		generator.setRecursion(true);
+		return generator;
+	}
+
+	/**
+	 * Creates a data flow analysis with the default options for the
+	 * benchmarks
+	 */
+	protected Infoflow createInfoflow() {
+		soot.G.reset();
+		System.gc();
+		// The generated programs contain a lot of paths between the sources
+		// and sinks. We are only interested in the solvers, so we do not
+		// reconstruct them.
+		Infoflow infoflow = new Infoflow("", false, new DefaultBiDiICFGFactory(),
+				new DefaultPathBuilderFactory(PathBuilder.ContextInsensitiveSourceFinder, false));
+		infoflow.setSootConfig(new ConfigForTest());
+		return infoflow;
+	}
+
+	/**
+	 * Runs the given data flow analysis on the given generated program
+	 * @param generator The generator for the program to analyze
+	 * @param infoflow The data flow analysis to run
+	 * @return The figures measured for the run
+	 */
+	protected Measurement measure(SyntheticProgramGenerator generator, Infoflow infoflow) {
+		StatisticsHandler handler = new StatisticsHandler();
+		infoflow.addSolverProgressHandler(handler);
+
+		resetPeakHeap();
+		long beforeAnalysis = System.nanoTime();
+		infoflow.computeInfoflow(appPath, libPath, generator,
+				generator.getSources(), generator.getSinks());
+		Measurement measurement = new Measurement();
+		measurement.wallTime = System.nanoTime() - beforeAnalysis;
+		measurement.peakHeap = getPeakHeap();
+
+		assertTrue(infoflow.isResultAvailable());
+		SolverStatistics fwd = handler.forwardStatistics;
+		SolverStatistics bwd = handler.backwardStatistics;
+		measurement.forwardEdges = fwd.getPropagationCount();
+		measurement.backwardEdges = bwd == null ? 0 : bwd.getPropagationCount();
+		long edges = measurement.forwardEdges + measurement.backwardEdges;
+		measurement.edgesPerSecond = fwd.getElapsedNanos() == 0 ? 0
+				: edges / (fwd.getElapsedNanos() / 1E9);
+
+		measurement.results = getResultStrings(infoflow);
+		return measurement;
+	}
+
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.junit;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.test.synthetic.SyntheticProgramGenerator;
+
+/**
+ * Runs the data flow analysis on generated programs of increasing size with
+ * different numbers of threads and reports the solver throughput, the peak
+ * heap usage and the wall time of every run. Note that the analysis never
+ * uses more threads than there are processors.
+ *
+ * This is not part of the regular test suite. Run it with "ant runbenchmarks".
+ */
+public class SyntheticScalingBenchmark extends SyntheticBenchmarkBase {
+
+	private static final int[] METHODS_PER_LEVEL = { 10, 40, 160 };
+	private static final int[] THREADS = { 1, 2, 4, 8 };
+
+	private void measure(int methodsPerLevel, int threads) {
+		SyntheticProgramGenerator generator = createGenerator(methodsPerLevel);
+		Infoflow infoflow = createInfoflow();
+		infoflow.setMaxThreadNum(threads);
+		Measurement measurement = measure(generator, infoflow);
+		System.out.println(String.format("%6d methods, %2d threads: %s",
+				generator.getMethodCount(), threads, measurement));
+	}
+
+	@Test
+	public void scalingSweep() {
+		// Warm up the JIT on the smallest program
+		measure(METHODS_PER_LEVEL[0], 1);
+
+		System.out.println("Scaling on synthetic programs (call depth " + CALL_DEPTH
+				+ ", fan-out " + FAN_OUT + "):");
+		for (int methodsPerLevel : METHODS_PER_LEVEL)
+			for (int threads : THREADS)
+				measure(methodsPerLevel, threads);
+	}
+
+}
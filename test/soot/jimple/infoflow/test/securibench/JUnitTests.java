@@ -14,22 +14,27 @@ package soot.jimple.infoflow.test.securibench;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static soot.jimple.infoflow.test.junit.JUnitTests.getResultStrings;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import soot.jimple.infoflow.IInfoflow.SolverPoolMode;
 import soot.jimple.infoflow.Infoflow;
 import soot.jimple.infoflow.config.ConfigSecuriBench;
 import soot.jimple.infoflow.entryPointCreators.DefaultEntryPointCreator;
 import soot.jimple.infoflow.entryPointCreators.IEntryPointCreator;
 import soot.jimple.infoflow.results.InfoflowResults;
 import soot.jimple.infoflow.taintWrappers.EasyTaintWrapper;
+import soot.jimple.infoflow.test.junit.JUnitTests.InfoflowConfigurator;
 
 public abstract class JUnitTests {
 
@@ -157,6 +162,35 @@ public abstract class JUnitTests {
 			}
 	  }
     
+    /**
+     * Runs the data flow analysis on the given entry point
+     * @param entryPoint The entry point from which to start the analysis
+     * @param configurator The configurator for the option under test
+     * @param enabled True if the option shall be enabled, otherwise false
+     * @return The source-to-sink connections found by the analysis
+     */
+    protected Set<String> computeResults(String entryPoint,
+    		InfoflowConfigurator configurator, boolean enabled) {
+    	soot.G.reset();
+    	List<String> epoints = new ArrayList<String>();
+    	epoints.add(entryPoint);
+    	Infoflow infoflow = initInfoflow(epoints);
+    	configurator.configure(infoflow, enabled);
+    	infoflow.computeInfoflow(appPath, libPath, entryPointCreator, sources, sinks);
+    	return getResultStrings(infoflow);
+    }
+    
+    /**
+     * Checks that the data flow analysis finds the same source-to-sink
+     * connections on the given entry point with and without an option
+     * @param entryPoint The entry point from which to start the analysis
+     * @param configurator The configurator for the option under test
+     */
+    protected void checkSameResults(String entryPoint, InfoflowConfigurator configurator) {
+    	assertEquals(computeResults(entryPoint, configurator, false),
+    			computeResults(entryPoint, configurator, true));
+    }
+    
     protected Infoflow initInfoflow(List<String> entryPoints) {
     	List<String> substClasses = new LinkedList<String>();
     	substClasses.add("soot.jimple.infoflow.test.securibench.supportClasses.DummyHttpRequest");
@@ -171,6 +205,15 @@ public abstract class JUnitTests {
 
     	result.setSootConfig(new ConfigSecuriBench());
     	result.setInspectSinks(false);
+    	result.setEnableMergePointChecking(Boolean.getBoolean("infoflow.mergePointChecking"));
+    	result.setEnableSparsePropagation(Boolean.getBoolean("infoflow.sparsePropagation"));
+    	result.setEnableAbstractionCanonicalization(Boolean.getBoolean("infoflow.canonicalAbstractions"));
+    	result.setEnableResultsOnlyMode(Boolean.getBoolean("infoflow.resultsOnly"));
+    	result.setEnableSinkFirstAnalysis(Boolean.getBoolean("infoflow.sinkFirst"));
+    	result.setEnableLazyPathReconstruction(Boolean.getBoolean("infoflow.lazyPaths"));
+    	result.setSolverPoolMode(SolverPoolMode.valueOf(System.getProperty(
+    			"infoflow.solverPoolMode", SolverPoolMode.Shared.name())));
+    	result.setShardCount(Integer.getInteger("infoflow.shardCount", 1));
     	if(taintWrapper){
     		EasyTaintWrapper easyWrapper;
 			try {
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.securibench;
+
+import org.junit.Test;
+
+import soot.jimple.infoflow.Infoflow;
+import soot.jimple.infoflow.test.junit.JUnitTests.InfoflowConfigurator;
+
+/**
+ * Checks that recording jump functions only at merge points yields exactly
+ * the same results as recording all jump functions
+ */
+public class MergePointCheckingTests extends JUnitTests {
+
+	private static final InfoflowConfigurator MERGE_POINT_CHECKING = new InfoflowConfigurator() {
+
+		@Override
+		public void configure(Infoflow infoflow, boolean enabled) {
+			infoflow.setEnableMergePointChecking(enabled);
+		}
+
+	};
+
+	@Test(timeout = 300000)
+	public void basic18() {
+		checkSameResults("<securibench.micro.basic.Basic18: void doGet(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void inter14() {
+		checkSameResults("<securibench.micro.inter.Inter14: void doGet(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)>",
+				MERGE_POINT_CHECKING);
+	}
+
+	@Test(timeout = 300000)
+	public void datastructures5() {
+		checkSameResults("<securibench.micro.datastructures.Datastructures5: void doGet(javax.servlet.http.HttpServletRequest,javax.servlet.http.HttpServletResponse)>",
+				MERGE_POINT_CHECKING);
+	}
+
+}
@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright (c) 2012 Secure Software Engineering Group at EC SPRIDE.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ *
+ * Contributors: Christian Fritz, Steven Arzt, Siegfried Rasthofer, Eric
+ * Bodden, and others.
+ ******************************************************************************/
+package soot.jimple.infoflow.test.synthetic;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import soot.Body;
+import soot.Local;
+import soot.Modifier;
+import soot.RefType;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Type;
+import soot.VoidType;
+import soot.jimple.Jimple;
+import soot.jimple.JimpleBody;
+import soot.jimple.StringConstant;
+import soot.jimple.infoflow.entryPointCreators.BaseEntryPointCreator;
+
+/**
+ * Entry point creator that does not call into existing code, but generates a
+ * synthetic program directly in the Soot scene and calls it from the dummy
+ * main method. This allows for creating programs of arbitrary size for
+ * scaling experiments.
+ *
+ * The program consists of a number of levels of static methods. Every method
+ * calls a number of methods on the next level, passing on a shared heap
+ * object. Sources write into this object, sinks read from it. Some methods
+ * additionally write through an alias of the object to trigger the alias
+ * analysis. Since the generated code is never executed, recursive calls need
+ * no termination condition.
+ *
+ * The program is generated anew whenever the dummy main method is created,
+ * i.e. once per data flow analysis. For the same parameters and seed, the
+ * generated program is always the same.
+ */
+public class SyntheticProgramGenerator extends BaseEntryPointCreator {
+
+	private static final String PACKAGE_NAME = "synthetic";
+	private static final String NODE_CLASS = PACKAGE_NAME + ".Node";
+	private static final String SOURCE_CLASS = PACKAGE_NAME + ".Sources";
+	private static final String SINK_CLASS = PACKAGE_NAME + ".Sinks";
+	private static final String PROGRAM_CLASS = PACKAGE_NAME + ".Program";
+
+	private int callDepth = 5;
+	private int methodsPerLevel = 10;
+	private int fanOut = 2;
+	private int sourceCount = 5;
+	private int sinkCount = 5;
+	private double aliasDensity = 0.2;
+	private boolean recursion = false;
+	private long seed = 42;
+
+	private SootField valueField;
+	private SootField otherField;
+	private SootMethod sourceMethod;
+	private SootMethod sinkMethod;
+
+	/**
+	 * Sets the number of levels of methods below the dummy main method
+	 * @param callDepth The depth of the call tree
+	 */
+	public void setCallDepth(int callDepth) {
+		if (callDepth < 1)
+			throw new RuntimeException("Call depth must be at least 1");
+		this.callDepth = callDepth;
+	}
+
+	/**
+	 * Sets the number of methods on every level of the call tree
+	 * @param methodsPerLevel The number of methods per level
+	 */
+	public void setMethodsPerLevel(int methodsPerLevel) {
+		if (methodsPerLevel < 1)
+			throw new RuntimeException("There must be at least one method per level");
+		this.methodsPerLevel = methodsPerLevel;
+	}
+
+	/**
+	 * Sets the number of methods on the next level that every method calls
+	 * @param fanOut The number of outgoing calls per method
+	 */
+	public void setFanOut(int fanOut) {
+		this.fanOut = fanOut;
+	}
+
+	/**
+	 * Sets the number of source calls in the generated program. The calls
+	 * are distributed randomly over all methods.
+	 * @param sourceCount The number of source calls
+	 */
+	public void setSourceCount(int sourceCount) {
+		this.sourceCount = sourceCount;
+	}
+
+	/**
+	 * Sets the number of sink calls in the generated program. The calls are
+	 * distributed randomly over all methods.
+	 * @param sinkCount The number of sink calls
+	 */
+	public void setSinkCount(int sinkCount) {
+		this.sinkCount = sinkCount;
+	}
+
+	/**
+	 * Sets the probability with which a method writes to the heap through an
+	 * alias and passes the alias on to its callees
+	 * @param aliasDensity The probability, between 0 and 1
+	 */
+	public void setAliasDensity(double aliasDensity) {
+		if (aliasDensity < 0 || aliasDensity > 1)
+			throw new RuntimeException("Alias density must be between 0 and 1");
+		this.aliasDensity = aliasDensity;
+	}
+
+	/**
+	 * Sets whether the methods on the last level shall call back into
+	 * methods on the earlier levels
+	 * @param recursion True to generate recursive calls, otherwise false
+	 */
+	public void setRecursion(boolean recursion) {
+		this.recursion = recursion;
+	}
+
+	/**
+	 * Sets the seed for the random choices made when generating the program
+	 * @param seed The seed for the random number generator
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Gets the number of methods in the generated program, not counting the
+	 * dummy main method and the sources and sinks
+	 * @return The number of generated methods
+	 */
+	public int getMethodCount() {
+		return callDepth * methodsPerLevel;
+	}
+
+	/**
+	 * Gets the signatures of the source methods in the generated program
+	 * @return The source methods to pass to the data flow analysis
+	 */
+	public List<String> getSources() {
+		return Collections.singletonList("<" + SOURCE_CLASS + ": java.lang.String source()>");
+	}
+
+	/**
+	 * Gets the signatures of the sink methods in the generated program
+	 * @return The sink methods to pass to the data flow analysis
+	 */
+	public List<String> getSinks() {
+		return Collections.singletonList("<" + SINK_CLASS + ": void sink(java.lang.String)>");
+	}
+
+	@Override
+	public Collection<String> getRequiredClasses() {
+		// The generated classes do not exist on disk
+		return Collections.singletonList("<java.lang.Object: void <init>()>");
+	}
+
+	@Override
+	protected SootMethod createDummyMainInternal(SootMethod mainMethod) {
+		Random rnd = new Random(seed);
+		createLibraryClasses();
+
+		// Create all methods first, so that we can call them from anywhere
+		SootClass programClass = createClass(PROGRAM_CLASS);
+		SootMethod[][] methods = new SootMethod[callDepth][methodsPerLevel];
+		for (int level = 0; level < callDepth; level++)
+			for (int i = 0; i < methodsPerLevel; i++) {
+				methods[level][i] = new SootMethod("m" + level + "_" + i,
+						Collections.<Type>singletonList(RefType.v(NODE_CLASS)),
+						VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+				programClass.addMethod(methods[level][i]);
+			}
+
+		// Distribute the sources and sinks
+		int[][] sources = new int[callDepth][methodsPerLevel];
+		for (int i = 0; i < sourceCount; i++)
+			sources[rnd.nextInt(callDepth)][rnd.nextInt(methodsPerLevel)]++;
+		int[][] sinks = new int[callDepth][methodsPerLevel];
+		for (int i = 0; i < sinkCount; i++)
+			sinks[rnd.nextInt(callDepth)][rnd.nextInt(methodsPerLevel)]++;
+
+		for (int level = 0; level < callDepth; level++)
+			for (int i = 0; i < methodsPerLevel; i++)
+				createMethodBody(methods, level, i, sources[level][i],
+						sinks[level][i], rnd);
+
+		// The dummy main method creates the shared objects and calls all
+		// methods on the first level
+		Body body = mainMethod.getActiveBody();
+		Local node = newLocal(body, "n", RefType.v(NODE_CLASS));
+		Local other = newLocal(body, "o", RefType.v(NODE_CLASS));
+		body.getUnits().add(Jimple.v().newAssignStmt(node,
+				Jimple.v().newNewExpr(RefType.v(NODE_CLASS))));
+		body.getUnits().add(Jimple.v().newAssignStmt(other,
+				Jimple.v().newNewExpr(RefType.v(NODE_CLASS))));
+		body.getUnits().add(Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef
+				(node, otherField.makeRef()), other));
+		for (int i = 0; i < methodsPerLevel; i++)
+			body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr
+					(methods[0][i].makeRef(), node)));
+		body.getUnits().add(Jimple.v().newReturnVoidStmt());
+
+		return mainMethod;
+	}
+
+	/**
+	 * Creates the class for the shared heap objects and the classes containing
+	 * the source and sink methods
+	 */
+	private void createLibraryClasses() {
+		SootClass nodeClass = createClass(NODE_CLASS);
+		valueField = new SootField("value", RefType.v("java.lang.String"));
+		nodeClass.addField(valueField);
+		otherField = new SootField("other", RefType.v(NODE_CLASS));
+		nodeClass.addField(otherField);
+
+		SootClass sourceClass = createClass(SOURCE_CLASS);
+		sourceMethod = new SootMethod("source", Collections.<Type>emptyList(),
+				RefType.v("java.lang.String"), Modifier.PUBLIC | Modifier.STATIC);
+		sourceClass.addMethod(sourceMethod);
+		JimpleBody sourceBody = Jimple.v().newBody(sourceMethod);
+		sourceMethod.setActiveBody(sourceBody);
+		sourceBody.getUnits().add(Jimple.v().newReturnStmt(StringConstant.v("secret")));
+
+		SootClass sinkClass = createClass(SINK_CLASS);
+		sinkMethod = new SootMethod("sink",
+				Collections.<Type>singletonList(RefType.v("java.lang.String")),
+				VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+		sinkClass.addMethod(sinkMethod);
+		JimpleBody sinkBody = Jimple.v().newBody(sinkMethod);
+		sinkMethod.setActiveBody(sinkBody);
+		Local param = newLocal(sinkBody, "p", RefType.v("java.lang.String"));
+		sinkBody.getUnits().add(Jimple.v().newIdentityStmt(param,
+				Jimple.v().newParameterRef(param.getType(), 0)));
+		sinkBody.getUnits().add(Jimple.v().newReturnVoidStmt());
+	}
+
+	private SootClass createClass(String className) {
+		SootClass sc = new SootClass(className, Modifier.PUBLIC);
+		sc.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+		Scene.v().addClass(sc);
+		// addClass makes the class a library class
+		sc.setApplicationClass();
+		return sc;
+	}
+
+	private Local newLocal(Body body, String name, Type type) {
+		Local local = Jimple.v().newLocal(name, type);
+		body.getLocals().add(local);
+		return local;
+	}
+
+	/**
+	 * Generates the body of a method in the call tree
+	 * @param methods All methods in the call tree
+	 * @param level The level of the method for which to generate the body
+	 * @param index The index of the method within its level
+	 * @param sourceCount The number of source calls in the method
+	 * @param sinkCount The number of sink calls in the method
+	 * @param rnd The random number generator for the remaining choices
+	 */
+	private void createMethodBody(SootMethod[][] methods, int level, int index,
+			int sourceCount, int sinkCount, Random rnd) {
+		SootMethod method = methods[level][index];
+		JimpleBody body = Jimple.v().newBody(method);
+		method.setActiveBody(body);
+
+		Local node = newLocal(body, "n", RefType.v(NODE_CLASS));
+		body.getUnits().add(Jimple.v().newIdentityStmt(node,
+				Jimple.v().newParameterRef(node.getType(), 0)));
+
+		for (int i = 0; i < sourceCount; i++) {
+			Local src = newLocal(body, "src" + i, RefType.v("java.lang.String"));
+			body.getUnits().add(Jimple.v().newAssignStmt(src,
+					Jimple.v().newStaticInvokeExpr(sourceMethod.makeRef())));
+			body.getUnits().add(Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef
+					(node, valueField.makeRef()), src));
+		}
+
+		// Copy the value into the other object through a local alias. The
+		// alias analysis must then find the original field access.
+		Local alias = null;
+		if (rnd.nextDouble() < aliasDensity) {
+			Local other = newLocal(body, "o", RefType.v(NODE_CLASS));
+			alias = newLocal(body, "a", RefType.v(NODE_CLASS));
+			Local value = newLocal(body, "v", RefType.v("java.lang.String"));
+			body.getUnits().add(Jimple.v().newAssignStmt(other,
+					Jimple.v().newInstanceFieldRef(node, otherField.makeRef())));
+			body.getUnits().add(Jimple.v().newAssignStmt(alias, other));
+			body.getUnits().add(Jimple.v().newAssignStmt(value,
+					Jimple.v().newInstanceFieldRef(node, valueField.makeRef())));
+			body.getUnits().add(Jimple.v().newAssignStmt(Jimple.v().newInstanceFieldRef
+					(alias, valueField.makeRef()), value));
+		}
+
+		// Call the methods on the next level
+		if (level < callDepth - 1)
+			for (int i = 0; i < fanOut; i++) {
+				SootMethod callee = methods[level + 1][rnd.nextInt(methodsPerLevel)];
+				Local arg = alias != null && rnd.nextBoolean() ? alias : node;
+				body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr
+						(callee.makeRef(), arg)));
+			}
+		else if (recursion && callDepth > 1) {
+			SootMethod callee = methods[rnd.nextInt(callDepth - 1)][rnd.nextInt(methodsPerLevel)];
+			body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr
+					(callee.makeRef(), node)));
+		}
+
+		for (int i = 0; i < sinkCount; i++) {
+			Local snk = newLocal(body, "snk" + i, RefType.v("java.lang.String"));
+			body.getUnits().add(Jimple.v().newAssignStmt(snk,
+					Jimple.v().newInstanceFieldRef(node, valueField.makeRef())));
+			body.getUnits().add(Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr
+					(sinkMethod.makeRef(), snk)));
+		}
+
+		body.getUnits().add(Jimple.v().newReturnVoidStmt());
+	}
+
+}